@@ -31,4 +31,9 @@ public class GraphQLEventPublisher implements EventPublisher {
         this.subscribers.add(subscriber);
     }
 
+    @Override
+    public boolean requiresSourceInstance() {
+        // subscribers are notified with (and authorized against) live instances
+        return true;
+    }
 }
@@ -92,7 +92,7 @@ public class ElasticEventPublisher implements EventPublisher {
 
                     request = new Request(
                             "PUT",
-                            "/" + pevent.getData().sourceInstance().process().id() + "/_doc/" + pevent.getData().getId());
+                            "/" + pevent.getData().definitionId() + "/_doc/" + pevent.getData().getId());
                     request.setJsonEntity(mapper.writeValueAsString(payload));
 
                     sendRequest(request, event);
@@ -107,4 +107,10 @@ public class WebSocketEventPublisher implements EventPublisher {
     public void remove(String id) {
         this.sessions.remove(id);
     }
+
+    @Override
+    public boolean requiresSourceInstance() {
+        // subscribers are notified with (and authorized against) live instances
+        return true;
+    }
 }
@@ -3,10 +3,16 @@ package io.automatiko.addon.files.filesystem;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -18,6 +24,9 @@ import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
+import io.automatiko.engine.api.workflow.files.ByteRange;
+import io.automatiko.engine.api.workflow.files.RangeInputStream;
+import io.automatiko.engine.workflow.file.ByteArrayFile;
 
 @ApplicationScoped
 public class FileStore {
@@ -51,12 +60,53 @@ public class FileStore {
         }
     }
 
+    public void save(InputStream content, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        Path path = createPath(processId, processVersion, processInstanceId, name);
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (OutputStream output = codec.encode(Files.newOutputStream(path))) {
+                content.transferTo(output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Saves content of given file, content is streamed so files that are not loaded into memory (e.g. kept in
+     * other store or in temporary file) are not loaded while being saved
+     */
+    public void save(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        try (InputStream content = file.openStream()) {
+            save(content, processId, processVersion, processInstanceId, name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void replace(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        remove(processId, processVersion, processInstanceId, name);
+
+        save(file, processId, processVersion, processInstanceId, name);
+    }
+
     public void replace(byte[] content, String processId, String processVersion, String processInstanceId, String... name) {
         remove(processId, processVersion, processInstanceId, name);
 
         save(content, processId, processVersion, processInstanceId, name);
     }
 
+    public void replace(InputStream content, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        remove(processId, processVersion, processInstanceId, name);
+
+        save(content, processId, processVersion, processInstanceId, name);
+    }
+
     public void remove(String processId, String processVersion, String processInstanceId, String... name) {
 
         Path path = createPath(processId, processVersion, processInstanceId, name);
@@ -74,9 +124,7 @@ public class FileStore {
     }
 
     public byte[] content(String url) {
-        String items = url.replaceFirst(serviceUrl, "");
-
-        Path path = Paths.get(store, items.split("/"));
+        Path path = pathOf(url);
 
         if (Files.exists(path)) {
             try {
@@ -104,6 +152,126 @@ public class FileStore {
         }
     }
 
+    public InputStream stream(String url) {
+        Path path = pathOf(url);
+
+        if (Files.exists(path)) {
+            try {
+                return codec.decode(Files.newInputStream(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            return null;
+        }
+    }
+
+    public InputStream stream(String url, ByteRange range) {
+        Path path = pathOf(url);
+
+        if (Files.exists(path)) {
+            try {
+                return stream(path, range);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            return null;
+        }
+    }
+
+    public long size(String url) {
+        Path path = pathOf(url);
+        try {
+            return size(path);
+        } catch (FileNotFoundException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns size of the file content, in case content is encoded then the size is not known without decoding it
+     * and thus -1 is returned
+     */
+    public long size(String processId, String processVersion, String processInstanceId, String... name)
+            throws FileNotFoundException {
+        return size(createPath(processId, processVersion, processInstanceId, name));
+    }
+
+    /**
+     * Writes content of the file (or its range if given) to the target channel. When content is stored as is
+     * (not encoded) it is transferred directly from the file channel.
+     */
+    public long transferTo(ByteRange range, WritableByteChannel target, String processId, String processVersion,
+            String processInstanceId, String... name) throws IOException {
+        Path path = createPath(processId, processVersion, processInstanceId, name);
+
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException();
+        }
+
+        if (codec.isTransparent()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long position = range == null ? 0 : range.offset();
+                long remaining = range == null ? channel.size() : Math.min(range.length(), channel.size() - position);
+                long transferred = 0;
+                while (transferred < remaining) {
+                    long count = channel.transferTo(position + transferred, remaining - transferred, target);
+                    if (count <= 0) {
+                        break;
+                    }
+                    transferred += count;
+                }
+                return transferred;
+            }
+        }
+
+        try (InputStream stream = stream(path, range)) {
+            return stream.transferTo(Channels.newOutputStream(target));
+        }
+    }
+
+    protected InputStream stream(Path path, ByteRange range) throws IOException {
+        if (range == null) {
+            return codec.decode(Files.newInputStream(path));
+        }
+
+        if (codec.isTransparent()) {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            channel.position(range.offset());
+            return new RangeInputStream(Channels.newInputStream(channel), range.length());
+        }
+
+        InputStream stream = codec.decode(Files.newInputStream(path));
+        try {
+            stream.skipNBytes(range.offset());
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return new RangeInputStream(stream, range.length());
+    }
+
+    protected long size(Path path) throws FileNotFoundException {
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException();
+        }
+        if (!codec.isTransparent()) {
+            return -1;
+        }
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected Path pathOf(String url) {
+        String items = url.replaceFirst(serviceUrl, "");
+
+        return Paths.get(store, items.split("/"));
+    }
+
     protected Path createPath(String processId, String processVersion, String processInstanceId, String... name) {
         List<String> elements = new ArrayList<>();
         elements.add(processId);
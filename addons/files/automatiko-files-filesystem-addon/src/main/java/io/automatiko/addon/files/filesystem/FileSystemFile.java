@@ -1,5 +1,8 @@
 package io.automatiko.addon.files.filesystem;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -9,6 +12,7 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
 
+import io.automatiko.engine.api.workflow.files.ByteRange;
 import io.automatiko.engine.workflow.file.ByteArrayFile;
 import io.quarkus.arc.Arc;
 
@@ -43,6 +47,46 @@ public class FileSystemFile extends ByteArrayFile {
         return content;
     }
 
+    @Override
+    public InputStream openStream() throws IOException {
+        if (content != null) {
+            return super.openStream();
+        }
+        FileStore store = Arc.container().instance(FileStore.class).orElse(null);
+        InputStream stream = store == null ? null : store.stream(url());
+        if (stream == null) {
+            throw new FileNotFoundException(url());
+        }
+        return stream;
+    }
+
+    @Override
+    public InputStream openStream(long offset, long length) throws IOException {
+        if (content != null) {
+            return super.openStream(offset, length);
+        }
+        FileStore store = Arc.container().instance(FileStore.class).orElse(null);
+        InputStream stream = store == null ? null : store.stream(url(), new ByteRange(offset, length));
+        if (stream == null) {
+            throw new FileNotFoundException(url());
+        }
+        return stream;
+    }
+
+    @Override
+    public boolean exists() {
+        return content != null || url != null;
+    }
+
+    @Override
+    public long size() {
+        if (content != null) {
+            return content.length;
+        }
+        FileStore store = Arc.container().instance(FileStore.class).orElse(null);
+        return store == null ? -1 : store.size(url());
+    }
+
     @Override
     @JsonGetter
     public Map<String, String> attributes() {
@@ -1,6 +1,10 @@
 package io.automatiko.addon.files.googlestorage;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -11,9 +15,15 @@ import jakarta.inject.Inject;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
 import com.google.cloud.storage.Storage;
 
+import io.automatiko.engine.api.workflow.files.ByteRange;
 import io.automatiko.engine.workflow.file.ByteArrayFile;
 
 @ApplicationScoped
@@ -23,15 +33,19 @@ public class GoogleStorageStore {
 
     private String bucket;
 
+    private int chunkSize;
+
     private Storage storage;
 
     @Inject
     public GoogleStorageStore(Storage storage,
             @ConfigProperty(name = "quarkus.automatiko.files.google-storage.bucket") String bucket,
+            @ConfigProperty(name = "quarkus.automatiko.files.google-storage.chunk-size") Optional<Integer> chunkSize,
             @ConfigProperty(name = "quarkus.automatiko.service-url") Optional<String> serviceUrl) {
         this.storage = storage;
         this.serviceUrl = serviceUrl.orElse("http://localhost:8080") + "/management/files/download/";
         this.bucket = bucket;
+        this.chunkSize = chunkSize.orElse(8 * 1024 * 1024);
     }
 
     public String urlPrefix() {
@@ -42,9 +56,19 @@ public class GoogleStorageStore {
             String... name) {
         String objectKey = createObjectKey(processId, processVersion, processInstanceId, name);
 
-        Bucket gbucket = storage.get(bucket);
+        long size = file.size();
+        if (file.hasContent() && size >= 0 && size <= chunkSize) {
+            Bucket gbucket = storage.get(bucket);
 
-        gbucket.create(objectKey, file.content(), file.type());
+            gbucket.create(objectKey, file.content(), file.type());
+            return;
+        }
+        // large files and files not loaded yet are streamed from their current location
+        try (InputStream content = file.openStream()) {
+            upload(objectKey, file.type(), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void replace(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
@@ -80,6 +104,65 @@ public class GoogleStorageStore {
         return gbucket.get(objectKey).getContent();
     }
 
+    public InputStream stream(String url, ByteRange range) {
+        return objectStream(url.replaceFirst(serviceUrl, ""), range);
+    }
+
+    public InputStream stream(ByteRange range, String processId, String processVersion, String processInstanceId,
+            String... name) throws FileNotFoundException {
+        String objectKey = createObjectKey(processId, processVersion, processInstanceId, name);
+        if (storage.get(BlobId.of(bucket, objectKey)) == null) {
+            throw new FileNotFoundException();
+        }
+        return objectStream(objectKey, range);
+    }
+
+    public long size(String url) {
+        Blob blob = storage.get(BlobId.of(bucket, url.replaceFirst(serviceUrl, "")));
+
+        return blob == null ? -1 : blob.getSize();
+    }
+
+    public long size(String processId, String processVersion, String processInstanceId, String... name)
+            throws FileNotFoundException {
+        Blob blob = storage.get(BlobId.of(bucket, createObjectKey(processId, processVersion, processInstanceId, name)));
+        if (blob == null) {
+            throw new FileNotFoundException();
+        }
+        return blob.getSize();
+    }
+
+    protected InputStream objectStream(String objectKey, ByteRange range) {
+        ReadChannel reader = storage.reader(BlobId.of(bucket, objectKey));
+        if (range != null) {
+            try {
+                reader.seek(range.offset());
+                // limit is the position (not the number of bytes) where reading stops
+                reader.limit(range.offset() + range.length());
+            } catch (IOException e) {
+                reader.close();
+                throw new UncheckedIOException(e);
+            }
+        }
+        return Channels.newInputStream(reader);
+    }
+
+    /*
+     * uploads content with resumable upload in chunks so only single chunk is kept in memory at a time, writer
+     * is not closed in case of failure as that would store incomplete object
+     */
+    protected void upload(String objectKey, String type, InputStream content) throws IOException {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucket, objectKey))
+                .setContentType(type)
+                .build();
+
+        WriteChannel writer = storage.writer(blobInfo);
+        writer.setChunkSize(chunkSize);
+
+        content.transferTo(Channels.newOutputStream(writer));
+        writer.close();
+    }
+
     protected String createObjectKey(String processId, String processVersion, String processInstanceId, String... name) {
         List<String> elements = new ArrayList<>();
         elements.add(processId);
@@ -66,12 +66,12 @@ public class GridFSFileVariableAugmentor implements VariableAugmentor {
 
         if (value instanceof ByteArrayFile) {
             ByteArrayFile file = (ByteArrayFile) value;
-            if (file.content() != null) {
+            if (requiresStore(file, url.toString() + "/" + file.name())) {
                 GridFSFile fsFile = new GridFSFile(file.name(), null, file.attributes());
                 fsFile.url(url.toString() + "/" + file.name());
 
                 // store file on file system
-                store.save(file.content(), processId, processVersion, processInstanceId, variable.getName(), file.name());
+                store.save(file, processId, processVersion, processInstanceId, variable.getName(), file.name());
                 value = updateValue(originalValue, fsFile);
             }
         } else if (value instanceof Collection) {
@@ -79,12 +79,12 @@ public class GridFSFileVariableAugmentor implements VariableAugmentor {
             for (Object potentialFile : (Collection<?>) value) {
                 if (potentialFile instanceof ByteArrayFile) {
                     ByteArrayFile file = (ByteArrayFile) potentialFile;
-                    if (file.content() != null) {
+                    if (requiresStore(file, url.toString() + "/" + file.name())) {
                         GridFSFile fsFile = new GridFSFile(file.name(), null, file.attributes());
                         fsFile.url(url.toString() + "/" + file.name());
 
                         // store file on file system
-                        store.save(file.content(), processId, processVersion, processInstanceId, variable.getName(),
+                        store.save(file, processId, processVersion, processInstanceId, variable.getName(),
                                 file.name());
                         fsFiles.add(fsFile);
                     } else {
@@ -115,12 +115,12 @@ public class GridFSFileVariableAugmentor implements VariableAugmentor {
 
         if (value instanceof ByteArrayFile) {
             ByteArrayFile file = (ByteArrayFile) value;
-            if (file.content() != null) {
+            if (requiresStore(file, url.toString() + "/" + file.name())) {
                 GridFSFile fsFile = new GridFSFile(file.name(), null, file.attributes());
                 fsFile.url(url.toString() + "/" + file.name());
 
                 // replace file on file system
-                store.replace(file.content(), processId, processVersion, processInstanceId, variable.getName(),
+                store.replace(file, processId, processVersion, processInstanceId, variable.getName(),
                         file.name());
                 value = updateValue(originalValue, fsFile);
             }
@@ -129,12 +129,12 @@ public class GridFSFileVariableAugmentor implements VariableAugmentor {
             for (Object potentialFile : (Collection<?>) value) {
                 if (potentialFile instanceof ByteArrayFile) {
                     ByteArrayFile file = (ByteArrayFile) potentialFile;
-                    if (file.content() != null) {
+                    if (requiresStore(file, url.toString() + "/" + file.name())) {
                         GridFSFile fsFile = new GridFSFile(file.name(), null, file.attributes());
                         fsFile.url(url.toString() + "/" + file.name());
 
                         // replace file on file system
-                        store.replace(file.content(), processId, processVersion, processInstanceId, variable.getName(),
+                        store.replace(file, processId, processVersion, processInstanceId, variable.getName(),
                                 file.name());
                         fsFiles.add(fsFile);
                     } else {
@@ -166,6 +166,17 @@ public class GridFSFileVariableAugmentor implements VariableAugmentor {
         }
     }
 
+    /*
+     * files with content are stored, files that are already kept in the store are only stored (streamed) when
+     * they are at different location - e.g. copied from another instance
+     */
+    protected boolean requiresStore(ByteArrayFile file, String location) {
+        if (file.hasContent()) {
+            return true;
+        }
+        return file instanceof GridFSFile && !location.equals(file.url());
+    }
+
     protected Object retrieveValue(Object value) {
         if (value instanceof HasFiles) {
             return ((HasFiles<?>) value).files();
@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -24,10 +25,14 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.gridfs.GridFSBucket;
 import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.GridFSUploadStream;
 import com.mongodb.client.gridfs.model.GridFSUploadOptions;
 import com.mongodb.client.model.Filters;
 
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
+import io.automatiko.engine.api.workflow.files.ByteRange;
+import io.automatiko.engine.api.workflow.files.RangeInputStream;
+import io.automatiko.engine.workflow.file.ByteArrayFile;
 
 @ApplicationScoped
 public class GridFSStore {
@@ -80,12 +85,66 @@ public class GridFSStore {
         }
     }
 
+    /**
+     * Saves content of given file, content is streamed so files that are not loaded into memory (e.g. kept in
+     * other store or in temporary file) are not loaded while being saved
+     */
+    public void save(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        try (InputStream content = file.openStream()) {
+            save(content, processId, processVersion, processInstanceId, name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void save(InputStream content, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        Document metadata = new Document("processId", processId).append("processVersion", processVersion)
+                .append("processInstanceId", processInstanceId);
+
+        if (name.length >= 2) {
+            metadata.append("variable", name[0]).append("filename", name[1]);
+        }
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .chunkSizeBytes(this.chunkSize)
+                .metadata(metadata);
+        String fileId = buildId(processId, processVersion, processInstanceId, name);
+
+        GridFSUploadStream uploadStream = gridFSBucket.openUploadStream(new BsonString(fileId),
+                buildName(processId, processVersion, processInstanceId, name), options);
+        // data are encoded while being written so only single chunk is kept in memory at a time, stream is not closed
+        // in case of failure as that would store incomplete file
+        OutputStream output = codec.encode(uploadStream);
+        try {
+            content.transferTo(output);
+        } catch (IOException e) {
+            uploadStream.abort();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            uploadStream.abort();
+            throw e;
+        }
+        try {
+            output.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public void replace(byte[] content, String processId, String processVersion, String processInstanceId, String... name) {
         remove(processId, processVersion, processInstanceId, name);
 
         save(content, processId, processVersion, processInstanceId, name);
     }
 
+    public void replace(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
+            String... name) {
+        remove(processId, processVersion, processInstanceId, name);
+
+        save(file, processId, processVersion, processInstanceId, name);
+    }
+
     public void remove(String processId, String processVersion, String processInstanceId, String... name) {
 
         String fileId = buildId(processId, processVersion, processInstanceId, name);
@@ -97,16 +156,13 @@ public class GridFSStore {
     }
 
     public byte[] content(String url) {
-        String items = url.replaceFirst(serviceUrl, "");
-        BsonString fileId = new BsonString(UUID.nameUUIDFromBytes(items.getBytes(StandardCharsets.UTF_8)).toString());
+        BsonString fileId = idOf(url);
 
         try (GridFSDownloadStream downloadStream = gridFSBucket.openDownloadStream(fileId)) {
-
-            int fileLength = (int) downloadStream.getGridFSFile().getLength();
-            byte[] content = new byte[fileLength];
-            downloadStream.read(content);
-
-            return codec.decode(content);
+            // single read returns at most one chunk so the complete content must be read
+            return codec.decode(downloadStream.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -115,12 +171,77 @@ public class GridFSStore {
         BsonString fileId = new BsonString(buildId(processId, processVersion, processInstanceId, name));
 
         try (GridFSDownloadStream downloadStream = gridFSBucket.openDownloadStream(fileId)) {
-            int fileLength = (int) downloadStream.getGridFSFile().getLength();
-            byte[] content = new byte[fileLength];
-            downloadStream.read(content);
+            return codec.decode(downloadStream.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public InputStream stream(String url, ByteRange range) {
+        try {
+            return stream(idOf(url), range);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public InputStream stream(ByteRange range, String processId, String processVersion, String processInstanceId,
+            String... name) throws FileNotFoundException {
+        BsonString fileId = new BsonString(buildId(processId, processVersion, processInstanceId, name));
+        if (find(fileId) == null) {
+            throw new FileNotFoundException();
+        }
+        try {
+            return stream(fileId, range);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long size(String url) {
+        com.mongodb.client.gridfs.model.GridFSFile file = find(idOf(url));
+        if (file == null || !codec.isTransparent()) {
+            return -1;
+        }
+        return file.getLength();
+    }
+
+    /**
+     * Returns size of the file content, in case content is encoded then the size is not known without decoding it
+     * and thus -1 is returned
+     */
+    public long size(String processId, String processVersion, String processInstanceId, String... name)
+            throws FileNotFoundException {
+        com.mongodb.client.gridfs.model.GridFSFile file = find(
+                new BsonString(buildId(processId, processVersion, processInstanceId, name)));
+        if (file == null) {
+            throw new FileNotFoundException();
+        }
+        return codec.isTransparent() ? file.getLength() : -1;
+    }
 
-            return codec.decode(content);
+    protected InputStream stream(BsonString fileId, ByteRange range) throws IOException {
+        InputStream stream = codec.decode(gridFSBucket.openDownloadStream(fileId));
+        if (range == null) {
+            return stream;
         }
+        try {
+            // when data are not encoded download stream skips complete chunks without fetching them
+            stream.skipNBytes(range.offset());
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return new RangeInputStream(stream, range.length());
+    }
+
+    protected com.mongodb.client.gridfs.model.GridFSFile find(BsonString fileId) {
+        return gridFSBucket.find(Filters.eq("_id", fileId)).first();
+    }
+
+    protected BsonString idOf(String url) {
+        String items = url.replaceFirst(serviceUrl, "");
+        return new BsonString(UUID.nameUUIDFromBytes(items.getBytes(StandardCharsets.UTF_8)).toString());
     }
 
     protected String buildName(String processId, String processVersion, String processInstanceId, String... name) {
@@ -1,17 +1,21 @@
 package io.automatiko.addon.files.mongodb.web;
 
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import io.automatiko.addon.files.mongodb.GridFSStore;
+import io.automatiko.engine.api.workflow.files.ByteRange;
 import io.automatiko.engine.api.workflow.files.File;
 
 @Path("/management/files")
@@ -30,21 +34,9 @@ public class GridFSDownloadResource {
     public Response downloadFile(@PathParam("processId") String processId,
             @PathParam("processInstanceId") String processInstanceId,
             @PathParam("variable") String variable,
-            @PathParam("filename") String filename) {
-        try {
-            byte[] content = store.content(processId, processInstanceId, variable, filename);
-
-            ResponseBuilder response = Response.ok().entity(content);
-            response.header("Content-Disposition", "attachment;filename=" + filename);
-            response.header("Content-Type", File.discoverType(filename));
-            return response.build();
-        } catch (FileNotFoundException e) {
-            return Response.status(Response.Status.NOT_FOUND.getStatusCode(), "File with name " + filename + " not found")
-                    .build();
-        } catch (Exception e) {
-
-            return Response.serverError().build();
-        }
+            @PathParam("filename") String filename,
+            @HeaderParam("Range") String range) {
+        return download(range, processId, null, processInstanceId, variable, filename);
     }
 
     @GET
@@ -54,11 +46,42 @@ public class GridFSDownloadResource {
             @PathParam("processVersion") String processVersion,
             @PathParam("processInstanceId") String processInstanceId,
             @PathParam("variable") String variable,
-            @PathParam("filename") String filename) {
+            @PathParam("filename") String filename,
+            @HeaderParam("Range") String range) {
+        return download(range, processId, processVersion, processInstanceId, variable, filename);
+    }
+
+    protected Response download(String rangeHeader, String processId, String processVersion, String processInstanceId,
+            String variable, String filename) {
         try {
-            byte[] content = store.content(processId, processVersion, processInstanceId, variable, filename);
+            long size = store.size(processId, processVersion, processInstanceId, variable, filename);
+            ByteRange range;
+            try {
+                range = ByteRange.parse(rangeHeader, size);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + size).build();
+            }
+            // content is streamed chunk by chunk as the response is being written
+            StreamingOutput content = output -> {
+                try (InputStream stream = store.stream(range, processId, processVersion, processInstanceId, variable,
+                        filename)) {
+                    stream.transferTo(output);
+                }
+            };
 
-            ResponseBuilder response = Response.ok().entity(content);
+            ResponseBuilder response;
+            if (range == null) {
+                response = Response.ok();
+            } else {
+                response = Response.status(Response.Status.PARTIAL_CONTENT);
+                response.header("Content-Range", range.contentRange(size));
+            }
+            if (size >= 0) {
+                response.header("Accept-Ranges", "bytes");
+                response.header("Content-Length", range == null ? size : range.length());
+            }
+            response.entity(content);
             response.header("Content-Disposition", "attachment;filename=" + filename);
             response.header("Content-Type", File.discoverType(filename));
             return response.build();
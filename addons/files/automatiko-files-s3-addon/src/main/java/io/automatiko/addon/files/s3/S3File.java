@@ -1,5 +1,8 @@
 package io.automatiko.addon.files.s3;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -9,6 +12,7 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
 
+import io.automatiko.engine.api.workflow.files.ByteRange;
 import io.automatiko.engine.workflow.file.ByteArrayFile;
 import io.quarkus.arc.Arc;
 
@@ -43,6 +47,44 @@ public class S3File extends ByteArrayFile {
         return content;
     }
 
+    @Override
+    public InputStream openStream() throws IOException {
+        if (content != null) {
+            return super.openStream();
+        }
+        return openStream(null);
+    }
+
+    @Override
+    public InputStream openStream(long offset, long length) throws IOException {
+        if (content != null) {
+            return super.openStream(offset, length);
+        }
+        return openStream(new ByteRange(offset, length));
+    }
+
+    @Override
+    public boolean exists() {
+        return content != null || url != null;
+    }
+
+    @Override
+    public long size() {
+        if (content != null) {
+            return content.length;
+        }
+        S3Store store = Arc.container().instance(S3Store.class).orElse(null);
+        return store == null ? -1 : store.size(url());
+    }
+
+    protected InputStream openStream(ByteRange range) throws IOException {
+        S3Store store = Arc.container().instance(S3Store.class).orElse(null);
+        if (store == null) {
+            throw new FileNotFoundException(url());
+        }
+        return store.stream(url(), range);
+    }
+
     @Override
     @JsonGetter
     public Map<String, String> attributes() {
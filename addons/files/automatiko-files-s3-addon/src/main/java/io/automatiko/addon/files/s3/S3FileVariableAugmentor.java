@@ -65,7 +65,7 @@ public class S3FileVariableAugmentor implements VariableAugmentor {
 
         if (value instanceof ByteArrayFile) {
             ByteArrayFile file = (ByteArrayFile) value;
-            if (file.content() != null) {
+            if (requiresStore(file, url.toString() + "/" + file.name())) {
                 S3File fsFile = new S3File(file.name(), null, file.attributes());
                 fsFile.url(url.toString() + "/" + file.name());
 
@@ -79,7 +79,7 @@ public class S3FileVariableAugmentor implements VariableAugmentor {
             for (Object potentialFile : (Collection<?>) value) {
                 if (potentialFile instanceof ByteArrayFile) {
                     ByteArrayFile file = (ByteArrayFile) potentialFile;
-                    if (file.content() != null) {
+                    if (requiresStore(file, url.toString() + "/" + file.name())) {
                         S3File fsFile = new S3File(file.name(), null, file.attributes());
                         fsFile.url(url.toString() + "/" + file.name());
 
@@ -115,7 +115,7 @@ public class S3FileVariableAugmentor implements VariableAugmentor {
 
         if (value instanceof ByteArrayFile) {
             ByteArrayFile file = (ByteArrayFile) value;
-            if (file.content() != null) {
+            if (requiresStore(file, url.toString() + "/" + file.name())) {
                 S3File fsFile = new S3File(file.name(), null, file.attributes());
                 fsFile.url(url.toString() + "/" + file.name());
 
@@ -129,7 +129,7 @@ public class S3FileVariableAugmentor implements VariableAugmentor {
             for (Object potentialFile : (Collection<?>) value) {
                 if (potentialFile instanceof ByteArrayFile) {
                     ByteArrayFile file = (ByteArrayFile) potentialFile;
-                    if (file.content() != null) {
+                    if (requiresStore(file, url.toString() + "/" + file.name())) {
                         S3File fsFile = new S3File(file.name(), null, file.attributes());
                         fsFile.url(url.toString() + "/" + file.name());
 
@@ -167,6 +167,17 @@ public class S3FileVariableAugmentor implements VariableAugmentor {
 
     }
 
+    /*
+     * files with content are stored, files that are already kept in the store are only stored (streamed) when
+     * they are at different location - e.g. copied from another instance
+     */
+    protected boolean requiresStore(ByteArrayFile file, String location) {
+        if (file.hasContent()) {
+            return true;
+        }
+        return file instanceof S3File && !location.equals(file.url());
+    }
+
     protected Object retrieveValue(Object value) {
         if (value instanceof HasFiles) {
             return ((HasFiles<?>) value).files();
@@ -3,6 +3,7 @@ package io.automatiko.addon.files.s3;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,30 +15,47 @@ import jakarta.inject.Inject;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import io.automatiko.engine.api.workflow.files.ByteRange;
 import io.automatiko.engine.workflow.file.ByteArrayFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
 @ApplicationScoped
 public class S3Store {
 
+    // S3 does not accept smaller parts than 5MB (except the last one)
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
     private String serviceUrl;
 
     private String bucket;
 
+    private int partSize;
+
     private S3Client s3;
 
     @Inject
     public S3Store(S3Client s3, @ConfigProperty(name = "quarkus.automatiko.files.s3.bucket") String bucket,
+            @ConfigProperty(name = "quarkus.automatiko.files.s3.part-size") Optional<Integer> partSize,
             @ConfigProperty(name = "quarkus.automatiko.service-url") Optional<String> serviceUrl) {
         this.s3 = s3;
         this.serviceUrl = serviceUrl.orElse("http://localhost:8080") + "/management/files/download/";
         this.bucket = bucket;
+        this.partSize = Math.max(partSize.orElse(8 * 1024 * 1024), MIN_PART_SIZE);
     }
 
     public String urlPrefix() {
@@ -48,13 +66,17 @@ public class S3Store {
             String... name) {
         String objectKey = createObjectKey(processId, processVersion, processInstanceId, name);
 
-        PutObjectRequest putRequest = PutObjectRequest.builder()
-                .bucket(bucket)
-                .key(objectKey)
-                .contentType(file.type())
-                .build();
-
-        s3.putObject(putRequest, RequestBody.fromBytes(file.content()));
+        long size = file.size();
+        if (file.hasContent() && size >= 0 && size <= partSize) {
+            put(objectKey, file.type(), file.content());
+            return;
+        }
+        // large files and files not loaded yet are streamed from their current location
+        try (InputStream content = file.openStream()) {
+            upload(objectKey, file.type(), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void replace(ByteArrayFile file, String processId, String processVersion, String processInstanceId,
@@ -111,6 +133,128 @@ public class S3Store {
         }
     }
 
+    public InputStream stream(String url, ByteRange range) {
+        return objectStream(url.replaceFirst(serviceUrl, ""), range);
+    }
+
+    public InputStream stream(ByteRange range, String processId, String processVersion, String processInstanceId,
+            String... name) throws FileNotFoundException {
+        String objectKey = createObjectKey(processId, processVersion, processInstanceId, name);
+        try {
+            return objectStream(objectKey, range);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new FileNotFoundException();
+            }
+            throw e;
+        }
+    }
+
+    public long size(String url) {
+        try {
+            return objectSize(url.replaceFirst(serviceUrl, ""));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    public long size(String processId, String processVersion, String processInstanceId, String... name)
+            throws FileNotFoundException {
+        try {
+            return objectSize(createObjectKey(processId, processVersion, processInstanceId, name));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new FileNotFoundException();
+            }
+            throw e;
+        }
+    }
+
+    protected InputStream objectStream(String objectKey, ByteRange range) {
+        GetObjectRequest.Builder getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(objectKey);
+        if (range != null) {
+            getRequest.range("bytes=" + range.offset() + "-" + range.end());
+        }
+        return s3.getObject(getRequest.build());
+    }
+
+    protected long objectSize(String objectKey) {
+        HeadObjectRequest headRequest = HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .build();
+
+        return s3.headObject(headRequest).contentLength();
+    }
+
+    protected void put(String objectKey, String type, byte[] content) {
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .contentType(type)
+                .build();
+
+        s3.putObject(putRequest, RequestBody.fromBytes(content));
+    }
+
+    /*
+     * uploads content in parts so only single part is kept in memory at a time, content that fits into single
+     * part is uploaded directly
+     */
+    protected void upload(String objectKey, String type, InputStream content) throws IOException {
+        byte[] part = content.readNBytes(partSize);
+        if (part.length < partSize) {
+            put(objectKey, type, part);
+            return;
+        }
+
+        CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(objectKey)
+                .contentType(type)
+                .build();
+        String uploadId = s3.createMultipartUpload(createRequest).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            while (part.length > 0) {
+                UploadPartRequest partRequest = UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) part.length)
+                        .build();
+                UploadPartResponse partResponse = s3.uploadPart(partRequest, RequestBody.fromBytes(part));
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(partResponse.eTag()).build());
+
+                partNumber++;
+                part = content.readNBytes(partSize);
+            }
+
+            CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+            s3.completeMultipartUpload(completeRequest);
+        } catch (IOException | RuntimeException e) {
+            // parts that were already uploaded are kept (and charged) by S3 until upload is aborted
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
     protected String createObjectKey(String processId, String processVersion, String processInstanceId, String... name) {
         List<String> elements = new ArrayList<>();
         elements.add(processId);
@@ -9,9 +9,13 @@ import static com.datastax.oss.driver.api.querybuilder.SchemaBuilder.createKeysp
 import static io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE;
 
 import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -33,16 +37,20 @@ import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.api.querybuilder.QueryBuilder;
 import com.datastax.oss.driver.api.querybuilder.SchemaBuilder;
 import com.datastax.oss.driver.api.querybuilder.delete.Delete;
-import com.datastax.oss.driver.api.querybuilder.insert.Insert;
+import com.datastax.oss.driver.api.querybuilder.insert.RegularInsert;
 import com.datastax.oss.driver.api.querybuilder.schema.CreateIndex;
 import com.datastax.oss.driver.api.querybuilder.schema.CreateKeyspace;
 import com.datastax.oss.driver.api.querybuilder.schema.CreateTable;
 import com.datastax.oss.driver.api.querybuilder.select.Select;
+import com.datastax.oss.driver.api.querybuilder.term.Term;
+import com.datastax.oss.driver.api.querybuilder.update.UpdateWithAssignments;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.BinaryObjectMarshallingStrategy;
 import io.automatiko.engine.addons.persistence.common.JacksonObjectMarshallingStrategy;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceMarshallerFactory;
 import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogImpl;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.audit.AuditEntry;
@@ -55,8 +63,11 @@ import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.audit.BaseAuditEntry;
@@ -75,6 +86,8 @@ public class CassandraProcessInstances implements MutableProcessInstances {
     private static final String START_DATE_FIELD = "PIStartDate";
     private static final String END_DATE_FIELD = "PIEndDate";
     private static final String EXPIRED_AT_FIELD = "PIExpiredAtDate";
+    private static final String BUSINESS_KEY_FIELD = "BusinessKey";
+    private static final String DESCRIPTION_FIELD = "Description";
 
     private final Process<? extends Model> process;
     private final ProcessInstanceMarshaller marshaller;
@@ -96,11 +109,15 @@ public class CassandraProcessInstances implements MutableProcessInstances {
 
     private Optional<String> keyspace;
 
+    // tables that are not managed by the data store might not have columns used by summaries
+    private boolean summaryColumns;
+
     public CassandraProcessInstances(Process<? extends Model> process, CqlSession cqlSession,
             StoredDataCodec codec, TransactionLogStore store, Auditor auditor,
             Optional<Boolean> createKeyspace, Optional<Boolean> createTables, Optional<String> keyspace) {
         this.process = process;
-        this.marshaller = new ProcessInstanceMarshaller(new JacksonObjectMarshallingStrategy(process));
+        this.marshaller = ProcessInstanceMarshallerFactory.configure(new ProcessInstanceMarshaller(
+                new BinaryObjectMarshallingStrategy(process), new JacksonObjectMarshallingStrategy(process)));
         this.cqlSession = cqlSession;
         this.tableName = process.id().toUpperCase();
         this.codec = codec;
@@ -112,6 +129,7 @@ public class CassandraProcessInstances implements MutableProcessInstances {
         if (this.createTables.orElse(Boolean.TRUE)) {
             createTable();
         }
+        this.summaryColumns = hasColumn(DESCRIPTION_FIELD) && hasColumn(BUSINESS_KEY_FIELD);
 
         this.transactionLog = new TransactionLogImpl(store, new JacksonObjectMarshallingStrategy(process));
     }
@@ -203,6 +221,42 @@ public class CassandraProcessInstances implements MutableProcessInstances {
 
     }
 
+    /*
+     * instances are not sorted (same as values) so cursor keeps paging state of the driver
+     */
+    @Override
+    public ProcessInstancePage values(ProcessInstanceReadMode mode, int status, ProcessInstanceCursor cursor, int size) {
+        LOGGER.debug("values() called with cursor {}", cursor);
+        Select select = selectFrom(keyspace.orElse("automatiko"), tableName).column(CONTENT_FIELD)
+                .column(VERSION_FIELD).whereColumn(STATUS_FIELD).isEqualTo(literal(status));
+
+        SimpleStatement statement = select.build().setPageSize(size);
+        if (cursor.key() != null) {
+            statement = statement.setPagingState(ByteBuffer.wrap(Base64.getDecoder().decode(cursor.key())));
+        }
+        ResultSet rs = cqlSession.execute(statement);
+
+        List<ProcessInstance> found = new ArrayList<>();
+        Iterator<Row> rows = rs.iterator();
+        // only rows of the current page are read, iterating further would fetch next page
+        for (int available = rs.getAvailableWithoutFetching(); available > 0; available--) {
+            Row item = rows.next();
+            try {
+                byte[] content = ByteUtils.getArray(item.getByteBuffer(CONTENT_FIELD));
+
+                found.add(audit(mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK
+                        ? marshaller.unmarshallProcessInstance(codec.decode(content), process, item.getLong(VERSION_FIELD))
+                        : marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process)));
+            } catch (AccessDeniedException e) {
+                // not accessible instances are skipped but cursor moves past them
+            }
+        }
+        ByteBuffer pagingState = rs.getExecutionInfo().getPagingState();
+
+        return new ProcessInstancePage(found,
+                pagingState == null ? null : cursor.at(Base64.getEncoder().encodeToString(ByteUtils.getArray(pagingState))));
+    }
+
     @Override
     public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String... values) {
         LOGGER.debug("findByIdOrTag() called for values {} and status {}", values, status);
@@ -275,6 +329,38 @@ public class CassandraProcessInstances implements MutableProcessInstances {
         return distinct;
     }
 
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        if (!summaryColumns) {
+            return MutableProcessInstances.super.summaries(status, page, size);
+        }
+        LOGGER.debug("summaries() called");
+        Select select = selectFrom(keyspace.orElse("automatiko"), tableName).column(INSTANCE_ID_FIELD)
+                .column(STATUS_FIELD)
+                .column(TAGS_FIELD)
+                .column(START_DATE_FIELD)
+                .column(END_DATE_FIELD)
+                .column(BUSINESS_KEY_FIELD)
+                .column(DESCRIPTION_FIELD)
+                .whereColumn(STATUS_FIELD).isEqualTo(literal(status));
+
+        ResultSet rs = cqlSession.execute(select.build());
+
+        return rs.all().stream()
+                .skip(calculatePage(page, size))
+                .limit(size)
+                .map(row -> ProcessInstanceSummary.stored(row.getString(INSTANCE_ID_FIELD), row.getString(BUSINESS_KEY_FIELD),
+                        row.getString(DESCRIPTION_FIELD), row.getInt(STATUS_FIELD), row.getSet(TAGS_FIELD, String.class),
+                        toDate(row.getInstant(START_DATE_FIELD)), toDate(row.getInstant(END_DATE_FIELD))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        // same as values, sorting is not supported
+        return summaries(status, page, size);
+    }
+
     @Override
     public Long size() {
         LOGGER.debug("size() called");
@@ -324,7 +410,7 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                 tags.add(instance.businessKey());
             }
 
-            Insert insert = insertInto(keyspace.orElse("automatiko"), tableName)
+            RegularInsert insert = insertInto(keyspace.orElse("automatiko"), tableName)
                     .value(INSTANCE_ID_FIELD, literal(resolvedId))
                     .value(VERSION_FIELD, literal(((AbstractProcessInstance<?>) instance).getVersionTracker()))
                     .value(STATUS_FIELD, literal(((AbstractProcessInstance<?>) instance).status()))
@@ -336,10 +422,11 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                     .value(EXPIRED_AT_FIELD,
                             literal(instance.expiresAtDate() == null ? null
                                     : instance.expiresAtDate().toInstant()))
-                    .value(TAGS_FIELD, bindMarker()).ifNotExists();
+                    .value(TAGS_FIELD, bindMarker());
 
             try {
-                ResultSet rs = cqlSession.execute(cqlSession.prepare(insert.build()).bind(ByteBuffer.wrap(data), tags));
+                ResultSet rs = cqlSession.execute(cqlSession.prepare(summaryColumns(insert, instance).ifNotExists().build())
+                        .bind(ByteBuffer.wrap(data), tags));
                 if (!rs.wasApplied()) {
                     throw new ProcessInstanceDuplicatedException(id);
                 }
@@ -383,7 +470,7 @@ public class CassandraProcessInstances implements MutableProcessInstances {
             tags.add(instance.businessKey());
         }
 
-        SimpleStatement statement = QueryBuilder.update(keyspace.orElse("automatiko"), tableName)
+        UpdateWithAssignments update = QueryBuilder.update(keyspace.orElse("automatiko"), tableName)
                 .setColumn(CONTENT_FIELD, bindMarker())
                 .setColumn(TAGS_FIELD, bindMarker())
                 .setColumn(VERSION_FIELD, literal(((AbstractProcessInstance<?>) instance).getVersionTracker() + 1))
@@ -393,7 +480,12 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                         literal(instance.endDate() == null ? null
                                 : instance.endDate().toInstant()))
                 .setColumn(EXPIRED_AT_FIELD, literal(instance.expiresAtDate() == null ? null
-                        : instance.expiresAtDate().toInstant()))
+                        : instance.expiresAtDate().toInstant()));
+        if (summaryColumns) {
+            update = update.setColumn(BUSINESS_KEY_FIELD, literal(instance.businessKey()))
+                    .setColumn(DESCRIPTION_FIELD, literal(instance.description()));
+        }
+        SimpleStatement statement = update
                 .whereColumn(INSTANCE_ID_FIELD).isEqualTo(literal(resolvedId))
                 .ifColumn(VERSION_FIELD).isEqualTo(literal(((AbstractProcessInstance<?>) instance).getVersionTracker()))
                 .build();
@@ -402,7 +494,7 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                 .bind(ByteBuffer.wrap(data), tags));
         if (!rs.wasApplied()) {
             if (transactionLog.contains(process.id(), instance.id())) {
-                Insert insert = insertInto(keyspace.orElse("automatiko"), tableName)
+                RegularInsert insert = insertInto(keyspace.orElse("automatiko"), tableName)
                         .value(INSTANCE_ID_FIELD, literal(resolvedId))
                         .value(VERSION_FIELD, literal(((AbstractProcessInstance<?>) instance).getVersionTracker()))
                         .value(STATUS_FIELD, literal(((AbstractProcessInstance<?>) instance).status()))
@@ -413,10 +505,11 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                                         : instance.endDate().toInstant()))
                         .value(EXPIRED_AT_FIELD, literal(instance.expiresAtDate() == null ? null
                                 : instance.expiresAtDate()))
-                        .value(TAGS_FIELD, bindMarker()).ifNotExists();
+                        .value(TAGS_FIELD, bindMarker());
 
                 try {
-                    rs = cqlSession.execute(cqlSession.prepare(insert.build()).bind(ByteBuffer.wrap(data), tags));
+                    rs = cqlSession.execute(cqlSession.prepare(summaryColumns(insert, instance).ifNotExists().build())
+                            .bind(ByteBuffer.wrap(data), tags));
                     if (!rs.wasApplied()) {
                         throw new ProcessInstanceDuplicatedException(id);
                     }
@@ -456,6 +549,32 @@ public class CassandraProcessInstances implements MutableProcessInstances {
         auditor.publish(entry);
     }
 
+    /*
+     * lightweight transactions used by create and update cannot span partitions so only removal is done in single
+     * statement
+     */
+    @Override
+    public void removeAll(Map instances) {
+        Map<String, ProcessInstance> batch = instances;
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Term> ids = new ArrayList<>();
+        batch.forEach((id, instance) -> {
+            String resolvedId = resolveId(id, instance);
+            cachedInstances.remove(resolvedId);
+            cachedInstances.remove(id);
+            ids.add(literal(resolvedId));
+        });
+
+        Delete deleteStatement = deleteFrom(keyspace.orElse("automatiko"), tableName).whereColumn(INSTANCE_ID_FIELD)
+                .in(ids);
+
+        cqlSession.execute(deleteStatement.build());
+        batch.values().forEach(instance -> auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                .add("message", "Workflow instance removed from the Apache Cassandra based data store")));
+    }
+
     protected void createTable() {
 
         if (createKeyspace.orElse(true)) {
@@ -473,15 +592,43 @@ public class CassandraProcessInstances implements MutableProcessInstances {
                 .withColumn(VERSION_FIELD, DataTypes.BIGINT)
                 .withColumn(START_DATE_FIELD, DataTypes.TIMESTAMP)
                 .withColumn(END_DATE_FIELD, DataTypes.TIMESTAMP)
-                .withColumn(EXPIRED_AT_FIELD, DataTypes.TIMESTAMP);
+                .withColumn(EXPIRED_AT_FIELD, DataTypes.TIMESTAMP)
+                .withColumn(BUSINESS_KEY_FIELD, DataTypes.TEXT)
+                .withColumn(DESCRIPTION_FIELD, DataTypes.TEXT);
 
         cqlSession.execute(createTable.build());
+        // tables created by previous versions do not have columns used by summaries
+        for (String column : List.of(BUSINESS_KEY_FIELD, DESCRIPTION_FIELD)) {
+            if (!hasColumn(column)) {
+                cqlSession.execute(SchemaBuilder.alterTable(keyspace.orElse("automatiko"), tableName)
+                        .addColumn(column, DataTypes.TEXT).build());
+            }
+        }
 
         CreateIndex index = SchemaBuilder.createIndex(tableName + "_STATUS_IDX").ifNotExists()
                 .onTable(keyspace.orElse("automatiko"), tableName).andColumn(STATUS_FIELD);
         cqlSession.execute(index.build());
     }
 
+    protected boolean hasColumn(String column) {
+        return cqlSession.getMetadata().getKeyspace(keyspace.orElse("automatiko"))
+                .flatMap(ks -> ks.getTable(tableName))
+                .flatMap(table -> table.getColumn(column))
+                .isPresent();
+    }
+
+    protected RegularInsert summaryColumns(RegularInsert insert, ProcessInstance instance) {
+        if (!summaryColumns) {
+            return insert;
+        }
+        return insert.value(BUSINESS_KEY_FIELD, literal(instance.businessKey()))
+                .value(DESCRIPTION_FIELD, literal(instance.description()));
+    }
+
+    protected Date toDate(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
     protected void disconnect(ProcessInstance instance) {
         ((AbstractProcessInstance<?>) instance).internalRemoveProcessInstance(() -> {
 
@@ -0,0 +1,549 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.automatiko.engine.api.marshalling.ObjectMarshallingStrategy;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.workflow.AbstractProcess;
+import io.automatiko.engine.workflow.process.executable.core.ServerlessExecutableProcess;
+
+/**
+ * Compact binary marshalling strategy for variables of simple data classes, scalar values and collections of them.
+ * <br/>
+ * Fields of data classes are written positionally without names or type information. Instead, every class used
+ * within a process instance is described once in a schema that is stored in the strategy context (in the header of
+ * the marshalled process instance) and values refer to it by its index. Schemas follow these evolution rules when
+ * read with changed classes:
+ * <ul>
+ * <li>fields are matched by name, stored schema equal to the current one is read positionally</li>
+ * <li>fields that no longer exist are skipped</li>
+ * <li>newly added fields keep value set by the no argument constructor</li>
+ * <li>numeric values are converted to the current field type, values of incompatible types are skipped</li>
+ * <li>enum constants that no longer exist are read as null</li>
+ * </ul>
+ * Values that are not supported (see {@link BinarySchema}) are not accepted and are left to other strategies. Strategy
+ * must always be present to read already stored data so it is enabled or disabled for writing only.
+ */
+public class BinaryObjectMarshallingStrategy implements ObjectMarshallingStrategy {
+
+    public static final String MARSHALLING_KEY = "quarkus.automatiko.persistence.marshalling";
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte CHAR = 9;
+    private static final byte STRING = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte BIG_INTEGER = 12;
+    private static final byte DATE = 13;
+    private static final byte INSTANT = 14;
+    private static final byte LOCAL_DATE = 15;
+    private static final byte LOCAL_DATE_TIME = 16;
+    private static final byte LOCAL_TIME = 17;
+    private static final byte ZONED_DATE_TIME = 18;
+    private static final byte OFFSET_DATE_TIME = 19;
+    private static final byte UUID_VALUE = 20;
+    private static final byte BYTES = 21;
+    private static final byte LIST = 22;
+    private static final byte SET = 23;
+    private static final byte MAP = 24;
+    private static final byte ENUM = 25;
+    private static final byte OBJECT = 26;
+
+    private final boolean enabled;
+
+    public BinaryObjectMarshallingStrategy(Process<?> process) {
+        this(!(((AbstractProcess<?>) process).process() instanceof ServerlessExecutableProcess)
+                && "binary".equalsIgnoreCase(ConfigProvider.getConfig()
+                        .getOptionalValue(MARSHALLING_KEY, String.class).orElse("json")));
+    }
+
+    public BinaryObjectMarshallingStrategy(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean accept(Object object) {
+        return enabled && BinarySchema.isSupported(object);
+    }
+
+    @Override
+    public byte[] marshal(Context context, ObjectOutputStream os, Object object) throws IOException {
+        Output output = new Output((SchemaContext) context);
+        output.writeValue(object);
+        return output.toByteArray();
+    }
+
+    @Override
+    public Object unmarshal(String dataType, Context context, ObjectInputStream is, byte[] object,
+            ClassLoader classloader) throws IOException, ClassNotFoundException {
+        if (object.length == 0) {
+            return null;
+        }
+        if (classloader == null) {
+            classloader = Thread.currentThread().getContextClassLoader();
+        }
+        return new Input((SchemaContext) context, object, classloader).readValue();
+    }
+
+    @Override
+    public Context createContext() {
+        return new SchemaContext();
+    }
+
+    /*
+     * Schemas of classes used within single marshalled process instance
+     */
+    protected static class SchemaContext implements Context {
+
+        private final Map<Class<?>, Integer> indexes = new HashMap<>();
+        private final List<BinarySchema> written = new ArrayList<>();
+
+        private final List<StoredSchema> stored = new ArrayList<>();
+
+        int index(BinarySchema schema) {
+            Integer index = indexes.get(schema.type);
+            if (index == null) {
+                index = written.size();
+                indexes.put(schema.type, index);
+                written.add(schema);
+            }
+            return index;
+        }
+
+        StoredSchema stored(int index) {
+            if (index >= stored.size()) {
+                throw new IllegalStateException("Unknown schema " + index + " of binary marshalled variable");
+            }
+            return stored.get(index);
+        }
+
+        @Override
+        public void read(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+            int count = ois.readInt();
+            for (int i = 0; i < count; i++) {
+                String type = ois.readUTF();
+                String[] names = new String[ois.readInt()];
+                for (int f = 0; f < names.length; f++) {
+                    names[f] = ois.readUTF();
+                }
+                stored.add(new StoredSchema(type, names));
+            }
+        }
+
+        @Override
+        public void write(ObjectOutputStream oos) throws IOException {
+            oos.writeInt(written.size());
+            for (BinarySchema schema : written) {
+                oos.writeUTF(schema.type.getName());
+                oos.writeInt(schema.names.length);
+                for (String name : schema.names) {
+                    oos.writeUTF(name);
+                }
+            }
+            oos.flush();
+        }
+    }
+
+    /*
+     * Schema as it was stored, resolved against current class on first use
+     */
+    protected static class StoredSchema {
+
+        private final String type;
+        private final String[] names;
+
+        private BinarySchema current;
+        // position of the stored field within current schema or -1 when field no longer exists
+        private int[] positions;
+
+        StoredSchema(String type, String[] names) {
+            this.type = type;
+            this.names = names;
+        }
+
+        BinarySchema resolve(ClassLoader classLoader) throws ClassNotFoundException {
+            if (current == null) {
+                BinarySchema schema = BinarySchema.of(Class.forName(type, false, classLoader));
+                if (!schema.supported) {
+                    throw new IllegalStateException("Class " + type + " can no longer be read by binary marshalling");
+                }
+                int[] mapped = new int[names.length];
+                List<String> currentNames = Arrays.asList(schema.names);
+                for (int i = 0; i < names.length; i++) {
+                    mapped[i] = currentNames.indexOf(names[i]);
+                }
+                this.positions = mapped;
+                this.current = schema;
+            }
+            return current;
+        }
+    }
+
+    private static class Output {
+
+        private final SchemaContext context;
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        Output(SchemaContext context) {
+            this.context = context;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                write(NULL);
+            } else if (value instanceof String) {
+                write(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                write((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer) {
+                write(INT);
+                writeVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                write(LONG);
+                writeVarLong((Long) value);
+            } else if (value instanceof Double) {
+                write(DOUBLE);
+                writeFixedLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                write(FLOAT);
+                writeVarLong(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Short) {
+                write(SHORT);
+                writeVarLong((Short) value);
+            } else if (value instanceof Byte) {
+                write(BYTE);
+                write((Byte) value);
+            } else if (value instanceof Character) {
+                write(CHAR);
+                writeVarLong((Character) value);
+            } else if (value instanceof BigDecimal) {
+                write(BIG_DECIMAL);
+                writeString(((BigDecimal) value).toString());
+            } else if (value instanceof BigInteger) {
+                write(BIG_INTEGER);
+                writeBytes(((BigInteger) value).toByteArray());
+            } else if (value instanceof Date) {
+                write(DATE);
+                writeVarLong(((Date) value).getTime());
+            } else if (value instanceof Instant) {
+                write(INSTANT);
+                writeVarLong(((Instant) value).getEpochSecond());
+                writeVarLong(((Instant) value).getNano());
+            } else if (value instanceof LocalDate) {
+                write(LOCAL_DATE);
+                writeVarLong(((LocalDate) value).toEpochDay());
+            } else if (value instanceof LocalDateTime) {
+                write(LOCAL_DATE_TIME);
+                writeVarLong(((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(((LocalDateTime) value).getNano());
+            } else if (value instanceof LocalTime) {
+                write(LOCAL_TIME);
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (value instanceof ZonedDateTime) {
+                write(ZONED_DATE_TIME);
+                writeString(value.toString());
+            } else if (value instanceof OffsetDateTime) {
+                write(OFFSET_DATE_TIME);
+                writeString(value.toString());
+            } else if (value instanceof UUID) {
+                write(UUID_VALUE);
+                writeFixedLong(((UUID) value).getMostSignificantBits());
+                writeFixedLong(((UUID) value).getLeastSignificantBits());
+            } else if (value instanceof byte[]) {
+                write(BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof List || value instanceof Set) {
+                write(value instanceof Set ? SET : LIST);
+                writeVarLong(((Collection<?>) value).size());
+                for (Object element : (Collection<?>) value) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                write(MAP);
+                writeVarLong(((Map<?, ?>) value).size());
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                BinarySchema schema = BinarySchema.of(value.getClass());
+                if (!schema.supported) {
+                    throw new IOException("Type " + value.getClass().getName() + " is not supported by binary marshalling");
+                }
+                if (schema.isEnum()) {
+                    write(ENUM);
+                    writeVarLong(context.index(schema));
+                    writeString(((Enum<?>) value).name());
+                } else {
+                    write(OBJECT);
+                    writeVarLong(context.index(schema));
+                    try {
+                        for (Field field : schema.fields) {
+                            writeValue(field.get(value));
+                        }
+                    } catch (IllegalAccessException e) {
+                        throw new IOException("Unable to read fields of " + value.getClass().getName(), e);
+                    }
+                }
+            }
+        }
+
+        void write(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarLong(long value) {
+            // zig-zag encoded so small negative numbers stay short
+            long encoded = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((encoded & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((encoded & 0x7F) | 0x80);
+                encoded >>>= 7;
+            }
+            buffer[position++] = (byte) encoded;
+        }
+
+        void writeFixedLong(long value) {
+            ensure(8);
+            for (int i = 56; i >= 0; i -= 8) {
+                buffer[position++] = (byte) (value >>> i);
+            }
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static class Input {
+
+        private final SchemaContext context;
+        private final byte[] buffer;
+        private final ClassLoader classLoader;
+        private int position;
+
+        Input(SchemaContext context, byte[] buffer, ClassLoader classLoader) {
+            this.context = context;
+            this.buffer = buffer;
+            this.classLoader = classLoader;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = buffer[position++];
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case BYTE:
+                    return buffer[position++];
+                case SHORT:
+                    return (short) readVarLong();
+                case INT:
+                    return (int) readVarLong();
+                case LONG:
+                    return readVarLong();
+                case FLOAT:
+                    return Float.intBitsToFloat((int) readVarLong());
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixedLong());
+                case CHAR:
+                    return (char) readVarLong();
+                case STRING:
+                    return readString();
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case DATE:
+                    return new Date(readVarLong());
+                case INSTANT:
+                    return Instant.ofEpochSecond(readVarLong(), readVarLong());
+                case LOCAL_DATE:
+                    return LocalDate.ofEpochDay(readVarLong());
+                case LOCAL_DATE_TIME:
+                    return LocalDateTime.ofEpochSecond(readVarLong(), (int) readVarLong(), ZoneOffset.UTC);
+                case LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case ZONED_DATE_TIME:
+                    return ZonedDateTime.parse(readString());
+                case OFFSET_DATE_TIME:
+                    return OffsetDateTime.parse(readString());
+                case UUID_VALUE:
+                    return new UUID(readFixedLong(), readFixedLong());
+                case BYTES:
+                    return readBytes();
+                case LIST:
+                case SET: {
+                    int size = (int) readVarLong();
+                    Collection<Object> collection = tag == SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        collection.add(readValue());
+                    }
+                    return collection;
+                }
+                case MAP: {
+                    int size = (int) readVarLong();
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(), readValue());
+                    }
+                    return map;
+                }
+                case ENUM: {
+                    BinarySchema schema = context.stored((int) readVarLong()).resolve(classLoader);
+                    String name = readString();
+                    try {
+                        return Enum.valueOf((Class<Enum>) schema.type, name);
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                }
+                case OBJECT:
+                    return readObject(context.stored((int) readVarLong()));
+                default:
+                    throw new IOException("Unknown type " + tag + " of binary marshalled variable");
+            }
+        }
+
+        private Object readObject(StoredSchema stored) throws IOException, ClassNotFoundException {
+            BinarySchema schema = stored.resolve(classLoader);
+            try {
+                Object instance = schema.constructor.newInstance();
+                for (int i = 0; i < stored.positions.length; i++) {
+                    Object value = readValue();
+                    if (stored.positions[i] >= 0) {
+                        Field field = schema.fields[stored.positions[i]];
+                        Object converted = convert(value, field.getType());
+                        if (converted != null || !field.getType().isPrimitive()) {
+                            field.set(instance, converted);
+                        }
+                    }
+                }
+                return instance;
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Unable to create instance of " + schema.type.getName(), e);
+            }
+        }
+
+        private Object convert(Object value, Class<?> type) {
+            if (value == null || type.isInstance(value)) {
+                return value;
+            }
+            if (value instanceof Number) {
+                Number number = (Number) value;
+                if (type == long.class || type == Long.class) {
+                    return number.longValue();
+                } else if (type == int.class || type == Integer.class) {
+                    return number.intValue();
+                } else if (type == double.class || type == Double.class) {
+                    return number.doubleValue();
+                } else if (type == float.class || type == Float.class) {
+                    return number.floatValue();
+                } else if (type == short.class || type == Short.class) {
+                    return number.shortValue();
+                } else if (type == byte.class || type == Byte.class) {
+                    return number.byteValue();
+                } else if (type == BigDecimal.class) {
+                    return new BigDecimal(number.toString());
+                }
+            } else if (value instanceof Boolean && type == boolean.class) {
+                return value;
+            } else if (value instanceof Character && type == char.class) {
+                return value;
+            }
+            // incompatible type, field keeps its default value
+            return null;
+        }
+
+        long readVarLong() {
+            long encoded = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                encoded |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (encoded >>> 1) ^ -(encoded & 1);
+        }
+
+        long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] readBytes() {
+            int length = (int) readVarLong();
+            byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return value;
+        }
+    }
+}
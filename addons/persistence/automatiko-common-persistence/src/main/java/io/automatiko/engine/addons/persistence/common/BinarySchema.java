@@ -0,0 +1,218 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Schema of a class written by {@link BinaryObjectMarshallingStrategy}. Schemas are computed once per class and
+ * describe fields (sorted by name) that are written positionally.
+ * <br/>
+ * Only simple data classes are supported - classes with accessible no argument constructor whose fields are of
+ * supported types and that do not use any Jackson annotations (as these customize how the class is stored). Values of
+ * any other type are left to Jackson based marshalling.
+ */
+final class BinarySchema {
+
+    private static final Set<Class<?>> SCALARS = Set.of(Boolean.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, Character.class, String.class, BigDecimal.class, BigInteger.class,
+            Date.class, Instant.class, LocalDate.class, LocalDateTime.class, LocalTime.class, ZonedDateTime.class,
+            OffsetDateTime.class, UUID.class, byte[].class);
+
+    private static final ClassValue<BinarySchema> SCHEMAS = new ClassValue<BinarySchema>() {
+
+        @Override
+        protected BinarySchema computeValue(Class<?> type) {
+            return create(type, new HashSet<>());
+        }
+    };
+
+    private static final BinarySchema UNSUPPORTED = new BinarySchema(null, false, null, null, null);
+
+    final Class<?> type;
+    final boolean supported;
+    final Constructor<?> constructor;
+    final Field[] fields;
+    final String[] names;
+
+    private BinarySchema(Class<?> type, boolean supported, Constructor<?> constructor, Field[] fields, String[] names) {
+        this.type = type;
+        this.supported = supported;
+        this.constructor = constructor;
+        this.fields = fields;
+        this.names = names;
+    }
+
+    boolean isEnum() {
+        return type != null && type.isEnum();
+    }
+
+    static BinarySchema of(Class<?> type) {
+        return SCHEMAS.get(type);
+    }
+
+    static boolean isScalar(Class<?> type) {
+        return type.isPrimitive() || SCALARS.contains(type);
+    }
+
+    /*
+     * checks runtime value, collections are checked element by element
+     */
+    static boolean isSupported(Object value) {
+        if (value == null || isScalar(value.getClass())) {
+            return true;
+        }
+        if (value instanceof Collection && (value instanceof List || value instanceof Set)) {
+            for (Object element : (Collection<?>) value) {
+                if (!isSupported(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!isSupported(entry.getKey()) || !isSupported(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return of(value.getClass()).supported;
+    }
+
+    private static BinarySchema create(Class<?> type, Set<Class<?>> visiting) {
+        if (type.isEnum()) {
+            return new BinarySchema(type, true, null, new Field[0], new String[0]);
+        }
+        if (type.isInterface() || type.isArray() || type.isPrimitive() || Modifier.isAbstract(type.getModifiers())
+                || type.isAnonymousClass() || type.isLocalClass() || type.isSynthetic()
+                || (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()))
+                || isPlatformType(type) || hasJacksonAnnotations(type)) {
+            return UNSUPPORTED;
+        }
+        visiting.add(type);
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            List<Field> fields = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                if (isPlatformType(current) || hasJacksonAnnotations(current)) {
+                    return UNSUPPORTED;
+                }
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    if (Modifier.isFinal(modifiers) || !names.add(field.getName())
+                            || hasJacksonAnnotations(field) || !isSupportedType(field.getGenericType(), visiting)) {
+                        return UNSUPPORTED;
+                    }
+                    fields.add(field);
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName));
+
+            constructor.setAccessible(true);
+            for (Field field : fields) {
+                field.setAccessible(true);
+            }
+            return new BinarySchema(type, true, constructor, fields.toArray(Field[]::new),
+                    fields.stream().map(Field::getName).toArray(String[]::new));
+        } catch (NoSuchMethodException | RuntimeException e) {
+            // no default constructor or not accessible fields
+            return UNSUPPORTED;
+        } finally {
+            visiting.remove(type);
+        }
+    }
+
+    private static boolean isSupportedType(Type type, Set<Class<?>> visiting) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            if (isScalar(clazz) || clazz.isEnum() || visiting.contains(clazz)) {
+                return true;
+            }
+            if (Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz)) {
+                // raw collections do not carry element type
+                return false;
+            }
+            return create(clazz, visiting).supported;
+        }
+        if (type instanceof ParameterizedType) {
+            Type raw = ((ParameterizedType) type).getRawType();
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (raw == List.class || raw == Set.class || raw == Collection.class) {
+                return isSupportedType(arguments[0], visiting);
+            }
+            if (raw == Map.class) {
+                return isSupportedType(arguments[0], visiting) && isSupportedType(arguments[1], visiting);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPlatformType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jakarta.")
+                || name.startsWith("com.fasterxml.");
+    }
+
+    private static boolean hasJacksonAnnotations(Class<?> type) {
+        if (hasJacksonAnnotations(type.getAnnotations())) {
+            return true;
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            if (hasJacksonAnnotations(method)) {
+                return true;
+            }
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (hasJacksonAnnotations(constructor)) {
+                return true;
+            }
+            for (Annotation[] parameterAnnotations : constructor.getParameterAnnotations()) {
+                if (hasJacksonAnnotations(parameterAnnotations)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasJacksonAnnotations(AccessibleObject element) {
+        return hasJacksonAnnotations(element.getAnnotations());
+    }
+
+    private static boolean hasJacksonAnnotations(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType().getName().startsWith("com.fasterxml.jackson")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
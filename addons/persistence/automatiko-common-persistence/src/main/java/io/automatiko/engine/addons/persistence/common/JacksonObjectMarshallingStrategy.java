@@ -75,7 +75,9 @@ public class JacksonObjectMarshallingStrategy implements ObjectMarshallingStrate
     }
 
     protected byte[] log(byte[] data) {
-        logger.debug("Variable content:: {}", new String(data, StandardCharsets.UTF_8));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Variable content:: {}", new String(data, StandardCharsets.UTF_8));
+        }
 
         return data;
     }
@@ -0,0 +1,28 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.automatiko.engine.api.config.JobsConfig;
+import io.automatiko.engine.services.jobs.impl.TimingWheelScheduler;
+
+/**
+ * Creates scheduler used by jobs services to fire jobs based on <code>quarkus.automatiko.jobs</code> configuration.
+ */
+public final class JobSchedulerFactory {
+
+    private JobSchedulerFactory() {
+    }
+
+    public static TimingWheelScheduler create(String name, int threads) {
+        Config config = ConfigProvider.getConfig();
+        long tickDuration = config.getOptionalValue(JobsConfig.TICK_DURATION_KEY, Long.class)
+                .orElse(TimingWheelScheduler.DEFAULT_TICK_DURATION);
+        int ticksPerWheel = config.getOptionalValue(JobsConfig.TICKS_PER_WHEEL_KEY, Integer.class)
+                .orElse(TimingWheelScheduler.DEFAULT_TICKS_PER_WHEEL);
+        int queueSize = config.getOptionalValue(JobsConfig.QUEUE_SIZE_KEY, Integer.class)
+                .orElse(TimingWheelScheduler.DEFAULT_QUEUE_SIZE);
+
+        return new TimingWheelScheduler(name, threads, tickDuration, ticksPerWheel, queueSize);
+    }
+}
@@ -0,0 +1,43 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.workflow.AbstractProcess;
+import io.automatiko.engine.workflow.cache.ProcessInstanceCache;
+
+/**
+ * Creates process instance cache for given process based on <code>quarkus.automatiko.persistence.cache</code>
+ * configuration and registers it on the process so it is shared by all components of the process (e.g. metrics).
+ */
+public final class ProcessInstanceCacheFactory {
+
+    public static final String CACHE_SIZE_KEY = "quarkus.automatiko.persistence.cache.size";
+    public static final String CACHE_TTL_KEY = "quarkus.automatiko.persistence.cache.ttl";
+    public static final String CACHE_PROCESSES_KEY = "quarkus.automatiko.persistence.cache.processes";
+
+    private ProcessInstanceCacheFactory() {
+    }
+
+    public static ProcessInstanceCache configure(Process<?> process) {
+        if (!(process instanceof AbstractProcess)) {
+            return ProcessInstanceCache.disabled();
+        }
+        Config config = ConfigProvider.getConfig();
+        int size = config.getOptionalValue(CACHE_SIZE_KEY, Integer.class).orElse(0);
+        long ttl = config.getOptionalValue(CACHE_TTL_KEY, Long.class).orElse(0L);
+        Optional<String> processes = config.getOptionalValue(CACHE_PROCESSES_KEY, String.class);
+
+        ProcessInstanceCache cache = ProcessInstanceCache.disabled();
+        if (size > 0 && processes.map(ids -> Arrays.stream(ids.split(",")).map(String::trim)
+                .anyMatch(id -> id.equals(process.id()))).orElse(true)) {
+            cache = new ProcessInstanceCache(size, ttl);
+        }
+        ((AbstractProcess<?>) process).setInstanceCache(cache);
+        return cache;
+    }
+}
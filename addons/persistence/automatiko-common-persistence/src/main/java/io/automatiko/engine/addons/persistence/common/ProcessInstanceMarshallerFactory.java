@@ -0,0 +1,25 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import io.automatiko.engine.workflow.marshalling.ProcessInstanceMarshaller;
+import io.automatiko.engine.workflow.marshalling.impl.AbstractProtobufProcessInstanceMarshaller;
+
+/**
+ * Applies <code>quarkus.automatiko.persistence</code> configuration that affects how process instances are marshalled
+ * to the marshaller used by the data store.
+ */
+public final class ProcessInstanceMarshallerFactory {
+
+    public static final String COMPLETED_NODES_SEGMENT_KEY = "quarkus.automatiko.persistence.completed-nodes-segment";
+
+    private ProcessInstanceMarshallerFactory() {
+    }
+
+    public static ProcessInstanceMarshaller configure(ProcessInstanceMarshaller marshaller) {
+        boolean segment = ConfigProvider.getConfig().getOptionalValue(COMPLETED_NODES_SEGMENT_KEY, Boolean.class)
+                .orElse(false);
+        marshaller.addToEnvironment(AbstractProtobufProcessInstanceMarshaller.COMPLETED_NODES_SEGMENT, segment);
+        return marshaller;
+    }
+}
@@ -0,0 +1,197 @@
+package io.automatiko.engine.addons.persistence.common.delta;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Computes and applies binary deltas between two versions of stored process instance content.
+ * <br/>
+ * Delta is made of copy (range of the source) and insert (literal bytes) operations. Source is indexed in fixed size
+ * blocks that are then looked up in the target with rolling hash, matched blocks are extended in both directions so
+ * unchanged parts of the content (even if shifted) are expressed as single copy operation.
+ * <br/>
+ * Every delta carries length and checksum of the source it was computed for so it can be verified before it is
+ * applied.
+ */
+public final class BinaryDelta {
+
+    private static final int BLOCK = 16;
+
+    private static final int PRIME = 31;
+
+    private static final byte COPY = 0;
+    private static final byte INSERT = 1;
+
+    private BinaryDelta() {
+    }
+
+    /**
+     * Computes delta that transforms given source into target
+     *
+     * @param source content the delta is computed against
+     * @param target content to be produced by the delta
+     * @return delta to be applied on the source
+     */
+    public static byte[] diff(byte[] source, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeVarint(out, source.length);
+        writeVarint(out, checksum(source));
+        writeVarint(out, target.length);
+
+        Map<Integer, Integer> blocks = new HashMap<>(Math.max(16, (source.length / BLOCK) * 2));
+        for (int i = 0; i + BLOCK <= source.length; i += BLOCK) {
+            blocks.putIfAbsent(hash(source, i), i);
+        }
+
+        int power = 1;
+        for (int i = 1; i < BLOCK; i++) {
+            power *= PRIME;
+        }
+
+        int literal = 0;
+        int position = 0;
+        int hash = target.length >= BLOCK ? hash(target, 0) : 0;
+        while (position + BLOCK <= target.length) {
+            Integer candidate = blocks.get(hash);
+            if (candidate != null && matches(source, candidate, target, position, BLOCK)) {
+                int sourceStart = candidate;
+                int targetStart = position;
+                // extend the match backward into pending literal bytes
+                while (targetStart > literal && sourceStart > 0 && source[sourceStart - 1] == target[targetStart - 1]) {
+                    sourceStart--;
+                    targetStart--;
+                }
+                int length = position - targetStart + BLOCK;
+                while (sourceStart + length < source.length && targetStart + length < target.length
+                        && source[sourceStart + length] == target[targetStart + length]) {
+                    length++;
+                }
+
+                insert(out, target, literal, targetStart);
+                out.write(COPY);
+                writeVarint(out, sourceStart);
+                writeVarint(out, length);
+
+                position = targetStart + length;
+                literal = position;
+                if (position + BLOCK <= target.length) {
+                    hash = hash(target, position);
+                }
+                continue;
+            }
+            if (position + BLOCK < target.length) {
+                hash = (hash - target[position] * power) * PRIME + target[position + BLOCK];
+            }
+            position++;
+        }
+        insert(out, target, literal, target.length);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Verifies if given delta was computed for given source
+     *
+     * @param source content delta should be applied on
+     * @param delta delta to be verified
+     * @return true if delta can be applied on the source otherwise false
+     */
+    public static boolean appliesTo(byte[] source, byte[] delta) {
+        int[] position = new int[1];
+        return readVarint(delta, position) == source.length && readVarint(delta, position) == checksum(source);
+    }
+
+    /**
+     * Applies delta on given source
+     *
+     * @param source content the delta was computed against
+     * @param delta delta computed by {@link #diff(byte[], byte[])}
+     * @return content the delta was computed for
+     */
+    public static byte[] apply(byte[] source, byte[] delta) {
+        if (!appliesTo(source, delta)) {
+            throw new IllegalArgumentException("Delta was not computed for given content");
+        }
+        int[] position = new int[1];
+        readVarint(delta, position);
+        readVarint(delta, position);
+        byte[] target = new byte[readVarint(delta, position)];
+        int written = 0;
+        while (position[0] < delta.length) {
+            byte operation = delta[position[0]++];
+            if (operation == COPY) {
+                int offset = readVarint(delta, position);
+                int length = readVarint(delta, position);
+                System.arraycopy(source, offset, target, written, length);
+                written += length;
+            } else if (operation == INSERT) {
+                int length = readVarint(delta, position);
+                System.arraycopy(delta, position[0], target, written, length);
+                position[0] += length;
+                written += length;
+            } else {
+                throw new IllegalArgumentException("Unknown delta operation " + operation);
+            }
+        }
+        if (written != target.length) {
+            throw new IllegalArgumentException("Delta is incomplete, expected " + target.length + " bytes but got " + written);
+        }
+        return target;
+    }
+
+    private static void insert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+        if (to > from) {
+            out.write(INSERT);
+            writeVarint(out, to - from);
+            out.write(target, from, to - from);
+        }
+    }
+
+    private static int hash(byte[] data, int offset) {
+        int hash = 0;
+        for (int i = offset; i < offset + BLOCK; i++) {
+            hash = hash * PRIME + data[i];
+        }
+        return hash;
+    }
+
+    private static boolean matches(byte[] source, int sourceOffset, byte[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (source[sourceOffset + i] != target[targetOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                return -1;
+            }
+            byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed delta");
+    }
+}
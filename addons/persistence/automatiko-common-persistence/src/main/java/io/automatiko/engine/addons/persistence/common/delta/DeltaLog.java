@@ -0,0 +1,167 @@
+package io.automatiko.engine.addons.persistence.common.delta;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Keeps process instance content as base snapshot and appended deltas. Deltas are appended until compaction is
+ * required - either number of deltas reached configured limit or deltas are getting too big compared to the
+ * snapshot - at that point complete snapshot is stored again and all deltas are dropped.
+ * <br/>
+ * Deltas are stored in a log where each entry is prefixed with its length, entries themselves are opaque (e.g. can be
+ * encoded by data codec) and are decoded by the data store before they are replayed.
+ */
+public class DeltaLog {
+
+    public static final String DELTA_UPDATES_KEY = "quarkus.automatiko.persistence.delta-updates";
+    public static final String DELTA_COMPACTION_KEY = "quarkus.automatiko.persistence.delta-compaction";
+
+    public static final int DEFAULT_COMPACTION = 20;
+
+    private final boolean enabled;
+
+    private final int compaction;
+
+    public DeltaLog() {
+        this(ConfigProvider.getConfig().getOptionalValue(DELTA_UPDATES_KEY, Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue(DELTA_COMPACTION_KEY, Integer.class).orElse(DEFAULT_COMPACTION));
+    }
+
+    public DeltaLog(boolean enabled, int compaction) {
+        this.enabled = enabled;
+        this.compaction = compaction;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Computes delta to be appended to the log for updated content
+     *
+     * @param replayed current content with number and size of the deltas already in the log
+     * @param updated new content to be stored
+     * @return delta to be appended to the log or null when complete snapshot should be stored instead
+     */
+    public byte[] delta(Replayed replayed, byte[] updated) {
+        if (!enabled || replayed.base == 0 || !replayed.complete || replayed.deltas + 1 >= compaction) {
+            return null;
+        }
+        byte[] delta = BinaryDelta.diff(replayed.content, updated);
+        // once deltas are half of the snapshot it is cheaper to read and store snapshot again
+        if ((replayed.size + delta.length) * 2 > replayed.base) {
+            return null;
+        }
+        return delta;
+    }
+
+    /**
+     * Replays decoded deltas on top of the base snapshot, deltas not computed for the content they are applied on
+     * (left over from interrupted compaction) stop the replay and mark it as incomplete
+     *
+     * @param base base snapshot
+     * @param deltas decoded deltas in order they were appended
+     * @param size size of the stored deltas
+     * @return replayed content
+     */
+    public static Replayed replay(byte[] base, List<byte[]> deltas, long size) {
+        byte[] content = base;
+        for (byte[] delta : deltas) {
+            if (!BinaryDelta.appliesTo(content, delta)) {
+                return new Replayed(content, base.length, deltas.size(), size, false);
+            }
+            content = BinaryDelta.apply(content, delta);
+        }
+        return new Replayed(content, base.length, deltas.size(), size, true);
+    }
+
+    /**
+     * Creates log entry for given delta
+     *
+     * @param delta (encoded) delta
+     * @return entry that can be appended to the log
+     */
+    public static byte[] entry(byte[] delta) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(delta.length + 5);
+        int length = delta.length;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(delta, 0, delta.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Splits log into (encoded) deltas, incomplete entry at the end of the log (interrupted write) is ignored
+     *
+     * @param log content of the log
+     * @return deltas in order they were appended
+     */
+    public static List<byte[]> entries(byte[] log) {
+        if (log == null || log.length == 0) {
+            return Collections.emptyList();
+        }
+        List<byte[]> entries = new ArrayList<>();
+        int position = 0;
+        while (position < log.length) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position >= log.length) {
+                    return entries;
+                }
+                b = log[position++];
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if (position + length > log.length) {
+                break;
+            }
+            byte[] entry = new byte[length];
+            System.arraycopy(log, position, entry, 0, length);
+            entries.add(entry);
+            position += length;
+        }
+        return entries;
+    }
+
+    /**
+     * Content of process instance replayed from the snapshot and deltas
+     */
+    public static class Replayed {
+
+        private final byte[] content;
+        private final int base;
+        private final int deltas;
+        private final long size;
+        private final boolean complete;
+
+        public Replayed(byte[] content, int base, int deltas, long size, boolean complete) {
+            this.content = content;
+            this.base = base;
+            this.deltas = deltas;
+            this.size = size;
+            this.complete = complete;
+        }
+
+        public byte[] content() {
+            return content;
+        }
+
+        public int deltas() {
+            return deltas;
+        }
+
+        public boolean complete() {
+            return complete;
+        }
+    }
+}
@@ -4,20 +4,22 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogIndex.Entry;
 import io.automatiko.engine.api.uow.TransactionLogStore;
 import io.quarkus.arc.DefaultBean;
 
@@ -25,23 +27,43 @@ import io.quarkus.arc.DefaultBean;
 @ApplicationScoped
 public class FileSystemTransactionLogStore implements TransactionLogStore {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemTransactionLogStore.class);
+
+    public static final String FOLDER_TYPE = "folder";
+
+    public static final String SEGMENT_TYPE = "segment";
+
     private Path storage;
 
+    private TransactionLogStore segmentStore;
+
+    private volatile TransactionLogIndex<Path> index;
+
     public FileSystemTransactionLogStore(
-            @ConfigProperty(name = "quarkus.automatiko.persistence.transaction-log.folder") Optional<String> transactionLogFolder) {
+            @ConfigProperty(name = "quarkus.automatiko.persistence.transaction-log.folder") Optional<String> transactionLogFolder,
+            @ConfigProperty(name = "quarkus.automatiko.persistence.transaction-log.type") Optional<String> transactionLogType) {
 
         if (transactionLogFolder.isPresent()) {
             storage = Paths.get(transactionLogFolder.get());
+
+            if (SEGMENT_TYPE.equalsIgnoreCase(transactionLogType.orElse(FOLDER_TYPE))) {
+                segmentStore = new SegmentFileTransactionLogStore(storage);
+            }
         }
     }
 
     @Override
     public void store(String transactionId, String processId, String instanceId, byte[] content) {
+        if (segmentStore != null) {
+            segmentStore.store(transactionId, processId, instanceId, content);
+            return;
+        }
         Path path = Paths.get(storage.toString(), transactionId, processId, instanceId);
         try {
             Files.createDirectories(path.getParent());
 
             Files.write(path, content);
+            index().put(transactionId, processId, instanceId, path);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -49,21 +71,16 @@ public class FileSystemTransactionLogStore implements TransactionLogStore {
 
     @Override
     public byte[] load(String processId, String instanceId) {
-        String[] transactions = storage.toFile().list();
+        if (segmentStore != null) {
+            return segmentStore.load(processId, instanceId);
+        }
+        Entry<Path> entry = index().get(processId, instanceId);
+        if (entry == null) {
+            return null;
+        }
         try {
-            if (transactions != null) {
-                for (String transactionId : transactions) {
-                    File transactionFolder = new File(storage.toFile(), transactionId);
-
-                    File processIdFolder = new File(transactionFolder, processId);
-
-                    String[] instances = processIdFolder.list((dir, name) -> name.equals(instanceId));
-
-                    if (instances != null && instances.length == 1) {
-                        return Files.readAllBytes(Paths.get(processIdFolder.getAbsolutePath(), instances[0]));
-                    }
-                }
-            }
+            return Files.readAllBytes(entry.location);
+        } catch (NoSuchFileException e) {
             return null;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -72,29 +89,21 @@ public class FileSystemTransactionLogStore implements TransactionLogStore {
 
     @Override
     public Set<String> list(String processId) {
-        String[] transactions = storage.toFile().list();
-        Set<String> recoverable = new LinkedHashSet<>();
-        if (transactions != null) {
-            for (String transactionId : transactions) {
-                File transactionFolder = new File(storage.toFile(), transactionId);
-
-                File processIdFolder = new File(transactionFolder, processId);
-
-                String[] instances = processIdFolder.list();
-                if (instances != null) {
-                    for (String instance : instances) {
-                        recoverable.add(transactionId + "|" + instance);
-                    }
-                }
-            }
+        if (segmentStore != null) {
+            return segmentStore.list(processId);
         }
-        return recoverable;
+        return index().list(processId);
     }
 
     @Override
     public void delete(String transactionId) {
+        if (segmentStore != null) {
+            segmentStore.delete(transactionId);
+            return;
+        }
         Path path = Paths.get(storage.toString(), transactionId);
         try {
+            index().removeTransaction(transactionId);
             if (Files.exists(path)) {
                 Files.walk(path)
                         .sorted(Comparator.reverseOrder())
@@ -110,8 +119,13 @@ public class FileSystemTransactionLogStore implements TransactionLogStore {
 
     @Override
     public void delete(String transactionId, String processId, String instanceId) {
+        if (segmentStore != null) {
+            segmentStore.delete(transactionId, processId, instanceId);
+            return;
+        }
         Path path = Paths.get(storage.toString(), transactionId, processId, instanceId);
         try {
+            index().remove(transactionId, processId, instanceId);
             Files.deleteIfExists(path);
 
             Path processFolder = path.getParent();
@@ -130,21 +144,10 @@ public class FileSystemTransactionLogStore implements TransactionLogStore {
 
     @Override
     public boolean contains(String processId, String instanceId) {
-        String[] transactions = storage.toFile().list();
-        if (transactions != null) {
-            for (String transactionId : transactions) {
-                File transactionFolder = new File(storage.toFile(), transactionId);
-
-                File processIdFolder = new File(transactionFolder, processId);
-
-                File instanceFolder = new File(processIdFolder, instanceId);
-
-                if (instanceFolder.exists()) {
-                    return true;
-                }
-            }
+        if (segmentStore != null) {
+            return segmentStore.contains(processId, instanceId);
         }
-        return false;
+        return index().get(processId, instanceId) != null;
     }
 
     @Override
@@ -152,11 +155,48 @@ public class FileSystemTransactionLogStore implements TransactionLogStore {
         if (storage == null) {
             return Collections.emptySet();
         }
-        String[] transactions = storage.toFile().list();
-        if (transactions == null) {
-            return Collections.emptySet();
+        if (segmentStore != null) {
+            return segmentStore.list();
+        }
+        return new HashSet<>(index().transactions());
+    }
+
+    /*
+     * index of transaction log entries is built once from the transaction log folder on first use
+     * and from then on maintained by store and delete operations
+     */
+    protected TransactionLogIndex<Path> index() {
+        TransactionLogIndex<Path> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new TransactionLogIndex<>();
+                    String[] transactions = storage.toFile().list();
+                    if (transactions != null) {
+                        for (String transactionId : transactions) {
+                            File[] processFolders = new File(storage.toFile(), transactionId).listFiles(File::isDirectory);
+                            if (processFolders == null) {
+                                continue;
+                            }
+                            for (File processFolder : processFolders) {
+                                String[] instances = processFolder.list();
+                                if (instances != null) {
+                                    for (String instance : instances) {
+                                        current.put(transactionId, processFolder.getName(), instance,
+                                                Paths.get(processFolder.getAbsolutePath(), instance));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    LOGGER.debug("Transaction log index built from {} with {} transaction(s)", storage,
+                            current.transactions().size());
+                    index = current;
+                }
+            }
         }
-        return Stream.of(transactions).collect(Collectors.toSet());
+        return current;
     }
 
 }
@@ -0,0 +1,372 @@
+package io.automatiko.engine.addons.persistence.common.tlog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogIndex.Entry;
+import io.automatiko.engine.api.uow.TransactionLogStore;
+
+/**
+ * Transaction log store that appends all entries to segment files instead of creating folder per transaction.
+ * <br/>
+ * Each segment is an append only file with records of stored and deleted entries. Location of every entry is kept in
+ * memory so loading content is a single positional read. Segments are rolled over once they reach configured size and
+ * are deleted as soon as they (and all segments before them) do not contain any live entries.
+ */
+public class SegmentFileTransactionLogStore implements TransactionLogStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentFileTransactionLogStore.class);
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "tlog-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final byte STORE = 1;
+    private static final byte DELETE = 2;
+    private static final byte DELETE_TRANSACTION = 3;
+
+    // record header is made of body length and its checksum
+    private static final int HEADER_SIZE = 8;
+
+    private final Path storage;
+
+    private final long segmentSize;
+
+    private final TransactionLogIndex<Location> index = new TransactionLogIndex<>();
+
+    // number of live entries per segment ordered by segment sequence
+    private final TreeMap<Long, Integer> segments = new TreeMap<>();
+
+    private long activeSegment;
+
+    private FileChannel activeChannel;
+
+    public SegmentFileTransactionLogStore(Path storage) {
+        this(storage, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentFileTransactionLogStore(Path storage, long segmentSize) {
+        this.storage = storage;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(storage);
+            replay();
+            openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void store(String transactionId, String processId, String instanceId, byte[] content) {
+        try {
+            if (activeChannel.size() >= segmentSize) {
+                activeChannel.close();
+                openSegment(activeSegment + 1);
+                releaseSegments(activeSegment);
+            }
+            byte[] record = record(STORE, transactionId, processId, instanceId, content);
+            long position = append(record);
+            // content is always the last element of the record
+            Location location = new Location(activeSegment, position + HEADER_SIZE + record.length - content.length,
+                    content.length);
+
+            Entry<Location> previous = index.put(transactionId, processId, instanceId, location);
+            segments.merge(activeSegment, 1, Integer::sum);
+            if (previous != null) {
+                released(previous.location);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] load(String processId, String instanceId) {
+        Entry<Location> entry = index.get(processId, instanceId);
+        if (entry == null) {
+            return null;
+        }
+        Location location = entry.location;
+        try (FileChannel channel = FileChannel.open(segmentPath(location.segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of transaction log segment " + location.segment);
+                }
+            }
+            return buffer.array();
+        } catch (NoSuchFileException e) {
+            // entry was deleted in the meantime
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Set<String> list(String processId) {
+        return index.list(processId);
+    }
+
+    @Override
+    public Set<String> list() {
+        return new HashSet<>(index.transactions());
+    }
+
+    @Override
+    public synchronized void delete(String transactionId) {
+        Collection<Entry<Location>> removed = index.removeTransaction(transactionId);
+        if (removed.isEmpty()) {
+            return;
+        }
+        try {
+            append(record(DELETE_TRANSACTION, transactionId, "", "", new byte[0]));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Entry<Location> entry : removed) {
+            released(entry.location);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String transactionId, String processId, String instanceId) {
+        Entry<Location> removed = index.remove(transactionId, processId, instanceId);
+        if (removed == null) {
+            return;
+        }
+        try {
+            append(record(DELETE, transactionId, processId, instanceId, new byte[0]));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        released(removed.location);
+    }
+
+    @Override
+    public boolean contains(String processId, String instanceId) {
+        return index.get(processId, instanceId) != null;
+    }
+
+    public synchronized void close() {
+        try {
+            activeChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected void replay() throws IOException {
+        try (Stream<Path> files = Files.list(storage)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(segment -> segments.put(segment, 0));
+        }
+
+        for (Long segment : segments.keySet()) {
+            replaySegment(segment);
+        }
+        LOGGER.debug("Transaction log at {} loaded from {} segment(s) with {} transaction(s) to be recovered", storage,
+                segments.size(), index.transactions().size());
+        // clean up segments that are already fully released
+        releaseSegments(Long.MAX_VALUE);
+    }
+
+    protected void replaySegment(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long position = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                channel.read(body, position + HEADER_SIZE);
+                if (checksum(body.array()) != checksum) {
+                    break;
+                }
+                replayRecord(segment, position, body.array());
+
+                position += HEADER_SIZE + length;
+            }
+            if (position < size) {
+                // incomplete record written during crash, drop it so new records are not appended after it
+                LOGGER.warn("Truncating incomplete record at position {} of transaction log segment {}", position,
+                        segmentPath(segment));
+                channel.truncate(position);
+            }
+        }
+    }
+
+    private void replayRecord(long segment, long position, byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        String transactionId = in.readUTF();
+        String processId = in.readUTF();
+        String instanceId = in.readUTF();
+        int contentLength = in.readInt();
+
+        switch (type) {
+            case STORE:
+                Location location = new Location(segment, position + HEADER_SIZE + body.length - contentLength,
+                        contentLength);
+                Entry<Location> previous = index.put(transactionId, processId, instanceId, location);
+                segments.merge(segment, 1, Integer::sum);
+                if (previous != null) {
+                    segments.merge(previous.location.segment, -1, Integer::sum);
+                }
+                break;
+            case DELETE:
+                Entry<Location> removed = index.remove(transactionId, processId, instanceId);
+                if (removed != null) {
+                    segments.merge(removed.location.segment, -1, Integer::sum);
+                }
+                break;
+            case DELETE_TRANSACTION:
+                for (Entry<Location> entry : index.removeTransaction(transactionId)) {
+                    segments.merge(entry.location.segment, -1, Integer::sum);
+                }
+                break;
+            default:
+                throw new IOException("Unknown transaction log record type " + type + " in segment " + segment);
+        }
+    }
+
+    private void released(Location location) {
+        segments.merge(location.segment, -1, Integer::sum);
+        releaseSegments(activeSegment);
+    }
+
+    /*
+     * segments can only be removed in order as they might contain delete records of entries stored in previous segments
+     */
+    private void releaseSegments(long limit) {
+        while (!segments.isEmpty()) {
+            Map.Entry<Long, Integer> oldest = segments.firstEntry();
+            if (oldest.getKey() >= limit || oldest.getValue() > 0) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segmentPath(oldest.getKey()));
+            } catch (IOException e) {
+                LOGGER.warn("Unable to delete transaction log segment {}", segmentPath(oldest.getKey()), e);
+                return;
+            }
+            segments.remove(oldest.getKey());
+        }
+    }
+
+    private void openSegment(long segment) throws IOException {
+        this.activeSegment = segment;
+        this.activeChannel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segments.putIfAbsent(segment, 0);
+    }
+
+    /*
+     * appends given record to the active segment and returns its position
+     */
+    private long append(byte[] record) throws IOException {
+        long position = activeChannel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + record.length);
+        buffer.putInt(record.length);
+        buffer.putInt(checksum(record));
+        buffer.put(record);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            activeChannel.write(buffer);
+        }
+        activeChannel.force(false);
+        return position;
+    }
+
+    private byte[] record(byte type, String transactionId, String processId, String instanceId, byte[] content)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                recordSize(type, transactionId, processId, instanceId, content));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeUTF(transactionId);
+        out.writeUTF(processId);
+        out.writeUTF(instanceId);
+        out.writeInt(content.length);
+        out.write(content);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private int recordSize(byte type, String transactionId, String processId, String instanceId, byte[] content) {
+        return 1 + utfSize(transactionId) + utfSize(processId) + utfSize(instanceId) + 4 + content.length;
+    }
+
+    private int utfSize(String value) {
+        int size = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                size++;
+            } else if (c > 0x07FF) {
+                size += 3;
+            } else {
+                size += 2;
+            }
+        }
+        return size + 2;
+    }
+
+    private int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long segment) {
+        return Paths.get(storage.toString(), SEGMENT_PREFIX + String.format("%016d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private static class Location {
+
+        private final long segment;
+        private final long position;
+        private final int length;
+
+        Location(long segment, long position, int length) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.automatiko.engine.addons.persistence.common.tlog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory index of transaction log entries that allows to find transaction log entry of given process instance
+ * without scanning the transaction log storage.
+ *
+ * @param <T> type of the location of the entry within the transaction log storage
+ */
+class TransactionLogIndex<T> {
+
+    private final Map<String, Map<String, Entry<T>>> entriesByProcess = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Entry<T>>> entriesByTransaction = new ConcurrentHashMap<>();
+
+    /**
+     * Records location of the process instance content, replacing any previously recorded location
+     *
+     * @return previous entry of the process instance or null if there was none
+     */
+    public synchronized Entry<T> put(String transactionId, String processId, String instanceId, T location) {
+        Entry<T> entry = new Entry<>(transactionId, processId, instanceId, location);
+
+        Entry<T> previous = entriesByProcess.computeIfAbsent(processId, k -> new ConcurrentHashMap<>()).put(instanceId,
+                entry);
+        if (previous != null) {
+            removeFromTransaction(previous);
+        }
+        entriesByTransaction.computeIfAbsent(transactionId, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        return previous;
+    }
+
+    public Entry<T> get(String processId, String instanceId) {
+        Map<String, Entry<T>> instances = entriesByProcess.get(processId);
+        if (instances == null) {
+            return null;
+        }
+        return instances.get(instanceId);
+    }
+
+    /**
+     * Removes entry of the process instance only if it belongs to given transaction
+     *
+     * @return removed entry or null if there was no entry for given transaction
+     */
+    public synchronized Entry<T> remove(String transactionId, String processId, String instanceId) {
+        Entry<T> entry = get(processId, instanceId);
+        if (entry == null || !entry.transactionId.equals(transactionId)) {
+            return null;
+        }
+        entriesByProcess.get(processId).remove(instanceId);
+        removeFromTransaction(entry);
+        return entry;
+    }
+
+    /**
+     * Removes all entries that belong to given transaction
+     *
+     * @return removed entries, never null
+     */
+    public synchronized Collection<Entry<T>> removeTransaction(String transactionId) {
+        Set<Entry<T>> entries = entriesByTransaction.remove(transactionId);
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        List<Entry<T>> removed = new ArrayList<>(entries);
+        for (Entry<T> entry : removed) {
+            entriesByProcess.get(entry.processId).remove(entry.instanceId, entry);
+        }
+        return removed;
+    }
+
+    public Set<String> list(String processId) {
+        Map<String, Entry<T>> instances = entriesByProcess.get(processId);
+        if (instances == null) {
+            return Collections.emptySet();
+        }
+        Set<String> recoverable = new LinkedHashSet<>();
+        for (Entry<T> entry : instances.values()) {
+            recoverable.add(entry.transactionId + "|" + entry.instanceId);
+        }
+        return recoverable;
+    }
+
+    public Set<String> transactions() {
+        return Collections.unmodifiableSet(entriesByTransaction.keySet());
+    }
+
+    private void removeFromTransaction(Entry<T> entry) {
+        Set<Entry<T>> entries = entriesByTransaction.get(entry.transactionId);
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                entriesByTransaction.remove(entry.transactionId);
+            }
+        }
+    }
+
+    static class Entry<T> {
+
+        final String transactionId;
+        final String processId;
+        final String instanceId;
+        final T location;
+
+        Entry(String transactionId, String processId, String instanceId, T location) {
+            this.transactionId = transactionId;
+            this.processId = processId;
+            this.instanceId = instanceId;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.automatiko.engine.addons.persistence.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.automatiko.engine.api.marshalling.ObjectMarshallingStrategy.Context;
+
+public class BinaryObjectMarshallingStrategyTest {
+
+    private BinaryObjectMarshallingStrategy strategy = new BinaryObjectMarshallingStrategy(true);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Person person = person();
+
+        assertThat(strategy.accept(person)).isTrue();
+        assertThat(strategy.accept(Arrays.asList("a", 1, person))).isTrue();
+        assertThat(strategy.accept(new Annotated())).isFalse();
+        assertThat(strategy.accept(new Object())).isFalse();
+        assertThat(new BinaryObjectMarshallingStrategy(false).accept(person)).isFalse();
+
+        Context context = strategy.createContext();
+        byte[] data = strategy.marshal(context, null, person);
+
+        Person read = (Person) strategy.unmarshal(null, reload(header(context)), null, data, null);
+        assertThat(read.name).isEqualTo("john");
+        assertThat(read.age).isEqualTo(42);
+        assertThat(read.status).isEqualTo(Status.ACTIVE);
+        assertThat(read.birthDate).isEqualTo(LocalDate.of(1980, 1, 1));
+        assertThat(read.tags).containsExactly("one", "two");
+        assertThat(read.attributes).containsEntry("key", 1.5d);
+        assertThat(read.address.city).isEqualTo("Lodz");
+    }
+
+    @Test
+    public void testSmallerThanJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfSubType(Object.class).build(),
+                DefaultTyping.EVERYTHING, As.PROPERTY);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            people.add(person());
+        }
+        Context context = strategy.createContext();
+        byte[] binary = strategy.marshal(context, null, people);
+        byte[] json = mapper.writeValueAsBytes(people);
+
+        assertThat(binary.length + header(context).length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    public void testSchemaEvolution() throws Exception {
+        PersonV1 person = new PersonV1();
+        person.name = "john";
+        person.age = 42;
+        person.removed = "gone";
+
+        Context context = strategy.createContext();
+        byte[] data = strategy.marshal(context, null, person);
+
+        // read stored data as if the class was changed to PersonV2
+        byte[] header = new String(header(context), StandardCharsets.ISO_8859_1).replace("PersonV1", "PersonV2")
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        PersonV2 read = (PersonV2) strategy.unmarshal(null, reload(header), null, data, null);
+        assertThat(read.name).isEqualTo("john");
+        assertThat(read.age).isEqualTo(42L);
+        assertThat(read.added).isEqualTo("default");
+    }
+
+    private byte[] header(Context context) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        context.write(new ObjectOutputStream(out));
+        return out.toByteArray();
+    }
+
+    private Context reload(byte[] header) throws Exception {
+        Context context = strategy.createContext();
+        context.read(new ObjectInputStream(new ByteArrayInputStream(header)));
+        return context;
+    }
+
+    private Person person() {
+        Person person = new Person();
+        person.name = "john";
+        person.age = 42;
+        person.status = Status.ACTIVE;
+        person.birthDate = LocalDate.of(1980, 1, 1);
+        person.tags = Arrays.asList("one", "two");
+        person.attributes = new HashMap<>();
+        person.attributes.put("key", 1.5d);
+        person.address = new Address();
+        person.address.city = "Lodz";
+        return person;
+    }
+
+    public enum Status {
+        ACTIVE,
+        INACTIVE
+    }
+
+    public static class Address {
+        private String city;
+    }
+
+    public static class Person {
+        private String name;
+        private int age;
+        private Status status;
+        private LocalDate birthDate;
+        private List<String> tags;
+        private Map<String, Double> attributes;
+        private Address address;
+    }
+
+    public static class PersonV1 {
+        private String name;
+        private int age;
+        private String removed;
+    }
+
+    public static class PersonV2 {
+        private String name;
+        private long age;
+        private String added = "default";
+    }
+
+    public static class Annotated {
+        @JsonIgnore
+        private String name;
+    }
+}
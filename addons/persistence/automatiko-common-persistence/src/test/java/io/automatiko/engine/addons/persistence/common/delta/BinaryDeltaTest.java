@@ -0,0 +1,105 @@
+package io.automatiko.engine.addons.persistence.common.delta;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class BinaryDeltaTest {
+
+    @Test
+    public void testDiffAndApply() {
+        byte[] source = "{\"name\":\"john\",\"age\":42,\"address\":{\"city\":\"Lodz\",\"street\":\"Piotrkowska\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] target = "{\"name\":\"john\",\"age\":43,\"address\":{\"city\":\"Warsaw\",\"street\":\"Piotrkowska\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        byte[] delta = BinaryDelta.diff(source, target);
+        assertThat(BinaryDelta.appliesTo(source, delta)).isTrue();
+        assertThat(BinaryDelta.appliesTo(target, delta)).isFalse();
+        assertThat(BinaryDelta.apply(source, delta)).isEqualTo(target);
+
+        assertThat(BinaryDelta.apply(source, BinaryDelta.diff(source, new byte[0]))).isEmpty();
+        assertThat(BinaryDelta.apply(new byte[0], BinaryDelta.diff(new byte[0], target))).isEqualTo(target);
+    }
+
+    @Test
+    public void testBytesWrittenPerUpdate() {
+        Random random = new Random(7);
+        byte[] source = new byte[1024 * 1024];
+        random.nextBytes(source);
+
+        // single field change that also shifts the rest of the content
+        byte[] target = new byte[source.length + 3];
+        System.arraycopy(source, 0, target, 0, 500_000);
+        target[500_000] = 1;
+        target[500_001] = 2;
+        target[500_002] = 3;
+        System.arraycopy(source, 500_000, target, 500_003, source.length - 500_000);
+        target[10] = (byte) (target[10] + 1);
+
+        byte[] delta = BinaryDelta.diff(source, target);
+        assertThat(BinaryDelta.apply(source, delta)).isEqualTo(target);
+        assertThat(delta.length).isLessThan(100);
+    }
+
+    @Test
+    public void testDeltaLogReplayAndCompaction() {
+        DeltaLog deltaLog = new DeltaLog(true, 3);
+        byte[] base = content(0);
+
+        List<byte[]> deltas = new ArrayList<>();
+        byte[] current = base;
+        for (int i = 1; i < 3; i++) {
+            DeltaLog.Replayed replayed = DeltaLog.replay(base, deltas, size(deltas));
+            assertThat(replayed.content()).isEqualTo(current);
+
+            current = content(i);
+            byte[] delta = deltaLog.delta(replayed, current);
+            assertThat(delta).isNotNull();
+            deltas.add(delta);
+        }
+        DeltaLog.Replayed replayed = DeltaLog.replay(base, deltas, size(deltas));
+        assertThat(replayed.content()).isEqualTo(current);
+        assertThat(replayed.deltas()).isEqualTo(2);
+        // limit of deltas reached so snapshot should be stored
+        assertThat(deltaLog.delta(replayed, content(3))).isNull();
+
+        // deltas left over after snapshot was stored are not applied
+        replayed = DeltaLog.replay(current, deltas, size(deltas));
+        assertThat(replayed.complete()).isFalse();
+        assertThat(replayed.content()).isEqualTo(current);
+        assertThat(deltaLog.delta(replayed, content(3))).isNull();
+
+        byte[] log = new byte[0];
+        for (byte[] delta : deltas) {
+            byte[] entry = DeltaLog.entry(delta);
+            byte[] appended = new byte[log.length + entry.length];
+            System.arraycopy(log, 0, appended, 0, log.length);
+            System.arraycopy(entry, 0, appended, log.length, entry.length);
+            log = appended;
+        }
+        assertThat(DeltaLog.entries(log)).containsExactlyElementsOf(deltas);
+        // partially written entry is ignored
+        byte[] truncated = new byte[log.length - 1];
+        System.arraycopy(log, 0, truncated, 0, truncated.length);
+        assertThat(DeltaLog.entries(truncated)).hasSize(1);
+    }
+
+    private byte[] content(int version) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("{\"item\":").append(i).append(",\"value\":\"")
+                    .append(i == 100 ? "changed-" + version : "value-" + i).append("\"}");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long size(List<byte[]> deltas) {
+        return deltas.stream().mapToLong(delta -> delta.length).sum();
+    }
+}
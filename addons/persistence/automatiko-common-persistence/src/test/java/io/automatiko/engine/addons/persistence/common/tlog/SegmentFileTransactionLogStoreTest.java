@@ -0,0 +1,90 @@
+package io.automatiko.engine.addons.persistence.common.tlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SegmentFileTransactionLogStoreTest {
+
+    private static final Path STORAGE = Paths.get("target", "tlog-segment-test");
+
+    @BeforeEach
+    public void setup() throws IOException {
+        if (Files.exists(STORAGE)) {
+            Files.walk(STORAGE).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void testStoreLoadAndDelete() {
+        SegmentFileTransactionLogStore store = new SegmentFileTransactionLogStore(STORAGE);
+
+        store.store("tx1", "orders", "1", bytes("first"));
+        store.store("tx1", "orders", "1", bytes("second"));
+        store.store("tx1", "orders", "2", bytes("other"));
+
+        assertThat(store.contains("orders", "1")).isTrue();
+        assertThat(store.load("orders", "1")).isEqualTo(bytes("second"));
+        assertThat(store.list("orders")).containsExactlyInAnyOrder("tx1|1", "tx1|2");
+        assertThat(store.list()).containsExactly("tx1");
+
+        store.delete("tx1", "orders", "2");
+        assertThat(store.contains("orders", "2")).isFalse();
+
+        store.delete("tx1");
+        assertThat(store.contains("orders", "1")).isFalse();
+        assertThat(store.list()).isEmpty();
+        store.close();
+    }
+
+    @Test
+    void testReplayAfterRestart() throws IOException {
+        SegmentFileTransactionLogStore store = new SegmentFileTransactionLogStore(STORAGE, 64);
+
+        store.store("tx1", "orders", "1", bytes("first"));
+        store.store("tx2", "orders", "2", bytes("second"));
+        store.store("tx3", "orders", "3", bytes("third"));
+        store.delete("tx2");
+        store.close();
+
+        // simulate crash during write of the last record
+        try (Stream<Path> segments = Files.list(STORAGE)) {
+            Path last = segments.sorted(Comparator.reverseOrder()).findFirst().get();
+            Files.write(last, new byte[] { 0, 0, 0, 100, 1, 2 }, StandardOpenOption.APPEND);
+        }
+
+        store = new SegmentFileTransactionLogStore(STORAGE, 64);
+        assertThat(store.list()).containsExactlyInAnyOrder("tx1", "tx3");
+        assertThat(store.load("orders", "1")).isEqualTo(bytes("first"));
+        assertThat(store.load("orders", "3")).isEqualTo(bytes("third"));
+        assertThat(store.contains("orders", "2")).isFalse();
+
+        store.delete("tx1");
+        store.delete("tx3");
+        store.store("tx4", "orders", "4", bytes("fourth"));
+        store.close();
+
+        // all released segments are removed
+        try (Stream<Path> segments = Files.list(STORAGE)) {
+            assertThat(segments.count()).isEqualTo(1);
+        }
+        store = new SegmentFileTransactionLogStore(STORAGE, 64);
+        assertThat(store.list()).containsExactly("tx4");
+        store.close();
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+package io.automatiko.engine.addons.persistence.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.addons.persistence.db.model.EventOutboxEntity;
+import io.automatiko.engine.api.config.OutboxEventsConfig;
+import io.automatiko.engine.services.event.impl.EventOutbox;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.UserTransaction;
+
+/**
+ * Outbox that keeps events in database table. Entries are appended within the transaction of the unit of work so
+ * events are stored if and only if the changes of the unit of work are committed.
+ * <br/>
+ * Claimed entries are marked with the owner and time of the claim in a short transaction of their own (skipping entries
+ * locked by other nodes), acknowledged and released entries are deleted or unmarked in separate transactions so no
+ * transaction is kept open while events are delivered. In case the node fails before entries are acknowledged or
+ * released they become available to other nodes once the claim times out.
+ */
+@ApplicationScoped
+public class DatabaseEventOutbox implements EventOutbox {
+
+    @Inject
+    UserTransaction transaction;
+
+    @ConfigProperty(name = OutboxEventsConfig.CLAIM_TIMEOUT_KEY, defaultValue = "300000")
+    long claimTimeout;
+
+    // identifies claims made by this node
+    private final String owner = UUID.randomUUID().toString();
+
+    @Override
+    public void append(String publisher, byte[] events, int count) {
+        new EventOutboxEntity(publisher, events, count, System.currentTimeMillis()).persist();
+    }
+
+    @Override
+    public List<Entry> claim(String publisher, int limit) {
+        return inTransaction(() -> {
+            long now = System.currentTimeMillis();
+            List<Entry> entries = new ArrayList<>();
+            for (EventOutboxEntity entity : EventOutboxEntity.lockEntries(publisher, now - claimTimeout, limit)) {
+                entity.claimedBy = owner;
+                entity.claimedAt = now;
+                entries.add(new Entry(entity.id, entity.events, entity.eventCount, entity.appended));
+            }
+            return entries;
+        });
+    }
+
+    @Override
+    public void acknowledge(String publisher, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        inTransaction(() -> EventOutboxEntity.delete("id in ?1", ids(entries)));
+    }
+
+    @Override
+    public void release(String publisher, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        inTransaction(() -> EventOutboxEntity.releaseEntries(ids(entries), owner));
+    }
+
+    @Override
+    public long pending(String publisher) {
+        return inTransaction(() -> EventOutboxEntity.pendingEvents(publisher));
+    }
+
+    @Override
+    public long oldest(String publisher) {
+        return inTransaction(() -> EventOutboxEntity.oldestEntry(publisher));
+    }
+
+    @Override
+    public boolean transactional() {
+        return true;
+    }
+
+    protected <T> T inTransaction(Supplier<T> work) {
+        try {
+            if (transaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                return work.get();
+            }
+            transaction.begin();
+            T result = work.get();
+            transaction.commit();
+            return result;
+        } catch (Exception e) {
+            rollback();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Long> ids(List<Entry> entries) {
+        return entries.stream().map(Entry::id).collect(Collectors.toList());
+    }
+
+    private void rollback() {
+        try {
+            if (transaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                transaction.rollback();
+            }
+        } catch (IllegalStateException | SecurityException | SystemException e) {
+            // transaction is already completed
+        }
+    }
+}
@@ -3,18 +3,30 @@ package io.automatiko.engine.addons.persistence.db;
 import static io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE;
 import static io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE_WITH_LOCK;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.hibernate.StaleObjectStateException;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.BinaryObjectMarshallingStrategy;
 import io.automatiko.engine.addons.persistence.common.JacksonObjectMarshallingStrategy;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceCacheFactory;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceMarshallerFactory;
+import io.automatiko.engine.addons.persistence.common.delta.DeltaLog;
 import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogImpl;
 import io.automatiko.engine.addons.persistence.db.model.ProcessInstanceEntity;
 import io.automatiko.engine.api.audit.AuditEntry;
@@ -28,19 +40,25 @@ import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
 import io.automatiko.engine.workflow.AbstractProcess;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.audit.BaseAuditEntry;
+import io.automatiko.engine.workflow.cache.ProcessInstanceCache;
 import io.automatiko.engine.workflow.base.core.context.variable.VariableScope;
 import io.automatiko.engine.workflow.base.instance.context.variable.VariableScopeInstance;
 import io.automatiko.engine.workflow.base.instance.impl.ProcessInstanceImpl;
 import io.automatiko.engine.workflow.marshalling.ProcessInstanceMarshaller;
 import io.quarkus.hibernate.orm.panache.runtime.JpaOperations;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.TypedQuery;
 
 public class DatabaseProcessInstances implements MutableProcessInstances<ProcessInstanceEntity> {
 
@@ -57,13 +75,20 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
 
     private Auditor auditor;
 
+    private DeltaLog deltaLog;
+
+    private ProcessInstanceCache instanceCache;
+
     public DatabaseProcessInstances(Process<? extends ProcessInstanceEntity> process, StoredDataCodec codec,
             TransactionLogStore store, Auditor auditor) {
         this.process = process;
         this.entityName = camelToSnake(process.id().toUpperCase());
-        this.marshaller = new ProcessInstanceMarshaller(new JacksonObjectMarshallingStrategy(process));
+        this.marshaller = ProcessInstanceMarshallerFactory.configure(new ProcessInstanceMarshaller(
+                new BinaryObjectMarshallingStrategy(process), new JacksonObjectMarshallingStrategy(process)));
         this.codec = codec;
         this.auditor = auditor;
+        this.deltaLog = new DeltaLog();
+        this.instanceCache = ProcessInstanceCacheFactory.configure(process);
 
         this.type = process.createModel().getClass();
         // mark the marshaller that it should not serialize variables
@@ -234,6 +259,128 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ProcessInstancePage<ProcessInstance<ProcessInstanceEntity>> values(ProcessInstanceReadMode mode, int status,
+            ProcessInstanceCursor cursor, int size) {
+        boolean byId = cursor.sortedBy(ID_SORT_KEY);
+        if (!byId && !cursor.sortedBy(START_DATE_SORT_KEY)) {
+            // other sort keys are not mandatory so they cannot be used in seek predicate
+            return MutableProcessInstances.super.values(mode, status, cursor, size);
+        }
+        List<? extends ProcessInstanceEntity> entities = seek("select e", type, status, cursor, byId, size)
+                .getResultList();
+
+        List<ProcessInstance<ProcessInstanceEntity>> found = new ArrayList<>();
+        for (ProcessInstanceEntity entity : entities) {
+            try {
+                if (mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK) {
+                    JpaOperations.INSTANCE.getEntityManager().lock(entity, determineLockMode(mode));
+                }
+                found.add(audit(unmarshallInstance(mode, entity)));
+            } catch (AccessDeniedException ex) {
+                // not accessible instances are skipped but cursor moves past them
+            }
+        }
+        ProcessInstanceCursor next = null;
+        if (entities.size() == size) {
+            ProcessInstanceEntity last = entities.get(entities.size() - 1);
+            next = cursor.after(byId ? last.entityId : last.startDate, last.entityId);
+        }
+        return new ProcessInstancePage<>(found, next);
+    }
+
+    @Override
+    public ProcessInstancePage<String> ids(int status, ProcessInstanceCursor cursor, int size) {
+        boolean byId = cursor.sortedBy(ID_SORT_KEY);
+        if (!byId && !cursor.sortedBy(START_DATE_SORT_KEY)) {
+            return MutableProcessInstances.super.ids(status, cursor, size);
+        }
+        // only columns used by the seek predicate are selected so instances are neither loaded nor unmarshalled
+        List<Object[]> rows = seek("select e.entityId, e.startDate", Object[].class, status, cursor, byId, size)
+                .getResultList();
+
+        List<String> ids = rows.stream().map(row -> (String) row[0]).collect(Collectors.toList());
+        ProcessInstanceCursor next = null;
+        if (rows.size() == size) {
+            Object[] last = rows.get(rows.size() - 1);
+            next = cursor.after(byId ? last[0] : last[1], (String) last[0]);
+        }
+        return new ProcessInstancePage<>(ids, next);
+    }
+
+    /*
+     * builds query that seeks directly to the position of the cursor, cursor must be sorted either by id or by start date
+     */
+    protected <R> TypedQuery<R> seek(String select, Class<R> resultType, int status, ProcessInstanceCursor cursor,
+            boolean byId, int size) {
+        String direction = cursor.sortAsc() ? " asc" : " desc";
+        String comparison = cursor.sortAsc() ? " > " : " < ";
+
+        StringBuilder query = new StringBuilder(select + " from " + entityName + " e where e.state = ?1");
+        if (!cursor.isFirst()) {
+            if (byId) {
+                query.append(" and e.entityId" + comparison + "?2");
+            } else {
+                query.append(" and (e.startDate" + comparison + "?3 or (e.startDate = ?3 and e.entityId" + comparison
+                        + "?2))");
+            }
+        }
+        query.append(byId ? " order by e.entityId" + direction
+                : " order by e.startDate" + direction + ", e.entityId" + direction);
+
+        TypedQuery<R> typedQuery = JpaOperations.INSTANCE.getEntityManager()
+                .createQuery(query.toString(), resultType)
+                .setParameter(1, status)
+                .setMaxResults(size);
+        if (!cursor.isFirst()) {
+            typedQuery.setParameter(2, cursor.id());
+            if (!byId) {
+                typedQuery.setParameter(3, cursor.dateKey());
+            }
+        }
+        return typedQuery;
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        return summaries("select e.entityId, e.businessKey, e.name, e.state, e.startDate, e.endDate from " + entityName
+                + " e where e.state = ?1", status, page, size);
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        return summaries("select e.entityId, e.businessKey, e.name, e.state, e.startDate, e.endDate from " + entityName
+                + " e where e.state = ?1 order by e." + adjustSortKey(sortBy) + (sortAsc ? " asc" : " desc"), status, page,
+                size);
+    }
+
+    /*
+     * only columns of the entity are selected so neither content nor variables are loaded, tags are then
+     * loaded for all instances on the page at once
+     */
+    protected Collection<ProcessInstanceSummary> summaries(String query, int status, int page, int size) {
+        EntityManager em = JpaOperations.INSTANCE.getEntityManager();
+        List<Object[]> rows = em.createQuery(query, Object[].class)
+                .setParameter(1, status)
+                .setFirstResult(calculatePage(page, size))
+                .setMaxResults(size)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Set<String>> tags = new HashMap<>();
+        em.createQuery("select e.entityId, t from " + entityName + " e JOIN e.tags t where e.entityId in (?1)",
+                Object[].class)
+                .setParameter(1, rows.stream().map(row -> (String) row[0]).collect(Collectors.toList()))
+                .getResultList()
+                .forEach(row -> tags.computeIfAbsent((String) row[0], k -> new LinkedHashSet<>()).add((String) row[1]));
+
+        return rows.stream()
+                .map(row -> ProcessInstanceSummary.stored((String) row[0], (String) row[1], (String) row[2],
+                        (Integer) row[3], tags.get((String) row[0]), (Date) row[4], (Date) row[5]))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Long size() {
         return JpaOperations.INSTANCE.count(type);
@@ -273,23 +420,55 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
         JpaOperations.INSTANCE.persist(entity);
         // then delete the root one
         JpaOperations.INSTANCE.deleteById(type, resolveId(id, instance));
+        instanceCache.evict(resolveId(id, instance));
         Supplier<AuditEntry> entry = () -> BaseAuditEntry.persitenceWrite(instance)
                 .add("message", "Workflow instance removed from the rdbms based data store");
 
         auditor.publish(entry);
     }
 
+    /*
+     * entities are persisted one by one and flushed together so the JDBC driver can batch the statements
+     * (see hibernate jdbc.statement_batch_size)
+     */
+    @Override
+    public void createAll(Map<String, ProcessInstance<ProcessInstanceEntity>> instances) {
+        instances.forEach(this::create);
+        flush(instances);
+    }
+
+    @Override
+    public void updateAll(Map<String, ProcessInstance<ProcessInstanceEntity>> instances) {
+        instances.forEach(this::update);
+        flush(instances);
+    }
+
+    @Override
+    public void removeAll(Map<String, ProcessInstance<ProcessInstanceEntity>> instances) {
+        instances.forEach(this::remove);
+        flush(instances);
+    }
+
+    protected void flush(Map<String, ProcessInstance<ProcessInstanceEntity>> instances) {
+        try {
+            JpaOperations.INSTANCE.flush(type);
+        } catch (OptimisticLockException | StaleObjectStateException e) {
+            throw new ConflictingVersionException("One of process instances " + instances.keySet()
+                    + " has older version than tha stored one");
+        }
+    }
+
     protected void store(String id, ProcessInstance<ProcessInstanceEntity> instance) {
         String resolvedId = resolveId(id, instance);
         if (isActive(instance)) {
             ProcessInstanceEntity entity = instance.variables();
-            byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+            byte[] data = marshaller.marhsallProcessInstance(instance);
 
             if (data == null) {
                 return;
             }
 
-            entity.content = data;
+            writeContent(entity, data);
             entity.entityId = resolvedId;
             entity.name = instance.description();
             entity.businessKey = instance.businessKey();
@@ -305,21 +484,80 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
             try {
                 JpaOperations.INSTANCE.persist(entity);
             } catch (OptimisticLockException | StaleObjectStateException e) {
+                instanceCache.evict(resolvedId);
                 throw new ConflictingVersionException("Process instance with id '" + instance.id()
                         + "' has older version than tha stored one");
             } finally {
+                cacheAfterCommit(resolvedId, entity, instance);
                 disconnect(instance);
             }
         }
     }
 
+    /*
+     * content of the process instance is stored as snapshot (content column) and deltas appended to delta column,
+     * deltas are always replayed when present regardless if delta updates are enabled
+     */
+    protected DeltaLog.Replayed readContent(ProcessInstanceEntity entity) {
+        byte[] base = codec.decode(entity.content);
+        if (entity.delta == null) {
+            return DeltaLog.replay(base, List.of(), 0);
+        }
+        List<byte[]> deltas = DeltaLog.entries(entity.delta);
+        deltas.replaceAll(codec::decode);
+
+        return DeltaLog.replay(base, deltas, entity.delta.length);
+    }
+
+    /*
+     * when delta is appended the content column is left untouched so (with dynamic updates of generated entities)
+     * only the delta column is written
+     */
+    protected void writeContent(ProcessInstanceEntity entity, byte[] content) {
+        if (deltaLog.isEnabled() && entity.content != null) {
+            byte[] delta = deltaLog.delta(readContent(entity), content);
+            if (delta != null) {
+                byte[] entry = DeltaLog.entry(codec.encode(delta));
+                byte[] log = entity.delta == null ? new byte[0] : entity.delta;
+                byte[] appended = Arrays.copyOf(log, log.length + entry.length);
+                System.arraycopy(entry, 0, appended, log.length, entry.length);
+                entity.delta = appended;
+                return;
+            }
+        }
+        entity.content = codec.encode(content);
+        entity.delta = null;
+    }
+
+    /*
+     * version of the entity is only known after it was flushed and the instance can only be cached once the
+     * transaction was committed
+     */
+    protected void cacheAfterCommit(String resolvedId, ProcessInstanceEntity entity,
+            ProcessInstance<ProcessInstanceEntity> instance) {
+        if (!instanceCache.isEnabled()
+                || (instance.status() != ProcessInstance.STATE_ACTIVE && instance.status() != ProcessInstance.STATE_ERROR)) {
+            return;
+        }
+        WorkflowProcessInstance wpi = (WorkflowProcessInstance) ((AbstractProcessInstance<?>) instance)
+                .internalGetProcessInstance();
+        JpaOperations.INSTANCE.getEntityManager().unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((success, session) -> {
+                    if (success && entity.version != null) {
+                        instanceCache.put(resolvedId, entity.version, wpi);
+                    } else {
+                        instanceCache.evict(resolvedId);
+                    }
+                });
+    }
+
     protected void disconnect(ProcessInstance<ProcessInstanceEntity> instance) {
         ((AbstractProcessInstance<?>) instance).internalRemoveProcessInstance(() -> {
 
             try {
                 ProcessInstanceEntity entity = (ProcessInstanceEntity) JpaOperations.INSTANCE.findById(type,
                         resolveId(instance.id(), instance));
-                byte[] reloaded = codec.decode(entity.content);
+                byte[] reloaded = readContent(entity).content();
 
                 WorkflowProcessInstance wpi = marshaller.unmarshallWorkflowProcessInstance(reloaded, process);
                 entity.toMap().forEach((k, v) -> {
@@ -344,7 +582,9 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
             ProcessInstanceEntity entity) {
         ProcessInstance<ProcessInstanceEntity> pi;
         if (mode == MUTABLE || mode == MUTABLE_WITH_LOCK) {
-            WorkflowProcessInstance wpi = marshaller.unmarshallWorkflowProcessInstance(codec.decode(entity.content), process);
+            WorkflowProcessInstance cached = instanceCache.take(entity.entityId, entity.version);
+            WorkflowProcessInstance wpi = cached != null ? cached
+                    : marshaller.unmarshallWorkflowProcessInstance(readContent(entity).content(), process);
             entity.toMap().forEach((k, v) -> {
                 if (v != null) {
                     v.toString();
@@ -356,7 +596,7 @@ public class DatabaseProcessInstances implements MutableProcessInstances<Process
             pi = ((AbstractProcess<ProcessInstanceEntity>) process).createInstance(wpi, entity, entity.version);
 
         } else {
-            WorkflowProcessInstance wpi = marshaller.unmarshallWorkflowProcessInstance(codec.decode(entity.content), process);
+            WorkflowProcessInstance wpi = marshaller.unmarshallWorkflowProcessInstance(readContent(entity).content(), process);
             entity.toMap().forEach((k, v) -> {
                 if (v != null) {
                     v.toString();
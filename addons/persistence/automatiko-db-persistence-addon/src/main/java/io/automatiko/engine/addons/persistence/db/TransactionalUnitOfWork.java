@@ -1,6 +1,11 @@
 package io.automatiko.engine.addons.persistence.db;
 
+import java.util.Collection;
+
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.api.event.EventBatch;
 import io.automatiko.engine.api.event.EventManager;
+import io.automatiko.engine.services.event.impl.AsyncEventManager;
 import io.automatiko.engine.services.uow.CollectingUnitOfWork;
 import jakarta.transaction.SystemException;
 import jakarta.transaction.UserTransaction;
@@ -9,8 +14,19 @@ public class TransactionalUnitOfWork extends CollectingUnitOfWork {
 
     private UserTransaction transaction;
 
+    private EventManager eventManager;
+
+    private EventBatch pending;
+
+    private Collection<DataEvent<?>> appended;
+
     public TransactionalUnitOfWork(EventManager eventManager, UserTransaction transaction) {
-        super(eventManager);
+        this(eventManager, transaction, false);
+    }
+
+    public TransactionalUnitOfWork(EventManager eventManager, UserTransaction transaction, boolean batchWrites) {
+        super(eventManager, batchWrites);
+        this.eventManager = eventManager;
         this.transaction = transaction;
     }
 
@@ -38,6 +54,28 @@ public class TransactionalUnitOfWork extends CollectingUnitOfWork {
             }
             throw new IllegalStateException(e);
         }
+        // events are published only when the transaction was committed
+        if (appended != null) {
+            AsyncEventManager asyncEventManager = (AsyncEventManager) eventManager;
+            asyncEventManager.publishDirectly(appended);
+            asyncEventManager.signal();
+            appended = null;
+        }
+        if (pending != null) {
+            super.publish(pending);
+            pending = null;
+        }
+    }
+
+    @Override
+    protected void publish(EventBatch batch) {
+        if (eventManager instanceof AsyncEventManager && ((AsyncEventManager) eventManager).transactional()) {
+            // events are stored in the outbox as part of the transaction so they are kept only if it commits
+            this.appended = batch.events();
+            ((AsyncEventManager) eventManager).append(appended);
+        } else {
+            this.pending = batch;
+        }
     }
 
     @Override
@@ -9,13 +9,20 @@ public class TransactionalUnitOfWorkFactory implements UnitOfWorkFactory {
 
     private UserTransaction transaction;
 
+    private boolean batchWrites;
+
     public TransactionalUnitOfWorkFactory(UserTransaction transaction) {
+        this(transaction, false);
+    }
+
+    public TransactionalUnitOfWorkFactory(UserTransaction transaction, boolean batchWrites) {
         this.transaction = transaction;
+        this.batchWrites = batchWrites;
     }
 
     @Override
     public UnitOfWork create(EventManager eventManager) {
-        return new TransactionalUnitOfWork(eventManager, transaction);
+        return new TransactionalUnitOfWork(eventManager, transaction, batchWrites);
     }
 
 }
@@ -1,5 +1,10 @@
 package io.automatiko.engine.addons.persistence.db;
 
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.event.EventManager;
 import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -12,13 +17,20 @@ public class TransactionalUnitOfWorkManager extends DefaultUnitOfWorkManager {
     @Inject
     UserTransaction transaction;
 
+    @ConfigProperty(name = "quarkus.automatiko.persistence.batch-writes")
+    Optional<Boolean> batchWrites;
+
+    @Inject
+    EventManager events;
+
     public TransactionalUnitOfWorkManager() {
         super(null);
     }
 
     @PostConstruct
     public void setup() {
-        this.factory = new TransactionalUnitOfWorkFactory(transaction);
+        this.factory = new TransactionalUnitOfWorkFactory(transaction, batchWrites.orElse(false));
+        this.eventManager = events;
     }
 
 }
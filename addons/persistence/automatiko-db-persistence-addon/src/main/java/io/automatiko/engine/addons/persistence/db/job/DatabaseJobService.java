@@ -1,5 +1,7 @@
 package io.automatiko.engine.addons.persistence.db.job;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -9,7 +11,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -26,6 +30,7 @@ import org.eclipse.microprofile.context.ManagedExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.JobSchedulerFactory;
 import io.automatiko.engine.addons.persistence.db.model.JobInstanceEntity;
 import io.automatiko.engine.addons.persistence.db.model.JobInstanceEntity.JobStatus;
 import io.automatiko.engine.api.Application;
@@ -63,10 +68,18 @@ public class DatabaseJobService implements JobsService {
 
     protected final Auditor auditor;
 
-    protected final ScheduledThreadPoolExecutor scheduler;
+    protected final ScheduledExecutorService scheduler;
 
     protected final ScheduledThreadPoolExecutor loadScheduler;
 
+    protected final String nodeId;
+
+    protected final boolean generatedNodeId;
+
+    protected final Long leaseDuration;
+
+    protected final int batchSize;
+
     protected ManagedExecutor exec;
 
     protected Map<String, Process<? extends Model>> mappedProcesses = new HashMap<>();
@@ -76,51 +89,104 @@ public class DatabaseJobService implements JobsService {
     public DatabaseJobService(ManagedExecutor exec,
             @ConfigProperty(name = "quarkus.automatiko.jobs.db.interval", defaultValue = "10") Long interval,
             @ConfigProperty(name = "quarkus.automatiko.jobs.db.threads", defaultValue = "1") int threads,
+            @ConfigProperty(name = "quarkus.automatiko.jobs.db.node-id") Optional<String> nodeId,
+            @ConfigProperty(name = "quarkus.automatiko.jobs.db.lease-duration", defaultValue = "60") Long leaseDuration,
+            @ConfigProperty(name = "quarkus.automatiko.jobs.db.batch-size", defaultValue = "100") int batchSize,
             Processes processes, Application application, Auditor auditor) {
         this.exec = exec;
         this.interval = interval;
+        // host name is stable across restarts so jobs owned before restart are released right away on start
+        Optional<String> stableNodeId = nodeId.or(DatabaseJobService::hostName);
+        this.nodeId = stableNodeId.orElseGet(() -> UUID.randomUUID().toString());
+        this.generatedNodeId = stableNodeId.isEmpty();
+        this.leaseDuration = leaseDuration;
+        this.batchSize = batchSize;
         processes.processIds().forEach(id -> mappedProcesses.put(id, processes.processById(id)));
 
         this.unitOfWorkManager = application.unitOfWorkManager();
         this.auditor = auditor;
 
-        this.scheduler = new ScheduledThreadPoolExecutor(threads, r -> new Thread(r, "automatiko-jobs-executor"));
+        this.scheduler = JobSchedulerFactory.create("automatiko-jobs-executor", threads);
         this.loadScheduler = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "automatiko-jobs-loader"));
     }
 
     public void start(@Observes @Priority(Interceptor.Priority.LIBRARY_AFTER) StartupEvent event) {
+        if (generatedNodeId) {
+            LOGGER.warn("Database job service started with generated node id {} as host name is not available, jobs claimed by this service instance "
+                    + "before restart are taken over only when their lease expires, set "
+                    + "'quarkus.automatiko.jobs.db.node-id' to stable identifier to make them available right away", nodeId);
+        } else {
+            LOGGER.info("Database job service started with node id {}", nodeId);
+        }
+        // jobs owned by this node in previous run are no longer scheduled so make them available again
+        UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
+            return JobInstanceEntity.releaseJobs(nodeId);
+        });
+        loadScheduler.scheduleAtFixedRate(() -> loadJobs(), 1, interval * 60, TimeUnit.SECONDS);
+
+        // renew leases of owned jobs and take over jobs of nodes that did not renew their leases
+        long renewal = Math.max(1, leaseDuration / 3);
         loadScheduler.scheduleAtFixedRate(() -> {
-            UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
-                LocalDateTime next = LocalDateTime.now().plus(Duration.ofMinutes(interval));
-                List<JobInstanceEntity> jobs = JobInstanceEntity.loadJobs(next);
-                LOGGER.debug("Loaded jobs ({}) to be executed before {}", jobs.size(), next);
-                for (JobInstanceEntity job : jobs) {
-
-                    if (job.ownerInstanceId == null) {
-                        ProcessJobDescription description = ProcessJobDescription.of(build(job), null, job.ownerDefinitionId);
-                        scheduledJobs.computeIfAbsent(job.id, k -> {
-                            return log(job.id, scheduler.schedule(new StartProcessOnExpiredTimer(job.id,
-                                    job.ownerDefinitionId, -1, description),
-                                    Duration.between(LocalDateTime.now(), job.expirationTime).toMillis(),
-                                    TimeUnit.MILLISECONDS));
-                        });
-                    } else {
-                        ProcessInstanceJobDescription description = ProcessInstanceJobDescription.of(job.id, job.triggerType,
-                                build(job), job.ownerInstanceId, job.ownerDefinitionId, null);
-                        scheduledJobs.computeIfAbsent(job.id, k -> {
-                            return log(job.id, scheduler.schedule(
-                                    new SignalProcessInstanceOnExpiredTimer(job.id, job.triggerType,
-                                            job.ownerDefinitionId,
-                                            job.ownerInstanceId, job.limit, description),
-                                    Duration.between(LocalDateTime.now(), job.expirationTime).toMillis(),
-                                    TimeUnit.MILLISECONDS));
-                        });
-                    }
-                }
-                return null;
+            try {
+                UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
+                    return JobInstanceEntity.renewLeases(nodeId, leaseExpiration());
+                });
+                loadJobs();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to renew leases of jobs owned by node {}", nodeId, e);
+            }
+        }, renewal, renewal, TimeUnit.SECONDS);
+    }
+
+    protected void loadJobs() {
+        LocalDateTime next = LocalDateTime.now().plus(Duration.ofMinutes(interval));
+        int claimed;
+        do {
+            List<JobInstanceEntity> jobs = UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
+                return JobInstanceEntity.claimJobs(next, nodeId, leaseExpiration(), batchSize);
             });
+            claimed = jobs.size();
+            LOGGER.debug("Claimed jobs ({}) to be executed before {}", claimed, next);
+            for (JobInstanceEntity job : jobs) {
+
+                if (job.ownerInstanceId == null) {
+                    ProcessJobDescription description = ProcessJobDescription.of(build(job), null, job.ownerDefinitionId);
+                    scheduledJobs.computeIfAbsent(job.id, k -> {
+                        return log(job.id, scheduler.schedule(new StartProcessOnExpiredTimer(job.id,
+                                job.ownerDefinitionId, -1, description),
+                                Duration.between(LocalDateTime.now(), job.expirationTime).toMillis(),
+                                TimeUnit.MILLISECONDS));
+                    });
+                } else {
+                    ProcessInstanceJobDescription description = ProcessInstanceJobDescription.of(job.id, job.triggerType,
+                            build(job), job.ownerInstanceId, job.ownerDefinitionId, null);
+                    scheduledJobs.computeIfAbsent(job.id, k -> {
+                        return log(job.id, scheduler.schedule(
+                                new SignalProcessInstanceOnExpiredTimer(job.id, job.triggerType,
+                                        job.ownerDefinitionId,
+                                        job.ownerInstanceId, job.limit, description),
+                                Duration.between(LocalDateTime.now(), job.expirationTime).toMillis(),
+                                TimeUnit.MILLISECONDS));
+                    });
+                }
+            }
+        } while (claimed >= batchSize);
+    }
 
-        }, 1, interval * 60, TimeUnit.SECONDS);
+    protected static Optional<String> hostName() {
+        try {
+            String hostName = InetAddress.getLocalHost().getHostName();
+            if (hostName != null && !hostName.isBlank()) {
+                return Optional.of(hostName);
+            }
+        } catch (UnknownHostException e) {
+            LOGGER.debug("Unable to resolve host name to be used as node id", e);
+        }
+        return Optional.ofNullable(System.getenv("HOSTNAME")).filter(hostName -> !hostName.isBlank());
+    }
+
+    protected LocalDateTime leaseExpiration() {
+        return LocalDateTime.now().plusSeconds(leaseDuration);
     }
 
     public void shutdown(@Observes ShutdownEvent event) {
@@ -157,6 +223,11 @@ public class DatabaseJobService implements JobsService {
 
             auditor.publish(entry);
         }
+        boolean scheduleLocally = description.expirationTime().get().toLocalDateTime()
+                .isBefore(LocalDateTime.now().plusMinutes(interval));
+        if (scheduleLocally) {
+            claim(scheduledJob);
+        }
         JobInstanceEntity persist = scheduledJob;
         UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
             if (JobInstanceEntity.findById(persist.id) == null) {
@@ -165,7 +236,7 @@ public class DatabaseJobService implements JobsService {
             }
             return null;
         });
-        if (description.expirationTime().get().toLocalDateTime().isBefore(LocalDateTime.now().plusMinutes(interval))) {
+        if (scheduleLocally) {
 
             scheduledJobs.computeIfAbsent(description.id(), k -> {
                 return scheduler.schedule(processJobByDescription(description),
@@ -204,9 +275,14 @@ public class DatabaseJobService implements JobsService {
 
             auditor.publish(entry);
         }
+        boolean scheduleLocally = description.expirationTime().get().toLocalDateTime()
+                .isBefore(LocalDateTime.now().plusMinutes(interval));
+        if (scheduleLocally) {
+            claim(scheduledJob);
+        }
         JobInstanceEntity.persist(scheduledJob);
 
-        if (description.expirationTime().get().toLocalDateTime().isBefore(LocalDateTime.now().plusMinutes(interval))) {
+        if (scheduleLocally) {
 
             scheduledJobs.computeIfAbsent(description.id(), k -> {
                 return log(description.id(), scheduler.schedule(
@@ -256,6 +332,15 @@ public class DatabaseJobService implements JobsService {
         return ZonedDateTime.of(found.expirationTime, ZoneId.systemDefault());
     }
 
+    protected void claim(JobInstanceEntity job) {
+        job.owner = nodeId;
+        job.leaseExpiration = leaseExpiration();
+    }
+
+    protected boolean isOwnedByOtherNode(JobInstanceEntity job) {
+        return job.owner != null && !job.owner.equals(nodeId);
+    }
+
     protected long calculateDelay(ZonedDateTime expirationDate) {
         return Duration.between(ZonedDateTime.now(), expirationDate).toMillis();
     }
@@ -283,6 +368,7 @@ public class DatabaseJobService implements JobsService {
         job.limit = job.limit - 1;
         job.expirationTime = job.expirationTime.plus(job.repeatInterval, ChronoUnit.MILLIS);
         job.status = JobStatus.SCHEDULED;
+        claim(job);
         JobInstanceEntity.persist(job);
 
         if (job.ownerInstanceId == null) {
@@ -351,7 +437,7 @@ public class DatabaseJobService implements JobsService {
             boolean acquired = UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
 
                 JobInstanceEntity job = JobInstanceEntity.acquireJob(id);
-                if (job == null || job.status != JobStatus.SCHEDULED) {
+                if (job == null || job.status != JobStatus.SCHEDULED || isOwnedByOtherNode(job)) {
                     return false;
                 }
                 job.status = JobStatus.TAKEN;
@@ -432,7 +518,7 @@ public class DatabaseJobService implements JobsService {
             boolean acquired = UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
 
                 JobInstanceEntity job = JobInstanceEntity.acquireJob(id);
-                if (job == null) {
+                if (job == null || isOwnedByOtherNode(job)) {
                     return false;
                 }
                 job.status = JobStatus.TAKEN;
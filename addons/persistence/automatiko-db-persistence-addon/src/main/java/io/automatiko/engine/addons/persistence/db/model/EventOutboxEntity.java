@@ -0,0 +1,93 @@
+package io.automatiko.engine.addons.persistence.db.model;
+
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+import org.hibernate.LockOptions;
+import org.hibernate.jpa.AvailableHints;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+@Entity
+@Table(name = "ATK_EVENT_OUTBOX")
+public class EventOutboxEntity extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "ATK_ENTRY_ID")
+    public Long id;
+
+    @Column(name = "ATK_PUBLISHER")
+    public String publisher;
+
+    @Lob
+    @Column(name = "ATK_EVENTS")
+    public byte[] events;
+
+    @Column(name = "ATK_EVENT_COUNT")
+    public int eventCount;
+
+    @Column(name = "ATK_APPENDED")
+    public long appended;
+
+    @Column(name = "ATK_CLAIMED_BY")
+    public String claimedBy;
+
+    @Column(name = "ATK_CLAIMED_AT")
+    public Long claimedAt;
+
+    public EventOutboxEntity() {
+    }
+
+    public EventOutboxEntity(String publisher, byte[] events, int count, long appended) {
+        this.publisher = publisher;
+        this.events = events;
+        this.eventCount = count;
+        this.appended = appended;
+    }
+
+    /**
+     * Locks oldest entries of given publisher that are not claimed or whose claim expired, entries locked by other
+     * nodes are skipped so concurrent nodes always claim disjoint entries. Entries stay locked until the transaction is
+     * completed.
+     *
+     * @param publisher identifier of the publisher
+     * @param expired claims made before this time (in milliseconds) are considered expired
+     * @param limit max number of entries to lock
+     * @return locked entries
+     */
+    public static List<EventOutboxEntity> lockEntries(String publisher, long expired, int limit) {
+        return find("publisher = ?1 and (claimedBy is null or claimedAt < ?2) order by id", publisher, expired)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint(AvailableHints.HINT_SPEC_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .page(0, limit)
+                .list();
+    }
+
+    public static long releaseEntries(List<Long> ids, String owner) {
+        return update("claimedBy = null, claimedAt = null where id in ?1 and claimedBy = ?2", ids, owner);
+    }
+
+    public static long pendingEvents(String publisher) {
+        Long pending = getEntityManager()
+                .createQuery("select sum(e.eventCount) from EventOutboxEntity e where e.publisher = ?1", Long.class)
+                .setParameter(1, publisher)
+                .getSingleResult();
+        return pending == null ? 0 : pending;
+    }
+
+    public static long oldestEntry(String publisher) {
+        Long oldest = getEntityManager()
+                .createQuery("select min(e.appended) from EventOutboxEntity e where e.publisher = ?1", Long.class)
+                .setParameter(1, publisher)
+                .getSingleResult();
+        return oldest == null ? 0 : oldest;
+    }
+}
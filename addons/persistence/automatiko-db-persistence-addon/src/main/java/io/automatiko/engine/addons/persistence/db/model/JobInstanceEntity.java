@@ -9,12 +9,22 @@ import jakarta.persistence.Id;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.Table;
 
+import org.hibernate.LockOptions;
+import org.hibernate.jpa.AvailableHints;
+
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 
 @Entity
 @Table(name = "ATK_JOB_INSTANCE")
 public class JobInstanceEntity extends PanacheEntityBase {
 
+    static final String CLAIM_QUERY = "expirationTime < ?1 and (owner is null or (owner <> ?2 and leaseExpiration < ?3)) "
+            + "and (status = ?4 or (status = ?5 and owner is not null)) order by expirationTime";
+
+    static final String RENEW_QUERY = "leaseExpiration = ?1 where owner = ?2";
+
+    static final String RELEASE_QUERY = "owner = null, leaseExpiration = null, status = ?1 where owner = ?2";
+
     public enum JobStatus {
         SCHEDULED,
         TAKEN,
@@ -49,6 +59,12 @@ public class JobInstanceEntity extends PanacheEntityBase {
     @Column(name = "ATK_EXPRESSION")
     public String expression;
 
+    @Column(name = "ATK_JOB_OWNER")
+    public String owner;
+
+    @Column(name = "ATK_JOB_LEASE_EXPIRATION")
+    public LocalDateTime leaseExpiration;
+
     public JobInstanceEntity() {
     }
 
@@ -84,4 +100,55 @@ public class JobInstanceEntity extends PanacheEntityBase {
     public static List<JobInstanceEntity> loadJobs(LocalDateTime expirationBefore) {
         return list("status = ?1 and expirationTime < ?2", JobStatus.SCHEDULED, expirationBefore);
     }
+
+    /**
+     * Claims next batch of jobs that expire before given time and are not owned by any other live node. Rows locked by
+     * other nodes are skipped so concurrent nodes always claim disjoint batches. Jobs that were taken by a node that
+     * lost its lease (e.g. crashed during execution) are claimed again as scheduled.
+     *
+     * @param expirationBefore only jobs expiring before this time are claimed
+     * @param owner identifier of the node claiming jobs
+     * @param leaseExpiration time until claimed jobs are owned by the node unless lease is renewed
+     * @param batchSize max number of jobs to claim
+     * @return claimed jobs
+     */
+    public static List<JobInstanceEntity> claimJobs(LocalDateTime expirationBefore, String owner,
+            LocalDateTime leaseExpiration, int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<JobInstanceEntity> jobs = find(CLAIM_QUERY, expirationBefore, owner, now, JobStatus.SCHEDULED, JobStatus.TAKEN)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint(AvailableHints.HINT_SPEC_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .page(0, batchSize)
+                .list();
+
+        claimed(jobs, owner, leaseExpiration);
+        return jobs;
+    }
+
+    static void claimed(List<JobInstanceEntity> jobs, String owner, LocalDateTime leaseExpiration) {
+        for (JobInstanceEntity job : jobs) {
+            job.owner = owner;
+            job.leaseExpiration = leaseExpiration;
+            job.status = JobStatus.SCHEDULED;
+        }
+    }
+
+    /**
+     * Extends lease of all jobs owned by given node
+     *
+     * @return number of jobs with renewed lease
+     */
+    public static int renewLeases(String owner, LocalDateTime leaseExpiration) {
+        return update(RENEW_QUERY, leaseExpiration, owner);
+    }
+
+    /**
+     * Releases all jobs owned by given node so they can be claimed again, jobs that were taken but not completed
+     * are rescheduled
+     *
+     * @return number of released jobs
+     */
+    public static int releaseJobs(String owner) {
+        return update(RELEASE_QUERY, JobStatus.SCHEDULED, owner);
+    }
 }
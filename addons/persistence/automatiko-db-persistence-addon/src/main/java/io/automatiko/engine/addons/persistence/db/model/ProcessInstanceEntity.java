@@ -64,6 +64,11 @@ public abstract class ProcessInstanceEntity extends PanacheEntityBase implements
     @Lob
     public byte[] content;
 
+    @Column(name = "ATK_DELTA")
+    @JsonIgnore
+    @Lob
+    public byte[] delta;
+
     @Column(name = "ATK_VERSION")
     @JsonIgnore
     @Version
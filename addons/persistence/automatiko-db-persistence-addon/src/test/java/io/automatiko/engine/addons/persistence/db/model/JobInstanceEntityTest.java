@@ -0,0 +1,165 @@
+package io.automatiko.engine.addons.persistence.db.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import jakarta.persistence.LockModeType;
+
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.jpa.AvailableHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.addons.persistence.db.model.JobInstanceEntity.JobStatus;
+
+/*
+ * Runs claim, renew and release queries of the job entity against H2 data base, queries are executed with plain
+ * Hibernate session as Panache static methods require Quarkus enhancement, skipping of locked rows is not covered
+ * as H2 does not support it
+ */
+public class JobInstanceEntityTest {
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    public void setup() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(JobInstanceEntity.class)
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:jobs;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void testClaimJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        store(job("1", JobStatus.SCHEDULED, now.minusSeconds(10)), job("2", JobStatus.SCHEDULED, now.minusSeconds(5)),
+                job("3", JobStatus.SCHEDULED, now.plusHours(1)), job("4", JobStatus.FAILED, now.minusSeconds(5)));
+
+        List<JobInstanceEntity> claimed = claim("node-1", now, now.plusMinutes(1), 10);
+        assertThat(claimed).extracting(job -> job.id).containsExactly("1", "2");
+
+        JobInstanceEntity job = load("1");
+        assertThat(job.owner).isEqualTo("node-1");
+        assertThat(job.leaseExpiration).isNotNull();
+
+        // jobs owned by other node with valid lease are not claimed
+        assertThat(claim("node-2", now, now.plusMinutes(1), 10)).isEmpty();
+        // claiming is limited by batch size
+        assertThat(claim("node-3", now.plusHours(2), now.plusMinutes(1), 1)).extracting(j -> j.id).containsExactly("3");
+    }
+
+    @Test
+    public void testRenewLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        store(job("1", JobStatus.SCHEDULED, now.minusSeconds(10)));
+
+        assertThat(claim("node-1", now, now.minusSeconds(1), 10)).hasSize(1);
+        assertThat(update(JobInstanceEntity.RENEW_QUERY, now.plusMinutes(1), "node-1")).isEqualTo(1);
+
+        // lease has been renewed so the job cannot be taken over
+        assertThat(claim("node-2", now, now.plusMinutes(1), 10)).isEmpty();
+    }
+
+    @Test
+    public void testTakeOverJobsWithExpiredLease() {
+        LocalDateTime now = LocalDateTime.now();
+        JobInstanceEntity taken = job("1", JobStatus.TAKEN, now.minusSeconds(10));
+        taken.owner = "node-1";
+        taken.leaseExpiration = now.minusSeconds(1);
+        JobInstanceEntity orphan = job("2", JobStatus.TAKEN, now.minusSeconds(10));
+        store(taken, orphan);
+
+        // job taken by the node that died is rescheduled, job taken without owner (before claiming was used) stays as is
+        assertThat(claim("node-2", now, now.plusMinutes(1), 10)).extracting(job -> job.id).containsExactly("1");
+
+        JobInstanceEntity job = load("1");
+        assertThat(job.owner).isEqualTo("node-2");
+        assertThat(job.status).isEqualTo(JobStatus.SCHEDULED);
+    }
+
+    @Test
+    public void testReleaseJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        JobInstanceEntity taken = job("1", JobStatus.TAKEN, now.minusSeconds(10));
+        taken.owner = "node-1";
+        taken.leaseExpiration = now.plusMinutes(1);
+        store(taken, job("2", JobStatus.SCHEDULED, now.minusSeconds(5)));
+        assertThat(claim("node-1", now, now.plusMinutes(1), 10)).hasSize(1);
+
+        // restarted node releases its jobs right away instead of waiting for lease expiration
+        assertThat(update(JobInstanceEntity.RELEASE_QUERY, JobStatus.SCHEDULED, "node-1")).isEqualTo(2);
+
+        JobInstanceEntity job = load("1");
+        assertThat(job.owner).isNull();
+        assertThat(job.status).isEqualTo(JobStatus.SCHEDULED);
+
+        assertThat(claim("node-2", now, now.plusMinutes(1), 10)).extracting(j -> j.id).containsExactly("1", "2");
+    }
+
+    private JobInstanceEntity job(String id, JobStatus status, LocalDateTime expirationTime) {
+        return new JobInstanceEntity(id, "test", "proc", "instance-" + id, status, expirationTime, null, null, null);
+    }
+
+    private void store(JobInstanceEntity... jobs) {
+        execute(session -> {
+            for (JobInstanceEntity job : jobs) {
+                session.persist(job);
+            }
+            return null;
+        });
+    }
+
+    private JobInstanceEntity load(String id) {
+        return execute(session -> session.get(JobInstanceEntity.class, id));
+    }
+
+    private List<JobInstanceEntity> claim(String owner, LocalDateTime expirationBefore, LocalDateTime leaseExpiration,
+            int batchSize) {
+        return execute(session -> {
+            List<JobInstanceEntity> jobs = session
+                    .createSelectionQuery("from JobInstanceEntity where " + JobInstanceEntity.CLAIM_QUERY,
+                            JobInstanceEntity.class)
+                    .setParameter(1, expirationBefore)
+                    .setParameter(2, owner)
+                    .setParameter(3, LocalDateTime.now())
+                    .setParameter(4, JobStatus.SCHEDULED)
+                    .setParameter(5, JobStatus.TAKEN)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint(AvailableHints.HINT_SPEC_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                    .setMaxResults(batchSize)
+                    .list();
+            JobInstanceEntity.claimed(jobs, owner, leaseExpiration);
+            return jobs;
+        });
+    }
+
+    private int update(String query, Object first, Object second) {
+        return execute(session -> session.createMutationQuery("update JobInstanceEntity set " + query)
+                .setParameter(1, first)
+                .setParameter(2, second)
+                .executeUpdate());
+    }
+
+    private <T> T execute(Function<Session, T> work) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            T result = work.apply(session);
+            session.getTransaction().commit();
+            return result;
+        }
+    }
+}
@@ -2,37 +2,58 @@ package io.automatiko.engine.addons.persistence.dynamodb;
 
 import static io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE;
 
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.BinaryObjectMarshallingStrategy;
 import io.automatiko.engine.addons.persistence.common.JacksonObjectMarshallingStrategy;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceCacheFactory;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceMarshallerFactory;
 import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogImpl;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.audit.AuditEntry;
 import io.automatiko.engine.api.audit.Auditor;
 import io.automatiko.engine.api.auth.AccessDeniedException;
+import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
 import io.automatiko.engine.api.uow.TransactionLog;
 import io.automatiko.engine.api.uow.TransactionLogStore;
+import io.automatiko.engine.api.workflow.BatchWriteException;
 import io.automatiko.engine.api.workflow.ConflictingVersionException;
 import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.audit.BaseAuditEntry;
+import io.automatiko.engine.workflow.cache.ProcessInstanceCache;
 import io.automatiko.engine.workflow.marshalling.ProcessInstanceMarshaller;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.core.waiters.WaiterResponse;
@@ -41,23 +62,48 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeAction;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValueUpdate;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
 import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.Put;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionConflictException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -73,6 +119,26 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
     private static final String START_DATE_FIELD = "PIStartDate";
     private static final String END_DATE_FIELD = "PIEndDate";
     private static final String EXPIRED_AT_FIELD = "PIExpiredAtDate";
+    private static final String BUSINESS_KEY_FIELD = "BusinessKey";
+    private static final String DESCRIPTION_FIELD = "Description";
+    private static final String TAG_FIELD = "TagValue";
+    private static final String TAGGED_INSTANCE_FIELD = "TaggedInstanceId";
+    private static final String COUNT_FIELD = "InstanceCount";
+
+    private static final String STATUS_INDEX = "PIStatusStartDateIndex";
+    private static final String BUSINESS_KEY_INDEX = "BusinessKeyIndex";
+    private static final String TAG_INDEX = "TagIndex";
+
+    // instance ids are always resolved to UUIDs so these keys never clash with instances
+    private static final String TAG_ITEM_PREFIX = "#tag#";
+    private static final String COUNTER_ITEM_ID = "#count";
+    // counter is split into shards so concurrent writers rarely touch the same item
+    private static final int COUNTER_SHARDS = 10;
+    private static final int MAX_CONFLICT_RETRIES = 5;
+
+    private static final int MAX_BATCH_ITEMS = 25;
+    private static final int MAX_BATCH_GET_ITEMS = 100;
+    private static final int MAX_TRANSACTION_ITEMS = 100;
 
     private final Process<? extends Model> process;
     private final ProcessInstanceMarshaller marshaller;
@@ -94,11 +160,16 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
 
     private Optional<Long> writeCapacity;
 
+    private ProcessInstanceCache instanceCache;
+
+    private boolean indexed;
+
     public DynamoDBProcessInstances(Process<? extends Model> process, DynamoDbClient dynamodb,
             StoredDataCodec codec, TransactionLogStore store, Auditor auditor,
             Optional<Boolean> createTables, Optional<Long> readCapacity, Optional<Long> writeCapacity) {
         this.process = process;
-        this.marshaller = new ProcessInstanceMarshaller(new JacksonObjectMarshallingStrategy(process));
+        this.marshaller = ProcessInstanceMarshallerFactory.configure(new ProcessInstanceMarshaller(
+                new BinaryObjectMarshallingStrategy(process), new JacksonObjectMarshallingStrategy(process)));
 
         this.dynamodb = dynamodb;
         this.tableName = process.id().toUpperCase();
@@ -111,7 +182,9 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
         if (this.createTables.orElse(Boolean.TRUE)) {
             createTable();
         }
+        this.indexed = hasIndexes();
         this.transactionLog = new TransactionLogImpl(store, new JacksonObjectMarshallingStrategy(process));
+        this.instanceCache = ProcessInstanceCacheFactory.configure(process);
     }
 
     @Override
@@ -166,10 +239,13 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
         if (returnedItem != null && Integer.parseInt(returnedItem.get(STATUS_FIELD).n()) == status) {
             byte[] content = returnedItem.get(CONTENT_FIELD).b().asByteArray();
 
-            return Optional.of(audit(mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK
-                    ? marshaller.unmarshallProcessInstance(codec.decode(content), process,
-                            Long.parseLong(returnedItem.get(VERSION_FIELD).n()))
-                    : marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process)));
+            if (mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK) {
+                long versionTracker = Long.parseLong(returnedItem.get(VERSION_FIELD).n());
+                WorkflowProcessInstance cached = instanceCache.take(resolvedId, versionTracker);
+                return Optional.of(audit(cached != null ? marshaller.createProcessInstance(cached, process, versionTracker)
+                        : marshaller.unmarshallProcessInstance(codec.decode(content), process, versionTracker)));
+            }
+            return Optional.of(audit(marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process)));
 
         } else {
             return Optional.empty();
@@ -181,29 +257,36 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
     public Collection values(ProcessInstanceReadMode mode, int status, int page, int size) {
         LOGGER.debug("values() called");
         Map<String, AttributeValue> attrValues = new HashMap<String, AttributeValue>();
-        StringBuilder condition = new StringBuilder();
         attrValues.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
-        condition.append(STATUS_FIELD + " = :status ");
+
+        if (indexed) {
+            QueryRequest request = QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(STATUS_INDEX)
+                    .keyConditionExpression(STATUS_FIELD + " = :status")
+                    .expressionAttributeValues(attrValues)
+                    .projectionExpression(INSTANCE_ID_FIELD)
+                    .limit(page * size)
+                    .build();
+
+            List<String> ids = dynamodb.queryPaginator(request).items().stream()
+                    .skip(calculatePage(page, size))
+                    .limit(size)
+                    .map(item -> item.get(INSTANCE_ID_FIELD).s())
+                    .collect(Collectors.toList());
+
+            return loadInstances(mode, status, ids);
+        }
 
         ScanRequest request = ScanRequest.builder()
                 .tableName(tableName)
-                .filterExpression(condition.toString())
+                .filterExpression(STATUS_FIELD + " = :status ")
                 .expressionAttributeValues(attrValues)
                 .limit(page * size)
                 .build();
 
-        return dynamodb.scanPaginator(request).items().stream().map(item -> {
-            try {
-                byte[] content = item.get(CONTENT_FIELD).b().asByteArray();
-
-                return audit(mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK
-                        ? marshaller.unmarshallProcessInstance(codec.decode(content), process,
-                                Long.parseLong(item.get(VERSION_FIELD).n()))
-                        : marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process));
-            } catch (AccessDeniedException e) {
-                return null;
-            }
-        })
+        return dynamodb.scanPaginator(request).items().stream()
+                .map(item -> unmarshall(mode, item))
                 .filter(pi -> pi != null)
                 .skip(calculatePage(page, size))
                 .limit(size)
@@ -211,37 +294,88 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
 
     }
 
+    /*
+     * with indexes in place instances are read in order of their start date and cursor keeps start date and id of the
+     * last read instance as that is the key of the status index, otherwise table is scanned (not sorted) and cursor
+     * keeps key of the last evaluated item to start the next scan from
+     */
     @Override
-    public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String... values) {
-        LOGGER.debug("findByIdOrTag() called for values {} and status {}", values, status);
+    public ProcessInstancePage values(ProcessInstanceReadMode mode, int status, ProcessInstanceCursor cursor, int size) {
+        LOGGER.debug("values() called with cursor {}", cursor);
         Map<String, AttributeValue> attrValues = new HashMap<String, AttributeValue>();
-        int counter = 0;
-        StringBuilder condition = new StringBuilder();
         attrValues.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
-        condition.append(STATUS_FIELD + "= :status AND ");
-        for (String value : values) {
-            attrValues.put(":value" + counter, AttributeValue.builder().s(value).build());
-            condition.append("contains(" + TAGS_FIELD + ", :value" + counter + ") OR ");
-            counter++;
+
+        if (indexed) {
+            Map<String, AttributeValue> startKey = null;
+            if (cursor.id() != null) {
+                startKey = new HashMap<>();
+                startKey.put(INSTANCE_ID_FIELD, AttributeValue.builder().s(cursor.id()).build());
+                startKey.put(STATUS_FIELD, AttributeValue.builder().n(String.valueOf(status)).build());
+                startKey.put(START_DATE_FIELD, AttributeValue.builder().s(cursor.key()).build());
+            }
+            List<String> ids = new ArrayList<>();
+            boolean more = true;
+            // single query returns at most 1MB of data so it might take more than one to fill the page
+            while (more && ids.size() < size) {
+                QueryRequest request = QueryRequest.builder()
+                        .tableName(tableName)
+                        .indexName(STATUS_INDEX)
+                        .keyConditionExpression(STATUS_FIELD + " = :status")
+                        .expressionAttributeValues(attrValues)
+                        .projectionExpression(INSTANCE_ID_FIELD)
+                        .scanIndexForward(cursor.sortAsc())
+                        .exclusiveStartKey(startKey)
+                        .limit(size - ids.size())
+                        .build();
+                QueryResponse response = dynamodb.query(request);
+                response.items().forEach(item -> ids.add(item.get(INSTANCE_ID_FIELD).s()));
+
+                more = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty();
+                startKey = response.lastEvaluatedKey();
+            }
+
+            return new ProcessInstancePage(loadInstances(mode, status, ids),
+                    more ? cursor.after(startKey.get(START_DATE_FIELD).s(), startKey.get(INSTANCE_ID_FIELD).s()) : null);
         }
-        condition.delete(condition.length() - 4, condition.length());
 
-        ScanRequest query = ScanRequest.builder().tableName(tableName)
-                .filterExpression(condition.toString())
-                .expressionAttributeValues(attrValues).build();
+        Map<String, AttributeValue> startKey = cursor.id() == null ? null
+                : Collections.singletonMap(INSTANCE_ID_FIELD, AttributeValue.builder().s(cursor.id()).build());
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        boolean more = true;
+        // limit applies to evaluated items (before filtering) so scan continues until the page is full
+        while (more && items.size() < size) {
+            ScanRequest request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .filterExpression(STATUS_FIELD + " = :status ")
+                    .expressionAttributeValues(attrValues)
+                    .exclusiveStartKey(startKey)
+                    .limit(size - items.size())
+                    .build();
+            ScanResponse response = dynamodb.scan(request);
+            items.addAll(response.items());
 
-        return dynamodb.scan(query).items().stream().map(item -> {
-            try {
-                byte[] content = item.get(CONTENT_FIELD).b().asByteArray();
+            more = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty();
+            startKey = response.lastEvaluatedKey();
+        }
 
-                return audit(mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK
-                        ? marshaller.unmarshallProcessInstance(codec.decode(content), process,
-                                Long.parseLong(item.get(VERSION_FIELD).n()))
-                        : marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process));
-            } catch (AccessDeniedException e) {
-                return null;
-            }
-        })
+        // not accessible instances are skipped but cursor moves past them
+        List<ProcessInstance> found = items.stream().map(item -> unmarshall(mode, item)).filter(pi -> pi != null)
+                .collect(Collectors.toList());
+
+        return new ProcessInstancePage(found, more ? cursor.after(null, startKey.get(INSTANCE_ID_FIELD).s()) : null);
+    }
+
+    @Override
+    public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String... values) {
+        LOGGER.debug("findByIdOrTag() called for values {} and status {}", values, status);
+        if (indexed) {
+            return loadInstances(mode, status, lookupIds(values));
+        }
+
+        ScanRequest query = tagScan(status, values);
+
+        return dynamodb.scan(query).items().stream()
+                .map(item -> unmarshall(mode, item))
                 .filter(pi -> pi != null)
                 .collect(Collectors.toList());
 
@@ -249,21 +383,14 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
 
     @Override
     public Collection locateByIdOrTag(int status, String... values) {
-        Map<String, AttributeValue> attrValues = new HashMap<String, AttributeValue>();
-        int counter = 0;
-        StringBuilder condition = new StringBuilder();
-        attrValues.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
-        condition.append(STATUS_FIELD + "= :status AND ");
-        for (String value : values) {
-            attrValues.put(":value" + counter, AttributeValue.builder().s(value).build());
-            condition.append("contains(" + TAGS_FIELD + ", :value" + counter + ") OR ");
-            counter++;
+        if (indexed) {
+            return loadItems(lookupIds(values), String.join(",", INSTANCE_ID_FIELD, STATUS_FIELD)).stream()
+                    .filter(item -> Integer.parseInt(item.get(STATUS_FIELD).n()) == status)
+                    .map(item -> item.get(INSTANCE_ID_FIELD).s())
+                    .collect(Collectors.toSet());
         }
-        condition.delete(condition.length() - 4, condition.length());
 
-        ScanRequest query = ScanRequest.builder().tableName(tableName)
-                .filterExpression(condition.toString())
-                .expressionAttributeValues(attrValues).build();
+        ScanRequest query = tagScan(status, values);
 
         return dynamodb.scan(query).items().stream().map(item -> {
             return item.get(INSTANCE_ID_FIELD).s();
@@ -272,9 +399,69 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        return summaries(status, page, size, null, true);
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        LOGGER.debug("summaries() called");
+        Map<String, AttributeValue> attrValues = new HashMap<String, AttributeValue>();
+        attrValues.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
+        String projection = String.join(",", INSTANCE_ID_FIELD, STATUS_FIELD, TAGS_FIELD, START_DATE_FIELD,
+                END_DATE_FIELD, BUSINESS_KEY_FIELD, DESCRIPTION_FIELD);
+
+        Stream<Map<String, AttributeValue>> items;
+        if (indexed) {
+            // all summary attributes are projected into the status index so base table is not read at all,
+            // the index is ordered by start date only
+            QueryRequest request = QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(STATUS_INDEX)
+                    .keyConditionExpression(STATUS_FIELD + " = :status")
+                    .projectionExpression(projection)
+                    .expressionAttributeValues(attrValues)
+                    .scanIndexForward(!START_DATE_SORT_KEY.equals(sortBy) || sortAsc)
+                    .limit(page * size)
+                    .build();
+            items = dynamodb.queryPaginator(request).items().stream();
+        } else {
+            // sorting is not supported when scanning
+            ScanRequest request = ScanRequest.builder()
+                    .tableName(tableName)
+                    .filterExpression(STATUS_FIELD + " = :status ")
+                    .projectionExpression(projection)
+                    .expressionAttributeValues(attrValues)
+                    .limit(page * size)
+                    .build();
+            items = dynamodb.scanPaginator(request).items().stream();
+        }
+
+        return items
+                .skip(calculatePage(page, size))
+                .limit(size)
+                .map(item -> ProcessInstanceSummary.stored(item.get(INSTANCE_ID_FIELD).s(),
+                        stringValue(item.get(BUSINESS_KEY_FIELD)), stringValue(item.get(DESCRIPTION_FIELD)),
+                        Integer.parseInt(item.get(STATUS_FIELD).n()),
+                        item.containsKey(TAGS_FIELD) ? item.get(TAGS_FIELD).ss() : null,
+                        dateValue(item.get(START_DATE_FIELD)), dateValue(item.get(END_DATE_FIELD))))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Long size() {
         LOGGER.debug("size() called");
+        if (indexed) {
+            // counter item written before the counter was sharded is included so existing tables keep their count
+            List<String> shards = Stream.concat(Stream.of(COUNTER_ITEM_ID),
+                    IntStream.range(0, COUNTER_SHARDS).mapToObj(this::counterId)).collect(Collectors.toList());
+
+            return loadItems(shards, String.join(",", INSTANCE_ID_FIELD, COUNT_FIELD), true).stream()
+                    .filter(item -> item.containsKey(COUNT_FIELD))
+                    .mapToLong(item -> Long.parseLong(item.get(COUNT_FIELD).n()))
+                    .sum();
+        }
         ScanRequest query = ScanRequest.builder().tableName(tableName).select(Select.COUNT).build();
         return dynamodb.scan(query).count().longValue();
     }
@@ -310,36 +497,33 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
                 return;
             }
 
-            Map<String, AttributeValue> itemValues = new HashMap<String, AttributeValue>();
-            itemValues.put(INSTANCE_ID_FIELD, AttributeValue.builder().s(resolvedId).build());
-            itemValues.put(VERSION_FIELD, AttributeValue.builder()
-                    .n(String.valueOf(((AbstractProcessInstance<?>) instance).getVersionTracker())).build());
-            itemValues.put(STATUS_FIELD, AttributeValue.builder()
-                    .n(String.valueOf(((AbstractProcessInstance<?>) instance).status())).build());
-            itemValues.put(CONTENT_FIELD, AttributeValue.builder().b(SdkBytes.fromByteArray(data)).build());
-            itemValues.put(START_DATE_FIELD, AttributeValue.builder()
-                    .s(DateTimeFormatter.ISO_INSTANT.format(instance.startDate().toInstant())).build());
-
-            Collection<String> tags = new ArrayList(instance.tags().values());
-            tags.add(resolvedId);
-            if (instance.businessKey() != null) {
-                tags.add(instance.businessKey());
-            }
-            itemValues.put(TAGS_FIELD, AttributeValue.builder().ss(tags).build());
-
-            PutItemRequest request = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .conditionExpression("attribute_not_exists(" + INSTANCE_ID_FIELD + ")")
-                    .item(itemValues)
-                    .build();
+            Map<String, AttributeValue> itemValues = toItem(resolvedId, instance, data);
 
+            WorkflowProcessInstance wpi = null;
             try {
-                dynamodb.putItem(request);
+                if (indexed) {
+                    // instance and the counter are written together so the counter never drifts
+                    transact(List.of(TransactWriteItem.builder().put(Put.builder()
+                            .tableName(tableName)
+                            .conditionExpression("attribute_not_exists(" + INSTANCE_ID_FIELD + ")")
+                            .item(itemValues)
+                            .build()).build(), counterUpdate(1)), List.of(id));
+                    batchWrite(tagItemWrites(resolvedId, tagItemValues(resolvedId, instance.tags().values(),
+                            instance.businessKey()), Collections.emptySet()));
+                } else {
+                    dynamodb.putItem(PutItemRequest.builder()
+                            .tableName(tableName)
+                            .conditionExpression("attribute_not_exists(" + INSTANCE_ID_FIELD + ")")
+                            .item(itemValues)
+                            .build());
+                }
 
                 Supplier<AuditEntry> entry = () -> BaseAuditEntry.persitenceWrite(instance)
                         .add("message", "Workflow instance created in the DynamoDB based data store");
 
                 auditor.publish(entry);
+                wpi = cacheable(instance, (WorkflowProcessInstance) ((AbstractProcessInstance<?>) instance)
+                        .internalGetProcessInstance());
             } catch (ConditionalCheckFailedException e) {
                 throw new ProcessInstanceDuplicatedException(id);
             } finally {
@@ -348,7 +532,7 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
                 cachedInstances.remove(id);
 
                 disconnect(instance);
-
+                instanceCache.put(resolvedId, ((AbstractProcessInstance<?>) instance).getVersionTracker(), wpi);
             }
         } else if (isPending(instance)) {
             if (cachedInstances.putIfAbsent(resolvedId, instance) != null) {
@@ -408,6 +592,19 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
                 }
             }
 
+            if (instance.businessKey() != null) {
+                updatedValues.put(BUSINESS_KEY_FIELD, AttributeValueUpdate.builder()
+                        .value(AttributeValue.builder().s(instance.businessKey()).build())
+                        .action(AttributeAction.PUT)
+                        .build());
+            }
+            if (instance.description() != null) {
+                updatedValues.put(DESCRIPTION_FIELD, AttributeValueUpdate.builder()
+                        .value(AttributeValue.builder().s(instance.description()).build())
+                        .action(AttributeAction.PUT)
+                        .build());
+            }
+
             Collection<String> tags = new ArrayList(instance.tags().values());
             tags.add(resolvedId);
             if (instance.businessKey() != null) {
@@ -423,20 +620,34 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
                     .key(itemKey)
                     .attributeUpdates(updatedValues)
                     .conditionExpression(VERSION_FIELD + " = " + ((AbstractProcessInstance<?>) instance).getVersionTracker())
+                    .returnValues(ReturnValue.UPDATED_OLD)
                     .build();
 
+            WorkflowProcessInstance wpi = null;
             try {
-                dynamodb.updateItem(request);
+                UpdateItemResponse response = dynamodb.updateItem(request);
+                if (indexed) {
+                    // only tags that were added or removed since the last update are written to the tag index
+                    Map<String, AttributeValue> old = response.attributes();
+                    Set<String> previous = tagItemValues(resolvedId,
+                            old.containsKey(TAGS_FIELD) ? old.get(TAGS_FIELD).ss() : Collections.emptyList(),
+                            old.containsKey(BUSINESS_KEY_FIELD) ? old.get(BUSINESS_KEY_FIELD).s() : instance.businessKey());
+                    batchWrite(tagItemWrites(resolvedId, tagItemValues(resolvedId, tags, instance.businessKey()), previous));
+                }
 
                 Supplier<AuditEntry> entry = () -> BaseAuditEntry.persitenceWrite(instance)
                         .add("message", "Workflow instance updated in the DynamoDB based data store");
 
                 auditor.publish(entry);
+                wpi = cacheable(instance, (WorkflowProcessInstance) ((AbstractProcessInstance<?>) instance)
+                        .internalGetProcessInstance());
             } catch (ConditionalCheckFailedException e) {
+                instanceCache.evict(resolvedId);
                 throw new ConflictingVersionException("Process instance with id '" + instance.id()
                         + "' has older version than the stored one");
             } finally {
                 disconnect(instance);
+                instanceCache.put(resolvedId, ((AbstractProcessInstance<?>) instance).getVersionTracker() + 1, wpi);
             }
 
         }
@@ -460,9 +671,19 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
         DeleteItemRequest deleteReq = DeleteItemRequest.builder()
                 .tableName(tableName)
                 .key(keyToGet)
+                .returnValues(ReturnValue.ALL_OLD)
                 .build();
 
-        dynamodb.deleteItem(deleteReq);
+        DeleteItemResponse response = dynamodb.deleteItem(deleteReq);
+        // instances that were never stored (e.g. completed within the first unit of work) do not change the counter
+        if (indexed && response.hasAttributes() && !response.attributes().isEmpty()) {
+            Map<String, AttributeValue> old = response.attributes();
+            count(-1);
+            batchWrite(tagItemWrites(resolvedId, Collections.emptySet(), tagItemValues(resolvedId,
+                    old.containsKey(TAGS_FIELD) ? old.get(TAGS_FIELD).ss() : Collections.emptyList(),
+                    stringValue(old.get(BUSINESS_KEY_FIELD)))));
+        }
+        instanceCache.evict(resolvedId);
 
         Supplier<AuditEntry> entry = () -> BaseAuditEntry.persitenceWrite(instance)
                 .add("message", "Workflow instance removed from the DynamoDB based data store");
@@ -470,21 +691,477 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
         auditor.publish(entry);
     }
 
+    /*
+     * new instances are written in transactions (up to 100 items each) as that keeps the condition preventing
+     * duplicates, updates are conditional on version and are not supported in batches so they are performed one by one.
+     * When indexes are in place each transaction also increments one of the counter shards so it stays in sync with
+     * instances, transactions cancelled due to conflict with other writer are retried
+     */
+    @Override
+    public void createAll(Map instances) {
+        Map<String, ProcessInstance> batch = instances;
+        List<TransactWriteItem> writes = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        Map<String, ProcessInstance> written = new LinkedHashMap<>();
+        Set<String> stored = new HashSet<>();
+        Set<String> unapplied = new LinkedHashSet<>();
+        for (Map.Entry<String, ProcessInstance> entry : batch.entrySet()) {
+            ProcessInstance instance = entry.getValue();
+            if (!isActive(instance)) {
+                create(entry.getKey(), instance);
+                continue;
+            }
+            byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+            if (data == null) {
+                continue;
+            }
+            writes.add(TransactWriteItem.builder().put(Put.builder()
+                    .tableName(tableName)
+                    .conditionExpression("attribute_not_exists(" + INSTANCE_ID_FIELD + ")")
+                    .item(toItem(resolveId(entry.getKey(), instance), instance, data))
+                    .build()).build());
+            ids.add(entry.getKey());
+            written.put(entry.getKey(), instance);
+        }
+        int chunkSize = indexed ? MAX_TRANSACTION_ITEMS - 1 : MAX_TRANSACTION_ITEMS;
+        try {
+            for (int i = 0; i < writes.size(); i += chunkSize) {
+                int end = Math.min(i + chunkSize, writes.size());
+                List<TransactWriteItem> transaction = new ArrayList<>(writes.subList(i, end));
+                if (indexed) {
+                    transaction.add(counterUpdate(end - i));
+                }
+                try {
+                    transact(transaction, ids.subList(i, end));
+                } catch (ConflictingVersionException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // transactions are atomic and earlier ones are already committed so instances of this and following
+                    // ones are reported as not written
+                    unapplied.addAll(ids.subList(i, ids.size()));
+                    throw new BatchWriteException(unapplied, e);
+                }
+                stored.addAll(ids.subList(i, end));
+            }
+
+            if (indexed) {
+                List<WriteRequest> tagWrites = new ArrayList<>();
+                written.forEach((id, instance) -> {
+                    String resolvedId = resolveId(id, instance);
+                    tagWrites.addAll(tagItemWrites(resolvedId,
+                            tagItemValues(resolvedId, instance.tags().values(), instance.businessKey()),
+                            Collections.emptySet()));
+                });
+                batchWrite(tagWrites);
+            }
+
+            written.values().forEach(instance -> auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                    .add("message", "Workflow instance created in the DynamoDB based data store")));
+        } finally {
+            written.forEach((id, instance) -> {
+                if (unapplied.contains(id)) {
+                    // instances that were not written stay connected as they are going to be written again
+                    return;
+                }
+                String resolvedId = resolveId(id, instance);
+                cachedInstances.remove(resolvedId);
+                cachedInstances.remove(id);
+
+                WorkflowProcessInstance wpi = stored.contains(id)
+                        ? cacheable(instance, (WorkflowProcessInstance) ((AbstractProcessInstance<?>) instance)
+                                .internalGetProcessInstance())
+                        : null;
+                disconnect(instance);
+                if (wpi != null) {
+                    instanceCache.put(resolvedId, ((AbstractProcessInstance<?>) instance).getVersionTracker(), wpi);
+                } else {
+                    instanceCache.evict(resolvedId);
+                }
+            });
+        }
+    }
+
+    /*
+     * batch writes do not return removed items so with indexes in place stored items are read first, only those are
+     * removed together with their tag items (as they were stored) and counted, instances that were never stored
+     * (e.g. completed within the first unit of work) are skipped
+     */
+    @Override
+    public void removeAll(Map instances) {
+        Map<String, ProcessInstance> batch = instances;
+        List<String> resolvedIds = new ArrayList<>();
+        batch.forEach((id, instance) -> {
+            String resolvedId = resolveId(id, instance);
+            cachedInstances.remove(resolvedId);
+            cachedInstances.remove(id);
+            instanceCache.evict(resolvedId);
+            resolvedIds.add(resolvedId);
+        });
+
+        List<WriteRequest> deletes = new ArrayList<>();
+        if (indexed) {
+            List<Map<String, AttributeValue>> stored = loadItems(resolvedIds,
+                    String.join(",", INSTANCE_ID_FIELD, TAGS_FIELD, BUSINESS_KEY_FIELD), true);
+            for (Map<String, AttributeValue> item : stored) {
+                String resolvedId = item.get(INSTANCE_ID_FIELD).s();
+                deletes.add(deleteRequest(resolvedId));
+                deletes.addAll(tagItemWrites(resolvedId, Collections.emptySet(), tagItemValues(resolvedId,
+                        item.containsKey(TAGS_FIELD) ? item.get(TAGS_FIELD).ss() : Collections.emptyList(),
+                        stringValue(item.get(BUSINESS_KEY_FIELD)))));
+            }
+            batchWrite(deletes);
+            if (!stored.isEmpty()) {
+                count(-stored.size());
+            }
+        } else {
+            resolvedIds.forEach(resolvedId -> deletes.add(deleteRequest(resolvedId)));
+            batchWrite(deletes);
+        }
+
+        batch.values().forEach(instance -> auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                .add("message", "Workflow instance removed from the DynamoDB based data store")));
+    }
+
+    /*
+     * only instances that can be loaded as mutable are kept in the instance cache
+     */
+    protected WorkflowProcessInstance cacheable(ProcessInstance instance, WorkflowProcessInstance wpi) {
+        if (instance.status() == ProcessInstance.STATE_ACTIVE || instance.status() == ProcessInstance.STATE_ERROR) {
+            return wpi;
+        }
+        return null;
+    }
+
+    protected ProcessInstance unmarshall(ProcessInstanceReadMode mode, Map<String, AttributeValue> item) {
+        try {
+            byte[] content = item.get(CONTENT_FIELD).b().asByteArray();
+
+            return audit(mode == MUTABLE || mode == ProcessInstanceReadMode.MUTABLE_WITH_LOCK
+                    ? marshaller.unmarshallProcessInstance(codec.decode(content), process,
+                            Long.parseLong(item.get(VERSION_FIELD).n()))
+                    : marshaller.unmarshallReadOnlyProcessInstance(codec.decode(content), process));
+        } catch (AccessDeniedException e) {
+            return null;
+        }
+    }
+
+    /*
+     * indexes are eventually consistent so status is verified again on loaded instances
+     */
+    protected List<ProcessInstance> loadInstances(ProcessInstanceReadMode mode, int status, Collection<String> ids) {
+        Map<String, Map<String, AttributeValue>> items = loadItems(ids, null).stream()
+                .collect(Collectors.toMap(item -> item.get(INSTANCE_ID_FIELD).s(), item -> item));
+
+        return ids.stream()
+                .map(items::get)
+                .filter(item -> item != null && Integer.parseInt(item.get(STATUS_FIELD).n()) == status)
+                .map(item -> unmarshall(mode, item))
+                .filter(pi -> pi != null)
+                .collect(Collectors.toList());
+    }
+
+    protected List<Map<String, AttributeValue>> loadItems(Collection<String> ids, String projection) {
+        return loadItems(ids, projection, false);
+    }
+
+    protected List<Map<String, AttributeValue>> loadItems(Collection<String> ids, String projection, boolean consistent) {
+        List<Map<String, AttributeValue>> keys = ids.stream().distinct()
+                .map(id -> Collections.singletonMap(INSTANCE_ID_FIELD, AttributeValue.builder().s(id).build()))
+                .collect(Collectors.toList());
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_GET_ITEMS) {
+            Map<String, KeysAndAttributes> requests = Collections.singletonMap(tableName, KeysAndAttributes.builder()
+                    .keys(keys.subList(i, Math.min(i + MAX_BATCH_GET_ITEMS, keys.size())))
+                    .projectionExpression(projection)
+                    .consistentRead(consistent)
+                    .build());
+            // unprocessed keys are retried as long as there are any left
+            while (requests != null && !requests.isEmpty()) {
+                BatchGetItemResponse response = dynamodb.batchGetItem(BatchGetItemRequest.builder()
+                        .requestItems(requests)
+                        .build());
+                items.addAll(response.responses().getOrDefault(tableName, Collections.emptyList()));
+                requests = response.hasUnprocessedKeys() ? response.unprocessedKeys() : null;
+            }
+        }
+        return items;
+    }
+
+    /*
+     * values can be instance ids (looked up directly by key), business keys (business key index) or tags (tag index)
+     */
+    protected Collection<String> lookupIds(String... values) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String value : values) {
+            if (!value.startsWith(TAG_ITEM_PREFIX) && !value.startsWith(COUNTER_ITEM_ID)) {
+                ids.add(value);
+            }
+            Map<String, AttributeValue> attrValues = Collections.singletonMap(":value",
+                    AttributeValue.builder().s(value).build());
+
+            dynamodb.queryPaginator(QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(BUSINESS_KEY_INDEX)
+                    .keyConditionExpression(BUSINESS_KEY_FIELD + " = :value")
+                    .expressionAttributeValues(attrValues)
+                    .build()).items().forEach(item -> ids.add(item.get(INSTANCE_ID_FIELD).s()));
+
+            dynamodb.queryPaginator(QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(TAG_INDEX)
+                    .keyConditionExpression(TAG_FIELD + " = :value")
+                    .expressionAttributeValues(attrValues)
+                    .build()).items().forEach(item -> ids.add(item.get(TAGGED_INSTANCE_FIELD).s()));
+        }
+        return ids;
+    }
+
+    protected ScanRequest tagScan(int status, String... values) {
+        Map<String, AttributeValue> attrValues = new HashMap<String, AttributeValue>();
+        int counter = 0;
+        StringBuilder condition = new StringBuilder();
+        attrValues.put(":status", AttributeValue.builder().n(String.valueOf(status)).build());
+        condition.append(STATUS_FIELD + "= :status AND ");
+        for (String value : values) {
+            attrValues.put(":value" + counter, AttributeValue.builder().s(value).build());
+            condition.append("contains(" + TAGS_FIELD + ", :value" + counter + ") OR ");
+            counter++;
+        }
+        condition.delete(condition.length() - 4, condition.length());
+
+        return ScanRequest.builder().tableName(tableName)
+                .filterExpression(condition.toString())
+                .expressionAttributeValues(attrValues).build();
+    }
+
+    /*
+     * instance id and business key are part of the tags attribute but are looked up by key and business key index
+     * so only remaining tags get their own items in the tag index
+     */
+    protected Set<String> tagItemValues(String resolvedId, Collection<String> tags, String businessKey) {
+        Set<String> values = new LinkedHashSet<>(tags);
+        values.remove(resolvedId);
+        if (businessKey != null) {
+            values.remove(businessKey);
+        }
+        return values;
+    }
+
+    protected List<WriteRequest> tagItemWrites(String resolvedId, Set<String> current, Set<String> previous) {
+        List<WriteRequest> writes = new ArrayList<>();
+        for (String tag : current) {
+            if (previous.contains(tag)) {
+                continue;
+            }
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put(INSTANCE_ID_FIELD, AttributeValue.builder().s(TAG_ITEM_PREFIX + resolvedId + "#" + tag).build());
+            item.put(TAG_FIELD, AttributeValue.builder().s(tag).build());
+            item.put(TAGGED_INSTANCE_FIELD, AttributeValue.builder().s(resolvedId).build());
+
+            writes.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
+        for (String tag : previous) {
+            if (current.contains(tag)) {
+                continue;
+            }
+            writes.add(WriteRequest.builder().deleteRequest(DeleteRequest.builder()
+                    .key(Collections.singletonMap(INSTANCE_ID_FIELD,
+                            AttributeValue.builder().s(TAG_ITEM_PREFIX + resolvedId + "#" + tag).build()))
+                    .build()).build());
+        }
+        return writes;
+    }
+
+    protected void batchWrite(List<WriteRequest> writes) {
+        for (int i = 0; i < writes.size(); i += MAX_BATCH_ITEMS) {
+            Map<String, List<WriteRequest>> requests = Collections.singletonMap(tableName,
+                    writes.subList(i, Math.min(i + MAX_BATCH_ITEMS, writes.size())));
+            // unprocessed items are retried as long as there are any left
+            while (requests != null && !requests.isEmpty()) {
+                BatchWriteItemResponse response = dynamodb.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(requests)
+                        .build());
+                requests = response.hasUnprocessedItems() ? response.unprocessedItems() : null;
+            }
+        }
+    }
+
+    protected WriteRequest deleteRequest(String resolvedId) {
+        return WriteRequest.builder().deleteRequest(DeleteRequest.builder()
+                .key(Collections.singletonMap(INSTANCE_ID_FIELD, AttributeValue.builder().s(resolvedId).build()))
+                .build()).build();
+    }
+
+    /*
+     * writes given items in single transaction, instance ids correspond to the first items of the transaction,
+     * transactions cancelled due to conflicting writes are retried and reported as conflict once retries are exhausted
+     */
+    protected void transact(List<TransactWriteItem> transaction, List<String> ids) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                dynamodb.transactWriteItems(TransactWriteItemsRequest.builder()
+                        .transactItems(transaction)
+                        .build());
+                return;
+            } catch (TransactionCanceledException e) {
+                List<CancellationReason> reasons = e.cancellationReasons();
+                boolean conflict = false;
+                for (int r = 0; r < reasons.size(); r++) {
+                    String code = reasons.get(r).code();
+                    if ("ConditionalCheckFailed".equals(code) && r < ids.size()) {
+                        throw new ProcessInstanceDuplicatedException(ids.get(r));
+                    }
+                    conflict |= "TransactionConflict".equals(code);
+                }
+                if (!conflict) {
+                    throw e;
+                }
+                if (attempt > MAX_CONFLICT_RETRIES) {
+                    throw new ConflictingVersionException("Unable to store instances " + ids
+                            + " due to conflicting writes after " + MAX_CONFLICT_RETRIES + " retries");
+                }
+                LOGGER.debug("Transaction storing instances {} conflicted with other write, retrying ({})", ids, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    protected void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 20L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictingVersionException("Interrupted while waiting to retry conflicting write");
+        }
+    }
+
+    protected String counterId(int shard) {
+        return COUNTER_ITEM_ID + "#" + shard;
+    }
+
+    protected Map<String, AttributeValue> counterKey() {
+        return Collections.singletonMap(INSTANCE_ID_FIELD,
+                AttributeValue.builder().s(counterId(ThreadLocalRandom.current().nextInt(COUNTER_SHARDS))).build());
+    }
+
+    protected TransactWriteItem counterUpdate(long delta) {
+        return TransactWriteItem.builder().update(Update.builder()
+                .tableName(tableName)
+                .key(counterKey())
+                .updateExpression("ADD " + COUNT_FIELD + " :delta")
+                .expressionAttributeValues(Collections.singletonMap(":delta",
+                        AttributeValue.builder().n(String.valueOf(delta)).build()))
+                .build()).build();
+    }
+
+    protected void count(long delta) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                dynamodb.updateItem(UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(counterKey())
+                        .updateExpression("ADD " + COUNT_FIELD + " :delta")
+                        .expressionAttributeValues(Collections.singletonMap(":delta",
+                                AttributeValue.builder().n(String.valueOf(delta)).build()))
+                        .build());
+                return;
+            } catch (TransactionConflictException e) {
+                // counter shard is being updated by a transaction of other writer
+                if (attempt > MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    protected Map<String, AttributeValue> toItem(String resolvedId, ProcessInstance instance, byte[] data) {
+        Map<String, AttributeValue> itemValues = new HashMap<String, AttributeValue>();
+        itemValues.put(INSTANCE_ID_FIELD, AttributeValue.builder().s(resolvedId).build());
+        itemValues.put(VERSION_FIELD, AttributeValue.builder()
+                .n(String.valueOf(((AbstractProcessInstance<?>) instance).getVersionTracker())).build());
+        itemValues.put(STATUS_FIELD, AttributeValue.builder()
+                .n(String.valueOf(((AbstractProcessInstance<?>) instance).status())).build());
+        itemValues.put(CONTENT_FIELD, AttributeValue.builder().b(SdkBytes.fromByteArray(data)).build());
+        itemValues.put(START_DATE_FIELD, AttributeValue.builder()
+                .s(DateTimeFormatter.ISO_INSTANT.format(instance.startDate().toInstant())).build());
+        if (instance.businessKey() != null) {
+            itemValues.put(BUSINESS_KEY_FIELD, AttributeValue.builder().s(instance.businessKey()).build());
+        }
+        if (instance.description() != null) {
+            itemValues.put(DESCRIPTION_FIELD, AttributeValue.builder().s(instance.description()).build());
+        }
+
+        Collection<String> tags = new ArrayList(instance.tags().values());
+        tags.add(resolvedId);
+        if (instance.businessKey() != null) {
+            tags.add(instance.businessKey());
+        }
+        itemValues.put(TAGS_FIELD, AttributeValue.builder().ss(tags).build());
+        return itemValues;
+    }
+
+    protected String stringValue(AttributeValue value) {
+        return value == null ? null : value.s();
+    }
+
+    protected Date dateValue(AttributeValue value) {
+        if (value == null) {
+            return null;
+        }
+        // dates are stored as ISO formatted strings though not always with string type
+        String date = value.s() != null ? value.s() : value.n();
+        try {
+            return date == null ? null : Date.from(Instant.parse(date));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     protected void createTable() {
         DynamoDbWaiter dbWaiter = dynamodb.waiter();
+        ProvisionedThroughput throughput = ProvisionedThroughput.builder()
+                .readCapacityUnits(readCapacity.orElse(Long.valueOf(10)))
+                .writeCapacityUnits(writeCapacity.orElse(Long.valueOf(10)))
+                .build();
         CreateTableRequest request = CreateTableRequest.builder()
-                .attributeDefinitions(AttributeDefinition.builder()
-                        .attributeName(INSTANCE_ID_FIELD)
-                        .attributeType(ScalarAttributeType.S)
-                        .build())
+                .attributeDefinitions(
+                        attribute(INSTANCE_ID_FIELD, ScalarAttributeType.S),
+                        attribute(STATUS_FIELD, ScalarAttributeType.N),
+                        attribute(START_DATE_FIELD, ScalarAttributeType.S),
+                        attribute(BUSINESS_KEY_FIELD, ScalarAttributeType.S),
+                        attribute(TAG_FIELD, ScalarAttributeType.S),
+                        attribute(TAGGED_INSTANCE_FIELD, ScalarAttributeType.S))
                 .keySchema(KeySchemaElement.builder()
                         .attributeName(INSTANCE_ID_FIELD)
                         .keyType(KeyType.HASH)
                         .build())
-                .provisionedThroughput(ProvisionedThroughput.builder()
-                        .readCapacityUnits(readCapacity.orElse(Long.valueOf(10)))
-                        .writeCapacityUnits(writeCapacity.orElse(Long.valueOf(10)))
-                        .build())
+                .globalSecondaryIndexes(
+                        // status index carries all attributes needed for summaries so they do not touch the table
+                        GlobalSecondaryIndex.builder()
+                                .indexName(STATUS_INDEX)
+                                .keySchema(key(STATUS_FIELD, KeyType.HASH), key(START_DATE_FIELD, KeyType.RANGE))
+                                .projection(Projection.builder()
+                                        .projectionType(ProjectionType.INCLUDE)
+                                        .nonKeyAttributes(TAGS_FIELD, END_DATE_FIELD, BUSINESS_KEY_FIELD,
+                                                DESCRIPTION_FIELD)
+                                        .build())
+                                .provisionedThroughput(throughput)
+                                .build(),
+                        GlobalSecondaryIndex.builder()
+                                .indexName(BUSINESS_KEY_INDEX)
+                                .keySchema(key(BUSINESS_KEY_FIELD, KeyType.HASH))
+                                .projection(Projection.builder().projectionType(ProjectionType.KEYS_ONLY).build())
+                                .provisionedThroughput(throughput)
+                                .build(),
+                        GlobalSecondaryIndex.builder()
+                                .indexName(TAG_INDEX)
+                                .keySchema(key(TAG_FIELD, KeyType.HASH), key(TAGGED_INSTANCE_FIELD, KeyType.RANGE))
+                                .projection(Projection.builder().projectionType(ProjectionType.KEYS_ONLY).build())
+                                .provisionedThroughput(throughput)
+                                .build())
+                .provisionedThroughput(throughput)
                 .tableName(tableName)
                 .build();
 
@@ -511,6 +1188,37 @@ public class DynamoDBProcessInstances implements MutableProcessInstances {
         }
     }
 
+    /*
+     * tables created by previous versions (or managed outside of the service) might not have the indexes, as tag items
+     * and instance counter are not there either such tables are scanned as before
+     */
+    protected boolean hasIndexes() {
+        try {
+            List<String> indexes = dynamodb.describeTable(DescribeTableRequest.builder().tableName(tableName).build())
+                    .table().globalSecondaryIndexes().stream()
+                    .map(GlobalSecondaryIndexDescription::indexName)
+                    .collect(Collectors.toList());
+
+            if (indexes.containsAll(List.of(STATUS_INDEX, BUSINESS_KEY_INDEX, TAG_INDEX))) {
+                return true;
+            }
+            LOGGER.warn("Table {} for process {} does not define secondary indexes, instances will be looked up by scanning the table",
+                    tableName, process.id());
+        } catch (DynamoDbException e) {
+            LOGGER.warn("Unable to describe table {} for process {}, instances will be looked up by scanning the table",
+                    tableName, process.id(), e);
+        }
+        return false;
+    }
+
+    protected AttributeDefinition attribute(String name, ScalarAttributeType type) {
+        return AttributeDefinition.builder().attributeName(name).attributeType(type).build();
+    }
+
+    protected KeySchemaElement key(String name, KeyType type) {
+        return KeySchemaElement.builder().attributeName(name).keyType(type).build();
+    }
+
     protected void disconnect(ProcessInstance instance) {
         ((AbstractProcessInstance<?>) instance).internalRemoveProcessInstance(() -> {
 
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -29,6 +30,7 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.JobSchedulerFactory;
 import io.automatiko.engine.api.Application;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.audit.AuditEntry;
@@ -103,7 +105,7 @@ public class DynamoDBJobService implements JobsService {
 
     protected final Auditor auditor;
 
-    protected final ScheduledThreadPoolExecutor scheduler;
+    protected final ScheduledExecutorService scheduler;
 
     protected final ScheduledThreadPoolExecutor loadScheduler;
 
@@ -147,8 +149,7 @@ public class DynamoDBJobService implements JobsService {
 
         this.auditor = auditor;
 
-        this.scheduler = new ScheduledThreadPoolExecutor(this.threads.orElse(1),
-                r -> new Thread(r, "automatiko-jobs-executor"));
+        this.scheduler = JobSchedulerFactory.create("automatiko-jobs-executor", this.threads.orElse(1));
         this.loadScheduler = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "automatiko-jobs-loader"));
     }
 
@@ -0,0 +1,198 @@
+package io.automatiko.engine.addons.persistence.dynamodb;
+
+import static io.automatiko.engine.api.runtime.process.ProcessInstance.STATE_ACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.workflow.BatchWriteException;
+import io.automatiko.engine.api.workflow.ConflictingVersionException;
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
+import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
+import io.automatiko.engine.services.io.ClassPathResource;
+import io.automatiko.engine.workflow.bpmn2.BpmnProcess;
+import io.automatiko.engine.workflow.bpmn2.BpmnVariables;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class DynamoDBProcessInstancesTest {
+
+    private InMemoryDynamoDbClient client;
+
+    private BpmnProcess process;
+
+    private DynamoDBProcessInstances instances;
+
+    @BeforeEach
+    public void setup() {
+        client = new InMemoryDynamoDbClient();
+        process = BpmnProcess.from(new ClassPathResource("BPMN2-UserTask.bpmn2")).get(0);
+        process.configure();
+
+        instances = new DynamoDBProcessInstances(process, client, new StoredDataCodec.NoOpStoredDataCodec(), null,
+                entry -> {
+                }, Optional.of(false), Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    public void testCreateAllCountsAndTagsInstances() {
+        Map<String, ProcessInstance> batch = started(3);
+        ProcessInstance tagged = batch.values().iterator().next();
+        tagged.tags().add("urgent");
+        ProcessInstance withBusinessKey = started("order-1");
+        batch.put(withBusinessKey.id(), withBusinessKey);
+
+        instances.createAll(batch);
+
+        assertThat(instances.size()).isEqualTo(4);
+        assertThat(client.transactions()).isEqualTo(1);
+        // process defines "important" tag for all instances
+        assertThat(tagItems("important")).hasSize(4);
+        assertThat(tagItems("urgent")).containsExactly("#tag#" + tagged.id() + "#urgent");
+
+        assertThat(ids(instances.findByIdOrTag(ProcessInstanceReadMode.READ_ONLY, STATE_ACTIVE, "urgent")))
+                .containsExactly(tagged.id());
+        assertThat(ids(instances.findByIdOrTag(ProcessInstanceReadMode.READ_ONLY, STATE_ACTIVE, "order-1")))
+                .containsExactly(withBusinessKey.id());
+
+        // creating already stored instance is rejected without changing the counter and reported as not written
+        BatchWriteException duplicated = catchThrowableOfType(
+                () -> instances.createAll(Collections.singletonMap(withBusinessKey.id(), started(null))),
+                BatchWriteException.class);
+        assertThat(duplicated).hasCauseInstanceOf(ProcessInstanceDuplicatedException.class);
+        assertThat(duplicated.getUnapplied()).containsExactly(withBusinessKey.id());
+        assertThat(instances.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCreateAllRetriesConflictingTransactions() {
+        client.conflicts(2);
+        instances.createAll(started(2));
+
+        assertThat(instances.size()).isEqualTo(2);
+        assertThat(client.transactions()).isEqualTo(3);
+
+        // conflicts that last longer are reported so unit of work is retried instead of instances being lost
+        client.conflicts(100);
+        Map<String, ProcessInstance> batch = started(2);
+        assertThatExceptionOfType(ConflictingVersionException.class).isThrownBy(() -> instances.createAll(batch));
+        assertThat(instances.size()).isEqualTo(2);
+        assertThat(batch.keySet()).noneMatch(id -> instances.exists(id));
+    }
+
+    @Test
+    public void testSizeIncludesCounterWrittenBeforeSharding() {
+        client.updateItem(UpdateItemRequest.builder()
+                .key(Collections.singletonMap(InMemoryDynamoDbClient.KEY, AttributeValue.builder().s("#count").build()))
+                .updateExpression("ADD InstanceCount :delta")
+                .expressionAttributeValues(Collections.singletonMap(":delta", AttributeValue.builder().n("3").build()))
+                .build());
+        instances.createAll(started(2));
+
+        assertThat(instances.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void testCreateAndRemoveSingleInstance() {
+        ProcessInstance instance = started(null);
+        instance.tags().add("urgent");
+        instances.create(instance.id(), instance);
+
+        assertThat(instances.size()).isEqualTo(1);
+        assertThat(tagItems("urgent")).hasSize(1);
+
+        instances.remove(instance.id(), instance);
+        // removing instance that is no longer stored does not change the counter
+        instances.remove(instance.id(), instance);
+
+        assertThat(instances.size()).isZero();
+        assertThat(client.items().keySet()).noneMatch(id -> id.startsWith("#tag#"));
+    }
+
+    @Test
+    public void testRemoveAllCountsOnlyStoredInstances() {
+        Map<String, ProcessInstance> stored = started(2);
+        stored.values().forEach(pi -> pi.tags().add("urgent"));
+        instances.createAll(stored);
+        assertThat(instances.size()).isEqualTo(2);
+
+        // instance completed within its first unit of work was never stored
+        Map<String, ProcessInstance> batch = new LinkedHashMap<>(stored);
+        ProcessInstance notStored = started(null);
+        notStored.tags().add("other");
+        batch.put(notStored.id(), notStored);
+        // tags changed after the instance was stored, stored tag items must be removed
+        stored.values().forEach(pi -> pi.tags().add("late"));
+
+        instances.removeAll(batch);
+
+        assertThat(instances.size()).isZero();
+        assertThat(client.items().keySet()).noneMatch(id -> id.startsWith("#tag#"));
+        assertThat(client.items().keySet()).allMatch(id -> id.startsWith("#count"));
+    }
+
+    @Test
+    public void testPagingThroughInstances() {
+        Map<String, ProcessInstance> batch = started(5);
+        instances.createAll(batch);
+
+        List<String> read = new ArrayList<>();
+        ProcessInstanceCursor cursor = ProcessInstanceCursor.first(null, true);
+        int pages = 0;
+        while (cursor != null) {
+            ProcessInstancePage page = instances.values(ProcessInstanceReadMode.READ_ONLY, STATE_ACTIVE, cursor, 2);
+            read.addAll(ids(page.items()));
+            cursor = page.next();
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(read).containsExactlyInAnyOrderElementsOf(batch.keySet());
+
+        assertThat(instances.values(ProcessInstanceReadMode.READ_ONLY, STATE_ACTIVE, 2, 2)).hasSize(2);
+        assertThat(instances.values(ProcessInstanceReadMode.READ_ONLY, STATE_ACTIVE, 3, 2)).hasSize(1);
+        assertThat(instances.summaries(STATE_ACTIVE, 1, 10)).hasSize(5);
+    }
+
+    private Map<String, ProcessInstance> started(int count) {
+        Map<String, ProcessInstance> batch = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            ProcessInstance instance = started(null);
+            batch.put(instance.id(), instance);
+        }
+        return batch;
+    }
+
+    private ProcessInstance started(String businessKey) {
+        ProcessInstance instance = process.createInstance(businessKey,
+                BpmnVariables.create(Collections.singletonMap("s", "test")));
+        instance.start();
+        return instance;
+    }
+
+    private List<String> tagItems(String tag) {
+        return client.items().keySet().stream().filter(id -> id.startsWith("#tag#") && id.endsWith("#" + tag))
+                .collect(Collectors.toList());
+    }
+
+    private List<String> ids(Collection<?> found) {
+        return found.stream().map(pi -> ((ProcessInstance) pi).id()).collect(Collectors.toList());
+    }
+}
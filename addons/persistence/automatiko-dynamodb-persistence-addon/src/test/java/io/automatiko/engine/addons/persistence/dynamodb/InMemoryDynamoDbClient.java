@@ -0,0 +1,244 @@
+package io.automatiko.engine.addons.persistence.dynamodb;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/*
+ * Single table DynamoDB client keeping items in memory, supports only operations (and expressions) used by
+ * the process instances store with indexes in place
+ */
+class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    static final String KEY = "InstanceId";
+
+    private static final Map<String, String[]> INDEXES = Map.of(
+            "PIStatusStartDateIndex", new String[] { "PIStatus", "PIStartDate" },
+            "BusinessKeyIndex", new String[] { "BusinessKey", KEY },
+            "TagIndex", new String[] { "TagValue", "TaggedInstanceId" });
+
+    private final Map<String, Map<String, AttributeValue>> items = new TreeMap<>();
+
+    private final AtomicInteger conflicts = new AtomicInteger();
+
+    private final AtomicInteger transactions = new AtomicInteger();
+
+    /*
+     * given number of next transactions is cancelled as conflicting with other writer
+     */
+    void conflicts(int count) {
+        conflicts.set(count);
+    }
+
+    int transactions() {
+        return transactions.get();
+    }
+
+    synchronized Map<String, Map<String, AttributeValue>> items() {
+        return new TreeMap<>(items);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        return DescribeTableResponse.builder().table(TableDescription.builder()
+                .tableName(request.tableName())
+                .globalSecondaryIndexes(INDEXES.keySet().stream()
+                        .map(name -> GlobalSecondaryIndexDescription.builder().indexName(name).build())
+                        .collect(Collectors.toList()))
+                .build()).build();
+    }
+
+    @Override
+    public synchronized GetItemResponse getItem(GetItemRequest request) {
+        Map<String, AttributeValue> item = items.get(request.key().get(KEY).s());
+        return item == null ? GetItemResponse.builder().build() : GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public synchronized PutItemResponse putItem(PutItemRequest request) {
+        String id = request.item().get(KEY).s();
+        if (request.conditionExpression() != null && items.containsKey(id)) {
+            throw ConditionalCheckFailedException.builder().message("Item " + id + " exists").build();
+        }
+        items.put(id, request.item());
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public synchronized UpdateItemResponse updateItem(UpdateItemRequest request) {
+        add(request.key(), request.updateExpression(), request.expressionAttributeValues());
+        return UpdateItemResponse.builder().build();
+    }
+
+    @Override
+    public synchronized DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        Map<String, AttributeValue> old = items.remove(request.key().get(KEY).s());
+        return old == null ? DeleteItemResponse.builder().build() : DeleteItemResponse.builder().attributes(old).build();
+    }
+
+    @Override
+    public synchronized BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        for (List<WriteRequest> writes : request.requestItems().values()) {
+            if (writes.size() > 25) {
+                throw new IllegalArgumentException("Too many items in batch write " + writes.size());
+            }
+            for (WriteRequest write : writes) {
+                if (write.putRequest() != null) {
+                    items.put(write.putRequest().item().get(KEY).s(), write.putRequest().item());
+                } else {
+                    items.remove(write.deleteRequest().key().get(KEY).s());
+                }
+            }
+        }
+        return BatchWriteItemResponse.builder().build();
+    }
+
+    @Override
+    public synchronized BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        request.requestItems().forEach((table, keys) -> responses.put(table, keys.keys().stream()
+                .map(key -> items.get(key.get(KEY).s()))
+                .filter(item -> item != null)
+                .collect(Collectors.toList())));
+        return BatchGetItemResponse.builder().responses(responses).build();
+    }
+
+    @Override
+    public synchronized TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        transactions.incrementAndGet();
+        List<TransactWriteItem> writes = request.transactItems();
+        if (writes.size() > 100) {
+            throw new IllegalArgumentException("Too many items in transaction " + writes.size());
+        }
+        boolean conflict = conflicts.getAndUpdate(c -> Math.max(0, c - 1)) > 0;
+        boolean cancelled = conflict;
+        List<CancellationReason> reasons = new ArrayList<>();
+        for (TransactWriteItem write : writes) {
+            String code = "None";
+            if (conflict && write.update() != null) {
+                code = "TransactionConflict";
+            } else if (write.put() != null && write.put().conditionExpression() != null
+                    && items.containsKey(write.put().item().get(KEY).s())) {
+                code = "ConditionalCheckFailed";
+                cancelled = true;
+            }
+            reasons.add(CancellationReason.builder().code(code).build());
+        }
+        if (cancelled) {
+            throw TransactionCanceledException.builder().message("Transaction cancelled").cancellationReasons(reasons)
+                    .build();
+        }
+        for (TransactWriteItem write : writes) {
+            if (write.put() != null) {
+                items.put(write.put().item().get(KEY).s(), write.put().item());
+            } else {
+                add(write.update().key(), write.update().updateExpression(), write.update().expressionAttributeValues());
+            }
+        }
+        return TransactWriteItemsResponse.builder().build();
+    }
+
+    @Override
+    public synchronized QueryResponse query(QueryRequest request) {
+        String[] index = INDEXES.get(request.indexName());
+        AttributeValue value = request.expressionAttributeValues().values().iterator().next();
+
+        Comparator<Map<String, AttributeValue>> order = Comparator
+                .comparing((Map<String, AttributeValue> item) -> string(item.get(index[1])))
+                .thenComparing(item -> item.get(KEY).s());
+        if (Boolean.FALSE.equals(request.scanIndexForward())) {
+            order = order.reversed();
+        }
+        List<Map<String, AttributeValue>> matching = items.values().stream()
+                .filter(item -> value.equals(item.get(index[0])))
+                .sorted(order)
+                .collect(Collectors.toList());
+
+        int start = 0;
+        if (request.hasExclusiveStartKey() && !request.exclusiveStartKey().isEmpty()) {
+            String after = request.exclusiveStartKey().get(KEY).s();
+            while (start < matching.size() && !matching.get(start).get(KEY).s().equals(after)) {
+                start++;
+            }
+            start++;
+        }
+        int end = request.limit() == null ? matching.size() : Math.min(matching.size(), start + request.limit());
+        List<Map<String, AttributeValue>> page = start >= matching.size() ? List.of() : matching.subList(start, end);
+
+        QueryResponse.Builder response = QueryResponse.builder().items(page).count(page.size());
+        // as DynamoDB, last evaluated key is returned whenever the limit was reached
+        if (request.limit() != null && page.size() == request.limit()) {
+            Map<String, AttributeValue> last = page.get(page.size() - 1);
+            Map<String, AttributeValue> key = new HashMap<>();
+            key.put(KEY, last.get(KEY));
+            key.put(index[0], last.get(index[0]));
+            key.put(index[1], last.get(index[1]));
+            response.lastEvaluatedKey(key);
+        }
+        return response.build();
+    }
+
+    private void add(Map<String, AttributeValue> key, String expression, Map<String, AttributeValue> values) {
+        // only ADD <attribute> :value expressions are supported
+        String[] parts = expression.split(" ");
+        if (!"ADD".equals(parts[0])) {
+            throw new UnsupportedOperationException(expression);
+        }
+        String id = key.get(KEY).s();
+        Map<String, AttributeValue> item = new HashMap<>(items.getOrDefault(id, key));
+        BigDecimal current = item.containsKey(parts[1]) ? new BigDecimal(item.get(parts[1]).n()) : BigDecimal.ZERO;
+        item.put(parts[1], AttributeValue.builder().n(current.add(new BigDecimal(values.get(parts[2]).n())).toString())
+                .build());
+        items.put(id, item);
+    }
+
+    private String string(AttributeValue value) {
+        if (value == null) {
+            return "";
+        }
+        return value.s() != null ? value.s() : value.n();
+    }
+}
@@ -12,14 +12,24 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -32,11 +42,16 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.BinaryObjectMarshallingStrategy;
 import io.automatiko.engine.addons.persistence.common.JacksonObjectMarshallingStrategy;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceCacheFactory;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceMarshallerFactory;
+import io.automatiko.engine.addons.persistence.common.delta.DeltaLog;
 import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogImpl;
 import io.automatiko.engine.api.audit.AuditEntry;
 import io.automatiko.engine.api.audit.Auditor;
 import io.automatiko.engine.api.auth.AccessDeniedException;
+import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
 import io.automatiko.engine.api.uow.TransactionLog;
 import io.automatiko.engine.api.uow.TransactionLogStore;
 import io.automatiko.engine.api.workflow.ConflictingVersionException;
@@ -44,11 +59,17 @@ import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
+import io.automatiko.engine.workflow.AbstractProcess;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.audit.BaseAuditEntry;
+import io.automatiko.engine.workflow.cache.ProcessInstanceCache;
+import io.automatiko.engine.workflow.lock.StoreLockWaiter;
 import io.automatiko.engine.workflow.marshalling.ProcessInstanceMarshaller;
 
 @SuppressWarnings({ "rawtypes" })
@@ -90,16 +111,26 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
     private Indexer indexer;
 
+    private DeltaLog deltaLog = new DeltaLog();
+
+    private ProcessInstanceCache instanceCache;
+
     private int configuredLockTimeout = DEFAULT_LOCK_TIMEOUT;
 
     private int configuredLockLimit = DEFAULT_LOCK_LIMIT;
 
     private int configuredLockWait = DEFAULT_LOCK_WAIT;
 
+    private StoreLockWaiter lockWaiter;
+
+    private volatile boolean watchingLocks;
+
     public FileSystemProcessInstances(Process<?> process, Path storage, StoredDataCodec codec, TransactionLogStore store,
             Auditor auditor, Optional<Integer> lockTimeout, Optional<Integer> lockLimit, Optional<Integer> lockWait) {
-        this(process, storage, new ProcessInstanceMarshaller(new JacksonObjectMarshallingStrategy(process)), codec, store,
-                auditor);
+        this(process, storage,
+                ProcessInstanceMarshallerFactory.configure(new ProcessInstanceMarshaller(
+                        new BinaryObjectMarshallingStrategy(process), new JacksonObjectMarshallingStrategy(process))),
+                codec, store, auditor);
         this.configuredLockTimeout = lockTimeout.orElse(DEFAULT_LOCK_TIMEOUT);
         this.configuredLockLimit = lockLimit.orElse(DEFAULT_LOCK_LIMIT);
         this.configuredLockWait = lockWait.orElse(DEFAULT_LOCK_WAIT);
@@ -107,7 +138,9 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
     public FileSystemProcessInstances(Process<?> process, Path storage, boolean useCompositeIdForSubprocess,
             StoredDataCodec codec, TransactionLogStore store, Auditor auditor) {
-        this(process, storage, new ProcessInstanceMarshaller(new JacksonObjectMarshallingStrategy(process)),
+        this(process, storage,
+                ProcessInstanceMarshallerFactory.configure(new ProcessInstanceMarshaller(
+                        new BinaryObjectMarshallingStrategy(process), new JacksonObjectMarshallingStrategy(process))),
                 useCompositeIdForSubprocess, codec, store, auditor);
     }
 
@@ -134,6 +167,9 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
         this.transactionLog = new TransactionLogImpl(store, new JacksonObjectMarshallingStrategy(process));
         this.indexer = new Indexer(this.storage);
+        this.instanceCache = ProcessInstanceCacheFactory.configure(process);
+        this.lockWaiter = process instanceof AbstractProcess ? ((AbstractProcess<?>) process).locks().storeLocks()
+                : new StoreLockWaiter();
     }
 
     @Override
@@ -193,15 +229,11 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
         switch (mode) {
             case MUTABLE:
-                data = readBytesFromFile(processInstanceStorage);
-                return Optional
-                        .of(marshaller.unmarshallProcessInstance(data, process, getVersionTracker(processInstanceStorage)));
+                return Optional.of(unmarshallMutableInstance(resolvedId, processInstanceStorage));
             case MUTABLE_WITH_LOCK:
                 acquireLock(resolvedId);
                 try {
-                    data = readBytesFromFile(processInstanceStorage);
-                    return Optional
-                            .of(marshaller.unmarshallProcessInstance(data, process, getVersionTracker(processInstanceStorage)));
+                    return Optional.of(unmarshallMutableInstance(resolvedId, processInstanceStorage));
                 } catch (Throwable e) {
                     releaseLock(resolvedId);
                 }
@@ -302,6 +334,53 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
         return collected;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public ProcessInstancePage values(ProcessInstanceReadMode mode, int status, ProcessInstanceCursor cursor, int size) {
+        Collection collected = new ArrayList<>();
+
+        ProcessInstancePage<IndexedInstance> found = indexer.instances(status, cursor, size);
+
+        for (IndexedInstance instance : found.items()) {
+            try {
+                findById(instance.id(), status, mode).ifPresent(pi -> collected.add(pi));
+            } catch (AccessDeniedException e) {
+
+            }
+        }
+        return new ProcessInstancePage<>(collected, found.next());
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        return summaries(status, indexer.instances(status, page, size));
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        if (sortBy == null) {
+            return summaries(status, page, size);
+        }
+        return summaries(status, indexer.instances(status, page, size, sortBy, sortAsc));
+    }
+
+    protected Collection<ProcessInstanceSummary> summaries(int status, Collection<IndexedInstance> found) {
+        List<ProcessInstanceSummary> collected = new ArrayList<>();
+        for (IndexedInstance instance : found) {
+            Path processInstanceStorage = Paths.get(storage.toString(), instance.id());
+            if (!Files.exists(processInstanceStorage)) {
+                continue;
+            }
+            String tags = getMetadata(processInstanceStorage, PI_TAGS);
+            collected.add(ProcessInstanceSummary.stored(instance.id(), getMetadata(processInstanceStorage, PI_BUSINESS_KEY),
+                    getMetadata(processInstanceStorage, PI_DESCRIPTION), status,
+                    tags == null || tags.isEmpty() ? null : Arrays.asList(tags.split(",")),
+                    toDate(getMetadata(processInstanceStorage, PI_START_DATE)),
+                    toDate(getMetadata(processInstanceStorage, PI_END_DATE))));
+        }
+        return collected;
+    }
+
     @Override
     public boolean exists(String id) {
         return Files.exists(Paths.get(storage.toString(), resolveId(id)));
@@ -376,8 +455,12 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
             Files.deleteIfExists(processInstanceMetadataStorage);
 
+            Files.deleteIfExists(deltaStorage(processInstanceStorage));
+
             indexer.remove(resolvedId, instance);
 
+            instanceCache.evict(resolvedId);
+
             releaseLock(resolvedId);
 
             Supplier<AuditEntry> entry = () -> BaseAuditEntry.persitenceWrite(instance)
@@ -398,7 +481,7 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
     protected void storeProcessInstance(String resolvedId, Path processInstanceStorage, ProcessInstance<?> instance) {
         try {
-            byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+            byte[] data = marshaller.marhsallProcessInstance(instance);
             if (data == null) {
                 return;
             }
@@ -406,6 +489,7 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
             long instanceVersion = ((AbstractProcessInstance<?>) instance).getVersionTracker();
 
             if (storedVersion != instanceVersion) {
+                instanceCache.evict(resolvedId);
                 throw new ConflictingVersionException("Process instance with id '" + instance.id()
                         + "' has older version than the stored one (" + instanceVersion + " != " + storedVersion + ")");
             }
@@ -413,7 +497,7 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
             // first store the version of the instance for conflict tracking
             setMetadata(processInstanceStorage, PI_VERSION, String.valueOf(instanceVersion + 1));
             // then store the instance and other metadata
-            Files.write(processInstanceStorage, data);
+            writeContent(processInstanceStorage, data);
             setMetadata(processInstanceStorage, PI_DESCRIPTION, instance.description());
             setMetadata(processInstanceStorage, PI_BUSINESS_KEY, instance.businessKey());
             setMetadata(processInstanceStorage, PI_STATUS, String.valueOf(instance.status()));
@@ -441,7 +525,12 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
             indexer.index(resolvedId, instance.status(), instance.businessKey(), instance.tags().values(), instance);
 
+            WorkflowProcessInstance wpi = (WorkflowProcessInstance) ((AbstractProcessInstance<?>) instance)
+                    .internalGetProcessInstance();
             disconnect(processInstanceStorage, instance);
+            if (instance.status() == ProcessInstance.STATE_ACTIVE || instance.status() == ProcessInstance.STATE_ERROR) {
+                instanceCache.put(resolvedId, instanceVersion + 1, wpi);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Unable to store process instance with id " + instance.id(), e);
         } finally {
@@ -455,14 +544,66 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
         releaseLock(resolveId(id, pi));
     }
 
+    /*
+     * mutable instances are taken from the instance cache if the cached one has the same version as the stored one
+     */
+    protected ProcessInstance unmarshallMutableInstance(String resolvedId, Path processInstanceStorage) {
+        long versionTracker = getVersionTracker(processInstanceStorage);
+        WorkflowProcessInstance cached = instanceCache.take(resolvedId, versionTracker);
+        if (cached != null) {
+            return marshaller.createProcessInstance(cached, process, versionTracker);
+        }
+        return marshaller.unmarshallProcessInstance(readBytesFromFile(processInstanceStorage), process, versionTracker);
+    }
+
     protected byte[] readBytesFromFile(Path processInstanceStorage) {
         try {
-            return codec.decode(Files.readAllBytes(processInstanceStorage));
+            return readContent(processInstanceStorage).content();
         } catch (IOException e) {
             throw new RuntimeException("Unable to read process instance from " + processInstanceStorage, e);
         }
     }
 
+    /*
+     * content of the process instance is stored as snapshot (the instance file) and deltas appended to ._delta_ file,
+     * deltas are always replayed when present regardless if delta updates are enabled
+     */
+    protected DeltaLog.Replayed readContent(Path processInstanceStorage) throws IOException {
+        byte[] base = codec.decode(Files.readAllBytes(processInstanceStorage));
+        Path deltaStorage = deltaStorage(processInstanceStorage);
+        if (!Files.exists(deltaStorage)) {
+            return DeltaLog.replay(base, Collections.emptyList(), 0);
+        }
+        byte[] log = Files.readAllBytes(deltaStorage);
+        List<byte[]> deltas = DeltaLog.entries(log);
+        deltas.replaceAll(codec::decode);
+
+        return DeltaLog.replay(base, deltas, log.length);
+    }
+
+    protected void writeContent(Path processInstanceStorage, byte[] content) throws IOException {
+        Path deltaStorage = deltaStorage(processInstanceStorage);
+        if (deltaLog.isEnabled() && Files.size(processInstanceStorage) > 0) {
+            byte[] delta = deltaLog.delta(readContent(processInstanceStorage), content);
+            if (delta != null) {
+                Files.write(deltaStorage, DeltaLog.entry(codec.encode(delta)), StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+                return;
+            }
+        }
+        // compaction - store complete snapshot first and only then drop deltas
+        Files.write(processInstanceStorage, codec.encode(content));
+        Files.deleteIfExists(deltaStorage);
+    }
+
+    protected Path deltaStorage(Path processInstanceStorage) {
+        return processInstanceStorage.resolveSibling("._delta_" + processInstanceStorage.getFileName());
+    }
+
+    public void setDeltaLog(DeltaLog deltaLog) {
+        this.deltaLog = deltaLog;
+    }
+
     protected boolean isValidProcessFile(Path file, int status) {
 
         try {
@@ -638,6 +779,13 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
         return imported;
     }
 
+    protected Date toDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return Date.from(Instant.parse(value));
+    }
+
     protected long getVersionTracker(Path file) {
         String version = getMetadata(file, PI_VERSION);
         if (version == null) {
@@ -660,68 +808,95 @@ public class FileSystemProcessInstances implements MutableProcessInstances {
 
         Path processInstanceLock = Paths.get(storage.toString(), "." + id + ".lock");
 
+        lockWaiter.await(id, () -> tryLock(processInstanceLock), configuredLockLimit, configuredLockWait);
+    }
+
+    /*
+     * creates the lock file unless it exists and is not overdue, returns null in case lock is held by someone else
+     */
+    protected Boolean tryLock(Path processInstanceLock) {
         try {
             Files.createFile(processInstanceLock);
-
+            return Boolean.TRUE;
         } catch (FileAlreadyExistsException e) {
             try {
-                try {
-                    Files.createFile(processInstanceLock);
-
-                } catch (FileAlreadyExistsException e2) {
+                synchronized (this) {
                     if (Files.exists(processInstanceLock)) {
-                        synchronized (this) {
-                            if (Files.exists(processInstanceLock)) {
-                                long value = System.currentTimeMillis() - configuredLockTimeout;
-                                // first check if the lock file is not overdue
-
-                                if (Files.getLastModifiedTime(processInstanceLock).toMillis() < value) {
-                                    // if so recreate it
-                                    Files.delete(processInstanceLock);
-                                    Files.createFile(processInstanceLock);
-                                    return;
-                                }
-                            }
-                        }
-                    }
-
-                    // in case lock is not overdue then wait for it to be removed
-                    int limit = 0;
-                    while (true) {
-                        if (limit > configuredLockLimit) {
-                            throw new IllegalStateException(
-                                    "Unable to aquire lock on process instance (" + id + ") within " + limit + " ms");
-                        }
-
-                        try {
-                            Thread.sleep(configuredLockWait);
-                        } catch (InterruptedException ex) {
-                        }
-
-                        limit += configuredLockWait;
-                        try {
+                        long value = System.currentTimeMillis() - configuredLockTimeout;
+                        // check if the lock file is not overdue and if so recreate it
+                        if (Files.getLastModifiedTime(processInstanceLock).toMillis() < value) {
+                            Files.delete(processInstanceLock);
                             Files.createFile(processInstanceLock);
-                            break;
-                        } catch (FileAlreadyExistsException ex) {
-
+                            return Boolean.TRUE;
                         }
                     }
                 }
-
+            } catch (FileAlreadyExistsException | NoSuchFileException e1) {
+                // lock file was created or removed in the meantime so check it again
             } catch (IOException e1) {
-
                 throw new UncheckedIOException(e1);
             }
-        } catch (IOException e1) {
-            throw new UncheckedIOException(e1);
+            watchLockReleases();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
+    /*
+     * lock files are watched once the first lock is contended so lock files removed by other services wake up
+     * waiting threads as well, in case file system cannot be watched waiting threads rely on periodic checks of the lock
+     */
+    protected void watchLockReleases() {
+        if (watchingLocks) {
+            return;
+        }
+        synchronized (this) {
+            if (watchingLocks) {
+                return;
+            }
+            watchingLocks = true;
+        }
+        WatchService watchService;
+        try {
+            watchService = storage.getFileSystem().newWatchService();
+            storage.register(watchService, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.info("Unable to watch {}, waiting for locks relies on periodic checks", storage, e);
+            return;
+        }
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            lockWaiter.releasedAll();
+                            continue;
+                        }
+                        String name = ((Path) event.context()).getFileName().toString();
+                        if (name.startsWith(".") && name.endsWith(".lock")) {
+                            lockWaiter.released(name.substring(1, name.length() - 5));
+                        }
+                    }
+                    if (!key.reset()) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "automatiko-lock-watcher-" + process.id());
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
     protected void releaseLock(String resolvedId) {
         try {
             Path processInstanceLock = Paths.get(storage.toString(), "." + resolvedId + ".lock");
             Files.deleteIfExists(processInstanceLock);
+            // hand the lock over to waiting threads of this service right away
+            lockWaiter.released(resolvedId);
         } catch (IOException e1) {
             throw new UncheckedIOException(e1);
         }
@@ -1,8 +1,14 @@
 package io.automatiko.engine.addons.persistence.filesystem;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
@@ -10,6 +16,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -21,78 +28,123 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstances;
 
 public class Indexer {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Indexer.class);
+
+    private static final String SNAPSHOT_FILE = ".snapshot";
+
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    // automatic snapshots are written in the background so they do not delay the request that triggered them
+    private static final ExecutorService SNAPSHOT_WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread writer = new Thread(r, "automatiko-index-snapshot");
+        writer.setDaemon(true);
+        return writer;
+    });
+
+    // covers file systems that keep last modified time with seconds precision
+    private static final long MODIFIED_TIME_PRECISION = 1000;
+
+    private static final int[] STATUSES = { ProcessInstance.STATE_ACTIVE, ProcessInstance.STATE_ERROR,
+            ProcessInstance.STATE_ABORTED, ProcessInstance.STATE_COMPLETED };
+
     private Path indexFolder;
 
-    private Set<SortableItem> activeInstance = ConcurrentHashMap.newKeySet();
-    private Set<SortableItem> completedInstance = ConcurrentHashMap.newKeySet();
-    private Set<SortableItem> abortedInstance = ConcurrentHashMap.newKeySet();
-    private Set<SortableItem> inErrorInstance = ConcurrentHashMap.newKeySet();
+    private Map<Integer, StatusIndex> sortedInstances = new HashMap<>();
+
+    private ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    private AtomicInteger changesSinceSnapshot = new AtomicInteger();
+
+    // serializes snapshot writers so older snapshot never replaces newer one
+    private ReentrantLock snapshotWriteLock = new ReentrantLock();
+
+    private AtomicBoolean snapshotScheduled = new AtomicBoolean();
+
+    private int snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
 
     public Indexer(Path persistenceFolder) {
 
         this.indexFolder = Paths.get(persistenceFolder.toString(), ".index");
+        for (int status : STATUSES) {
+            sortedInstances.put(status, new StatusIndex());
+        }
         try {
             boolean indexExists = Files.exists(indexFolder);
-            Path activeDir = Files
-                    .createDirectories(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ACTIVE)));
-            Path inErrorDir = Files
-                    .createDirectories(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ERROR)));
-            Path abortedDir = Files
-                    .createDirectories(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ABORTED)));
-            Path completedDir = Files
-                    .createDirectories(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_COMPLETED)));
+            for (int status : STATUSES) {
+                Files.createDirectories(Paths.get(indexFolder.toString(), String.valueOf(status)));
+            }
 
             if (!indexExists) {
                 reindex();
             }
 
-            // load sortable collections
-            Files.list(activeDir).filter(path -> isValidFile(path)).forEach(path -> {
-                SortableItem sortableItem = buildSortableItem(persistenceFolder, path);
-                if (sortableItem != null) {
-                    activeInstance.add(sortableItem);
-                }
-
-            });
-            Files.list(inErrorDir).filter(path -> isValidFile(path)).forEach(path -> {
-                SortableItem sortableItem = buildSortableItem(persistenceFolder, path);
-                if (sortableItem != null) {
-                    inErrorInstance.add(sortableItem);
+            // load sortable collections, reusing snapshot entries that are not older than their index files
+            Snapshot snapshot = readSnapshot();
+            int rebuilt = 0;
+            for (int status : STATUSES) {
+                StatusIndex statusIndex = sortedInstances.get(status);
+                try (Stream<Path> files = Files.list(Paths.get(indexFolder.toString(), String.valueOf(status)))) {
+                    for (Path path : (Iterable<Path>) files.filter(path -> isValidFile(path))::iterator) {
+                        SortableItem sortableItem = snapshot.find(status, path);
+                        if (sortableItem == null) {
+                            sortableItem = buildSortableItem(persistenceFolder, path);
+                            rebuilt++;
+                        }
+                        if (sortableItem != null) {
+                            statusIndex.add(sortableItem);
+                        }
+                    }
                 }
-
-            });
-            Files.list(abortedDir).filter(path -> isValidFile(path)).forEach(path -> {
-                SortableItem sortableItem = buildSortableItem(persistenceFolder, path);
-                if (sortableItem != null) {
-                    abortedInstance.add(sortableItem);
-                }
-
-            });
-            Files.list(completedDir).filter(path -> isValidFile(path)).forEach(path -> {
-                SortableItem sortableItem = buildSortableItem(persistenceFolder, path);
-                if (sortableItem != null) {
-                    completedInstance.add(sortableItem);
-                }
-
-            });
+            }
+            if (rebuilt > 0 || snapshot.size() > 0) {
+                LOGGER.debug("Loaded index of {} with {} entries taken from snapshot and {} rebuilt", persistenceFolder,
+                        snapshot.size(), rebuilt);
+            }
+            if (rebuilt > 0 || !snapshot.exists) {
+                snapshot();
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Sets the number of index modifications after which compact snapshot of the index is written to disk
+     *
+     * @param snapshotInterval number of modifications, zero or less disables automatic snapshots
+     */
+    public void setSnapshotInterval(int snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
     public void index(ProcessInstance<?> instance) {
         index(instance.id(), instance.status(), instance.businessKey(), instance.tags().values(), instance);
     }
@@ -108,54 +160,55 @@ public class Indexer {
         info.addAll(tags);
         byte[] data = info.stream().map(value -> value + System.lineSeparator()).collect(Collectors.joining())
                 .getBytes(StandardCharsets.UTF_8);
+        snapshotLock.readLock().lock();
         try {
+            try {
 
-            Files.deleteIfExists(
-                    Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ACTIVE), id));
-            Files.deleteIfExists(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ERROR), id));
+                Files.deleteIfExists(
+                        Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ACTIVE), id));
+                Files.deleteIfExists(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ERROR), id));
 
-            Files.write(currentStatePath, data);
+                Files.write(currentStatePath, data);
 
-        } catch (IOException e) {
-            e.printStackTrace();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (instance != null) {
+                // update sortable instances collections
+                SortableItem sortableInstance = new SortableItem(id, instance.description(), businessKey,
+                        instance.startDate(), instance.endDate(), new ArrayList<>(tags));
+                // always remove from active and in error
+                sortedInstances.get(ProcessInstance.STATE_ACTIVE).remove(id);
+                sortedInstances.get(ProcessInstance.STATE_ERROR).remove(id);
+
+                StatusIndex statusIndex = sortedInstances.get(status);
+                if (statusIndex != null) {
+                    statusIndex.add(sortableInstance);
+                }
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
         }
         if (instance != null) {
-            // update sortable instances collections
-            SortableItem sortableInstance = new SortableItem(id, instance.description(), businessKey, instance.startDate(),
-                    instance.endDate(), tags);
-            // always remove from in error
-            inErrorInstance.remove(sortableInstance);
-            switch (status) {
-                case ProcessInstance.STATE_ACTIVE:
-                    activeInstance.remove(sortableInstance);
-                    activeInstance.add(sortableInstance);
-                    break;
-                case ProcessInstance.STATE_COMPLETED:
-                    activeInstance.remove(sortableInstance);
-                    completedInstance.add(sortableInstance);
-                    break;
-                case ProcessInstance.STATE_ABORTED:
-                    activeInstance.remove(sortableInstance);
-                    abortedInstance.add(sortableInstance);
-                    break;
-                case ProcessInstance.STATE_ERROR:
-                    activeInstance.remove(sortableInstance);
-                    inErrorInstance.add(sortableInstance);
-                    break;
-                default:
-                    break;
-            }
+            changed();
         }
     }
 
     public void remove(String id, ProcessInstance<?> instance) {
+        snapshotLock.readLock().lock();
         try {
             Files.deleteIfExists(
                     Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ACTIVE), id));
             Files.deleteIfExists(Paths.get(indexFolder.toString(), String.valueOf(ProcessInstance.STATE_ERROR), id));
+
+            sortedInstances.get(ProcessInstance.STATE_ACTIVE).remove(id);
+            sortedInstances.get(ProcessInstance.STATE_ERROR).remove(id);
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            snapshotLock.readLock().unlock();
         }
+        changed();
     }
 
     public Collection<IndexedInstance> instances(int status, int page, int pageSize) {
@@ -174,28 +227,98 @@ public class Indexer {
 
     public Collection<IndexedInstance> instances(int status, int page, int pageSize, String sortBy, boolean sortAsc) {
 
-        List<SortableItem> instances;
+        StatusIndex statusIndex = sortedInstances.getOrDefault(status, sortedInstances.get(ProcessInstance.STATE_ACTIVE));
 
-        switch (status) {
-            case ProcessInstance.STATE_ABORTED:
-                instances = new ArrayList<>(abortedInstance);
-                break;
-            case ProcessInstance.STATE_COMPLETED:
-                instances = new ArrayList<>(completedInstance);
-                break;
-            case ProcessInstance.STATE_ERROR:
-                instances = new ArrayList<>(inErrorInstance);
-                break;
-            default:
-                instances = new ArrayList<>(activeInstance);
-                break;
-        }
+        return statusIndex.range(sortBy, sortAsc, calculatePage(page, pageSize), pageSize).stream()
+                .map(item -> new IndexedInstance(item.id, item.tags)).collect(Collectors.toList());
+
+    }
+
+    /**
+     * Returns page of indexed instances that follow the position of given cursor. Cursor is resolved to position
+     * within sorted index so no preceding instances need to be skipped.
+     *
+     * @param status status of the instances
+     * @param cursor position to start at
+     * @param pageSize max number of instances to return
+     * @return page of indexed instances with cursor of the next page
+     */
+    public ProcessInstancePage<IndexedInstance> instances(int status, ProcessInstanceCursor cursor, int pageSize) {
+
+        StatusIndex statusIndex = sortedInstances.getOrDefault(status, sortedInstances.get(ProcessInstance.STATE_ACTIVE));
+
+        return statusIndex.after(cursor, pageSize);
+    }
 
-        instances.sort(determineComparator(sortBy, sortAsc));
+    /**
+     * Writes compact snapshot of the sortable index so it can be loaded at startup without reading metadata of every
+     * process instance file
+     */
+    public void snapshot() {
+        long timestamp;
+        List<SortableItem> items = new ArrayList<>();
+        List<Integer> statuses = new ArrayList<>();
 
-        return instances.stream().skip(calculatePage(page, pageSize)).limit(pageSize)
-                .map(file -> new IndexedInstance(file.id, file.tags)).collect(Collectors.toList());
+        snapshotWriteLock.lock();
+        try {
+            snapshotLock.writeLock().lock();
+            try {
+                timestamp = System.currentTimeMillis();
+                changesSinceSnapshot.set(0);
+                for (int status : STATUSES) {
+                    for (SortableItem item : sortedInstances.get(status).items()) {
+                        items.add(item);
+                        statuses.add(status);
+                    }
+                }
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
 
+            Path snapshotFile = Paths.get(indexFolder.toString(), SNAPSHOT_FILE);
+            Path tmpSnapshotFile = null;
+            try {
+                // unique temporary file so writers of other indexers sharing the folder do not interfere
+                tmpSnapshotFile = Files.createTempFile(indexFolder, SNAPSHOT_FILE, ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmpSnapshotFile);
+                        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+                    data.writeInt(SNAPSHOT_FORMAT);
+                    data.writeLong(timestamp);
+                    data.writeInt(items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        SortableItem item = items.get(i);
+                        data.writeInt(statuses.get(i));
+                        data.writeUTF(item.id);
+                        writeNullable(data, item.description);
+                        writeNullable(data, item.businessKey);
+                        data.writeLong(item.startDate == null ? -1 : item.startDate.getTime());
+                        data.writeLong(item.endDate == null ? -1 : item.endDate.getTime());
+                        data.writeInt(item.tags.size());
+                        for (String tag : item.tags) {
+                            data.writeUTF(tag);
+                        }
+                    }
+                }
+                Files.move(tmpSnapshotFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write index snapshot to {}", snapshotFile, e);
+                deleteQuietly(tmpSnapshotFile);
+            }
+        } finally {
+            snapshotWriteLock.unlock();
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to delete temporary snapshot file {}", file, e);
+        }
     }
 
     protected Collection<String> lines(Path file) {
@@ -217,6 +340,69 @@ public class Indexer {
         return (page - 1) * size;
     }
 
+    private void changed() {
+        if (snapshotInterval > 0 && changesSinceSnapshot.incrementAndGet() >= snapshotInterval
+                && snapshotScheduled.compareAndSet(false, true)) {
+            // at most one snapshot is scheduled at a time, changes made meanwhile are included in the next one
+            SNAPSHOT_WRITER.execute(() -> {
+                try {
+                    snapshot();
+                } finally {
+                    snapshotScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private Snapshot readSnapshot() {
+        Path snapshotFile = Paths.get(indexFolder.toString(), SNAPSHOT_FILE);
+        Snapshot snapshot = new Snapshot();
+        if (!Files.exists(snapshotFile)) {
+            return snapshot;
+        }
+
+        try (InputStream in = Files.newInputStream(snapshotFile);
+                DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != SNAPSHOT_FORMAT) {
+                return snapshot;
+            }
+            long timestamp = data.readLong();
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                int status = data.readInt();
+                String id = data.readUTF();
+                String description = readNullable(data);
+                String businessKey = readNullable(data);
+                long startDate = data.readLong();
+                long endDate = data.readLong();
+                int tagsCount = data.readInt();
+                List<String> tags = new ArrayList<>(tagsCount);
+                for (int t = 0; t < tagsCount; t++) {
+                    tags.add(data.readUTF());
+                }
+                snapshot.add(status, new SortableItem(id, description, businessKey,
+                        startDate < 0 ? null : new Date(startDate), endDate < 0 ? null : new Date(endDate), tags));
+            }
+            snapshot.timestamp = timestamp;
+            snapshot.exists = true;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read index snapshot from {}, index will be rebuilt", snapshotFile, e);
+            return new Snapshot();
+        }
+        return snapshot;
+    }
+
+    private void writeNullable(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private String readNullable(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
     private void reindex() {
         Path folder = this.indexFolder.getParent();
         try {
@@ -353,14 +539,14 @@ public class Indexer {
         return null;
     }
 
-    private class SortableItem {
+    private static class SortableItem {
 
-        private String id;
-        private String description;
-        private String businessKey;
-        private Date startDate;
-        private Date endDate;
-        private Collection<String> tags;
+        private final String id;
+        private final String description;
+        private final String businessKey;
+        private final Date startDate;
+        private final Date endDate;
+        private final Collection<String> tags;
 
         public SortableItem(String id, String description, String businessKey, Date startDate, Date endDate,
                 Collection<String> tags) {
@@ -380,11 +566,7 @@ public class Indexer {
 
         @Override
         public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + getEnclosingInstance().hashCode();
-            result = prime * result + ((id == null) ? 0 : id.hashCode());
-            return result;
+            return id == null ? 0 : id.hashCode();
         }
 
         @Override
@@ -396,8 +578,6 @@ public class Indexer {
             if (getClass() != obj.getClass())
                 return false;
             SortableItem other = (SortableItem) obj;
-            if (!getEnclosingInstance().equals(other.getEnclosingInstance()))
-                return false;
             if (id == null) {
                 if (other.id != null)
                     return false;
@@ -405,138 +585,172 @@ public class Indexer {
                 return false;
             return true;
         }
+    }
 
-        private Indexer getEnclosingInstance() {
-            return Indexer.this;
+    /*
+     * Keeps instances of single status sorted by every supported sort key. Each sort key is backed by
+     * its own order statistic tree sorted ascending with null values last, descending order is served
+     * from the same tree by reading non null values from the end followed by the null values.
+     */
+    private static class StatusIndex {
+
+        private final Map<String, SortableItem> items = new HashMap<>();
+
+        private final Map<String, SortKeyIndex> sortKeys = new LinkedHashMap<>();
+
+        StatusIndex() {
+            sortKeys.put(ProcessInstances.START_DATE_SORT_KEY, new SortKeyIndex(item -> item.startDate,
+                    cursor -> new SortableItem(cursor.id(), null, null, cursor.dateKey(), null, null)));
+            sortKeys.put(ProcessInstances.ID_SORT_KEY, new SortKeyIndex(item -> item.id,
+                    cursor -> new SortableItem(cursor.id(), null, null, null, null, null)));
+            sortKeys.put(ProcessInstances.DESC_SORT_KEY, new SortKeyIndex(item -> item.description,
+                    cursor -> new SortableItem(cursor.id(), cursor.key(), null, null, null, null)));
+            sortKeys.put(ProcessInstances.END_DATE_SORT_KEY, new SortKeyIndex(item -> item.endDate,
+                    cursor -> new SortableItem(cursor.id(), null, null, null, cursor.dateKey(), null)));
+            sortKeys.put(ProcessInstances.BUSINESS_KEY_SORT_KEY, new SortKeyIndex(item -> item.businessKey,
+                    cursor -> new SortableItem(cursor.id(), null, cursor.key(), null, null, null)));
+        }
+
+        synchronized void add(SortableItem item) {
+            remove(item.id);
+            items.put(item.id, item);
+            for (SortKeyIndex index : sortKeys.values()) {
+                index.add(item);
+            }
         }
-    }
 
-    protected Comparator<SortableItem> determineComparator(String sortBy, boolean sortAsc) {
-        switch (sortBy) {
-            case ProcessInstances.ID_SORT_KEY:
-                return sortAsc ? BY_ID_ASC : BY_ID_DESC;
-            case ProcessInstances.DESC_SORT_KEY:
-                return sortAsc ? BY_DESCRIPTION_ASC : BY_DESCRIPTION_DESC;
-            case ProcessInstances.START_DATE_SORT_KEY:
-                return sortAsc ? BY_START_DATE_ASC : BY_START_DATE_DESC;
-            case ProcessInstances.END_DATE_SORT_KEY:
-                return sortAsc ? BY_START_END_ASC : BY_START_END_DESC;
-            case ProcessInstances.BUSINESS_KEY_SORT_KEY:
-                return sortAsc ? BY_BUSINESS_KEY_ASC : BY_BUSINESS_KEY_DESC;
-            default:
-                return BY_START_DATE_ASC;
+        synchronized void remove(String id) {
+            SortableItem existing = items.remove(id);
+            if (existing != null) {
+                for (SortKeyIndex index : sortKeys.values()) {
+                    index.remove(existing);
+                }
+            }
         }
-    }
 
-    private static Comparator<SortableItem> BY_START_DATE_ASC = (one, two) -> {
-        if (one.startDate != null && two.startDate != null) {
-            return one.startDate.compareTo(two.startDate);
-        } else if (one.startDate != null && two.startDate == null) {
-            return -1;
-        } else if (one.startDate == null && two.startDate != null) {
-            return 1;
-        } else {
-            return -1;
+        synchronized List<SortableItem> items() {
+            return new ArrayList<>(items.values());
         }
-    };
 
-    private static Comparator<SortableItem> BY_START_DATE_DESC = (one, two) -> {
-        if (one.startDate != null && two.startDate != null) {
-            return two.startDate.compareTo(one.startDate);
-        } else if (one.startDate != null && two.startDate == null) {
-            return -1;
-        } else if (one.startDate == null && two.startDate != null) {
-            return 1;
-        } else {
-            return -1;
+        synchronized List<SortableItem> range(String sortBy, boolean sortAsc, int from, int count) {
+            SortKeyIndex index = sortKeys.get(sortBy);
+            if (index == null) {
+                // unknown sort keys were always sorted by start date ascending
+                index = sortKeys.get(ProcessInstances.START_DATE_SORT_KEY);
+                sortAsc = true;
+            }
+            return index.range(sortAsc, from, count);
         }
-    };
 
-    private static Comparator<SortableItem> BY_START_END_ASC = (one, two) -> {
-        if (one.endDate != null && two.endDate != null) {
-            return one.endDate.compareTo(two.endDate);
-        } else if (one.endDate != null && two.endDate == null) {
-            return -1;
-        } else if (one.endDate == null && two.endDate != null) {
-            return 1;
-        } else {
-            return -1;
+        synchronized ProcessInstancePage<IndexedInstance> after(ProcessInstanceCursor cursor, int count) {
+            SortKeyIndex index = sortKeys.get(cursor.sortBy() == null ? ProcessInstances.ID_SORT_KEY : cursor.sortBy());
+            boolean sortAsc = cursor.sortAsc();
+            if (index == null) {
+                index = sortKeys.get(ProcessInstances.START_DATE_SORT_KEY);
+                sortAsc = true;
+            }
+            List<SortableItem> found = index.after(sortAsc, cursor.isFirst() ? null : index.probe.apply(cursor), count);
+
+            ProcessInstanceCursor next = null;
+            if (found.size() == count) {
+                SortableItem last = found.get(found.size() - 1);
+                next = cursor.after(index.key.apply(last), last.id);
+            }
+            return new ProcessInstancePage<>(found.stream().map(item -> new IndexedInstance(item.id, item.tags))
+                    .collect(Collectors.toList()), next);
         }
-    };
+    }
 
-    private static Comparator<SortableItem> BY_START_END_DESC = (one, two) -> {
-        if (one.endDate != null && two.endDate != null) {
-            return two.endDate.compareTo(one.endDate);
-        } else if (one.endDate != null && two.endDate == null) {
-            return -1;
-        } else if (one.endDate == null && two.endDate != null) {
-            return 1;
-        } else {
-            return -1;
+    private static class SortKeyIndex {
+
+        private final Function<SortableItem, Comparable<?>> key;
+
+        // builds item that is positioned at the place given cursor points to
+        private final Function<ProcessInstanceCursor, SortableItem> probe;
+
+        private final SortedIndex<SortableItem> sorted;
+
+        private int nullValues;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        SortKeyIndex(Function<SortableItem, Comparable<?>> key, Function<ProcessInstanceCursor, SortableItem> probe) {
+            this.key = key;
+            this.probe = probe;
+            Comparator<SortableItem> byKey = Comparator.comparing((Function) key,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            this.sorted = new SortedIndex<>(byKey.thenComparing(item -> item.id));
         }
-    };
 
-    private static Comparator<SortableItem> BY_ID_ASC = (one, two) -> {
-        if (one.id != null && two.id != null) {
-            return one.id.compareTo(two.id);
-        } else {
-            return -1;
+        void add(SortableItem item) {
+            sorted.add(item);
+            if (key.apply(item) == null) {
+                nullValues++;
+            }
         }
-    };
 
-    private static Comparator<SortableItem> BY_ID_DESC = (one, two) -> {
-        if (one.id != null && two.id != null) {
-            return two.id.compareTo(one.id);
-        } else {
-            return -1;
+        void remove(SortableItem item) {
+            if (sorted.remove(item) && key.apply(item) == null) {
+                nullValues--;
+            }
         }
-    };
 
-    private static Comparator<SortableItem> BY_DESCRIPTION_ASC = (one, two) -> {
-        if (one.description != null && two.description != null) {
-            return one.description.compareTo(two.description);
-        } else if (one.description != null && two.description == null) {
-            return -1;
-        } else if (one.description == null && two.description != null) {
-            return 1;
-        } else {
-            return -1;
+        List<SortableItem> range(boolean sortAsc, int from, int count) {
+            if (sortAsc) {
+                return sorted.range(from, count, false);
+            }
+            int nonNullValues = sorted.size() - nullValues;
+            List<SortableItem> collected = new ArrayList<>();
+            if (from < nonNullValues) {
+                collected.addAll(sorted.range(from + nullValues, Math.min(count, nonNullValues - from), true));
+            }
+            if (collected.size() < count) {
+                collected.addAll(sorted.range(nonNullValues + Math.max(0, from - nonNullValues),
+                        count - collected.size(), false));
+            }
+            return collected;
         }
-    };
 
-    private static Comparator<SortableItem> BY_DESCRIPTION_DESC = (one, two) -> {
-        if (one.description != null && two.description != null) {
-            return two.description.compareTo(one.description);
-        } else if (one.description != null && two.description == null) {
-            return -1;
-        } else if (one.description == null && two.description != null) {
-            return 1;
-        } else {
-            return -1;
+        List<SortableItem> after(boolean sortAsc, SortableItem last, int count) {
+            if (last == null) {
+                return range(sortAsc, 0, count);
+            }
+            // items without value are always at the end ordered ascending by id
+            if (sortAsc || key.apply(last) == null) {
+                return range(sortAsc, sorted.rank(last, true), count);
+            }
+            return range(false, sorted.size() - nullValues - sorted.rank(last, false), count);
         }
-    };
+    }
 
-    private static Comparator<SortableItem> BY_BUSINESS_KEY_ASC = (one, two) -> {
-        if (one.businessKey != null && two.businessKey != null) {
-            return one.businessKey.compareTo(two.businessKey);
-        } else if (one.businessKey != null && two.businessKey == null) {
-            return -1;
-        } else if (one.businessKey == null && two.businessKey != null) {
-            return 1;
-        } else {
-            return -1;
+    private static class Snapshot {
+
+        private boolean exists;
+
+        private long timestamp;
+
+        private Map<String, SortableItem> items = new HashMap<>();
+
+        private Map<String, Integer> statuses = new HashMap<>();
+
+        void add(int status, SortableItem item) {
+            items.put(item.id, item);
+            statuses.put(item.id, status);
         }
-    };
 
-    private static Comparator<SortableItem> BY_BUSINESS_KEY_DESC = (one, two) -> {
-        if (one.businessKey != null && two.businessKey != null) {
-            return two.businessKey.compareTo(one.businessKey);
-        } else if (one.businessKey != null && two.businessKey == null) {
-            return -1;
-        } else if (one.businessKey == null && two.businessKey != null) {
-            return 1;
-        } else {
-            return -1;
+        int size() {
+            return items.size();
+        }
+
+        SortableItem find(int status, Path indexFile) throws IOException {
+            String id = indexFile.getFileName().toString();
+            Integer snapshotStatus = statuses.get(id);
+            if (snapshotStatus == null || snapshotStatus != status) {
+                return null;
+            }
+            if (Files.getLastModifiedTime(indexFile).toMillis() >= timestamp - MODIFIED_TIME_PRECISION) {
+                return null;
+            }
+            return items.get(id);
         }
-    };
+    }
 }
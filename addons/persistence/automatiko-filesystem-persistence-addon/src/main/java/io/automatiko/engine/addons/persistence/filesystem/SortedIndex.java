@@ -0,0 +1,193 @@
+package io.automatiko.engine.addons.persistence.filesystem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order statistic tree (randomized treap with subtree sizes) that keeps items sorted by given comparator
+ * and allows to fetch a range of items by their position in O(log n + range size).
+ * <br/>
+ * Comparator must be total, meaning only the same item can be considered as equal. This class is not thread safe.
+ *
+ * @param <T> type of the indexed items
+ */
+class SortedIndex<T> {
+
+    private final Comparator<T> comparator;
+
+    private Node<T> root;
+
+    SortedIndex(Comparator<T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public void add(T item) {
+        Node<T>[] parts = split(root, item);
+        root = merge(merge(parts[0], new Node<>(item)), parts[1]);
+    }
+
+    public boolean remove(T item) {
+        int before = size(root);
+        root = remove(root, item);
+        return before != size(root);
+    }
+
+    /**
+     * Returns items found at given positions of the index
+     *
+     * @param from position of the first item to return
+     * @param count max number of items to return
+     * @param descending determines if positions are counted from the end of the index
+     * @return list of found items, never null
+     */
+    public List<T> range(int from, int count, boolean descending) {
+        List<T> collected = new ArrayList<>(Math.max(0, Math.min(count, size(root) - from)));
+        if (from < 0 || count <= 0 || from >= size(root)) {
+            return collected;
+        }
+        if (descending) {
+            collectDescending(root, from, count, collected);
+        } else {
+            collectAscending(root, from, count, collected);
+        }
+        return collected;
+    }
+
+    /**
+     * Returns position of given item within the index, the item itself does not need to be indexed
+     *
+     * @param item item to find position of
+     * @param inclusive determines if item equal to the given one is counted as well
+     * @return number of items ordered before given item
+     */
+    public int rank(T item, boolean inclusive) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int result = comparator.compare(item, node.item);
+            if (result < 0 || (result == 0 && !inclusive)) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    private void collectAscending(Node<T> node, int skip, int count, List<T> collected) {
+        if (node == null || collected.size() >= count) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (skip < leftSize) {
+            collectAscending(node.left, skip, count, collected);
+        }
+        if (collected.size() < count && skip <= leftSize) {
+            collected.add(node.item);
+        }
+        if (collected.size() < count) {
+            collectAscending(node.right, Math.max(0, skip - leftSize - 1), count, collected);
+        }
+    }
+
+    private void collectDescending(Node<T> node, int skip, int count, List<T> collected) {
+        if (node == null || collected.size() >= count) {
+            return;
+        }
+        int rightSize = size(node.right);
+        if (skip < rightSize) {
+            collectDescending(node.right, skip, count, collected);
+        }
+        if (collected.size() < count && skip <= rightSize) {
+            collected.add(node.item);
+        }
+        if (collected.size() < count) {
+            collectDescending(node.left, Math.max(0, skip - rightSize - 1), count, collected);
+        }
+    }
+
+    private Node<T> remove(Node<T> node, T item) {
+        if (node == null) {
+            return null;
+        }
+        int result = comparator.compare(item, node.item);
+        if (result == 0) {
+            return merge(node.left, node.right);
+        } else if (result < 0) {
+            node.left = remove(node.left, item);
+        } else {
+            node.right = remove(node.right, item);
+        }
+        node.update();
+        return node;
+    }
+
+    /*
+     * splits given tree into nodes smaller than the item and nodes greater or equal to the item
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T>[] split(Node<T> node, T item) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        if (comparator.compare(node.item, item) < 0) {
+            Node<T>[] parts = split(node.right, item);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        } else {
+            Node<T>[] parts = split(node.left, item);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<T> {
+
+        private final T item;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(T item) {
+            this.item = item;
+        }
+
+        void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -13,8 +13,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -30,6 +30,7 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.JobSchedulerFactory;
 import io.automatiko.engine.api.Application;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.audit.AuditEntry;
@@ -67,7 +68,7 @@ public class FileSystemBasedJobService implements JobsService {
     protected final Auditor auditor;
 
     protected ConcurrentHashMap<String, ScheduledFuture<?>> scheduledJobs = new ConcurrentHashMap<>();
-    protected final ScheduledThreadPoolExecutor scheduler;
+    protected final ScheduledExecutorService scheduler;
 
     protected ObjectMapper mapper = new ObjectMapper();
 
@@ -84,7 +85,7 @@ public class FileSystemBasedJobService implements JobsService {
         this.unitOfWorkManager = application.unitOfWorkManager();
         this.auditor = auditor;
 
-        this.scheduler = new ScheduledThreadPoolExecutor(threads, r -> new Thread(r, "automatiko-jobs-executor"));
+        this.scheduler = JobSchedulerFactory.create("automatiko-jobs-executor", threads);
     }
 
     public void scheduleOnLoad(@Observes @Priority(Interceptor.Priority.LIBRARY_AFTER) StartupEvent event) {
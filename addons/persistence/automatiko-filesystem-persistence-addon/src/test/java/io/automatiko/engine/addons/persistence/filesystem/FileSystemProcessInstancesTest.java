@@ -24,18 +24,22 @@ import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import io.automatiko.engine.addons.persistence.AbstractProcessInstancesFactory;
+import io.automatiko.engine.addons.persistence.common.delta.DeltaLog;
 import io.automatiko.engine.addons.persistence.data.Address;
 import io.automatiko.engine.addons.persistence.data.Person;
 import io.automatiko.engine.api.audit.AuditEntry;
 import io.automatiko.engine.api.audit.Auditor;
 import io.automatiko.engine.api.auth.SecurityPolicy;
 import io.automatiko.engine.api.definition.process.WorkflowProcess;
+import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
 import io.automatiko.engine.api.runtime.process.ProcessContext;
 import io.automatiko.engine.api.uow.UnitOfWork;
 import io.automatiko.engine.api.uow.UnitOfWorkManager;
@@ -43,12 +47,14 @@ import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessConfig;
 import io.automatiko.engine.api.workflow.ProcessInstance;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.ProcessInstances;
 import io.automatiko.engine.api.workflow.WorkItem;
 import io.automatiko.engine.services.identity.StaticIdentityProvider;
 import io.automatiko.engine.services.io.ClassPathResource;
 import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
 import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
+import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.DefaultProcessEventListenerConfig;
 import io.automatiko.engine.workflow.DefaultWorkItemHandlerConfig;
 import io.automatiko.engine.workflow.StaticProcessConfig;
@@ -147,6 +153,35 @@ public class FileSystemProcessInstancesTest {
         assertThat(instances.size()).isZero();
     }
 
+    @Test
+    void testSummaries() {
+        BpmnProcess process = createProcess(null, "BPMN2-UserTask.bpmn2");
+        ProcessInstance<BpmnVariables> processInstance = process
+                .createInstance("order-1", BpmnVariables.create(Collections.singletonMap("test", "test")));
+        processInstance.tags().add("important");
+        processInstance.start();
+
+        ProcessInstances<BpmnVariables> instances = process.instances();
+        Collection<ProcessInstanceSummary> summaries = instances.summaries(STATE_ACTIVE, 1, 10);
+        assertThat(summaries).hasSize(1);
+        ProcessInstanceSummary summary = summaries.iterator().next();
+        assertThat(summary.id()).isEqualTo(processInstance.id());
+        assertThat(summary.parentProcessInstanceId()).isNull();
+        assertThat(summary.businessKey()).isEqualTo("order-1");
+        assertThat(summary.description()).isEqualTo(processInstance.description());
+        assertThat(summary.status()).isEqualTo(STATE_ACTIVE);
+        assertThat(summary.tags()).containsExactly("important");
+        assertThat(summary.startDate()).isNotNull();
+        assertThat(summary.endDate()).isNull();
+
+        assertThat(instances.summaries(STATE_ACTIVE, 1, 10, ProcessInstances.START_DATE_SORT_KEY, false))
+                .extracting(ProcessInstanceSummary::id).containsExactly(processInstance.id());
+        assertThat(instances.summaries(STATE_COMPLETED, 1, 10)).isEmpty();
+
+        processInstance.abort();
+        assertThat(instances.summaries(STATE_ACTIVE, 1, 10)).isEmpty();
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Test
     void testBasicFlow() {
@@ -189,6 +224,52 @@ public class FileSystemProcessInstancesTest {
         assertThat(fileSystemBasedStorage.size()).isZero();
     }
 
+    @Test
+    void testDeltaUpdates() throws IOException {
+        BpmnProcess process = createProcess(null, "BPMN2-UserTask.bpmn2");
+        FileSystemProcessInstances fileSystemBasedStorage = (FileSystemProcessInstances) process.instances();
+        fileSystemBasedStorage.setDeltaLog(new DeltaLog(true, 3));
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("test", "test");
+        variables.put("document", "content ".repeat(1000));
+        ProcessInstance<BpmnVariables> processInstance = process.createInstance(BpmnVariables.create(variables));
+        processInstance.start();
+        assertThat(processInstance.status()).isEqualTo(STATE_ACTIVE);
+
+        Path instanceStorage = Paths.get(PERSISTENCE_FOLDER, process.id(), processInstance.id());
+        Path deltaStorage = Paths.get(PERSISTENCE_FOLDER, process.id(), "._delta_" + processInstance.id());
+        long snapshotSize = Files.size(instanceStorage);
+        assertThat(deltaStorage).doesNotExist();
+
+        for (int i = 1; i <= 3; i++) {
+            ProcessInstance<BpmnVariables> pi = process.instances()
+                    .findById(processInstance.id(), STATE_ACTIVE, ProcessInstanceReadMode.MUTABLE).get();
+            ((WorkflowProcessInstance) ((AbstractProcessInstance<?>) pi).processInstance()).setVariable("test",
+                    "updated-" + i);
+            fileSystemBasedStorage.update(pi.id(), pi);
+
+            if (i < 3) {
+                // only delta is written, snapshot stays untouched
+                assertThat(deltaStorage).exists();
+                assertThat(Files.size(deltaStorage)).isLessThan(snapshotSize / 10);
+                assertThat(Files.size(instanceStorage)).isEqualTo(snapshotSize);
+            } else {
+                // compacted into new snapshot
+                assertThat(deltaStorage).doesNotExist();
+            }
+
+            ProcessInstance<BpmnVariables> read = process.instances()
+                    .findById(processInstance.id(), STATE_ACTIVE, ProcessInstanceReadMode.READ_ONLY).get();
+            assertThat(read.variables().get("test")).isEqualTo("updated-" + i);
+            assertThat(read.variables().get("document")).isEqualTo(variables.get("document"));
+        }
+
+        process.instances().findById(processInstance.id(), STATE_ACTIVE, ProcessInstanceReadMode.MUTABLE).get().abort();
+        assertThat(deltaStorage).doesNotExist();
+        assertThat(fileSystemBasedStorage.size()).isZero();
+    }
+
     @Test
     void testBasicFlowWithStartFrom() {
         BpmnProcess process = createProcess(null, "BPMN2-UserTask.bpmn2");
@@ -0,0 +1,169 @@
+package io.automatiko.engine.addons.persistence.filesystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
+import io.automatiko.engine.api.workflow.ProcessInstances;
+
+public class IndexerTest {
+
+    private static final String INDEX_FOLDER = "target" + File.separator + "indexer-test";
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Path path = Paths.get(INDEX_FOLDER);
+
+        if (Files.exists(path)) {
+            Files.walk(path).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        Files.createDirectories(path);
+    }
+
+    @Test
+    void testSortedPaging() {
+        Indexer indexer = new Indexer(Paths.get(INDEX_FOLDER));
+
+        for (int i = 0; i < 25; i++) {
+            index(indexer, "id" + (100 + i), ProcessInstance.STATE_ACTIVE, i % 5 == 0 ? null : "desc" + (100 + i),
+                    new Date(1000L * (25 - i)));
+        }
+
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 1, 10, ProcessInstances.ID_SORT_KEY, true)))
+                .containsExactly("id100", "id101", "id102", "id103", "id104", "id105", "id106", "id107", "id108", "id109");
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 3, 10, ProcessInstances.ID_SORT_KEY, false)))
+                .containsExactly("id104", "id103", "id102", "id101", "id100");
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 1, 3, ProcessInstances.START_DATE_SORT_KEY, true)))
+                .containsExactly("id124", "id123", "id122");
+        // instances without description are always listed last
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 4, 6, ProcessInstances.DESC_SORT_KEY, false)))
+                .containsExactly("id102", "id101", "id100", "id105", "id110", "id115");
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 5, 6, ProcessInstances.DESC_SORT_KEY, true)))
+                .containsExactly("id120");
+    }
+
+    @Test
+    void testCursorPaging() {
+        Indexer indexer = new Indexer(Paths.get(INDEX_FOLDER));
+
+        for (int i = 0; i < 25; i++) {
+            index(indexer, "id" + (100 + i), ProcessInstance.STATE_ACTIVE, i % 5 == 0 ? null : "desc" + (100 + i),
+                    new Date(1000L * (25 - i / 2)));
+        }
+
+        for (String sortBy : new String[] { null, ProcessInstances.ID_SORT_KEY, ProcessInstances.START_DATE_SORT_KEY,
+                ProcessInstances.DESC_SORT_KEY }) {
+            for (boolean sortAsc : new boolean[] { true, false }) {
+                List<String> paged = new ArrayList<>();
+                ProcessInstanceCursor cursor = ProcessInstanceCursor.first(sortBy, sortAsc);
+                while (cursor != null) {
+                    ProcessInstancePage<IndexedInstance> page = indexer.instances(ProcessInstance.STATE_ACTIVE,
+                            ProcessInstanceCursor.decode(cursor.encode()), 4);
+                    assertThat(page.items()).hasSizeLessThanOrEqualTo(4);
+                    paged.addAll(ids(page.items()));
+                    cursor = page.next();
+                }
+                // cursor pages are the same as offset pages
+                assertThat(paged).containsExactlyElementsOf(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, 1, 25,
+                        sortBy == null ? ProcessInstances.ID_SORT_KEY : sortBy, sortAsc)));
+            }
+        }
+
+        // removing already read instance does not shift the following page
+        ProcessInstancePage<IndexedInstance> first = indexer.instances(ProcessInstance.STATE_ACTIVE,
+                ProcessInstanceCursor.first(ProcessInstances.START_DATE_SORT_KEY, false), 3);
+        assertThat(ids(first.items())).containsExactly("id101", "id100", "id103");
+        indexer.remove("id100", null);
+        indexer.remove("id103", null);
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_ACTIVE, first.next(), 3).items()))
+                .containsExactly("id102", "id105", "id104");
+    }
+
+    @Test
+    void testStatusChangeAndRemove() {
+        Indexer indexer = new Indexer(Paths.get(INDEX_FOLDER));
+
+        index(indexer, "id1", ProcessInstance.STATE_ACTIVE, "first", new Date(1000));
+        index(indexer, "id2", ProcessInstance.STATE_ACTIVE, "second", new Date(2000));
+        index(indexer, "id1", ProcessInstance.STATE_COMPLETED, "first", new Date(1000));
+        indexer.remove("id2", null);
+
+        assertThat(indexer.instances(ProcessInstance.STATE_ACTIVE, 1, 10, ProcessInstances.ID_SORT_KEY, true)).isEmpty();
+        assertThat(ids(indexer.instances(ProcessInstance.STATE_COMPLETED, 1, 10, ProcessInstances.ID_SORT_KEY, true)))
+                .containsExactly("id1");
+    }
+
+    @Test
+    void testLoadFromSnapshot() throws IOException {
+        Indexer indexer = new Indexer(Paths.get(INDEX_FOLDER));
+        indexer.setSnapshotInterval(0);
+        for (int i = 0; i < 5; i++) {
+            index(indexer, "id" + i, ProcessInstance.STATE_ACTIVE, "desc" + i, new Date(1000L * i));
+            Files.setLastModifiedTime(Paths.get(INDEX_FOLDER, ".index", String.valueOf(ProcessInstance.STATE_ACTIVE), "id" + i),
+                    FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        }
+        indexer.snapshot();
+        assertThat(Paths.get(INDEX_FOLDER, ".index", ".snapshot")).exists();
+
+        // there are no instance files so items can only be restored from the snapshot
+        Indexer reloaded = new Indexer(Paths.get(INDEX_FOLDER));
+        assertThat(ids(reloaded.instances(ProcessInstance.STATE_ACTIVE, 1, 10, ProcessInstances.DESC_SORT_KEY, false)))
+                .containsExactly("id4", "id3", "id2", "id1", "id0");
+    }
+
+    @Test
+    void testAutomaticSnapshotWrittenInBackground() throws Exception {
+        Indexer indexer = new Indexer(Paths.get(INDEX_FOLDER));
+        Path snapshotFile = Paths.get(INDEX_FOLDER, ".index", ".snapshot");
+        Files.delete(snapshotFile);
+
+        indexer.setSnapshotInterval(5);
+        for (int i = 0; i < 20; i++) {
+            index(indexer, "id" + i, ProcessInstance.STATE_ACTIVE, "desc" + i, new Date(1000L * i));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(snapshotFile) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(snapshotFile).exists();
+        // explicit snapshot waits for the one in progress so no temporary files are left behind
+        indexer.snapshot();
+        try (Stream<Path> files = Files.list(Paths.get(INDEX_FOLDER, ".index"))) {
+            assertThat(files.map(file -> file.getFileName().toString())).noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    private void index(Indexer indexer, String id, int status, String description, Date startDate) {
+        ProcessInstance<?> instance = mock(ProcessInstance.class);
+        when(instance.description()).thenReturn(description);
+        when(instance.startDate()).thenReturn(startDate);
+
+        indexer.index(id, status, null, Collections.emptyList(), instance);
+    }
+
+    private Collection<String> ids(Collection<IndexedInstance> instances) {
+        return instances.stream().map(IndexedInstance::id).collect(Collectors.toList());
+    }
+}
@@ -13,22 +13,37 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.changestream.FullDocument;
 
 import org.bson.BsonDocument;
 import org.bson.BsonInt32;
@@ -39,22 +54,29 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.addons.persistence.common.BinaryObjectMarshallingStrategy;
 import io.automatiko.engine.addons.persistence.common.JacksonObjectMarshallingStrategy;
+import io.automatiko.engine.addons.persistence.common.ProcessInstanceMarshallerFactory;
 import io.automatiko.engine.addons.persistence.common.tlog.TransactionLogImpl;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.audit.AuditEntry;
 import io.automatiko.engine.api.audit.Auditor;
+import io.automatiko.engine.api.auth.AccessDeniedException;
 import io.automatiko.engine.api.config.MongodbPersistenceConfig;
 import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
 import io.automatiko.engine.api.uow.TransactionLog;
 import io.automatiko.engine.api.uow.TransactionLogStore;
+import io.automatiko.engine.api.workflow.BatchWriteException;
 import io.automatiko.engine.api.workflow.ConflictingVersionException;
 import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.encrypt.StoredDataCodec;
 import io.automatiko.engine.workflow.AbstractProcess;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
@@ -63,6 +85,7 @@ import io.automatiko.engine.workflow.base.core.context.variable.Variable;
 import io.automatiko.engine.workflow.base.core.context.variable.VariableScope;
 import io.automatiko.engine.workflow.base.instance.context.variable.VariableScopeInstance;
 import io.automatiko.engine.workflow.base.instance.impl.ProcessInstanceImpl;
+import io.automatiko.engine.workflow.lock.StoreLockWaiter;
 import io.automatiko.engine.workflow.marshalling.ProcessInstanceMarshaller;
 import io.automatiko.engine.workflow.process.core.WorkflowProcess;
 
@@ -90,6 +113,9 @@ public class MongodbProcessInstances implements MutableProcessInstances {
 
     private static final int DEFAULT_LOCK_WAIT = 100;
 
+    // error code returned when change streams are not available e.g. on standalone servers
+    private static final int CHANGE_STREAMS_NOT_SUPPORTED = 40573;
+
     private MongoClient mongoClient;
 
     private JacksonObjectMarshallingStrategy marshallingStrategy;
@@ -113,6 +139,10 @@ public class MongodbProcessInstances implements MutableProcessInstances {
 
     private int configuredLockWait = DEFAULT_LOCK_WAIT;
 
+    private StoreLockWaiter lockWaiter;
+
+    private volatile boolean watchingLocks;
+
     public MongodbProcessInstances(Process<? extends Model> process, MongoClient mongoClient,
             StoredDataCodec codec, TransactionLogStore store, Auditor auditor,
             @ConfigProperty(name = MongodbPersistenceConfig.DATABASE_KEY) Optional<String> database,
@@ -120,7 +150,8 @@ public class MongodbProcessInstances implements MutableProcessInstances {
             Optional<Integer> lockLimit, Optional<Integer> lockWait) {
         this.process = process;
         this.marshallingStrategy = new JacksonObjectMarshallingStrategy(process);
-        this.marshaller = new ProcessInstanceMarshaller(marshallingStrategy);
+        this.marshaller = ProcessInstanceMarshallerFactory.configure(
+                new ProcessInstanceMarshaller(new BinaryObjectMarshallingStrategy(process), marshallingStrategy));
         this.mongoClient = mongoClient;
         this.tableName = process.id();
         this.codec = codec;
@@ -129,6 +160,8 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         this.configuredLockTimeout = lockTimeout.orElse(DEFAULT_LOCK_TIMEOUT);
         this.configuredLockLimit = lockLimit.orElse(DEFAULT_LOCK_LIMIT);
         this.configuredLockWait = lockWait.orElse(DEFAULT_LOCK_WAIT);
+        this.lockWaiter = process instanceof AbstractProcess ? ((AbstractProcess<?>) process).locks().storeLocks()
+                : new StoreLockWaiter();
 
         // mark the marshaller that it should not serialize variables
         this.marshaller.addToEnvironment("_ignore_vars_", true);
@@ -249,6 +282,58 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         return found;
     }
 
+    @Override
+    public ProcessInstancePage values(ProcessInstanceReadMode mode, int status, ProcessInstanceCursor cursor, int size) {
+        boolean byId = cursor.sortedBy(ID_SORT_KEY);
+        if (!byId && !cursor.sortedBy(START_DATE_SORT_KEY)) {
+            // other sort keys are not mandatory so they cannot be used in range query
+            return MutableProcessInstances.super.values(mode, status, cursor, size);
+        }
+        Bson filter = eq(STATUS_FIELD, status);
+        if (!cursor.isFirst()) {
+            Bson afterId = cursor.sortAsc() ? Filters.gt(INSTANCE_ID_FIELD, cursor.id())
+                    : Filters.lt(INSTANCE_ID_FIELD, cursor.id());
+            if (byId) {
+                filter = and(filter, afterId);
+            } else {
+                Date key = cursor.dateKey();
+                Bson afterKey = cursor.sortAsc() ? Filters.gt(START_DATE_FIELD, key) : Filters.lt(START_DATE_FIELD, key);
+                filter = and(filter, or(afterKey, and(eq(START_DATE_FIELD, key), afterId)));
+            }
+        }
+        String[] sortFields = byId ? new String[] { INSTANCE_ID_FIELD }
+                : new String[] { START_DATE_FIELD, INSTANCE_ID_FIELD };
+
+        List<Document> items = new ArrayList<>();
+        collection().find(filter)
+                .sort(cursor.sortAsc() ? ascending(sortFields) : descending(sortFields))
+                .projection(Projections
+                        .fields(Projections.include(INSTANCE_ID_FIELD, START_DATE_FIELD, CONTENT_FIELD, VERSION_FIELD,
+                                VARIABLES_FIELD)))
+                .limit(size)
+                .into(items);
+
+        Collection found = new ArrayList<>();
+        for (Document item : items) {
+            try {
+                if (mode.equals(ProcessInstanceReadMode.MUTABLE_WITH_LOCK)) {
+                    found.add(unmarshallInstance(mode, findAndLock(item.getString(INSTANCE_ID_FIELD))));
+                } else {
+                    found.add(audit(unmarshallInstance(mode, item)));
+                }
+            } catch (AccessDeniedException e) {
+                // not accessible instances are skipped but cursor moves past them
+            }
+        }
+        ProcessInstanceCursor next = null;
+        if (items.size() == size) {
+            Document last = items.get(items.size() - 1);
+            next = cursor.after(byId ? last.getString(INSTANCE_ID_FIELD) : last.getDate(START_DATE_FIELD),
+                    last.getString(INSTANCE_ID_FIELD));
+        }
+        return new ProcessInstancePage<>(found, next);
+    }
+
     @Override
     public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String sortBy, boolean sortAsc,
             String... values) {
@@ -305,6 +390,29 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         return found;
     }
 
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        Collection<ProcessInstanceSummary> found = new ArrayList<>();
+        collection().find(eq(STATUS_FIELD, status))
+                .projection(summaryProjection())
+                .skip(calculatePage(page, size))
+                .limit(size)
+                .forEach(item -> found.add(toSummary(item)));
+        return found;
+    }
+
+    @Override
+    public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        Collection<ProcessInstanceSummary> found = new ArrayList<>();
+        collection().find(eq(STATUS_FIELD, status))
+                .sort(sortAsc ? ascending(adjustSortKey(sortBy)) : descending(adjustSortKey(sortBy)))
+                .projection(summaryProjection())
+                .skip(calculatePage(page, size))
+                .limit(size)
+                .forEach(item -> found.add(toSummary(item)));
+        return found;
+    }
+
     @Override
     public Long size() {
         return collection().countDocuments();
@@ -329,41 +437,11 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         try {
             if (isActive(instance)) {
 
-                byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+                Document item = toDocument(resolvedId, instance);
 
-                if (data == null) {
+                if (item == null) {
                     return;
                 }
-                Model entity = (Model) instance.variables();
-
-                String variablesJson = marshallingStrategy.mapper().writeValueAsString(entity);
-
-                Document variables = Document.parse(variablesJson);
-                removeTransientVariables(variables, instance);
-
-                Collection<String> tags = new LinkedHashSet<>(instance.tags().values());
-                tags.add(resolvedId);
-                if (instance.businessKey() != null) {
-                    tags.add(instance.businessKey());
-                }
-
-                Document item = new Document(INSTANCE_ID_FIELD, resolvedId)
-                        .append(CONTENT_FIELD, data)
-                        .append(STATUS_FIELD, instance.status())
-                        .append(TAGS_FIELD, tags)
-                        .append(BUSINESS_KEY_FIELD, instance.businessKey())
-                        .append(INSTANCE_DESC_FIELD, instance.description())
-                        .append(VERSION_FIELD, ((AbstractProcessInstance<?>) instance).getVersionTracker())
-                        .append(VARIABLES_FIELD, variables)
-                        .append(START_DATE_FIELD, instance.startDate());
-
-                if (instance.endDate() != null) {
-
-                    item.append(END_DATE_FIELD, instance.endDate());
-                    if (instance.expiresAtDate() != null) {
-                        item.append(EXPIRED_AT_FIELD, instance.expiresAtDate());
-                    }
-                }
 
                 try {
                     collection().insertOne(item);
@@ -397,45 +475,15 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         try {
             if (isActive(instance)) {
 
-                byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+                Document item = toDocument(resolvedId, instance);
 
-                if (data == null) {
+                if (item == null) {
                     return;
                 }
-                Model entity = (Model) instance.variables();
-
-                String variablesJson = marshallingStrategy.mapper().writeValueAsString(entity);
-
-                Document variables = Document.parse(variablesJson);
-                removeTransientVariables(variables, instance);
-
-                Collection<String> tags = new LinkedHashSet<>(instance.tags().values());
-                tags.add(resolvedId);
-                if (instance.businessKey() != null) {
-                    tags.add(instance.businessKey());
-                }
-
-                Document item = new Document(INSTANCE_ID_FIELD, resolvedId)
-                        .append(CONTENT_FIELD, data)
-                        .append(STATUS_FIELD, instance.status())
-                        .append(TAGS_FIELD, tags)
-                        .append(BUSINESS_KEY_FIELD, instance.businessKey())
-                        .append(INSTANCE_DESC_FIELD, instance.description())
-                        .append(VERSION_FIELD, ((AbstractProcessInstance<?>) instance).getVersionTracker())
-                        .append(VARIABLES_FIELD, variables)
-                        .append(START_DATE_FIELD, instance.startDate());
-
-                if (instance.endDate() != null) {
-
-                    item.append(END_DATE_FIELD, instance.endDate());
-                    if (instance.expiresAtDate() != null) {
-                        item.append(EXPIRED_AT_FIELD, instance.expiresAtDate());
-                    }
-                }
 
                 try {
-                    Document replaced = collection().findOneAndReplace(and(eq(INSTANCE_ID_FIELD, resolvedId),
-                            eq(VERSION_FIELD, ((AbstractProcessInstance<?>) instance).getVersionTracker())), item);
+                    Document replaced = collection().findOneAndUpdate(and(eq(INSTANCE_ID_FIELD, resolvedId),
+                            eq(VERSION_FIELD, ((AbstractProcessInstance<?>) instance).getVersionTracker())), toUpdate(item));
 
                     if (replaced == null) {
 
@@ -489,6 +537,172 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         auditor.publish(entry);
     }
 
+    @Override
+    public void createAll(Map instances) {
+        Map<String, ProcessInstance> written = new LinkedHashMap<>();
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        Map<String, ProcessInstance> batch = instances;
+        try {
+            for (Map.Entry<String, ProcessInstance> entry : batch.entrySet()) {
+                if (!isActive(entry.getValue())) {
+                    // pending and completed instances are only kept in the cache
+                    create(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                Document item = toDocument(resolveId(entry.getKey(), entry.getValue()), entry.getValue());
+                if (item != null) {
+                    writes.add(new InsertOneModel<>(item));
+                    written.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        // instances that were not written stay connected as they are going to be written again
+        Set<String> failed = new LinkedHashSet<>();
+        try {
+            List<String> ids = new ArrayList<>(written.keySet());
+            MongoBulkWriteException error = null;
+            try {
+                collection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                error = unapplied(e, ids, failed);
+            }
+
+            written.forEach((id, instance) -> {
+                if (!failed.contains(id)) {
+                    auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                            .add("message", "Workflow instance created in the MongoDB based data store"));
+                }
+            });
+            if (error != null) {
+                throw new BatchWriteException(failed, error);
+            }
+        } finally {
+            written.forEach((id, instance) -> {
+                if (!failed.contains(id)) {
+                    afterWrite(id, instance);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void updateAll(Map instances) {
+        Map<String, ProcessInstance> written = new LinkedHashMap<>();
+        Map<String, Document> items = new LinkedHashMap<>();
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        Map<String, ProcessInstance> batch = instances;
+        try {
+            for (Map.Entry<String, ProcessInstance> entry : batch.entrySet()) {
+                if (!isActive(entry.getValue())) {
+                    // pending and completed instances are only kept in the cache
+                    update(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                String resolvedId = resolveId(entry.getKey(), entry.getValue());
+                Document item = toDocument(resolvedId, entry.getValue());
+                if (item != null) {
+                    writes.add(new UpdateOneModel<>(and(eq(INSTANCE_ID_FIELD, resolvedId),
+                            eq(VERSION_FIELD, ((AbstractProcessInstance<?>) entry.getValue()).getVersionTracker())),
+                            toUpdate(item)));
+                    written.put(entry.getKey(), entry.getValue());
+                    items.put(resolvedId, item);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        // instances that were not written stay connected as they are going to be written again
+        Set<String> failed = new LinkedHashSet<>();
+        try {
+            List<String> ids = new ArrayList<>(written.keySet());
+            MongoBulkWriteException error = null;
+            BulkWriteResult result;
+            try {
+                result = collection().bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                error = unapplied(e, ids, failed);
+                result = e.getWriteResult();
+            }
+
+            if (result.getMatchedCount() + failed.size() < writes.size()) {
+                // some of the instances were not replaced, either they are not stored yet or were modified in between
+                Map<String, Long> stored = new HashMap<>();
+                collection().find(in(INSTANCE_ID_FIELD, items.keySet()))
+                        .projection(Projections.fields(Projections.include(INSTANCE_ID_FIELD, VERSION_FIELD)))
+                        .forEach(doc -> stored.put(doc.getString(INSTANCE_ID_FIELD),
+                                ((Number) doc.get(VERSION_FIELD)).longValue()));
+
+                for (Map.Entry<String, ProcessInstance> entry : written.entrySet()) {
+                    ProcessInstance instance = entry.getValue();
+                    if (failed.contains(entry.getKey())) {
+                        continue;
+                    }
+                    String resolvedId = resolveId(instance.id(), instance);
+                    Long version = stored.get(resolvedId);
+                    if (version != null && version == ((AbstractProcessInstance<?>) instance).getVersionTracker()) {
+                        continue;
+                    }
+                    if (version != null && !transactionLog.contains(process.id(), instance.id())) {
+                        throw new ConflictingVersionException("Process instance with id '" + instance.id()
+                                + "' has older version than the stored one");
+                    }
+                    collection().insertOne(items.get(resolvedId));
+                }
+            }
+
+            written.forEach((id, instance) -> {
+                if (!failed.contains(id)) {
+                    auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                            .add("message", "Workflow instance updated in the MongoDB based data store"));
+                }
+            });
+            if (error != null) {
+                throw new BatchWriteException(failed, error);
+            }
+        } finally {
+            written.forEach((id, instance) -> {
+                if (!failed.contains(id)) {
+                    afterWrite(id, instance);
+                }
+            });
+        }
+    }
+
+    /*
+     * collects ids of instances that were not written by unordered bulk write, write errors refer to index of the write
+     * that corresponds to the position of instance id, errors not related to individual writes (e.g. write concern)
+     * cannot tell what was written so they are rethrown as is
+     */
+    protected MongoBulkWriteException unapplied(MongoBulkWriteException e, List<String> ids, Set<String> failed) {
+        if (e.getWriteErrors().isEmpty() || e.getWriteConcernError() != null) {
+            throw e;
+        }
+        e.getWriteErrors().forEach(error -> failed.add(ids.get(error.getIndex())));
+        return e;
+    }
+
+    @Override
+    public void removeAll(Map instances) {
+        Map<String, ProcessInstance> batch = instances;
+        List<String> ids = new ArrayList<>();
+        batch.forEach((id, instance) -> ids.add(resolveId(id, instance)));
+        if (ids.isEmpty()) {
+            return;
+        }
+        collection().deleteMany(in(INSTANCE_ID_FIELD, ids));
+
+        batch.values().forEach(instance -> auditor.publish(() -> BaseAuditEntry.persitenceWrite(instance)
+                .add("message", "Workflow instance removed from the MongoDB based data store")));
+    }
+
     @Override
     public ExportedProcessInstance exportInstance(ProcessInstance instance, boolean abort) {
         ExportedProcessInstance exported = marshaller.exportProcessInstance(audit(instance));
@@ -517,12 +731,81 @@ public class MongodbProcessInstances implements MutableProcessInstances {
         String resolvedId = resolveId(id);
 
         collection().findOneAndUpdate(eq(INSTANCE_ID_FIELD, resolvedId), Updates.unset(LOCK_FIELD));
+        // hand the lock over to threads of this service right away, others are notified via change stream
+        lockWaiter.released(resolvedId);
     }
 
     /*
      * Helper methods
      */
 
+    protected Document toDocument(String resolvedId, ProcessInstance instance) throws IOException {
+        byte[] data = codec.encode(marshaller.marhsallProcessInstance(instance));
+
+        if (data == null) {
+            return null;
+        }
+        Model entity = (Model) instance.variables();
+
+        String variablesJson = marshallingStrategy.mapper().writeValueAsString(entity);
+
+        Document variables = Document.parse(variablesJson);
+        removeTransientVariables(variables, instance);
+
+        Collection<String> tags = new LinkedHashSet<>(instance.tags().values());
+        tags.add(resolvedId);
+        if (instance.businessKey() != null) {
+            tags.add(instance.businessKey());
+        }
+
+        Document item = new Document(INSTANCE_ID_FIELD, resolvedId)
+                .append(CONTENT_FIELD, data)
+                .append(STATUS_FIELD, instance.status())
+                .append(TAGS_FIELD, tags)
+                .append(BUSINESS_KEY_FIELD, instance.businessKey())
+                .append(INSTANCE_DESC_FIELD, instance.description())
+                .append(VERSION_FIELD, ((AbstractProcessInstance<?>) instance).getVersionTracker())
+                .append(VARIABLES_FIELD, variables)
+                .append(START_DATE_FIELD, instance.startDate());
+
+        if (instance.endDate() != null) {
+
+            item.append(END_DATE_FIELD, instance.endDate());
+            if (instance.expiresAtDate() != null) {
+                item.append(EXPIRED_AT_FIELD, instance.expiresAtDate());
+            }
+        }
+        return item;
+    }
+
+    /*
+     * stored instance is updated field by field instead of replaced so the lock stays in place until it is released,
+     * removing the lock on release is what notifies waiting services via change stream
+     */
+    protected Bson toUpdate(Document item) {
+        Document fields = new Document(item);
+        fields.remove(INSTANCE_ID_FIELD);
+        return new Document("$set", fields);
+    }
+
+    protected Bson summaryProjection() {
+        return Projections.fields(Projections.include(INSTANCE_ID_FIELD, STATUS_FIELD, TAGS_FIELD, BUSINESS_KEY_FIELD,
+                INSTANCE_DESC_FIELD, START_DATE_FIELD, END_DATE_FIELD));
+    }
+
+    protected ProcessInstanceSummary toSummary(Document item) {
+        return ProcessInstanceSummary.stored(item.getString(INSTANCE_ID_FIELD), item.getString(BUSINESS_KEY_FIELD),
+                item.getString(INSTANCE_DESC_FIELD), item.getInteger(STATUS_FIELD), item.getList(TAGS_FIELD, String.class),
+                item.getDate(START_DATE_FIELD), item.getDate(END_DATE_FIELD));
+    }
+
+    protected void afterWrite(String id, ProcessInstance instance) {
+        cachedInstances.remove(resolveId(id, instance));
+        cachedInstances.remove(id);
+
+        disconnect(instance);
+    }
+
     protected MongoCollection<Document> collection() {
         MongoDatabase database = mongoClient.getDatabase(this.database.orElse("automatiko"));
         return database.getCollection(tableName);
@@ -641,29 +924,67 @@ public class MongodbProcessInstances implements MutableProcessInstances {
     }
 
     protected Document findAndLock(String id) {
-        long value = System.currentTimeMillis() - configuredLockTimeout;
+        return lockWaiter.await(id, () -> {
+            long value = System.currentTimeMillis() - configuredLockTimeout;
 
-        Bson lockFilter = and(eq(INSTANCE_ID_FIELD, id), or(Filters.exists(LOCK_FIELD, false), Filters.lt(LOCK_FIELD, value)));
+            Bson lockFilter = and(eq(INSTANCE_ID_FIELD, id),
+                    or(Filters.exists(LOCK_FIELD, false), Filters.lt(LOCK_FIELD, value)));
 
-        Document locked = collection().findOneAndUpdate(lockFilter, Updates.set(LOCK_FIELD, System.currentTimeMillis()));
-        int limit = 0;
-        while (locked == null) {
-            if (limit > configuredLockLimit) {
-                throw new IllegalStateException(
-                        "Unable to aquire lock on process instance (" + id + ") within " + limit + " ms");
+            Document locked = collection().findOneAndUpdate(lockFilter, Updates.set(LOCK_FIELD, System.currentTimeMillis()));
+            if (locked == null) {
+                watchLockReleases();
             }
+            return locked;
+        }, configuredLockLimit, configuredLockWait);
+    }
 
-            try {
-                Thread.sleep(configuredLockWait);
-            } catch (InterruptedException e) {
+    /*
+     * change stream is opened on first contended lock so processes that never wait for locks do not keep one open,
+     * in case change streams are not supported waiting threads rely on periodic checks of the lock
+     */
+    protected void watchLockReleases() {
+        if (watchingLocks) {
+            return;
+        }
+        synchronized (this) {
+            if (watchingLocks) {
+                return;
             }
-
-            locked = collection().findOneAndUpdate(lockFilter, Updates.set(LOCK_FIELD, System.currentTimeMillis()));
-
-            limit += configuredLockWait;
+            watchingLocks = true;
         }
-
-        return locked;
+        Thread watcher = new Thread(() -> {
+            try {
+                collection().watch(List.of(
+                        Aggregates.match(or(
+                                and(eq("operationType", "update"), eq("updateDescription.removedFields", LOCK_FIELD)),
+                                eq("operationType", "delete"))),
+                        Aggregates.project(Projections.include("operationType", "fullDocument." + INSTANCE_ID_FIELD))))
+                        .fullDocument(FullDocument.UPDATE_LOOKUP)
+                        .forEach(change -> {
+                            if (change.getFullDocument() != null) {
+                                lockWaiter.released(change.getFullDocument().getString(INSTANCE_ID_FIELD));
+                            } else {
+                                // removed instances (and updated ones that are already gone) cannot be told apart
+                                // as delete events only carry document key so all waiting threads re-check their locks
+                                lockWaiter.releasedAll();
+                            }
+                        });
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_NOT_SUPPORTED) {
+                    LOGGER.info("Change streams are not supported, waiting for locks of process {} relies on periodic checks",
+                            process.id());
+                    return;
+                }
+                LOGGER.warn("Watching lock releases of process {} failed", process.id(), e);
+                watchingLocks = false;
+            } catch (MongoException e) {
+                LOGGER.warn("Watching lock releases of process {} failed", process.id(), e);
+                // next contended lock opens the change stream again
+                watchingLocks = false;
+            }
+        }, "automatiko-lock-watcher-" + tableName);
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
     protected String adjustSortKey(String sortBy) {
@@ -6,11 +6,19 @@ import java.util.Map;
 
 public class RandomForestConfiguration {
 
+	public static final int DEFAULT_MAX_OBSERVATIONS = 10000;
+	public static final int DEFAULT_RETRAIN_OBSERVATIONS = 50;
+	public static final long DEFAULT_RETRAIN_INTERVAL = 60000;
+
 	private String outcomeName;
 	private AttributeType outcomeType;
 	private double confidenceThreshold;
 	private int numTrees;
 	private Map<String, AttributeType> inputFeatures = new HashMap<>();
+	private int maxObservations = DEFAULT_MAX_OBSERVATIONS;
+	private int retrainObservations = DEFAULT_RETRAIN_OBSERVATIONS;
+	private long retrainInterval = DEFAULT_RETRAIN_INTERVAL;
+	private String datasetLocation;
 
 	public int getNumTrees() {
 		return numTrees;
@@ -66,4 +74,60 @@ public class RandomForestConfiguration {
 	public void setInputFeatures(Map<String, AttributeType> inputFeatures) {
 		this.inputFeatures = inputFeatures;
 	}
+
+	/**
+	 * Returns the maximum number of observations the model is trained with, once
+	 * reached the oldest observations are dropped
+	 *
+	 * @return The size of the sliding window of observations
+	 */
+	public int getMaxObservations() {
+		return maxObservations;
+	}
+
+	public void setMaxObservations(int maxObservations) {
+		this.maxObservations = maxObservations;
+	}
+
+	/**
+	 * Returns the number of new observations after which the model is retrained
+	 * in the background
+	 *
+	 * @return The number of observations that trigger retraining
+	 */
+	public int getRetrainObservations() {
+		return retrainObservations;
+	}
+
+	public void setRetrainObservations(int retrainObservations) {
+		this.retrainObservations = retrainObservations;
+	}
+
+	/**
+	 * Returns the interval (in milliseconds) in which the model is retrained in
+	 * the background if there are any new observations
+	 *
+	 * @return The retrain interval in milliseconds
+	 */
+	public long getRetrainInterval() {
+		return retrainInterval;
+	}
+
+	public void setRetrainInterval(long retrainInterval) {
+		this.retrainInterval = retrainInterval;
+	}
+
+	/**
+	 * Returns the location of the file observations are stored in so they survive
+	 * restarts, observations are kept only in memory when not set
+	 *
+	 * @return The path of the dataset file
+	 */
+	public String getDatasetLocation() {
+		return datasetLocation;
+	}
+
+	public void setDatasetLocation(String datasetLocation) {
+		this.datasetLocation = datasetLocation;
+	}
 }
@@ -1,13 +1,33 @@
 package io.automatiko.engine.addons.predictions.smile;
 
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,21 +35,35 @@ import org.slf4j.LoggerFactory;
 import io.automatiko.engine.addons.predictions.api.PredictionOutcome;
 import io.automatiko.engine.addons.predictions.api.PredictionService;
 import io.automatiko.engine.api.runtime.process.WorkItem;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
 import smile.classification.RandomForest;
 import smile.data.Attribute;
-import smile.data.AttributeDataset;
 import smile.data.NominalAttribute;
 import smile.data.NumericAttribute;
 import smile.data.StringAttribute;
 
-public class SmileRandomForest extends AbstractPredictionEngine implements PredictionService {
+/**
+ * Prediction service based on random forest classifier.
+ * <br/>
+ * Model is trained in the background with the most recent observations (bounded by
+ * {@link RandomForestConfiguration#getMaxObservations()}) once given number of new
+ * observations were collected or retrain interval elapsed, predictions always use
+ * the last trained model so they never wait for the training. The only exception
+ * is the very first model that is trained on first prediction. Observations can be
+ * stored in a file so they are not lost on restart.
+ * <br/>
+ * Background training is stopped on {@link #close()} which is invoked automatically when
+ * the service is a managed bean, otherwise it must be closed by its owner.
+ */
+public class SmileRandomForest extends AbstractPredictionEngine implements PredictionService, AutoCloseable {
 
 	public static final String IDENTIFIER = "SMILERandomForest";
 	private static final String UNABLE_PARSE_TEXT = "Unable to parse text";
+	private static final String SEPARATOR = ",";
 	private static final Logger logger = LoggerFactory.getLogger(SmileRandomForest.class);
 
-	private final AttributeDataset dataset;
 	private final Map<String, Attribute> smileAttributes;
+	private final Attribute[] attributes;
 	private final Attribute outcomeAttribute;
 	private final AttributeType outcomeAttributeType;
 	private final int numAttributes;
@@ -40,15 +74,42 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 	private static final int MINIMUM_OBSERVATIONS = 1200;
 	private int observations = 0;
 
+	private final int maxObservations;
+	private final int retrainObservations;
+	private final Path datasetFile;
+
+	// most recent observations the model is trained with, guarded by this
+	private final Deque<Observation> window = new ArrayDeque<>();
+	private int pendingObservations;
+	private long storedObservations;
+
+	private volatile TrainedModel model;
+	private final Object trainingLock = new Object();
+	private final AtomicBoolean trainingScheduled = new AtomicBoolean();
+	private final ScheduledExecutorService trainer;
+
 	public SmileRandomForest(RandomForestConfiguration configuration) {
 		this(configuration.getInputFeatures(), configuration.getOutcomeName(), configuration.getOutcomeType(),
-				configuration.getConfidenceThreshold(), configuration.getNumTrees());
+				configuration.getConfidenceThreshold(), configuration.getNumTrees(), configuration.getMaxObservations(),
+				configuration.getRetrainObservations(), configuration.getRetrainInterval(),
+				configuration.getDatasetLocation());
 	}
 
 	public SmileRandomForest(Map<String, AttributeType> inputFeatures, String outputFeatureName,
 			AttributeType outputFeatureType, double confidenceThreshold, int numberTrees) {
+		this(inputFeatures, outputFeatureName, outputFeatureType, confidenceThreshold, numberTrees,
+				RandomForestConfiguration.DEFAULT_MAX_OBSERVATIONS, RandomForestConfiguration.DEFAULT_RETRAIN_OBSERVATIONS,
+				RandomForestConfiguration.DEFAULT_RETRAIN_INTERVAL, null);
+	}
+
+	public SmileRandomForest(Map<String, AttributeType> inputFeatures, String outputFeatureName,
+			AttributeType outputFeatureType, double confidenceThreshold, int numberTrees, int maxObservations,
+			int retrainObservations, long retrainInterval, String datasetLocation) {
 		super(inputFeatures, outputFeatureName, outputFeatureType, confidenceThreshold);
 		this.numberTrees = numberTrees;
+		this.maxObservations = Math.max(1, maxObservations);
+		this.retrainObservations = Math.max(1, retrainObservations);
+		this.datasetFile = datasetLocation == null || datasetLocation.isEmpty() ? null : Paths.get(datasetLocation);
 		smileAttributes = new HashMap<>();
 		for (Entry<String, AttributeType> inputFeature : inputFeatures.entrySet()) {
 			final String name = inputFeature.getKey();
@@ -57,11 +118,27 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 			attributeNames.add(name);
 		}
 		numAttributes = smileAttributes.size();
+		attributes = attributeNames.stream().map(smileAttributes::get).toArray(Attribute[]::new);
 		outcomeAttribute = createAttribute(outputFeatureName, outputFeatureType);
 		outcomeAttributeType = outputFeatureType;
 
-		dataset = new AttributeDataset("dataset", smileAttributes.values().toArray(new Attribute[numAttributes]),
-				outcomeAttribute);
+		trainer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "automatiko-prediction-training-" + outputFeatureName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (retrainInterval > 0) {
+			trainer.scheduleWithFixedDelay(() -> {
+				if (hasPendingObservations()) {
+					refresh();
+				}
+			}, retrainInterval, retrainInterval, TimeUnit.MILLISECONDS);
+		}
+
+		load();
+		if (outcomeSet.size() >= 2) {
+			scheduleTraining();
+		}
 	}
 
 	protected Attribute createAttribute(String name, AttributeType type) {
@@ -86,24 +163,17 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 		}
 	}
 
-	public void addData(Map<String, Object> data, Object outcome) {
-		final double[] features = new double[numAttributes];
-		int i = 0;
-		for (Entry<String, Attribute> entry : smileAttributes.entrySet()) {
-			try {
-				features[i] = smileAttributes.get(entry.getKey()).valueOf(data.get(entry.getKey()).toString());
-			} catch (ParseException e) {
-				logger.error(UNABLE_PARSE_TEXT, e);
-			}
-			i++;
-		}
-		try {
-			final String outcomeStr = outcome.toString();
-			outcomeSet.add(outcomeStr);
-			dataset.add(features, outcomeAttribute.valueOf(outcomeStr));
-		} catch (ParseException e) {
-			logger.error(UNABLE_PARSE_TEXT, e);
+	public synchronized void addData(Map<String, Object> data, Object outcome) {
+		final String[] values = new String[numAttributes + 1];
+		for (int i = 0; i < numAttributes; i++) {
+			values[i] = String.valueOf(data.get(attributeNames.get(i)));
 		}
+		values[numAttributes] = outcome.toString();
+
+		Observation observation = observation(values);
+		add(observation);
+		store(observation);
+		pendingObservations++;
 	}
 
 	/**
@@ -114,7 +184,7 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 	 *             attribute values as values.
 	 * @return A feature vector as a array of doubles.
 	 */
-	protected double[] buildFeatures(Map<String, Object> data) {
+	protected synchronized double[] buildFeatures(Map<String, Object> data) {
 		final double[] features = new double[numAttributes];
 		for (int i = 0; i < numAttributes; i++) {
 			final String attrName = attributeNames.get(i);
@@ -149,30 +219,44 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 	@Override
 	public PredictionOutcome predict(WorkItem task, Map<String, Object> inputData) {
 		logger.debug("Predicting with input data: {}", inputData);
-		RandomForest model = null;
-		if (observations > MINIMUM_OBSERVATIONS) {
-			this.confidenceThreshold = 0.75;
-		}
+		boolean profiled = Profiling.enabled();
+		long start = profiled ? System.nanoTime() : 0;
+		try {
+			if (observations > MINIMUM_OBSERVATIONS) {
+				this.confidenceThreshold = 0.75;
+			}
 
-		Map<String, Object> outcomes = new HashMap<>();
-		if (outcomeSet.size() >= 2) {
-			model = new RandomForest(dataset, this.numberTrees);
-			final double[] features = buildFeatures(inputData);
-			final double[] posteriori = new double[outcomeSet.size()];
-			double prediction = model.predict(features, posteriori);
+			TrainedModel current = model;
+			if (current == null && hasMultipleOutcomes()) {
+				// first model is trained right away as there is nothing to predict with until then
+				current = refresh();
+			}
 
-			String predictionStr = dataset.responseAttribute().toString(prediction);
-			outcomes.put(outcomeAttribute.getName(), convertValue(predictionStr, outcomeAttributeType));
-			final double confidence = posteriori[(int) prediction];
-			outcomes.put("confidence", confidence);
+			Map<String, Object> outcomes = new HashMap<>();
+			if (current != null) {
+				final double[] features = buildFeatures(inputData);
+				final double[] posteriori = new double[current.labels.length];
+				int prediction = current.forest.predict(features, posteriori);
 
-			logger.debug("task id {}, total {} observations, prediction = {}, confidence = {} (threshold = {})",
-					task.getId(), this.observations, predictionStr, confidence, this.confidenceThreshold);
+				String predictionStr = current.labels[prediction];
+				outcomes.put(outcomeAttribute.getName(), convertValue(predictionStr, outcomeAttributeType));
+				final double confidence = posteriori[prediction];
+				outcomes.put("confidence", confidence);
 
-			return new PredictionOutcome(confidence, this.confidenceThreshold, outcomes);
-		} else {
-			outcomes.put("confidence", 0.0);
-			return new PredictionOutcome(0.0, this.confidenceThreshold, outcomes);
+				logger.debug(
+						"task id {}, trained with {} of total {} observations, prediction = {}, confidence = {} (threshold = {})",
+						task.getId(), current.observations, this.observations, predictionStr, confidence,
+						this.confidenceThreshold);
+
+				return new PredictionOutcome(confidence, this.confidenceThreshold, outcomes);
+			} else {
+				outcomes.put("confidence", 0.0);
+				return new PredictionOutcome(0.0, this.confidenceThreshold, outcomes);
+			}
+		} finally {
+			if (profiled) {
+				Profiling.profiler().predicted(IDENTIFIER, outcomeFeatureName, System.nanoTime() - start);
+			}
 		}
 	}
 
@@ -189,8 +273,224 @@ public class SmileRandomForest extends AbstractPredictionEngine implements Predi
 	public void train(WorkItem task, Map<String, Object> inputData, Map<String, Object> outputData) {
 		logger.debug("Training with input data: {}", inputData);
 		logger.debug("Training with output data: {}", outputData);
-		this.observations += 1;
+		boolean due;
+		synchronized (this) {
+			this.observations += 1;
+
+			addData(inputData, outputData.get(outcomeAttribute.getName()));
+			due = pendingObservations >= retrainObservations && model != null;
+		}
+		if (due) {
+			scheduleTraining();
+		}
+	}
 
-		addData(inputData, outputData.get(outcomeAttribute.getName()));
+	/**
+	 * Stops background training of the model
+	 */
+	@PreDestroy
+	@Override
+	public void close() {
+		trainer.shutdownNow();
+	}
+
+	/**
+	 * Trains new model with current observations and makes it available to
+	 * predictions
+	 *
+	 * @return The model trained or current model in case training was not possible
+	 */
+	protected TrainedModel refresh() {
+		synchronized (trainingLock) {
+			try {
+				final Attribute[] trainingAttributes;
+				final double[][] x;
+				final String[] outcomes;
+				synchronized (this) {
+					// nominal attributes grow with every new value observed so the model is trained
+					// with their copy taken together with the observations
+					trainingAttributes = snapshotAttributes();
+					x = new double[window.size()][];
+					outcomes = new String[window.size()];
+					int i = 0;
+					for (Observation observation : window) {
+						x[i] = observation.features;
+						outcomes[i] = observation.outcome;
+						i++;
+					}
+					pendingObservations = 0;
+				}
+				// labels are assigned to outcomes present in the window as outcomes that are no longer
+				// present must not leave gaps in labels
+				Map<String, Integer> labels = new LinkedHashMap<>();
+				int[] y = new int[outcomes.length];
+				for (int i = 0; i < outcomes.length; i++) {
+					y[i] = labels.computeIfAbsent(outcomes[i], key -> labels.size());
+				}
+				if (labels.size() < 2) {
+					return model;
+				}
+
+				long start = System.nanoTime();
+				RandomForest forest = new RandomForest(trainingAttributes, x, y, numberTrees);
+				long duration = System.nanoTime() - start;
+				if (Profiling.enabled()) {
+					Profiling.profiler().modelTrained(IDENTIFIER, outcomeFeatureName, duration);
+				}
+				logger.debug("Model for {} trained with {} observations in {} ms", outcomeFeatureName, x.length,
+						TimeUnit.NANOSECONDS.toMillis(duration));
+
+				model = new TrainedModel(forest, labels.keySet().toArray(new String[labels.size()]), x.length);
+			} catch (RuntimeException e) {
+				logger.error("Unable to train model for " + outcomeFeatureName, e);
+			}
+			return model;
+		}
+	}
+
+	protected void scheduleTraining() {
+		if (trainer.isShutdown()) {
+			return;
+		}
+		if (trainingScheduled.compareAndSet(false, true)) {
+			trainer.execute(() -> {
+				trainingScheduled.set(false);
+				refresh();
+			});
+		}
+	}
+
+	private synchronized boolean hasPendingObservations() {
+		return pendingObservations > 0;
+	}
+
+	private synchronized boolean hasMultipleOutcomes() {
+		return outcomeSet.size() >= 2;
+	}
+
+	private Observation observation(String[] values) {
+		final double[] features = new double[numAttributes];
+		for (int i = 0; i < numAttributes; i++) {
+			try {
+				features[i] = attributes[i].valueOf(values[i]);
+			} catch (ParseException e) {
+				logger.error(UNABLE_PARSE_TEXT, e);
+			}
+		}
+		return new Observation(features, values);
+	}
+
+	private Attribute[] snapshotAttributes() {
+		final Attribute[] snapshot = new Attribute[numAttributes];
+		for (int i = 0; i < numAttributes; i++) {
+			if (attributes[i] instanceof NominalAttribute) {
+				NominalAttribute nominal = (NominalAttribute) attributes[i];
+				snapshot[i] = new NominalAttribute(nominal.getName(), nominal.getWeight(), nominal.getDescription(),
+						nominal.values());
+			} else {
+				snapshot[i] = attributes[i];
+			}
+		}
+		return snapshot;
+	}
+
+	private void add(Observation observation) {
+		outcomeSet.add(observation.outcome);
+		window.addLast(observation);
+		if (window.size() > maxObservations) {
+			window.removeFirst();
+		}
+	}
+
+	/*
+	 * Dataset file helper methods, observations are appended as lines of url encoded raw values
+	 * and the file is rewritten with only the current window once it grows too large
+	 */
+
+	private void load() {
+		if (datasetFile == null || !Files.exists(datasetFile)) {
+			return;
+		}
+		try (Stream<String> lines = Files.lines(datasetFile, StandardCharsets.UTF_8)) {
+			synchronized (this) {
+				lines.filter(line -> !line.isEmpty()).forEach(line -> {
+					String[] values = line.split(SEPARATOR, -1);
+					if (values.length == numAttributes + 1) {
+						for (int i = 0; i < values.length; i++) {
+							values[i] = URLDecoder.decode(values[i], StandardCharsets.UTF_8);
+						}
+						add(observation(values));
+					}
+					storedObservations++;
+				});
+			}
+			logger.debug("Loaded {} observations for {} from {}", window.size(), outcomeFeatureName, datasetFile);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Unable to load observations from {}", datasetFile, e);
+		}
+	}
+
+	private void store(Observation observation) {
+		if (datasetFile == null) {
+			return;
+		}
+		try {
+			if (datasetFile.getParent() != null) {
+				Files.createDirectories(datasetFile.getParent());
+			}
+			Files.write(datasetFile, (observation.line() + "\n").getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			storedObservations++;
+
+			if (storedObservations > 2L * maxObservations) {
+				Path compacted = datasetFile.resolveSibling(datasetFile.getFileName() + ".tmp");
+				Files.write(compacted, window.stream().map(Observation::line).collect(Collectors.toList()),
+						StandardCharsets.UTF_8);
+				Files.move(compacted, datasetFile, StandardCopyOption.REPLACE_EXISTING);
+				storedObservations = window.size();
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to store observation in {}", datasetFile, e);
+		}
+	}
+
+	private static class Observation {
+
+		private final double[] features;
+		private final String outcome;
+		private final String[] values;
+
+		private Observation(double[] features, String[] values) {
+			this.features = features;
+			this.outcome = values[values.length - 1];
+			this.values = values;
+		}
+
+		private String line() {
+			StringBuilder line = new StringBuilder();
+			for (String value : values) {
+				if (line.length() > 0) {
+					line.append(SEPARATOR);
+				}
+				line.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+			}
+			return line.toString();
+		}
+	}
+
+	/**
+	 * Immutable snapshot of trained model
+	 */
+	protected static class TrainedModel {
+
+		private final RandomForest forest;
+		private final String[] labels;
+		private final int observations;
+
+		private TrainedModel(RandomForest forest, String[] labels, int observations) {
+			this.forest = forest;
+			this.labels = labels;
+			this.observations = observations;
+		}
 	}
 }
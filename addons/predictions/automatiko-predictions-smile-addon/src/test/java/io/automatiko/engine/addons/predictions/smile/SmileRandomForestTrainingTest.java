@@ -0,0 +1,101 @@
+package io.automatiko.engine.addons.predictions.smile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.automatiko.engine.addons.predictions.api.PredictionOutcome;
+import io.automatiko.engine.api.runtime.process.WorkItem;
+import io.automatiko.engine.workflow.base.instance.impl.workitem.WorkItemImpl;
+
+public class SmileRandomForestTrainingTest {
+
+    @TempDir
+    Path storage;
+
+    @Test
+    public void testPredictionUsesModelTrainedInBackground() throws Exception {
+        SmileRandomForest predictionService = new SmileRandomForest(Collections.singletonMap("ActorId", AttributeType.NOMINAL),
+                "output", AttributeType.NOMINAL, 0.7, 10, 100, 5, 0, null);
+        try {
+            train(predictionService, "john", "approved", 10);
+            train(predictionService, "mary", "rejected", 10);
+
+            // first model is trained on first prediction
+            assertThat(predict(predictionService, "mary").getData()).containsEntry("output", "rejected");
+
+            // after enough new observations model is retrained in the background
+            train(predictionService, "mary", "approved", 50);
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!"approved".equals(predict(predictionService, "mary").getData().get("output"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(predict(predictionService, "mary").getData()).containsEntry("output", "approved");
+        } finally {
+            predictionService.close();
+        }
+    }
+
+    @Test
+    public void testObservationsStoredAndBounded() throws Exception {
+        Path dataset = storage.resolve("model").resolve("dataset.csv");
+        SmileRandomForest predictionService = new SmileRandomForest(Collections.singletonMap("ActorId", AttributeType.NOMINAL),
+                "output", AttributeType.NOMINAL, 0.7, 1, 20, 5, 0, dataset.toString());
+        try {
+            train(predictionService, "john, smith", "approved", 30);
+            train(predictionService, "mary", "rejected", 20);
+        } finally {
+            predictionService.close();
+        }
+        // file is compacted to the window once it holds more than twice its size
+        assertThat(Files.readAllLines(dataset)).hasSizeBetween(20, 40);
+
+        SmileRandomForest restored = new SmileRandomForest(Collections.singletonMap("ActorId", AttributeType.NOMINAL),
+                "output", AttributeType.NOMINAL, 0.7, 10, 20, 5, 0, dataset.toString());
+        try {
+            // window holds only the last 20 observations so older outcome is no longer known
+            assertThat(predict(restored, "john, smith").getData()).containsEntry("confidence", 0.0);
+
+            train(restored, "john, smith", "approved", 15);
+            assertThat(predict(restored, "john, smith").getData()).containsEntry("output", "approved");
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    public void testClosedServiceKeepsLastModel() throws Exception {
+        SmileRandomForest predictionService = new SmileRandomForest(Collections.singletonMap("ActorId", AttributeType.NOMINAL),
+                "output", AttributeType.NOMINAL, 0.7, 10, 100, 5, 0, null);
+        train(predictionService, "john", "approved", 10);
+        train(predictionService, "mary", "rejected", 10);
+        assertThat(predict(predictionService, "mary").getData()).containsEntry("output", "rejected");
+
+        predictionService.close();
+        // new observations, including new nominal values, are accepted but no longer trigger training
+        train(predictionService, "anne", "approved", 50);
+        train(predictionService, "mary", "approved", 50);
+        assertThat(predict(predictionService, "mary").getData()).containsEntry("output", "rejected");
+    }
+
+    private void train(SmileRandomForest predictionService, String actor, String outcome, int times) {
+        for (int i = 0; i < times; i++) {
+            predictionService.train(null, Collections.singletonMap("ActorId", actor),
+                    Collections.singletonMap("output", outcome));
+        }
+    }
+
+    private PredictionOutcome predict(SmileRandomForest predictionService, String actor) {
+        WorkItem task = new WorkItemImpl();
+        Map<String, Object> input = Collections.singletonMap("ActorId", actor);
+        return predictionService.predict(task, input);
+    }
+}
@@ -6,10 +6,13 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.inject.Instance;
@@ -41,11 +44,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.automatiko.engine.addons.process.management.export.ProcessInstanceExporter;
+import io.automatiko.engine.addons.process.management.model.BulkOperationDTO;
 import io.automatiko.engine.addons.process.management.model.ErrorInfoDTO;
 import io.automatiko.engine.addons.process.management.model.JsonExportedProcessInstance;
 import io.automatiko.engine.addons.process.management.model.ProcessDTO;
 import io.automatiko.engine.addons.process.management.model.ProcessInstanceDTO;
 import io.automatiko.engine.addons.process.management.model.ProcessInstanceDetailsDTO;
+import io.automatiko.engine.addons.process.management.model.ProcessInstancePageDTO;
 import io.automatiko.engine.api.Application;
 import io.automatiko.engine.api.Model;
 import io.automatiko.engine.api.auth.IdentityProvider;
@@ -54,13 +59,18 @@ import io.automatiko.engine.api.workflow.ArchivedProcessInstance;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessImageNotFoundException;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
 import io.automatiko.engine.api.workflow.ProcessInstanceNotFoundException;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
 import io.automatiko.engine.api.workflow.VariableNotFoundException;
+import io.automatiko.engine.services.uow.BulkOperation;
+import io.automatiko.engine.services.uow.BulkUnitOfWorkExecutor;
 import io.automatiko.engine.services.uow.UnitOfWorkExecutor;
 import io.automatiko.engine.services.utils.IoUtils;
 import io.automatiko.engine.workflow.AbstractProcess;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
+import io.automatiko.engine.workflow.auth.AllowAllAccessPolicy;
 import io.automatiko.engine.workflow.base.core.ContextContainer;
 import io.automatiko.engine.workflow.base.core.context.variable.Variable;
 import io.automatiko.engine.workflow.base.core.context.variable.VariableScope;
@@ -73,11 +83,20 @@ public class ProcessInstanceManagementResource extends BaseProcessInstanceManage
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ProcessInstanceManagementResource.class);
 
+    public static final String BULK_MAX_CONCURRENCY_KEY = "quarkus.automatiko.management.bulk.max-concurrency";
+
+    private static final String BULK_OPERATION_NOT_FOUND = "Bulk operation with id %s not found";
+    private static final long BULK_OPERATION_RETENTION = 24 * 60 * 60 * 1000;
+
     private IdentitySupplier identitySupplier;
     private ProcessInstanceExporter exporter;
 
     private String serviceUrl;
 
+    private int maxConcurrency = BulkUnitOfWorkExecutor.DEFAULT_MAX_CONCURRENCY;
+
+    private final Map<String, BulkOperation> bulkOperations = new ConcurrentHashMap<>();
+
     // CDI
     public ProcessInstanceManagementResource() {
         this((Map<String, Process<?>>) null, null, null, Optional.empty());
@@ -94,11 +113,13 @@ public class ProcessInstanceManagementResource extends BaseProcessInstanceManage
 
     @Inject
     public ProcessInstanceManagementResource(Application application, Instance<Process<?>> availableProcesses,
-            IdentitySupplier identitySupplier) {
+            IdentitySupplier identitySupplier,
+            @ConfigProperty(name = BULK_MAX_CONCURRENCY_KEY) Optional<Integer> maxConcurrency) {
         super(availableProcesses == null ? Collections.emptyMap()
                 : availableProcesses.stream().collect(Collectors.toMap(p -> p.id(), p -> p)), application);
         this.identitySupplier = identitySupplier;
         this.exporter = new ProcessInstanceExporter(processData);
+        this.maxConcurrency = maxConcurrency.orElse(BulkUnitOfWorkExecutor.DEFAULT_MAX_CONCURRENCY);
     }
 
     @Override
@@ -187,6 +208,18 @@ public class ProcessInstanceManagementResource extends BaseProcessInstanceManage
             identitySupplier.buildIdentityProvider(user, groups);
             Process<?> process = processData.get(processId);
             return UnitOfWorkExecutor.executeInUnitOfWork(application.unitOfWorkManager(), () -> {
+                // summaries do not evaluate access policy so they can only be used when all instances are visible
+                if (IdentityProvider.get().isAdmin() || process.accessPolicy() instanceof AllowAllAccessPolicy) {
+                    process.instances().summaries(mapStatus(status), page, size)
+                            .forEach(pi -> collected
+                                    .add(new ProcessInstanceDTO(pi.id(), pi.parentProcessInstanceId(),
+                                            pi.businessKey() == null ? "" : pi.businessKey(),
+                                            pi.description(),
+                                            pi.tags(),
+                                            pi.status() == ProcessInstance.STATE_ERROR, processId, pi.status())));
+
+                    return collected;
+                }
                 process.instances().values(ProcessInstanceReadMode.READ_ONLY, mapStatus(status), page, size)
                         .forEach(pi -> collected
                                 .add(new ProcessInstanceDTO(pi.id(), pi.parentProcessInstanceId(),
@@ -202,6 +235,53 @@ public class ProcessInstanceManagementResource extends BaseProcessInstanceManage
         }
     }
 
+    @APIResponses(value = {
+            @APIResponse(responseCode = "400", description = "In case of invalid cursor", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "200", description = "Page of process instances of the given process with cursor of the next page", content = @Content(mediaType = "application/json")) })
+    @Operation(summary = "Lists process instances of given process page by page using cursor returned with previous page")
+    @GET
+    @Path("/{processId}/instances/page")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getInstancesPage(
+            @Parameter(description = "Unique identifier of the process", required = true) @PathParam("processId") String processId,
+            @Parameter(description = "Status of the process instance", required = false, schema = @Schema(enumeration = {
+                    "active", "completed", "aborted",
+                    "error" })) @QueryParam("status") @DefaultValue("active") final String status,
+            @Parameter(description = "Pagination - cursor returned with previous page, not set for the first page", required = false) @QueryParam(value = "cursor") String cursor,
+            @Parameter(description = "Pagination - number of items to return", required = false) @QueryParam(value = "size") @DefaultValue("10") int size,
+            @Parameter(description = "Sorting - name of the field to sort by (id, description, startDate, endDate, businessKey), ignored when cursor is given", required = false) @QueryParam(value = "sortBy") String sortBy,
+            @Parameter(description = "Sorting - direction of sorting ascending or descending, ignored when cursor is given", required = false) @QueryParam(value = "sortAsc") @DefaultValue("true") boolean sortAsc,
+            @Parameter(description = "User identifier as alternative autroization info", required = false, hidden = true) @QueryParam("user") final String user,
+            @Parameter(description = "Groups as alternative autroization info", required = false, hidden = true) @QueryParam("group") final List<String> groups) {
+        ProcessInstanceCursor position;
+        try {
+            position = cursor == null || cursor.isEmpty() ? ProcessInstanceCursor.first(sortBy, sortAsc)
+                    : ProcessInstanceCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return badRequestResponse(e.getMessage());
+        }
+        try {
+            identitySupplier.buildIdentityProvider(user, groups);
+            Process<?> process = processData.get(processId);
+            return UnitOfWorkExecutor.executeInUnitOfWork(application.unitOfWorkManager(), () -> {
+                ProcessInstancePage<? extends ProcessInstance<?>> page = process.instances()
+                        .values(ProcessInstanceReadMode.READ_ONLY, mapStatus(status), position, size);
+
+                List<ProcessInstanceDTO> collected = new ArrayList<ProcessInstanceDTO>();
+                page.items().forEach(pi -> collected
+                        .add(new ProcessInstanceDTO(pi.id(), pi.parentProcessInstanceId(),
+                                pi.businessKey() == null ? "" : pi.businessKey(),
+                                pi.description(),
+                                pi.tags().values(),
+                                pi.errors().isPresent(), processId, pi.status())));
+
+                return buildOkResponse(new ProcessInstancePageDTO(collected, page.hasNext() ? page.next().encode() : null));
+            });
+        } finally {
+            IdentityProvider.set(null);
+        }
+    }
+
     @APIResponses(value = {
             @APIResponse(responseCode = "404", description = "In case of instance with given id was not found", content = @Content(mediaType = "application/json")),
             @APIResponse(responseCode = "200", description = "Process instance details", content = @Content(mediaType = "application/json")) })
@@ -748,4 +828,120 @@ public class ProcessInstanceManagementResource extends BaseProcessInstanceManage
         }
     }
 
+
+    @APIResponses(value = {
+            @APIResponse(responseCode = "400", description = "In case of invalid checkpoint or chunk settings", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "404", description = "In case of process with given id was not found", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "200", description = "Started bulk operation", content = @Content(mediaType = "application/json")) })
+    @Operation(summary = "Aborts all process instances of given process in the background, returns bulk operation to track the progress")
+    @POST
+    @Path("/{processId}/bulk/abort")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response bulkCancelProcessInstances(
+            @Parameter(description = "Unique identifier of the process", required = true) @PathParam("processId") String processId,
+            @Parameter(description = "Status of the process instances", required = false, schema = @Schema(enumeration = {
+                    "active", "error" })) @QueryParam("status") @DefaultValue("active") final String status,
+            @Parameter(description = "Checkpoint of previous bulk operation to resume from", required = false) @QueryParam("checkpoint") String checkpoint,
+            @Parameter(description = "Number of instances processed in single unit of work", required = false) @QueryParam("chunkSize") @DefaultValue("100") int chunkSize,
+            @Parameter(description = "Number of chunks processed in parallel, limited by configured max concurrency", required = false) @QueryParam("concurrency") @DefaultValue("4") int concurrency,
+            @Parameter(description = "User identifier as alternative autroization info", required = false, hidden = true) @QueryParam("user") final String user,
+            @Parameter(description = "Groups as alternative autroization info", required = false, hidden = true) @QueryParam("group") final List<String> groups) {
+
+        return submitBulkOperation("abort", processId, mapStatus(status), checkpoint, chunkSize, concurrency, user, groups,
+                pi -> {
+                    pi.abort();
+                    return pi.status() != ProcessInstance.STATE_ERROR;
+                });
+    }
+
+    @APIResponses(value = {
+            @APIResponse(responseCode = "400", description = "In case of invalid checkpoint or chunk settings", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "404", description = "In case of process with given id was not found", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "200", description = "Started bulk operation", content = @Content(mediaType = "application/json")) })
+    @Operation(summary = "Retriggers all process instances of given process that are in error in the background, returns bulk operation to track the progress")
+    @POST
+    @Path("/{processId}/bulk/retrigger")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response bulkRetriggerInstancesInError(
+            @Parameter(description = "Unique identifier of the process", required = true) @PathParam("processId") String processId,
+            @Parameter(description = "Checkpoint of previous bulk operation to resume from", required = false) @QueryParam("checkpoint") String checkpoint,
+            @Parameter(description = "Number of instances processed in single unit of work", required = false) @QueryParam("chunkSize") @DefaultValue("100") int chunkSize,
+            @Parameter(description = "Number of chunks processed in parallel, limited by configured max concurrency", required = false) @QueryParam("concurrency") @DefaultValue("4") int concurrency,
+            @Parameter(description = "User identifier as alternative autroization info", required = false, hidden = true) @QueryParam("user") final String user,
+            @Parameter(description = "Groups as alternative autroization info", required = false, hidden = true) @QueryParam("group") final List<String> groups) {
+
+        return submitBulkOperation("retrigger", processId, ProcessInstance.STATE_ERROR, checkpoint, chunkSize, concurrency,
+                user, groups, pi -> {
+                    pi.errors().ifPresent(errors -> errors.retrigger());
+                    return pi.status() != ProcessInstance.STATE_ERROR;
+                });
+    }
+
+    @APIResponses(value = {
+            @APIResponse(responseCode = "404", description = "In case of bulk operation with given id was not found", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "200", description = "Progress of the bulk operation", content = @Content(mediaType = "application/json")) })
+    @Operation(summary = "Returns progress of given bulk operation")
+    @GET
+    @Path("/{processId}/bulk/{operationId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getBulkOperation(
+            @Parameter(description = "Unique identifier of the process", required = true) @PathParam("processId") String processId,
+            @Parameter(description = "Unique identifier of the bulk operation", required = true) @PathParam("operationId") String operationId) {
+        BulkOperation operation = bulkOperations.get(operationId);
+        if (operation == null) {
+            return notFoundResponse(String.format(BULK_OPERATION_NOT_FOUND, operationId));
+        }
+        return buildOkResponse(new BulkOperationDTO(operation));
+    }
+
+    @APIResponses(value = {
+            @APIResponse(responseCode = "404", description = "In case of bulk operation with given id was not found", content = @Content(mediaType = "application/json")),
+            @APIResponse(responseCode = "200", description = "Progress of the cancelled bulk operation", content = @Content(mediaType = "application/json")) })
+    @Operation(summary = "Cancels given bulk operation, its checkpoint can be used to resume it later")
+    @DELETE
+    @Path("/{processId}/bulk/{operationId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response cancelBulkOperation(
+            @Parameter(description = "Unique identifier of the process", required = true) @PathParam("processId") String processId,
+            @Parameter(description = "Unique identifier of the bulk operation", required = true) @PathParam("operationId") String operationId) {
+        BulkOperation operation = bulkOperations.get(operationId);
+        if (operation == null) {
+            return notFoundResponse(String.format(BULK_OPERATION_NOT_FOUND, operationId));
+        }
+        operation.cancel();
+        return buildOkResponse(new BulkOperationDTO(operation));
+    }
+
+    protected Response submitBulkOperation(String name, String processId, int status, String checkpoint, int chunkSize,
+            int concurrency, String user, List<String> groups, Predicate<ProcessInstance<?>> operation) {
+        Process<?> process = processData.get(processId);
+        if (process == null) {
+            return notFoundResponse(String.format("Process with id %s not found", processId));
+        }
+        if (chunkSize < 1 || concurrency < 1) {
+            return badRequestResponse("Chunk size and concurrency must be greater than zero");
+        }
+        if (concurrency > maxConcurrency) {
+            return badRequestResponse("Concurrency must not be greater than " + maxConcurrency);
+        }
+        ProcessInstanceCursor position;
+        try {
+            position = checkpoint == null || checkpoint.isEmpty() ? null : ProcessInstanceCursor.decode(checkpoint);
+        } catch (IllegalArgumentException e) {
+            return badRequestResponse(e.getMessage());
+        }
+        // drop finished operations that are no longer of interest
+        Date expired = new Date(System.currentTimeMillis() - BULK_OPERATION_RETENTION);
+        bulkOperations.values().removeIf(op -> op.endDate() != null && op.endDate().before(expired));
+        try {
+            identitySupplier.buildIdentityProvider(user, groups);
+            BulkOperation bulk = new BulkUnitOfWorkExecutor(application.unitOfWorkManager(), chunkSize, concurrency)
+                    .submit(name + " " + processId, process, status, position, operation);
+            bulkOperations.put(bulk.id(), bulk);
+
+            return buildOkResponse(new BulkOperationDTO(bulk));
+        } finally {
+            IdentityProvider.set(null);
+        }
+    }
 }
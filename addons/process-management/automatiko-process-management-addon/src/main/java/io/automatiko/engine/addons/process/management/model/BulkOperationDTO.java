@@ -0,0 +1,138 @@
+package io.automatiko.engine.addons.process.management.model;
+
+import java.util.Date;
+import java.util.List;
+
+import io.automatiko.engine.services.uow.BulkOperation;
+
+public class BulkOperationDTO {
+
+    private String id;
+
+    private String name;
+
+    private String state;
+
+    private long succeeded;
+
+    private long failed;
+
+    private long skipped;
+
+    private List<String> failedIds;
+
+    private String checkpoint;
+
+    private String errorMessage;
+
+    private Date startDate;
+
+    private Date endDate;
+
+    public BulkOperationDTO() {
+
+    }
+
+    public BulkOperationDTO(BulkOperation operation) {
+        this.id = operation.id();
+        this.name = operation.name();
+        this.state = operation.state().name().toLowerCase();
+        this.succeeded = operation.succeeded();
+        this.failed = operation.failed();
+        this.skipped = operation.skipped();
+        this.failedIds = operation.failedIds();
+        this.checkpoint = operation.checkpoint() == null ? null : operation.checkpoint().encode();
+        this.errorMessage = operation.errorMessage();
+        this.startDate = operation.startDate();
+        this.endDate = operation.endDate();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(long succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public List<String> getFailedIds() {
+        return failedIds;
+    }
+
+    public void setFailedIds(List<String> failedIds) {
+        this.failedIds = failedIds;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+        this.endDate = endDate;
+    }
+
+}
@@ -0,0 +1,36 @@
+package io.automatiko.engine.addons.process.management.model;
+
+import java.util.List;
+
+public class ProcessInstancePageDTO {
+
+    private List<ProcessInstanceDTO> items;
+
+    private String next;
+
+    public ProcessInstancePageDTO() {
+
+    }
+
+    public ProcessInstancePageDTO(List<ProcessInstanceDTO> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<ProcessInstanceDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProcessInstanceDTO> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+}
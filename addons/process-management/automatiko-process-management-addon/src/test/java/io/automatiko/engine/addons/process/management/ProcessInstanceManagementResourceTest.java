@@ -8,6 +8,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,6 +43,7 @@ import io.automatiko.engine.api.workflow.ProcessErrors;
 import io.automatiko.engine.api.workflow.ProcessInstance;
 import io.automatiko.engine.api.workflow.ProcessInstances;
 import io.automatiko.engine.services.identity.StaticIdentityProvider;
+import io.automatiko.engine.services.uow.BulkUnitOfWorkExecutor;
 import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
 import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
 
@@ -188,6 +190,15 @@ public class ProcessInstanceManagementResourceTest {
         verify(resource).doCancelProcessInstanceId(PROCESS_ID, PROCESS_INSTANCE_ID, "active");
     }
 
+    @Test
+    public void testBulkOperationAboveMaxConcurrencyRejected() {
+        resource.bulkRetriggerInstancesInError(PROCESS_ID, null, 100, BulkUnitOfWorkExecutor.DEFAULT_MAX_CONCURRENCY + 1,
+                null, Collections.emptyList());
+
+        verify(responseBuilder, times(1)).status((StatusType) Status.BAD_REQUEST);
+        verify(application, never()).unitOfWorkManager();
+    }
+
     @Test
     public void testBubildOkResponse(@Mock Object body) {
         Response response = resource.buildOkResponse(body);
@@ -1,5 +1,6 @@
 package io.automatiko.engine.addons.services.archive;
 
+import java.nio.file.Path;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -7,12 +8,11 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import io.automatiko.engine.workflow.file.ByteArrayFile;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
 @RegisterForReflection
 @JsonAutoDetect(fieldVisibility = Visibility.ANY)
-public class Archive extends ByteArrayFile {
+public class Archive extends TemporaryFile {
 
     public Archive(String name, byte[] content) {
         super(name, content);
@@ -24,6 +24,17 @@ public class Archive extends ByteArrayFile {
         super(name, content, attributes);
     }
 
+    /**
+     * Creates archive which content is kept in given file and read only when needed, the file is removed once the
+     * archive is no longer used
+     *
+     * @param name name of the archive
+     * @param location file with content of the archive
+     */
+    public Archive(String name, Path location) {
+        super(name, location);
+    }
+
     @Override
     public String type() {
         return "application/zip";
@@ -33,5 +44,4 @@ public class Archive extends ByteArrayFile {
     public String toString() {
         return "Archive [name=" + name + ", content (entries)=" + attributes.get(ENTRIES_ATTR) + "]";
     }
-
 }
@@ -2,10 +2,20 @@ package io.automatiko.engine.addons.services.archive;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -13,18 +23,40 @@ import java.util.zip.ZipOutputStream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.automatiko.engine.api.workflow.ServiceExecutionError;
 import io.automatiko.engine.api.workflow.files.File;
-import io.automatiko.engine.workflow.file.ByteArrayFile;
+import io.automatiko.engine.api.workflow.files.StreamingFile;
 
 @ApplicationScoped
 public class ArchiveService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveService.class);
 
+    private final int parallelism;
+
+    public ArchiveService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates archive service that compresses given number of entries in parallel when building archives in streaming
+     * mode
+     *
+     * @param parallelism number of entries compressed in parallel
+     */
+    public ArchiveService(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
     /**
      * Builds an archive with given files. built archive will be named based on the given
      * name so it should include the extension as well.
@@ -85,7 +117,139 @@ public class ArchiveService {
     }
 
     /**
-     * Extracts given archive into a list of files.
+     * Builds an archive with given files in streaming mode - content of the archive is written to a temporary file
+     * and read only when needed. Content of the files is read while the archive is being built (files kept in
+     * external stores are streamed from the store) and entries are compressed in parallel. Built archive will be named
+     * based on the given name so it should include the extension as well.
+     *
+     * In case of error a <code>ServiceExecutionError</code> will be thrown with error code set to <code>zipFailure</code>
+     * so it can be used within workflow definition to handle it
+     *
+     * @param name name of the archive
+     * @param files files to be included in the archive
+     * @return built archive with given files
+     */
+    @SuppressWarnings("rawtypes")
+    public Archive zipToFile(String name, Collection<File> files) {
+        return zipToFile(name, files.toArray(File[]::new));
+    }
+
+    /**
+     * Builds an archive with given files in streaming mode - content of the archive is written to a temporary file
+     * and read only when needed. Content of the files is read while the archive is being built (files kept in
+     * external stores are streamed from the store) and entries are compressed in parallel. Built archive will be named
+     * based on the given name so it should include the extension as well.
+     *
+     * In case of error a <code>ServiceExecutionError</code> will be thrown with error code set to <code>zipFailure</code>
+     * so it can be used within workflow definition to handle it
+     *
+     * @param name name of the archive
+     * @param files files to be included in the archive
+     * @return built archive with given files
+     */
+    @SuppressWarnings("rawtypes")
+    public Archive zipToFile(String name, File... files) {
+        Path location = null;
+        try {
+            location = Files.createTempFile("automatiko-archive", ".zip");
+            List<String> entries;
+            try (OutputStream output = Files.newOutputStream(location)) {
+                entries = zip(output, files);
+            }
+
+            Archive archive = new Archive(name, location);
+            archive.attributes().put(Archive.ENTRIES_ATTR, entries.stream().collect(Collectors.joining(",")));
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            if (location != null) {
+                try {
+                    Files.deleteIfExists(location);
+                } catch (IOException ex) {
+                    LOGGER.debug("Unable to remove incomplete archive {}", location, ex);
+                }
+            }
+            if (e instanceof ServiceExecutionError) {
+                throw (ServiceExecutionError) e;
+            }
+            throw new ServiceExecutionError("zipFailure", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes an archive with given files to given output stream, the stream is not closed. Content of the files is
+     * read while the archive is being written (files kept in external stores are streamed from the store) and entries
+     * are compressed in parallel.
+     *
+     * In case of error a <code>ServiceExecutionError</code> will be thrown with error code set to <code>zipFailure</code>
+     * so it can be used within workflow definition to handle it
+     *
+     * @param output stream to write the archive to
+     * @param files files to be included in the archive
+     * @return names of the entries written to the archive
+     */
+    @SuppressWarnings("rawtypes")
+    public List<String> zip(OutputStream output, Collection<File> files) {
+        return zip(output, files.toArray(File[]::new));
+    }
+
+    /**
+     * Writes an archive with given files to given output stream, the stream is not closed. Content of the files is
+     * read while the archive is being written (files kept in external stores are streamed from the store) and entries
+     * are compressed in parallel.
+     *
+     * In case of error a <code>ServiceExecutionError</code> will be thrown with error code set to <code>zipFailure</code>
+     * so it can be used within workflow definition to handle it
+     *
+     * @param output stream to write the archive to
+     * @param files files to be included in the archive
+     * @return names of the entries written to the archive
+     */
+    @SuppressWarnings("rawtypes")
+    public List<String> zip(OutputStream output, File... files) {
+        List<String> entries = new ArrayList<>();
+        // entries are compressed into temporary files of the worker threads and then copied to the archive
+        // in the order they were added
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(files.length, 1)));
+        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(new NonClosingOutputStream(output))) {
+            ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor);
+
+            for (File file : files) {
+                // files without content are skipped, files kept in stores are read only when the entry is written
+                if (file == null || (file instanceof StreamingFile ? !((StreamingFile) file).exists() : file.content() == null)) {
+                    continue;
+                }
+
+                if (entries.contains(file.name())) {
+                    LOGGER.warn("Duplicated archive entry with name '{}', will be ignored", file.name());
+                    continue;
+                }
+
+                ZipArchiveEntry zipEntry = new ZipArchiveEntry(file.name());
+                zipEntry.setMethod(ZipEntry.DEFLATED);
+                creator.addArchiveEntry(zipEntry, () -> open(file));
+
+                entries.add(file.name());
+            }
+
+            creator.writeTo(zipOut);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw new ServiceExecutionError("zipFailure", cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceExecutionError("zipFailure", e.getMessage());
+        } catch (IOException e) {
+            throw new ServiceExecutionError("zipFailure", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Extracts given archive into a list of files. Content of every entry is written to a temporary file and read only
+     * when needed, temporary files are removed once the extracted files are no longer used.
      * 
      * In case of error a <code>ServiceExecutionError</code> will be thrown with error code set to <code>unzipFailure</code>
      * so it can be used within workflow definition to handle it
@@ -95,9 +259,9 @@ public class ArchiveService {
      */
     public List<File<byte[]>> unzip(Archive archive) {
         List<File<byte[]>> files = new ArrayList<File<byte[]>>();
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(archive.content())) {
-            try (ZipInputStream zipIn = new ZipInputStream(bais)) {
-                byte[] buffer = new byte[1024];
+        // archive is read as stream so archives kept in files or external stores are not loaded into memory
+        try (InputStream archiveIn = archive.openStream()) {
+            try (ZipInputStream zipIn = new ZipInputStream(archiveIn)) {
 
                 ZipEntry entry = zipIn.getNextEntry();
                 while (entry != null) {
@@ -107,14 +271,10 @@ public class ArchiveService {
                         continue;
                     }
 
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    int len;
-                    while ((len = zipIn.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
-                    baos.close();
-
-                    files.add(new ByteArrayFile(entry.getName(), baos.toByteArray()));
+                    Path location = Files.createTempFile("automatiko-archive-entry", ".tmp");
+                    // registered right away so the temporary file is removed even if extraction fails
+                    files.add(new TemporaryFile(entry.getName(), location));
+                    Files.copy(zipIn, location, StandardCopyOption.REPLACE_EXISTING);
 
                     entry = zipIn.getNextEntry();
                 }
@@ -126,4 +286,36 @@ public class ArchiveService {
         }
         return files;
     }
+
+    @SuppressWarnings("rawtypes")
+    protected InputStream open(File file) {
+        try {
+            if (file instanceof StreamingFile) {
+                return ((StreamingFile) file).openStream();
+            }
+            return new ByteArrayInputStream((byte[]) file.content());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * archive is finished when closed but the target stream is owned by the caller
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
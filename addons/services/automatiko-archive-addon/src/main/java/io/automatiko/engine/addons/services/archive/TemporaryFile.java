@@ -0,0 +1,156 @@
+package io.automatiko.engine.addons.services.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.automatiko.engine.api.workflow.files.RangeInputStream;
+import io.automatiko.engine.workflow.file.ByteArrayFile;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * File which content is either given directly or kept in a temporary file and read only when needed. The temporary
+ * file is removed once the file is no longer used.
+ */
+@RegisterForReflection
+@JsonAutoDetect(fieldVisibility = Visibility.ANY)
+public class TemporaryFile extends ByteArrayFile {
+
+    // removes temporary files that are no longer used
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private transient Path location;
+
+    public TemporaryFile(String name, byte[] content) {
+        super(name, content);
+    }
+
+    @JsonCreator
+    public TemporaryFile(@JsonProperty("name") String name, @JsonProperty("content") byte[] content,
+            @JsonProperty("attributes") Map<String, String> attributes) {
+        super(name, content, attributes);
+    }
+
+    /**
+     * Creates file which content is kept in given temporary file and read only when needed, the temporary file is
+     * removed once this file is no longer used
+     *
+     * @param name name of the file
+     * @param location temporary file with the content
+     */
+    public TemporaryFile(String name, Path location) {
+        super(name, null, new HashMap<>());
+        this.location = location;
+        CLEANER.register(this, new RemoveFile(location));
+    }
+
+    @Override
+    @JsonGetter("content")
+    public byte[] content() {
+        if (content == null && location != null) {
+            try {
+                content = Files.readAllBytes(location);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public boolean hasContent() {
+        return content != null || location != null;
+    }
+
+    @Override
+    public boolean exists() {
+        return content != null || location != null;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        if (content != null || location == null) {
+            return super.openStream();
+        }
+        return Files.newInputStream(location);
+    }
+
+    @Override
+    public InputStream openStream(long offset, long length) throws IOException {
+        if (content != null || location == null) {
+            return super.openStream(offset, length);
+        }
+        FileChannel channel = FileChannel.open(location, StandardOpenOption.READ);
+        channel.position(offset);
+        return new RangeInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public ReadableByteChannel openChannel() throws IOException {
+        if (content != null || location == null) {
+            return super.openChannel();
+        }
+        return FileChannel.open(location, StandardOpenOption.READ);
+    }
+
+    @Override
+    public long size() {
+        if (content != null || location == null) {
+            return super.size();
+        }
+        try {
+            return Files.size(location);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target) throws IOException {
+        if (content != null || location == null) {
+            return super.transferTo(target);
+        }
+        try (FileChannel channel = FileChannel.open(location, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += channel.transferTo(transferred, size - transferred, target);
+            }
+            return transferred;
+        }
+    }
+
+    private static class RemoveFile implements Runnable {
+
+        private final Path location;
+
+        private RemoveFile(Path location) {
+            this.location = location;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(location);
+            } catch (IOException e) {
+                // best effort, file is in temporary directory
+            }
+        }
+    }
+}
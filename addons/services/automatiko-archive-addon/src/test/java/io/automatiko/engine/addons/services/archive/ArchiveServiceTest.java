@@ -1,16 +1,35 @@
 package io.automatiko.engine.addons.services.archive;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.api.workflow.ServiceExecutionError;
 import io.automatiko.engine.api.workflow.files.File;
+import io.automatiko.engine.api.workflow.files.StreamingFile;
 import io.automatiko.engine.workflow.file.ByteArrayFile;
 
 public class ArchiveServiceTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveServiceTest.class);
+
     private ArchiveService service = new ArchiveService();
 
     @Test
@@ -47,4 +66,228 @@ public class ArchiveServiceTest {
         assertThat(archive.attributes()).hasSize(1).containsEntry("entries", "hello.txt,hi.txt");
 
     }
+
+    @Test
+    public void testZipToFileAndUnzipOperation() throws IOException {
+
+        ByteArrayFile file1 = new ByteArrayFile("hello.txt", "this is my content 1".getBytes());
+        ByteArrayFile file2 = new StoredFile("hi.txt", "this is my content 2".getBytes());
+        ByteArrayFile file3 = new ByteArrayFile("hello.txt", "this is my content 3".getBytes());
+
+        Archive archive = service.zipToFile("archive.zip", file1, file2, file3);
+        assertThat(archive).isNotNull();
+        assertThat(archive.name()).isEqualTo("archive.zip");
+        assertThat(archive.type()).isEqualTo("application/zip");
+        assertThat(archive.hasContent()).isTrue();
+        assertThat(archive.size()).isGreaterThan(0);
+        assertThat(archive.attributes()).hasSize(1).containsEntry("entries", "hello.txt,hi.txt");
+
+        List<File<byte[]>> files = service.unzip(archive);
+        assertThat(files).hasSize(2);
+        assertThat(files.get(0).name()).isEqualTo("hello.txt");
+        assertThat(new String(files.get(0).content())).isEqualTo("this is my content 1");
+        assertThat(files.get(1).name()).isEqualTo("hi.txt");
+        assertThat(new String(files.get(1).content())).isEqualTo("this is my content 2");
+
+        // extracted entries are kept in temporary files and streamed from there
+        File<byte[]> extracted = service.unzip(archive).get(0);
+        assertThat(extracted).isInstanceOf(StreamingFile.class);
+        assertThat(((StreamingFile) extracted).size()).isEqualTo("this is my content 1".length());
+        try (InputStream stream = ((StreamingFile) extracted).openStream()) {
+            assertThat(new String(stream.readAllBytes())).isEqualTo("this is my content 1");
+        }
+
+        // lazily read content is the same as the streamed one
+        try (InputStream stream = archive.openStream()) {
+            assertThat(archive.content()).isEqualTo(stream.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testZipToOutputStream() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(new StoredFile("file" + i + ".txt", ("this is my content " + i).repeat(1000).getBytes()));
+        }
+        TrackingOutputStream output = new TrackingOutputStream();
+
+        List<String> entries = new ArchiveService(4).zip(output, files);
+        assertThat(entries).hasSize(20);
+        assertThat(output.closed).isFalse();
+
+        // entries are kept in the order of given files even though they are compressed in parallel
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry = zipIn.getNextEntry();
+            while (entry != null) {
+                assertThat(new String(zipIn.readAllBytes()))
+                        .isEqualTo(("this is my content " + names.size()).repeat(1000));
+                names.add(entry.getName());
+                entry = zipIn.getNextEntry();
+            }
+        }
+        assertThat(names).isEqualTo(entries);
+    }
+
+    @Test
+    public void testZipToFileWithMissingContent() {
+        ByteArrayFile file = new StoredFile("missing.txt", null);
+
+        assertThatThrownBy(() -> service.zipToFile("archive.zip", file))
+                .isInstanceOf(ServiceExecutionError.class);
+    }
+
+    @Test
+    public void testZipSkipsFilesWithoutContent() throws IOException {
+        ByteArrayFile file = new ByteArrayFile("hello.txt", "this is my content 1".getBytes());
+        ByteArrayFile empty = new ByteArrayFile("empty.txt", null);
+
+        Archive archive = service.zip("archive.zip", file, empty, null);
+        assertThat(archive.attributes()).containsEntry("entries", "hello.txt");
+        assertThat(service.unzip(archive)).hasSize(1);
+
+        Archive streamed = service.zipToFile("archive.zip", file, empty, null);
+        assertThat(streamed.attributes()).containsEntry("entries", "hello.txt");
+        assertThat(service.unzip(streamed)).hasSize(1);
+    }
+
+    /**
+     * Builds archive of more than 1GB from files that are streamed (as files kept in external stores) with single
+     * and with all available cores, run with <code>-Darchive.benchmark=true</code>
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "archive.benchmark", matches = "true")
+    public void benchmarkZipToFile() throws IOException {
+        int fileCount = 300;
+        int fileSize = 4 * 1024 * 1024;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            files.add(new GeneratedFile("variable-" + i + ".txt", i, fileSize));
+        }
+
+        for (int parallelism : IntStream.of(1, Runtime.getRuntime().availableProcessors()).distinct().toArray()) {
+            ArchiveService archiveService = new ArchiveService(parallelism);
+
+            long start = System.nanoTime();
+            Archive archive = archiveService.zipToFile("archive.zip", files);
+            long duration = (System.nanoTime() - start) / 1_000_000;
+
+            long uncompressed = (long) fileCount * fileSize;
+            LOGGER.info("Archived {} MB in {} files with parallelism {} in {} ms ({} MB/s), archive size {} MB",
+                    uncompressed >> 20, fileCount, parallelism, duration,
+                    String.format("%.1f", (uncompressed >> 20) * 1000.0 / duration), archive.size() >> 20);
+            // generated content is compressible so the archive must be considerably smaller
+            assertThat(archive.size()).isGreaterThan(0).isLessThan(uncompressed / 2);
+
+            assertThat(archive.entries()).hasSize(fileCount);
+            int entries = 0;
+            long extracted = 0;
+            try (ZipInputStream zipIn = new ZipInputStream(archive.openStream())) {
+                while (zipIn.getNextEntry() != null) {
+                    entries++;
+                    extracted += zipIn.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            assertThat(entries).isEqualTo(fileCount);
+            assertThat(extracted).isEqualTo(uncompressed);
+        }
+    }
+
+    /*
+     * file which content is not loaded into memory but read from a stream, as files of external stores
+     */
+    private static class StoredFile extends ByteArrayFile {
+
+        private final byte[] stored;
+
+        StoredFile(String name, byte[] stored) {
+            super(name, null);
+            this.stored = stored;
+        }
+
+        @Override
+        public byte[] content() {
+            throw new IllegalStateException("Content should be streamed");
+        }
+
+        @Override
+        public boolean exists() {
+            // as files of external stores that refer to stored content
+            return true;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            if (stored == null) {
+                throw new IOException("File " + name + " not found");
+            }
+            return new ByteArrayInputStream(stored);
+        }
+    }
+
+    /*
+     * file with generated text like (compressible) content that is never kept in memory
+     */
+    private static class GeneratedFile extends StoredFile {
+
+        private static final String[] WORDS = { "process", "instance", "variable", "archive", "workflow", "task",
+                "signal", "event", "timer", "node" };
+
+        private final long seed;
+        private final long size;
+
+        GeneratedFile(String name, long seed, long size) {
+            super(name, new byte[0]);
+            this.seed = seed;
+            this.size = size;
+        }
+
+        @Override
+        public InputStream openStream() {
+            Random random = new Random(seed);
+            return new InputStream() {
+
+                private long remaining = size;
+                private byte[] block = new byte[0];
+                private int position;
+
+                @Override
+                public int read() {
+                    byte[] single = new byte[1];
+                    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    if (position == block.length) {
+                        StringBuilder text = new StringBuilder();
+                        while (text.length() < 8192) {
+                            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(1000)).append(' ');
+                        }
+                        block = text.toString().getBytes(StandardCharsets.UTF_8);
+                        position = 0;
+                    }
+                    int count = (int) Math.min(Math.min(len, block.length - position), remaining);
+                    System.arraycopy(block, position, b, off, count);
+                    position += count;
+                    remaining -= count;
+                    return count;
+                }
+            };
+        }
+    }
+
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
 }
@@ -68,4 +68,8 @@ public class AutomatikoConfig {
     public IndexConfig index() {
         return new IndexConfig();
     }
+
+    public SignalsConfig signals() {
+        return new SignalsConfig();
+    }
 }
@@ -17,4 +17,26 @@ public class DatabaseJobsConfig {
     public Optional<Integer> threads() {
         return Optional.empty();
     }
+
+    /**
+     * Unique identifier of the service instance (node) used to claim jobs, host name is used if not set
+     */
+    public Optional<String> nodeId() {
+        return Optional.empty();
+    }
+
+    /**
+     * Duration (in seconds) of the lease on claimed jobs, jobs of a node that did not renew the lease are taken over by
+     * other nodes
+     */
+    public Optional<Long> leaseDuration() {
+        return Optional.empty();
+    }
+
+    /**
+     * Max number of jobs claimed in single batch
+     */
+    public Optional<Integer> batchSize() {
+        return Optional.empty();
+    }
 }
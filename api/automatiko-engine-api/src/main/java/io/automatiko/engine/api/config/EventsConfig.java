@@ -11,4 +11,9 @@ public class EventsConfig {
         return new WebsocketEventsConfig() {
         };
     }
+
+    public OutboxEventsConfig outbox() {
+        return new OutboxEventsConfig() {
+        };
+    }
 }
@@ -10,4 +10,11 @@ public class GoogleStorageFilesConfig {
     public Optional<String> bucket() {
         return Optional.empty();
     }
+
+    /**
+     * Specifies chunk size (in bytes) to be used when uploading files
+     */
+    public Optional<Integer> chunkSize() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,29 @@
+package io.automatiko.engine.api.config;
+
+import java.util.Optional;
+
+public class InstanceCacheConfig {
+
+    /**
+     * Specifies maximum number of process instances kept in the cache (per process), cache is disabled by default
+     */
+    public Optional<Integer> size() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies time (in milliseconds) after which cached process instance expires, by default cached instances do
+     * not expire
+     */
+    public Optional<Long> ttl() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies comma separated list of process ids the cache should be used for, by default cache is used for all
+     * processes
+     */
+    public Optional<String> processes() {
+        return Optional.empty();
+    }
+}
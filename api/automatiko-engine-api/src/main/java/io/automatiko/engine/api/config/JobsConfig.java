@@ -1,6 +1,32 @@
 package io.automatiko.engine.api.config;
 
+import java.util.Optional;
+
 public class JobsConfig {
+    public static final String TICK_DURATION_KEY = "quarkus.automatiko.jobs.tick-duration";
+    public static final String TICKS_PER_WHEEL_KEY = "quarkus.automatiko.jobs.ticks-per-wheel";
+    public static final String QUEUE_SIZE_KEY = "quarkus.automatiko.jobs.queue-size";
+
+    /**
+     * Specifies duration (in milliseconds) of single tick of the timing wheel, that is precision of fired timers
+     */
+    public Optional<Long> tickDuration() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies number of buckets of the timing wheel
+     */
+    public Optional<Integer> ticksPerWheel() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies max number of expired jobs waiting for execution thread
+     */
+    public Optional<Integer> queueSize() {
+        return Optional.empty();
+    }
 
     /**
      * Configures file system based jobs service
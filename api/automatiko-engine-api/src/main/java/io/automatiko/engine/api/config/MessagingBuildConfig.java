@@ -1,5 +1,7 @@
 package io.automatiko.engine.api.config;
 
+import java.util.Optional;
+
 public class MessagingBuildConfig {
 
     /**
@@ -15,4 +17,18 @@ public class MessagingBuildConfig {
     public boolean asCloudeventsBinary() {
         return true;
     }
+
+    /**
+     * Enables batch consumption of messages (Apache Kafka only)
+     */
+    public boolean batch() {
+        return false;
+    }
+
+    /**
+     * Number of threads used to process messages of different correlations of a batch in parallel
+     */
+    public Optional<Integer> batchParallelism() {
+        return Optional.empty();
+    }
 }
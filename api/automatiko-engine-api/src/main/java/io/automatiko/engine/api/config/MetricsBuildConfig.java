@@ -8,4 +8,11 @@ public class MetricsBuildConfig {
     public boolean enabled() {
         return false;
     }
+
+    /**
+     * Enables profiling of workflow execution - time spent in individual nodes, marshalling, data store and locks
+     */
+    public boolean profiling() {
+        return false;
+    }
 }
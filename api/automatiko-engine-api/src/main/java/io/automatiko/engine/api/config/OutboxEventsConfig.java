@@ -0,0 +1,81 @@
+package io.automatiko.engine.api.config;
+
+import java.util.Optional;
+
+public class OutboxEventsConfig {
+    public static final String ENABLED_KEY = "quarkus.automatiko.events.outbox.enabled";
+    public static final String QUEUE_SIZE_KEY = "quarkus.automatiko.events.outbox.queue-size";
+    public static final String BATCH_SIZE_KEY = "quarkus.automatiko.events.outbox.batch-size";
+    public static final String RETRIES_KEY = "quarkus.automatiko.events.outbox.retries";
+    public static final String RETRY_DELAY_KEY = "quarkus.automatiko.events.outbox.retry-delay";
+    public static final String ENQUEUE_TIMEOUT_KEY = "quarkus.automatiko.events.outbox.enqueue-timeout";
+    public static final String POLL_INTERVAL_KEY = "quarkus.automatiko.events.outbox.poll-interval";
+    public static final String DIRECTORY_KEY = "quarkus.automatiko.events.outbox.directory";
+    public static final String CLAIM_TIMEOUT_KEY = "quarkus.automatiko.events.outbox.claim-timeout";
+
+    /**
+     * Indicates if events should be published asynchronously by background relay instead of at the end of unit of work
+     */
+    public Optional<Boolean> enabled() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies maximum number of events waiting to be published (per publisher)
+     */
+    public Optional<Integer> queueSize() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies maximum number of events given to publisher at once
+     */
+    public Optional<Integer> batchSize() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies how many times publishing of events is retried before they are dropped
+     */
+    public Optional<Integer> retries() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies delay (in milliseconds) before first retry, it is doubled for every next retry
+     */
+    public Optional<Long> retryDelay() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies how long (in milliseconds) unit of work waits for space in the queue before it publishes events
+     * directly
+     */
+    public Optional<Long> enqueueTimeout() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies how often (in milliseconds) outbox is checked for events appended by other nodes or left over by
+     * previous run of the service
+     */
+    public Optional<Long> pollInterval() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies location of the local log of events waiting to be published, not used when outbox is kept in database
+     */
+    public Optional<String> directory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Specifies how long (in milliseconds) entries claimed by a node stay claimed before other nodes can claim them,
+     * used only when outbox is kept in database
+     */
+    public Optional<Long> claimTimeout() {
+        return Optional.empty();
+    }
+}
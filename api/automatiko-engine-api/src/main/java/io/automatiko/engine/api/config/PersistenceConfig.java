@@ -18,6 +18,41 @@ public class PersistenceConfig {
         return Optional.empty();
     }
 
+    /**
+     * Determines if process instances modified within single unit of work should be stored in batches
+     */
+    public Optional<Boolean> batchWrites() {
+        return Optional.empty();
+    }
+
+    /**
+     * Determines how variables of process instances are marshalled - json (default) or binary
+     */
+    public Optional<String> marshalling() {
+        return Optional.empty();
+    }
+
+    /**
+     * Determines if updates of process instances should be stored as deltas to the last stored snapshot
+     */
+    public Optional<Boolean> deltaUpdates() {
+        return Optional.empty();
+    }
+
+    /**
+     * Determines number of deltas after which complete snapshot of process instance is stored again
+     */
+    public Optional<Integer> deltaCompaction() {
+        return Optional.empty();
+    }
+
+    /**
+     * Determines if history of completed nodes should be stored as separate segment that is only read when needed
+     */
+    public Optional<Boolean> completedNodesSegment() {
+        return Optional.empty();
+    }
+
     /**
      * Configures file system based persistence
      */
@@ -57,6 +92,13 @@ public class PersistenceConfig {
         };
     }
 
+    /**
+     * Configures cache of process instances
+     */
+    public InstanceCacheConfig cache() {
+        return new InstanceCacheConfig();
+    }
+
     /**
      * Configures transaction log
      */
@@ -10,4 +10,11 @@ public class S3FilesConfig {
     public Optional<String> bucket() {
         return Optional.empty();
     }
+
+    /**
+     * Specifies size (in bytes) of the parts used for multipart upload of files
+     */
+    public Optional<Integer> partSize() {
+        return Optional.empty();
+    }
 }
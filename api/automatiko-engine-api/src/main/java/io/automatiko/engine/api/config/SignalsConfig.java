@@ -0,0 +1,15 @@
+package io.automatiko.engine.api.config;
+
+import java.util.Optional;
+
+public class SignalsConfig {
+    public static final String PARTITIONS_KEY = "quarkus.automatiko.signals.partitions";
+
+    /**
+     * Specifies number of partitions used to deliver signals to other process instances asynchronously, when not set
+     * signals are delivered synchronously as part of the unit of work of the publisher
+     */
+    public Optional<Integer> partitions() {
+        return Optional.empty();
+    }
+}
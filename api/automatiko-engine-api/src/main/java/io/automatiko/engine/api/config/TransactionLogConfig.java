@@ -17,4 +17,12 @@ public class TransactionLogConfig {
     public Optional<String> folder() {
         return Optional.empty();
     }
+
+    /**
+     * Specifies type of the file system based transaction log store - <code>folder</code> (default) that stores entries
+     * in folder per transaction or <code>segment</code> that appends entries to segment files
+     */
+    public Optional<String> type() {
+        return Optional.empty();
+    }
 }
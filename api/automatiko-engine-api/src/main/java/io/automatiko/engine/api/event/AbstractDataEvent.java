@@ -28,6 +28,12 @@ public abstract class AbstractDataEvent<T> implements DataEvent<T> {
 
     protected Map<String, Object> extensions = new HashMap<>();
 
+    /*
+     * used when events are restored from their stored form
+     */
+    protected AbstractDataEvent() {
+    }
+
     public AbstractDataEvent(String type, String source, T body) {
         this.specversion = SPEC_VERSION;
         this.id = UUID.randomUUID().toString();
@@ -28,4 +28,16 @@ public interface EventPublisher {
 	 * @param events events to be published
 	 */
 	void publish(Collection<DataEvent<?>> events);
+
+	/**
+	 * Indicates if publisher needs access to the source instance (process
+	 * instance or work item) the events were created from. Such publisher is
+	 * always invoked directly at the end of unit of work as events stored for
+	 * asynchronous publishing do not carry source instances.
+	 * 
+	 * @return true if source instance is required otherwise false
+	 */
+	default boolean requiresSourceInstance() {
+		return false;
+	}
 }
@@ -0,0 +1,28 @@
+package io.automatiko.engine.api.workflow;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+/**
+ * An exception that is thrown when batch write of process instances was applied only partially.
+ * It carries identifiers of instances (as given to the batch) that were not written so only these
+ * can be retried. Data stores that cannot tell which instances were written must not throw it.
+ *
+ */
+public class BatchWriteException extends RuntimeException {
+
+    private static final long serialVersionUID = -2581716431853742174L;
+
+    private final Collection<String> unapplied;
+
+    public BatchWriteException(Collection<String> unapplied, Throwable cause) {
+        super("Batch write of process instances " + unapplied + " was not applied", cause);
+        this.unapplied = Collections.unmodifiableCollection(new LinkedHashSet<>(unapplied));
+    }
+
+    public Collection<String> getUnapplied() {
+        return unapplied;
+    }
+
+}
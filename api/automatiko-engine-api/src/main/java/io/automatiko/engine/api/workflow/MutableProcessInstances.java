@@ -1,7 +1,11 @@
 
 package io.automatiko.engine.api.workflow;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -17,6 +21,61 @@ public interface MutableProcessInstances<T> extends ProcessInstances<T> {
 
     void remove(String id, ProcessInstance<T> instance);
 
+    /**
+     * Creates all given instances. Data stores that support batch writes should override it to store all instances at
+     * once, by default instances are created one by one.
+     *
+     * @param instances instances to be created keyed by their identifiers
+     * @throws BatchWriteException in case only some of the instances were created
+     */
+    default void createAll(Map<String, ProcessInstance<T>> instances) {
+        performAll(instances, this::create);
+    }
+
+    /**
+     * Updates all given instances. Data stores that support batch writes should override it to store all instances at
+     * once, by default instances are updated one by one.
+     *
+     * @param instances instances to be updated keyed by their identifiers
+     * @throws BatchWriteException in case only some of the instances were updated
+     */
+    default void updateAll(Map<String, ProcessInstance<T>> instances) {
+        performAll(instances, this::update);
+    }
+
+    /**
+     * Removes all given instances. Data stores that support batch writes should override it to remove all instances at
+     * once, by default instances are removed one by one.
+     *
+     * @param instances instances to be removed keyed by their identifiers
+     * @throws BatchWriteException in case only some of the instances were removed
+     */
+    default void removeAll(Map<String, ProcessInstance<T>> instances) {
+        performAll(instances, this::remove);
+    }
+
+    /**
+     * Performs given operation on each instance, stops on first failure and reports instances that were not
+     * written yet (including the failed one) as unapplied
+     *
+     * @param instances instances keyed by their identifiers
+     * @param operation operation to be performed on each instance
+     */
+    default void performAll(Map<String, ProcessInstance<T>> instances,
+            BiConsumer<String, ProcessInstance<T>> operation) {
+        List<String> pending = new ArrayList<>(instances.keySet());
+        for (Map.Entry<String, ProcessInstance<T>> entry : instances.entrySet()) {
+            try {
+                operation.accept(entry.getKey(), entry.getValue());
+            } catch (ConflictingVersionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new BatchWriteException(pending, e);
+            }
+            pending.remove(0);
+        }
+    }
+
     default boolean isActive(ProcessInstance<T> instance) {
         if (instance.status() != ProcessInstance.STATE_PENDING
                 && instance.process().endOfInstanceStrategy().shouldInstanceBeUpdated()) {
@@ -0,0 +1,173 @@
+package io.automatiko.engine.api.workflow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position within ordered process instances used for cursor (keyset) based pagination. Cursor remembers the sort key
+ * value and id of the last process instance that was read so the next page starts right after it instead of skipping
+ * all preceding instances.
+ * <br/>
+ * Data stores that cannot seek directly to given position (for given sort key) use offset that is kept in the cursor
+ * as well. Cursors are exchanged with clients in encoded form, see {@link #encode()} and {@link #decode(String)}.
+ */
+public class ProcessInstanceCursor {
+
+    private static final String SEPARATOR = ".";
+
+    private final String sortBy;
+    private final boolean sortAsc;
+    private final String key;
+    private final String id;
+    private final int offset;
+
+    protected ProcessInstanceCursor(String sortBy, boolean sortAsc, String key, String id, int offset) {
+        this.sortBy = sortBy;
+        this.sortAsc = sortAsc;
+        this.key = key;
+        this.id = id;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates cursor pointing at the beginning of process instances ordered by given sort key
+     *
+     * @param sortBy sort key (one of the <code>*_SORT_KEY</code> constants), null to order by id
+     * @param sortAsc true if instances should be ordered ascending
+     * @return cursor pointing at the first page
+     */
+    public static ProcessInstanceCursor first(String sortBy, boolean sortAsc) {
+        return new ProcessInstanceCursor(sortBy == null || sortBy.trim().isEmpty() ? null : sortBy, sortAsc, null, null, 0);
+    }
+
+    /**
+     * Creates cursor that points after instance with given sort key value and id
+     *
+     * @param key value of the sort key of the last read instance, dates are converted to epoch milliseconds
+     * @param id id of the last read instance as stored by data store
+     * @return cursor pointing after given instance
+     */
+    public ProcessInstanceCursor after(Object key, String id) {
+        String value = null;
+        if (key instanceof Date) {
+            value = String.valueOf(((Date) key).getTime());
+        } else if (key != null) {
+            value = key.toString();
+        }
+        return new ProcessInstanceCursor(sortBy, sortAsc, value, id, 0);
+    }
+
+    /**
+     * Creates cursor that points after given number of instances, used by data stores that do not support seeking
+     *
+     * @param read number of instances read from the current position
+     * @return cursor pointing after read instances
+     */
+    public ProcessInstanceCursor skip(int read) {
+        return new ProcessInstanceCursor(sortBy, sortAsc, key, id, offset + read);
+    }
+
+    /**
+     * Creates cursor that points at position given by data store specific value e.g. paging state
+     *
+     * @param position data store specific position
+     * @return cursor pointing at given position
+     */
+    public ProcessInstanceCursor at(String position) {
+        return new ProcessInstanceCursor(sortBy, sortAsc, position, null, 0);
+    }
+
+    public String sortBy() {
+        return sortBy;
+    }
+
+    public boolean sortAsc() {
+        return sortAsc;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public Date dateKey() {
+        return key == null ? null : new Date(Long.parseLong(key));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Determines if this cursor points at the beginning
+     *
+     * @return true if nothing has been read yet
+     */
+    public boolean isFirst() {
+        return id == null && key == null && offset == 0;
+    }
+
+    /**
+     * Determines if instances are ordered by given sort key, no sort key means ordering by id
+     *
+     * @param sortKey sort key to check
+     * @return true if cursor orders instances by given sort key
+     */
+    public boolean sortedBy(String sortKey) {
+        return (sortBy == null ? ProcessInstances.ID_SORT_KEY : sortBy).equals(sortKey);
+    }
+
+    /**
+     * Encodes the cursor into url safe string
+     *
+     * @return encoded cursor
+     */
+    public String encode() {
+        return String.join(SEPARATOR, encode(sortBy), sortAsc ? "a" : "d", String.valueOf(offset), encode(key),
+                encode(id));
+    }
+
+    /**
+     * Decodes cursor from its encoded form
+     *
+     * @param encoded encoded cursor as returned by {@link #encode()}
+     * @return decoded cursor
+     * @throws IllegalArgumentException in case given value is not valid cursor
+     */
+    public static ProcessInstanceCursor decode(String encoded) {
+        String[] parts = encoded == null ? new String[0] : encoded.split("\\" + SEPARATOR, -1);
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Invalid cursor '" + encoded + "'");
+        }
+        try {
+            return new ProcessInstanceCursor(decodePart(parts[0]), "a".equals(parts[1]), decodePart(parts[3]),
+                    decodePart(parts[4]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + encoded + "'", e);
+        }
+    }
+
+    private static String encode(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessInstanceCursor [sortBy=" + sortBy + ", sortAsc=" + sortAsc + ", key=" + key + ", id=" + id
+                + ", offset=" + offset + "]";
+    }
+}
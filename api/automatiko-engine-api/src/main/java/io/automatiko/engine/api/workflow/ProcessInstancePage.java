@@ -0,0 +1,39 @@
+package io.automatiko.engine.api.workflow;
+
+import java.util.Collection;
+
+/**
+ * Single page of process instances read with cursor based pagination.
+ * <br/>
+ * Page might contain fewer items than requested (even none) in case some of the instances are not accessible to the
+ * caller, the only reliable indicator of the last page is missing next cursor.
+ *
+ * @param <T> type of the items
+ */
+public class ProcessInstancePage<T> {
+
+    private final Collection<T> items;
+    private final ProcessInstanceCursor next;
+
+    public ProcessInstancePage(Collection<T> items, ProcessInstanceCursor next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public Collection<T> items() {
+        return items;
+    }
+
+    /**
+     * Returns cursor pointing at the next page
+     *
+     * @return cursor of the next page or null if this is the last page
+     */
+    public ProcessInstanceCursor next() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,118 @@
+package io.automatiko.engine.api.workflow;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+
+/**
+ * Lightweight, read only representation of process instance that is built directly from data kept by the data store
+ * next to the process instance (status, business key, tags, dates etc.) without unmarshalling the process instance
+ * and its variables. It is meant for list views that only need basic information about many instances.
+ * <br/>
+ * Since process instance is not loaded, access policy of the process instance is not evaluated when summaries are
+ * retrieved, it is up to the caller to make sure summaries are only provided to users that are allowed to see them.
+ */
+public class ProcessInstanceSummary {
+
+    private final String id;
+    private final String parentProcessInstanceId;
+    private final String businessKey;
+    private final String description;
+    private final int status;
+    private final Collection<String> tags;
+    private final Date startDate;
+    private final Date endDate;
+
+    public ProcessInstanceSummary(String id, String parentProcessInstanceId, String businessKey, String description,
+            int status, Collection<String> tags, Date startDate, Date endDate) {
+        this.id = id;
+        this.parentProcessInstanceId = parentProcessInstanceId;
+        this.businessKey = businessKey;
+        this.description = description;
+        this.status = status;
+        this.tags = tags == null ? Collections.emptySet() : tags;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String parentProcessInstanceId() {
+        return parentProcessInstanceId;
+    }
+
+    public String businessKey() {
+        return businessKey;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public Collection<String> tags() {
+        return tags;
+    }
+
+    public Date startDate() {
+        return startDate;
+    }
+
+    public Date endDate() {
+        return endDate;
+    }
+
+    /**
+     * Creates summary of already loaded process instance
+     *
+     * @param instance process instance
+     * @return summary of the instance
+     */
+    public static ProcessInstanceSummary of(ProcessInstance<?> instance) {
+        return new ProcessInstanceSummary(instance.id(), instance.parentProcessInstanceId(), instance.businessKey(),
+                instance.description(), instance.status(), instance.tags().values(), instance.startDate(),
+                instance.endDate());
+    }
+
+    /**
+     * Creates summary from data kept by the data store for instance stored under given id. Stored id of
+     * subprocess instances is composite (parent id and instance id separated by colon) in which case parent id is
+     * extracted from it. Data stores that keep the id and business key among tags (to find instances by them) do not
+     * need to remove them, they are not included in tags of the summary.
+     *
+     * @param storedId id the instance is stored under
+     * @param businessKey business key of the instance
+     * @param description description of the instance
+     * @param status status of the instance
+     * @param tags tags stored with the instance
+     * @param startDate start date of the instance
+     * @param endDate end date of the instance
+     * @return summary of the instance
+     */
+    public static ProcessInstanceSummary stored(String storedId, String businessKey, String description, int status,
+            Collection<String> tags, Date startDate, Date endDate) {
+        String id = storedId;
+        String parentId = null;
+        int separator = storedId.lastIndexOf(MutableProcessInstances.SEPARATOR);
+        if (separator != -1) {
+            parentId = storedId.substring(0, separator);
+            id = storedId.substring(separator + 1);
+        }
+        Collection<String> instanceTags = null;
+        if (tags != null) {
+            instanceTags = new LinkedHashSet<>(tags);
+            instanceTags.remove(storedId);
+            if (businessKey != null) {
+                instanceTags.remove(businessKey);
+            }
+        }
+        return new ProcessInstanceSummary(id, parentId, businessKey, description, status, instanceTags, startDate,
+                endDate);
+    }
+}
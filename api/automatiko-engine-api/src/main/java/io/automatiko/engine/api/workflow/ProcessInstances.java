@@ -1,8 +1,11 @@
 
 package io.automatiko.engine.api.workflow;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import io.automatiko.engine.api.uow.TransactionLog;
 
@@ -46,6 +49,47 @@ public interface ProcessInstances<T> {
         return values(mode, status, page, size);
     }
 
+    /**
+     * Returns page of process instances in given status that starts at the position of given cursor. Data stores that
+     * support it seek directly to the position instead of skipping all preceding instances, others fall back to offset
+     * based pagination in which case size of the page should not change between calls.
+     *
+     * @param mode read mode of the instances
+     * @param status status of the instances
+     * @param cursor position to start at, use {@link ProcessInstanceCursor#first(String, boolean)} for the first page
+     * @param size max number of instances on the page
+     * @return page of process instances with cursor of the next page
+     */
+    default ProcessInstancePage<ProcessInstance<T>> values(ProcessInstanceReadMode mode, int status,
+            ProcessInstanceCursor cursor, int size) {
+        int page = cursor.offset() / size + 1;
+        Collection<? extends ProcessInstance<T>> found = cursor.sortBy() == null ? values(mode, status, page, size)
+                : values(mode, status, page, size, cursor.sortBy(), cursor.sortAsc());
+
+        return new ProcessInstancePage<>(new ArrayList<>(found), found.size() < size ? null : cursor.skip(size));
+    }
+
+    /**
+     * Returns page of ids of process instances in given status that starts at the position of given cursor. Ids are
+     * returned in the form accepted by <code>findById</code> (that is including parent instance id for subprocess
+     * instances). Data stores that support it read only the ids without loading process instances, others fall back
+     * to {@link #values(ProcessInstanceReadMode, int, ProcessInstanceCursor, int)}.
+     *
+     * @param status status of the instances
+     * @param cursor position to start at, use {@link ProcessInstanceCursor#first(String, boolean)} for the first page
+     * @param size max number of ids on the page
+     * @return page of process instance ids with cursor of the next page
+     */
+    default ProcessInstancePage<String> ids(int status, ProcessInstanceCursor cursor, int size) {
+        ProcessInstancePage<ProcessInstance<T>> page = values(ProcessInstanceReadMode.READ_ONLY, status, cursor, size);
+
+        List<String> ids = new ArrayList<>();
+        for (ProcessInstance<T> pi : page.items()) {
+            ids.add(pi.parentProcessInstanceId() == null ? pi.id() : pi.parentProcessInstanceId() + ":" + pi.id());
+        }
+        return new ProcessInstancePage<>(ids, page.next());
+    }
+
     default Collection<? extends ProcessInstance<T>> findByIdOrTag(String... values) {
         return findByIdOrTag(ProcessInstanceReadMode.MUTABLE, values);
     }
@@ -70,6 +114,37 @@ public interface ProcessInstances<T> {
         return findByIdOrTag(mode, status, values);
     }
 
+    /**
+     * Returns summaries of process instances in given status. Data stores provide summaries directly from the data kept
+     * next to the process instance so they are considerably cheaper than loading process instances via
+     * <code>values</code>. See {@link ProcessInstanceSummary} for restrictions that apply.
+     *
+     * @param status status of the instances
+     * @param page page to return
+     * @param size number of summaries on the page
+     * @return summaries of process instances
+     */
+    default Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+        return values(ProcessInstanceReadMode.READ_ONLY, status, page, size).stream().map(ProcessInstanceSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns sorted summaries of process instances in given status.
+     *
+     * @param status status of the instances
+     * @param page page to return
+     * @param size number of summaries on the page
+     * @param sortBy sort key (one of the <code>*_SORT_KEY</code> constants)
+     * @param sortAsc true if summaries should be sorted in ascending order
+     * @return summaries of process instances
+     * @see #summaries(int, int, int)
+     */
+    default Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+        return values(ProcessInstanceReadMode.READ_ONLY, status, page, size, sortBy, sortAsc).stream()
+                .map(ProcessInstanceSummary::of).collect(Collectors.toList());
+    }
+
     default Collection<String> locateByIdOrTag(String... values) {
         return locateByIdOrTag(ProcessInstance.STATE_ACTIVE, values);
     }
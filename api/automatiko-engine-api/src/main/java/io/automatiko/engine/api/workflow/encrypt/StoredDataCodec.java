@@ -1,5 +1,11 @@
 package io.automatiko.engine.api.workflow.encrypt;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public interface StoredDataCodec {
 
     static final StoredDataCodec NO_OP_CODEC = new NoOpStoredDataCodec();
@@ -20,6 +26,53 @@ public interface StoredDataCodec {
      */
     byte[] decode(byte[] data);
 
+    /**
+     * Wraps given stream so that data written to it are encoded before they reach the stream. Closing returned stream
+     * closes given stream as well.
+     * <br/>
+     * By default all data are buffered and encoded when the stream is closed, codecs that can encode data
+     * in chunks should override it.
+     *
+     * @param target stream to write encoded data to
+     * @return stream that encodes written data
+     */
+    default OutputStream encode(OutputStream target) {
+        return new ByteArrayOutputStream() {
+
+            @Override
+            public void close() throws IOException {
+                try (target) {
+                    target.write(encode(toByteArray()));
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps given stream (of data that were previously encoded with this codec) so that data read from it are decoded.
+     * Closing returned stream closes given stream as well.
+     * <br/>
+     * By default all data are read and decoded at once, codecs that can decode data in chunks should override it.
+     *
+     * @param source stream of encoded data
+     * @return stream of decoded data
+     * @throws IOException in case data cannot be read
+     */
+    default InputStream decode(InputStream source) throws IOException {
+        try (source) {
+            return new ByteArrayInputStream(decode(source.readAllBytes()));
+        }
+    }
+
+    /**
+     * Determines if this codec leaves data as they are so stored data can be read directly (e.g. by ranges)
+     *
+     * @return true if data are not changed by this codec
+     */
+    default boolean isTransparent() {
+        return false;
+    }
+
     class NoOpStoredDataCodec implements StoredDataCodec {
 
         @Override
@@ -32,5 +85,20 @@ public interface StoredDataCodec {
             return data;
         }
 
+        @Override
+        public OutputStream encode(OutputStream target) {
+            return target;
+        }
+
+        @Override
+        public InputStream decode(InputStream source) {
+            return source;
+        }
+
+        @Override
+        public boolean isTransparent() {
+            return true;
+        }
+
     }
 }
@@ -0,0 +1,81 @@
+package io.automatiko.engine.api.workflow.files;
+
+/**
+ * Single range of bytes of a file as requested by HTTP <code>Range</code> header
+ */
+public class ByteRange {
+
+    private static final String UNIT = "bytes=";
+
+    private final long offset;
+    private final long length;
+
+    public ByteRange(long offset, long length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Parses value of the <code>Range</code> header, only single range is supported
+     *
+     * @param header value of the header, might be null
+     * @param size size of the complete content, -1 if not known
+     * @return requested range or null if the complete content should be returned (no range requested, multiple
+     *         ranges or size is not known)
+     * @throws IllegalArgumentException in case requested range cannot be satisfied
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || size < 0 || !header.startsWith(UNIT) || header.contains(",")) {
+            return null;
+        }
+        String[] bounds = header.substring(UNIT.length()).trim().split("-", -1);
+        if (bounds.length != 2) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (bounds[0].isEmpty()) {
+                // suffix range - last n bytes
+                start = Math.max(0, size - Long.parseLong(bounds[1]));
+                end = size - 1;
+            } else {
+                start = Long.parseLong(bounds[0]);
+                end = bounds[1].isEmpty() ? size - 1 : Math.min(Long.parseLong(bounds[1]), size - 1);
+            }
+            if (start >= size || end < start) {
+                throw new IllegalArgumentException("Range '" + header + "' cannot be satisfied for size " + size);
+            }
+            return new ByteRange(start, end - start + 1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long end() {
+        return offset + length - 1;
+    }
+
+    /**
+     * Returns value of the <code>Content-Range</code> header for this range
+     *
+     * @param size size of the complete content
+     * @return content range header value
+     */
+    public String contentRange(long size) {
+        return "bytes " + offset + "-" + end() + "/" + size;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteRange [offset=" + offset + ", length=" + length + "]";
+    }
+}
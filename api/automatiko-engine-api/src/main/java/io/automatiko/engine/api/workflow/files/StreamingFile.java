@@ -0,0 +1,84 @@
+package io.automatiko.engine.api.workflow.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * File which content can be read as a stream without loading it completely into memory. Files kept in external
+ * stores read their content lazily, only when the stream is consumed.
+ */
+public interface StreamingFile {
+
+    /**
+     * Opens stream of the complete content of the file, caller is responsible for closing it
+     *
+     * @return stream of the content
+     * @throws IOException in case content cannot be read
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Opens stream of given range of the content of the file, caller is responsible for closing it
+     *
+     * @param offset position (in bytes) of the first byte to read
+     * @param length max number of bytes to read
+     * @return stream of the content range
+     * @throws IOException in case content cannot be read
+     */
+    default InputStream openStream(long offset, long length) throws IOException {
+        InputStream stream = openStream();
+        try {
+            stream.skipNBytes(offset);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return new RangeInputStream(stream, length);
+    }
+
+    /**
+     * Opens channel of the complete content of the file, caller is responsible for closing it
+     *
+     * @return channel of the content
+     * @throws IOException in case content cannot be read
+     */
+    default ReadableByteChannel openChannel() throws IOException {
+        return Channels.newChannel(openStream());
+    }
+
+    /**
+     * Determines if the file has any content to read, either available directly or kept in a store, without reading it
+     *
+     * @return true if the file has content to read
+     */
+    default boolean exists() {
+        return true;
+    }
+
+    /**
+     * Returns size of the content (in bytes) if it is known without reading the content
+     *
+     * @return size of the content or -1 if not known
+     */
+    default long size() {
+        return -1;
+    }
+
+    /**
+     * Writes complete content of the file to given channel
+     *
+     * @param target channel to write the content to, it is not closed
+     * @return number of bytes written
+     * @throws IOException in case content cannot be read or written
+     */
+    default long transferTo(WritableByteChannel target) throws IOException {
+        try (InputStream stream = openStream()) {
+            OutputStream output = Channels.newOutputStream(target);
+            return stream.transferTo(output);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.automatiko.engine.api.workflow.profiling;
+
+import io.automatiko.engine.api.definition.process.Node;
+import io.automatiko.engine.api.workflow.MutableProcessInstances;
+
+/**
+ * Receives timing information about execution of workflows. Implementations are invoked on the hot path (for every
+ * executed node) so they are expected to only record given time with meters that were registered up front and not to
+ * allocate anything.
+ * <br/>
+ * All methods are optional, by default nothing is recorded.
+ */
+public interface ExecutionProfiler {
+
+    /**
+     * Invoked when node instance was triggered
+     *
+     * @param node definition of the node that was executed
+     * @param nanos time (in nanoseconds) spent in the node itself, excluding nodes triggered by it
+     */
+    default void nodeExecuted(Node node, long nanos) {
+    }
+
+    /**
+     * Invoked when process instance was marshalled
+     *
+     * @param processId identifier of the process
+     * @param nanos time (in nanoseconds) spent marshalling
+     */
+    default void marshalled(String processId, long nanos) {
+    }
+
+    /**
+     * Invoked when process instance was unmarshalled
+     *
+     * @param processId identifier of the process
+     * @param nanos time (in nanoseconds) spent unmarshalling
+     */
+    default void unmarshalled(String processId, long nanos) {
+    }
+
+    /**
+     * Invoked when process instances were read from data store
+     *
+     * @param store data store that was used
+     * @param processId identifier of the process
+     * @param nanos time (in nanoseconds) spent reading
+     */
+    default void storeRead(MutableProcessInstances<?> store, String processId, long nanos) {
+    }
+
+    /**
+     * Invoked when process instances were written to (or removed from) data store
+     *
+     * @param store data store that was used
+     * @param processId identifier of the process
+     * @param nanos time (in nanoseconds) spent writing
+     */
+    default void storeWritten(MutableProcessInstances<?> store, String processId, long nanos) {
+    }
+
+    /**
+     * Invoked when thread had to wait for process instance lock
+     *
+     * @param nanos time (in nanoseconds) spent waiting
+     */
+    default void lockWaited(long nanos) {
+    }
+
+    /**
+     * Invoked when prediction model was trained
+     *
+     * @param engine identifier of the prediction engine
+     * @param model name of the model, usually the outcome it predicts
+     * @param nanos time (in nanoseconds) spent training
+     */
+    default void modelTrained(String engine, String model, long nanos) {
+    }
+
+    /**
+     * Invoked when prediction model was used to predict an outcome
+     *
+     * @param engine identifier of the prediction engine
+     * @param model name of the model, usually the outcome it predicts
+     * @param nanos time (in nanoseconds) spent predicting
+     */
+    default void predicted(String engine, String model, long nanos) {
+    }
+}
@@ -0,0 +1,87 @@
+package io.automatiko.engine.api.workflow.profiling;
+
+import java.util.Arrays;
+
+import io.automatiko.engine.api.definition.process.Node;
+
+/**
+ * Entry point of the instrumentation of workflow execution. Instrumented code checks {@link #enabled()} before taking
+ * any time so there is no overhead when no profiler is registered.
+ */
+public final class Profiling {
+
+    private static final ExecutionProfiler NONE = new ExecutionProfiler() {
+    };
+
+    private static volatile ExecutionProfiler profiler = NONE;
+
+    private static volatile boolean enabled;
+
+    // time spent in nodes triggered by the nodes that are currently executed on the thread
+    private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
+
+    private Profiling() {
+
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static ExecutionProfiler profiler() {
+        return profiler;
+    }
+
+    public static void register(ExecutionProfiler executionProfiler) {
+        profiler = executionProfiler == null ? NONE : executionProfiler;
+        enabled = executionProfiler != null;
+    }
+
+    public static void unregister() {
+        register(null);
+    }
+
+    /**
+     * Marks start of the node execution, must be followed by {@link #exitNode(Node, long)} on the same thread
+     *
+     * @return start time to be given to exit
+     */
+    public static long enterNode() {
+        Frames frames = FRAMES.get();
+        frames.push();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks end of the node execution and reports time spent in the node itself
+     *
+     * @param node definition of the executed node
+     * @param start start time as returned by enter
+     */
+    public static void exitNode(Node node, long start) {
+        long total = System.nanoTime() - start;
+        long nested = FRAMES.get().pop(total);
+        profiler.nodeExecuted(node, total - nested);
+    }
+
+    private static class Frames {
+
+        private long[] nested = new long[16];
+        private int depth;
+
+        private void push() {
+            if (depth == nested.length) {
+                nested = Arrays.copyOf(nested, depth * 2);
+            }
+            nested[depth++] = 0;
+        }
+
+        private long pop(long total) {
+            long time = nested[--depth];
+            if (depth > 0) {
+                nested[depth - 1] += total;
+            }
+            return time;
+        }
+    }
+}
@@ -5,6 +5,9 @@ import io.automatiko.engine.api.event.AbstractDataEvent;
 
 public abstract class AbstractProcessDataEvent<T> extends AbstractDataEvent<T> {
 
+    protected AbstractProcessDataEvent() {
+    }
+
     public AbstractProcessDataEvent(String source, T body) {
         this(null, source, body);
     }
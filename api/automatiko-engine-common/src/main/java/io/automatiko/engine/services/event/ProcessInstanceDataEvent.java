@@ -7,6 +7,9 @@ import io.automatiko.engine.services.event.impl.ProcessInstanceEventBody;
 
 public class ProcessInstanceDataEvent extends AbstractProcessDataEvent<ProcessInstanceEventBody> {
 
+    private ProcessInstanceDataEvent() {
+    }
+
     public ProcessInstanceDataEvent(String source, String addons, Map<String, String> metaData,
             ProcessInstanceEventBody body) {
         super("ProcessInstanceEvent", source, body);
@@ -8,6 +8,9 @@ import io.automatiko.engine.services.event.impl.UserTaskInstanceEventBody;
 
 public class UserTaskInstanceDataEvent extends AbstractDataEvent<UserTaskInstanceEventBody> {
 
+    private UserTaskInstanceDataEvent() {
+    }
+
     public UserTaskInstanceDataEvent(String source, String addons, Map<String, String> metaData,
             UserTaskInstanceEventBody body) {
 
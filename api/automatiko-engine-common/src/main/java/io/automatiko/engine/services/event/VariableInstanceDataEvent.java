@@ -8,6 +8,9 @@ import io.automatiko.engine.services.event.impl.VariableInstanceEventBody;
 
 public class VariableInstanceDataEvent extends AbstractDataEvent<VariableInstanceEventBody> {
 
+    private VariableInstanceDataEvent() {
+    }
+
     public VariableInstanceDataEvent(String source, String addons, Map<String, String> metaData,
             VariableInstanceEventBody body) {
 
@@ -0,0 +1,166 @@
+package io.automatiko.engine.services.event.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.api.event.EventBatch;
+import io.automatiko.engine.api.event.EventPublisher;
+
+/**
+ * Event manager that does not publish events on the thread that completes unit of work but stores them (encoded) in
+ * durable {@link EventOutbox} for every publisher, from where they are delivered in the background by
+ * {@link EventRelay}.
+ * <br/>
+ * Publishers that require source instance of the events (see {@link EventPublisher#requiresSourceInstance()}) are
+ * always invoked directly as the source instance is not available once events were stored.
+ * <br/>
+ * In case outbox of given publisher is full, unit of work waits (up to configured time) for space in the outbox and then
+ * publishes events directly to keep the events flowing.
+ */
+public class AsyncEventManager extends BaseEventManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncEventManager.class);
+
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_RETRIES = 3;
+    public static final long DEFAULT_RETRY_DELAY = 1000;
+    public static final long DEFAULT_ENQUEUE_TIMEOUT = 1000;
+    public static final long DEFAULT_POLL_INTERVAL = 1000;
+
+    private final EventOutbox outbox;
+    private final EventCodec codec;
+
+    private final int queueSize;
+    private final int batchSize;
+    private final int retries;
+    private final long retryDelay;
+    private final long enqueueTimeout;
+    private final long pollInterval;
+
+    private final List<EventRelay> relays = new CopyOnWriteArrayList<>();
+
+    private final Set<EventPublisher> direct = new CopyOnWriteArraySet<>();
+
+    public AsyncEventManager(EventOutbox outbox, EventCodec codec) {
+        this(outbox, codec, DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_RETRIES, DEFAULT_RETRY_DELAY,
+                DEFAULT_ENQUEUE_TIMEOUT, DEFAULT_POLL_INTERVAL);
+    }
+
+    public AsyncEventManager(EventOutbox outbox, EventCodec codec, int queueSize, int batchSize, int retries,
+            long retryDelay, long enqueueTimeout, long pollInterval) {
+        this.outbox = outbox;
+        this.codec = codec;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+        this.enqueueTimeout = enqueueTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void publish(EventBatch batch) {
+        if (relays.isEmpty() && direct.isEmpty()) {
+            // don't even process the batch if there are no publishers
+            return;
+        }
+        Collection<DataEvent<?>> events = batch.events();
+        append(events);
+        publishDirectly(events);
+    }
+
+    /**
+     * Stores given events in the outbox of every publisher that does not require source instance. When the outbox is
+     * transactional this must be invoked within the transaction of the unit of work.
+     *
+     * @param events events of single unit of work
+     */
+    public void append(Collection<DataEvent<?>> events) {
+        if (relays.isEmpty() || events.isEmpty()) {
+            return;
+        }
+        // encoded right away so later changes of the instance are not reflected in the stored events
+        byte[] encoded = codec.encode(events);
+        for (EventRelay relay : relays) {
+            if (!relay.append(encoded, events.size(), enqueueTimeout)) {
+                LOGGER.warn("Outbox of publisher {} is full, publishing {} events directly", relay.publisher(),
+                        events.size());
+                relay.publisher().publish(events);
+            }
+        }
+    }
+
+    /**
+     * Publishes given events to publishers that require source instance of the events and thus are not served from
+     * the outbox
+     *
+     * @param events events of single unit of work
+     */
+    public void publishDirectly(Collection<DataEvent<?>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        direct.forEach(p -> p.publish(events));
+    }
+
+    /**
+     * Wakes up all relays, used by transactional outbox once events were committed
+     */
+    public void signal() {
+        relays.forEach(EventRelay::signal);
+    }
+
+    /**
+     * Indicates if events must be appended within transaction of the unit of work
+     *
+     * @return true if outbox is transactional otherwise false
+     */
+    public boolean transactional() {
+        return outbox.transactional();
+    }
+
+    @Override
+    public void addPublisher(EventPublisher publisher) {
+        if (publisher.requiresSourceInstance()) {
+            direct.add(publisher);
+            return;
+        }
+        for (EventRelay relay : relays) {
+            if (relay.publisher().equals(publisher)) {
+                return;
+            }
+        }
+        relays.add(new EventRelay(publisher, outbox, codec, queueSize, batchSize, retries, retryDelay, pollInterval));
+    }
+
+    /**
+     * Returns relays of all publishers, mainly for monitoring purpose
+     *
+     * @return unmodifiable list of relays
+     */
+    public List<EventRelay> relays() {
+        return Collections.unmodifiableList(relays);
+    }
+
+    /**
+     * Stops all relays, waiting for already appended events to be published, events that were not published stay in
+     * the outbox and are published after restart
+     *
+     * @param timeout how long (in milliseconds) to wait for every relay
+     */
+    public void close(long timeout) {
+        for (EventRelay relay : relays) {
+            relay.close(timeout);
+        }
+        outbox.close();
+    }
+}
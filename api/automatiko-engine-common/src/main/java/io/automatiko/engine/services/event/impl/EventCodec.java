@@ -0,0 +1,30 @@
+package io.automatiko.engine.services.event.impl;
+
+import java.util.Collection;
+import java.util.List;
+
+import io.automatiko.engine.api.event.DataEvent;
+
+/**
+ * Converts events to and from the form they are stored in the {@link EventOutbox}. Events are encoded when they are
+ * appended (by the unit of work) so the stored form does not change when the process instance they were created from
+ * changes afterwards.
+ */
+public interface EventCodec {
+
+    /**
+     * Encodes given events
+     *
+     * @param events events to be encoded
+     * @return encoded events
+     */
+    byte[] encode(Collection<DataEvent<?>> events);
+
+    /**
+     * Decodes events previously encoded by this codec
+     *
+     * @param data encoded events
+     * @return decoded events
+     */
+    List<DataEvent<?>> decode(byte[] data);
+}
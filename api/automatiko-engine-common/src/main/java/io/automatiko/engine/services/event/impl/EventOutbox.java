@@ -0,0 +1,115 @@
+package io.automatiko.engine.services.event.impl;
+
+import java.util.List;
+
+/**
+ * Durable store of events waiting to be published. Events of single unit of work are stored as one entry (in their
+ * serialized form) for every publisher so they survive restart or crash of the service and are delivered by
+ * {@link EventRelay} once the service is back.
+ * <br/>
+ * Entries are claimed by the relay of given publisher, and stay claimed until they are acknowledged (after delivery)
+ * or released (when delivery was interrupted) so they are never delivered concurrently.
+ */
+public interface EventOutbox {
+
+    /**
+     * Durably stores events to be published by given publisher
+     *
+     * @param publisher identifier of the publisher
+     * @param events serialized events of single unit of work
+     * @param count number of events
+     */
+    void append(String publisher, byte[] events, int count);
+
+    /**
+     * Claims oldest entries of given publisher that are not claimed yet
+     *
+     * @param publisher identifier of the publisher
+     * @param limit max number of entries to claim
+     * @return claimed entries in order they were appended, empty list if there are none
+     */
+    List<Entry> claim(String publisher, int limit);
+
+    /**
+     * Removes given claimed entries from the outbox
+     *
+     * @param publisher identifier of the publisher
+     * @param entries entries that were processed
+     */
+    void acknowledge(String publisher, List<Entry> entries);
+
+    /**
+     * Releases claimed entries without removing them so they can be claimed again
+     *
+     * @param publisher identifier of the publisher
+     * @param entries entries that were not processed
+     */
+    void release(String publisher, List<Entry> entries);
+
+    /**
+     * Returns number of events of given publisher that are stored in the outbox
+     *
+     * @param publisher identifier of the publisher
+     * @return number of stored events
+     */
+    long pending(String publisher);
+
+    /**
+     * Returns time (in milliseconds) when the oldest entry of given publisher was appended
+     *
+     * @param publisher identifier of the publisher
+     * @return append time of the oldest entry or 0 when there are no entries
+     */
+    long oldest(String publisher);
+
+    /**
+     * Indicates if entries are appended as part of the transaction of the unit of work, in such case they must be
+     * appended before the transaction is committed
+     *
+     * @return true if outbox is transactional otherwise false
+     */
+    default boolean transactional() {
+        return false;
+    }
+
+    /**
+     * Releases any resources held by the outbox
+     */
+    default void close() {
+
+    }
+
+    /**
+     * Single entry of the outbox - events of single unit of work
+     */
+    public static class Entry {
+
+        private final long id;
+        private final byte[] events;
+        private final int count;
+        private final long appended;
+
+        public Entry(long id, byte[] events, int count, long appended) {
+            this.id = id;
+            this.events = events;
+            this.count = count;
+            this.appended = appended;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public byte[] events() {
+            return events;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long appended() {
+            return appended;
+        }
+    }
+}
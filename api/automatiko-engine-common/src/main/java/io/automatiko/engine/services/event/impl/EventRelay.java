@@ -0,0 +1,288 @@
+package io.automatiko.engine.services.event.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.api.event.EventPublisher;
+
+/**
+ * Relay of events stored in the {@link EventOutbox} for single publisher. Events are appended (already encoded) by
+ * units of work and delivered to the publisher by background thread in batches so slow publisher does not block the
+ * units of work. Entries are removed from the outbox only after they were handed over to the publisher, entries
+ * left in the outbox by previous run of the service are delivered as soon as the relay starts.
+ * <br/>
+ * Unless the outbox is transactional, it is bounded - when it is full, appending waits for given time and then gives
+ * up so caller can publish events on its own. Delivery that fails is retried with exponential backoff and events are
+ * dropped (and logged) once retries are exhausted.
+ */
+public class EventRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventRelay.class);
+
+    private final EventPublisher publisher;
+
+    private final String key;
+
+    private final EventOutbox outbox;
+
+    private final EventCodec codec;
+
+    private final int queueSize;
+    private final int batchSize;
+    private final int retries;
+    private final long retryDelay;
+    private final long pollInterval;
+
+    private final LongSupplier clock;
+
+    private final Object monitor = new Object();
+    private boolean signalled;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    // time when the oldest event that is currently being delivered was appended, 0 if there is none
+    private volatile long inFlightSince;
+
+    private volatile boolean running = true;
+
+    private final Thread worker;
+
+    public EventRelay(EventPublisher publisher, EventOutbox outbox, EventCodec codec, int queueSize, int batchSize,
+            int retries, long retryDelay, long pollInterval) {
+        this(publisher, outbox, codec, queueSize, batchSize, retries, retryDelay, pollInterval, System::currentTimeMillis);
+    }
+
+    protected EventRelay(EventPublisher publisher, EventOutbox outbox, EventCodec codec, int queueSize, int batchSize,
+            int retries, long retryDelay, long pollInterval, LongSupplier clock) {
+        this.publisher = publisher;
+        this.key = publisher.getClass().getName();
+        this.outbox = outbox;
+        this.codec = codec;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+        this.pollInterval = pollInterval;
+        this.clock = clock;
+
+        this.worker = new Thread(this::relay, "automatiko-event-relay-" + publisher.getClass().getSimpleName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public EventPublisher publisher() {
+        return publisher;
+    }
+
+    /**
+     * Appends encoded events to the outbox
+     *
+     * @param events encoded events of single unit of work
+     * @param count number of events
+     * @param timeout how long (in milliseconds) to wait for space in the outbox
+     * @return true if events were appended, false if outbox is full or closed
+     */
+    public boolean append(byte[] events, int count, long timeout) {
+        if (count == 0) {
+            return true;
+        }
+        if (!running) {
+            return false;
+        }
+        if (outbox.transactional()) {
+            // stored as part of the transaction of the unit of work, relay is signalled once it is committed
+            outbox.append(key, events, count);
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (monitor) {
+            // batch larger than the whole outbox takes all of it
+            long pending;
+            while ((pending = outbox.pending(key)) > 0 && pending + count > queueSize) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    monitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        outbox.append(key, events, count);
+        signal();
+        return true;
+    }
+
+    /**
+     * Wakes up the relay to deliver newly appended events
+     */
+    public void signal() {
+        synchronized (monitor) {
+            signalled = true;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Stops the relay, events already in the outbox are delivered before it stops unless given timeout elapses, events
+     * that were not delivered stay in the outbox
+     *
+     * @param timeout how long (in milliseconds) to wait for remaining events to be delivered
+     */
+    public void close(long timeout) {
+        running = false;
+        signal();
+        try {
+            worker.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+            LOGGER.warn("Event relay for publisher {} stopped with {} events not published, they stay in the outbox",
+                    publisher, pending());
+        }
+    }
+
+    /**
+     * Returns number of events waiting to be published, including the ones being delivered
+     */
+    public long pending() {
+        return outbox.pending(key);
+    }
+
+    public long published() {
+        return published.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long retried() {
+        return retried.get();
+    }
+
+    /**
+     * Returns how long the oldest event waiting to be published is in the outbox
+     *
+     * @param unit unit of the returned value
+     * @return age of the oldest event or 0 when outbox is empty
+     */
+    public long lag(TimeUnit unit) {
+        long since = inFlightSince;
+        if (since == 0) {
+            since = outbox.oldest(key);
+            if (since == 0) {
+                return 0;
+            }
+        }
+        return unit.convert(Math.max(0, clock.getAsLong() - since), TimeUnit.MILLISECONDS);
+    }
+
+    protected void relay() {
+        while (true) {
+            List<EventOutbox.Entry> entries;
+            try {
+                entries = outbox.claim(key, batchSize);
+            } catch (Exception e) {
+                LOGGER.warn("Unable to read outbox of publisher {}, retrying in {} ms", publisher, pollInterval, e);
+                entries = null;
+            }
+            try {
+                if (entries == null || entries.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    await();
+                    continue;
+                }
+                deliver(entries);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /*
+     * delivers claimed entries in batches that do not exceed batch size, units of work are never split so events of
+     * single unit of work are always published together
+     */
+    protected void deliver(List<EventOutbox.Entry> entries) throws InterruptedException {
+        int index = 0;
+        while (index < entries.size()) {
+            List<EventOutbox.Entry> batch = new ArrayList<>();
+            int count = 0;
+            do {
+                count += entries.get(index).count();
+                batch.add(entries.get(index));
+                index++;
+            } while (index < entries.size() && count + entries.get(index).count() <= batchSize);
+
+            inFlightSince = batch.get(0).appended();
+            try {
+                List<DataEvent<?>> events = new ArrayList<>(count);
+                for (EventOutbox.Entry entry : batch) {
+                    events.addAll(codec.decode(entry.events()));
+                }
+                deliverEvents(events);
+            } catch (InterruptedException e) {
+                outbox.release(key, entries.subList(index - batch.size(), entries.size()));
+                throw e;
+            } catch (RuntimeException e) {
+                failed.addAndGet(count);
+                LOGGER.error("Unable to decode {} events stored in outbox of publisher {}, events are dropped", count,
+                        publisher, e);
+            }
+            outbox.acknowledge(key, batch);
+            inFlightSince = 0;
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    protected void deliverEvents(List<DataEvent<?>> events) throws InterruptedException {
+        long delay = retryDelay;
+        for (int attempt = 0;; attempt++) {
+            try {
+                publisher.publish(events);
+                published.addAndGet(events.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= retries) {
+                    failed.addAndGet(events.size());
+                    LOGGER.error("Publishing of {} events by {} failed after {} retries, events are dropped", events.size(),
+                            publisher, retries, e);
+                    return;
+                }
+                retried.incrementAndGet();
+                LOGGER.warn("Publishing of {} events by {} failed, retrying in {} ms", events.size(), publisher, delay, e);
+                Thread.sleep(delay);
+                delay *= 2;
+            }
+        }
+    }
+
+    private void await() throws InterruptedException {
+        synchronized (monitor) {
+            if (!signalled && running) {
+                monitor.wait(pollInterval);
+            }
+            signalled = false;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package io.automatiko.engine.services.event.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Outbox that keeps events in local append only log files, one per publisher. Every append is forced to disk before
+ * it returns so events of completed units of work survive crash of the service.
+ * <br/>
+ * Next to the log there is an offset file that points to the first entry that was not yet acknowledged. Once
+ * acknowledged part of the log grows over compaction threshold, remaining entries are copied to a new log (next
+ * generation) and the old one is removed.
+ */
+public class FileEventOutbox implements EventOutbox {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileEventOutbox.class);
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 16 * 1024 * 1024;
+
+    private static final String LOG_PREFIX = "outbox-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String OFFSET_FILE = "outbox.offset";
+
+    // record header is made of body length and its checksum
+    private static final int HEADER_SIZE = 8;
+    // body starts with append time and number of events
+    private static final int BODY_HEADER_SIZE = 12;
+
+    private final Path storage;
+
+    private final long compactionThreshold;
+
+    private final Map<String, Log> logs = new ConcurrentHashMap<>();
+
+    public FileEventOutbox(Path storage) {
+        this(storage, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public FileEventOutbox(Path storage, long compactionThreshold) {
+        this.storage = storage;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @Override
+    public void append(String publisher, byte[] events, int count) {
+        Log log = log(publisher);
+        synchronized (log) {
+            try {
+                log.append(events, count, System.currentTimeMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public List<Entry> claim(String publisher, int limit) {
+        Log log = log(publisher);
+        synchronized (log) {
+            try {
+                return log.claim(limit);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void acknowledge(String publisher, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Log log = log(publisher);
+        synchronized (log) {
+            try {
+                log.acknowledge(entries.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void release(String publisher, List<Entry> entries) {
+        Log log = log(publisher);
+        synchronized (log) {
+            log.claimed = Math.max(0, log.claimed - entries.size());
+        }
+    }
+
+    @Override
+    public long pending(String publisher) {
+        Log log = log(publisher);
+        synchronized (log) {
+            return log.pending;
+        }
+    }
+
+    @Override
+    public long oldest(String publisher) {
+        Log log = log(publisher);
+        synchronized (log) {
+            Record first = log.records.peekFirst();
+            return first == null ? 0 : first.appended;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Log log : logs.values()) {
+            synchronized (log) {
+                try {
+                    log.channel.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to close event outbox log {}", log.directory, e);
+                }
+            }
+        }
+        logs.clear();
+    }
+
+    protected Log log(String publisher) {
+        return logs.computeIfAbsent(publisher, p -> {
+            try {
+                return new Log(storage.resolve(p.replaceAll("[^a-zA-Z0-9._-]", "_")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    protected class Log {
+
+        private final Path directory;
+
+        private long generation;
+
+        private FileChannel channel;
+
+        // records that were not acknowledged yet in order they were appended
+        private final ArrayDeque<Record> records = new ArrayDeque<>();
+
+        // number of records (from the head) that are claimed
+        private int claimed;
+
+        // position of the first record that was not acknowledged
+        private long offset;
+
+        private long pending;
+
+        Log(Path directory) throws IOException {
+            this.directory = directory;
+            Files.createDirectories(directory);
+
+            Path offsetFile = directory.resolve(OFFSET_FILE);
+            if (Files.exists(offsetFile)) {
+                ByteBuffer stored = ByteBuffer.wrap(Files.readAllBytes(offsetFile));
+                this.generation = stored.getLong();
+                this.offset = stored.getLong();
+            }
+            // logs of other generations are left overs of interrupted compaction
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(LOG_PREFIX) && !file.equals(logPath(generation))) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            this.channel = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            replay();
+        }
+
+        void append(byte[] events, int count, long appended) throws IOException {
+            long position = channel.size();
+            ByteBuffer body = ByteBuffer.allocate(BODY_HEADER_SIZE + events.length);
+            body.putLong(appended);
+            body.putInt(count);
+            body.put(events);
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.capacity());
+            buffer.putInt(body.capacity());
+            buffer.putInt(checksum(body.array()));
+            buffer.put(body.array());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            channel.force(false);
+
+            records.addLast(new Record(position, HEADER_SIZE + body.capacity(), count, appended));
+            pending += count;
+        }
+
+        List<Entry> claim(int limit) throws IOException {
+            List<Entry> entries = new ArrayList<>();
+            Iterator<Record> it = records.iterator();
+            for (int i = 0; i < claimed && it.hasNext(); i++) {
+                it.next();
+            }
+            while (it.hasNext() && entries.size() < limit) {
+                Record record = it.next();
+                int length = record.length - HEADER_SIZE - BODY_HEADER_SIZE;
+                ByteBuffer events = ByteBuffer.allocate(length);
+                read(events, record.position + HEADER_SIZE + BODY_HEADER_SIZE);
+                entries.add(new Entry(record.position, events.array(), record.count, record.appended));
+            }
+            claimed += entries.size();
+            return entries;
+        }
+
+        void acknowledge(int count) throws IOException {
+            for (int i = 0; i < count && !records.isEmpty(); i++) {
+                Record record = records.pollFirst();
+                offset = record.position + record.length;
+                pending -= record.count;
+            }
+            claimed = Math.max(0, claimed - count);
+            storeOffset();
+
+            if (offset >= compactionThreshold && claimed == 0) {
+                compact();
+            }
+        }
+
+        /*
+         * copies entries that were not acknowledged to log of the next generation, new log is switched to by storing
+         * the offset so interrupted compaction leaves the current log in place
+         */
+        protected void compact() throws IOException {
+            long next = generation + 1;
+            long size = channel.size();
+            try (FileChannel target = FileChannel.open(logPath(next), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = offset;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+                target.force(false);
+            }
+            long shift = offset;
+            long previous = generation;
+            channel.close();
+
+            generation = next;
+            offset = 0;
+            storeOffset();
+            Files.deleteIfExists(logPath(previous));
+
+            channel = FileChannel.open(logPath(generation), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ArrayDeque<Record> shifted = new ArrayDeque<>();
+            for (Record record : records) {
+                shifted.add(new Record(record.position - shift, record.length, record.count, record.appended));
+            }
+            records.clear();
+            records.addAll(shifted);
+            LOGGER.debug("Event outbox log {} compacted to generation {}", directory, generation);
+        }
+
+        protected void replay() throws IOException {
+            long position = offset;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                read(header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < BODY_HEADER_SIZE || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                read(body, position + HEADER_SIZE);
+                if (checksum(body.array()) != checksum) {
+                    break;
+                }
+                body.flip();
+                long appended = body.getLong();
+                int count = body.getInt();
+                records.addLast(new Record(position, HEADER_SIZE + length, count, appended));
+                pending += count;
+
+                position += HEADER_SIZE + length;
+            }
+            if (position < size) {
+                // incomplete record written during crash, drop it so new records are not appended after it
+                LOGGER.warn("Truncating incomplete record at position {} of event outbox log {}", position, directory);
+                channel.truncate(position);
+            }
+            if (pending > 0) {
+                LOGGER.info("Event outbox log {} loaded with {} event(s) to be published", directory, pending);
+            }
+        }
+
+        private void read(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of event outbox log " + directory);
+                }
+            }
+        }
+
+        private void storeOffset() throws IOException {
+            Path tmp = directory.resolve(OFFSET_FILE + ".tmp");
+            ByteBuffer stored = ByteBuffer.allocate(16);
+            stored.putLong(generation);
+            stored.putLong(offset);
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                stored.flip();
+                while (stored.hasRemaining()) {
+                    out.write(stored);
+                }
+                out.force(false);
+            }
+            Files.move(tmp, directory.resolve(OFFSET_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private Path logPath(long generation) {
+            return directory.resolve(LOG_PREFIX + String.format("%016d", generation) + LOG_SUFFIX);
+        }
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static class Record {
+
+        private final long position;
+        private final int length;
+        private final int count;
+        private final long appended;
+
+        Record(long position, int length, int count, long appended) {
+            this.position = position;
+            this.length = length;
+            this.count = count;
+            this.appended = appended;
+        }
+    }
+}
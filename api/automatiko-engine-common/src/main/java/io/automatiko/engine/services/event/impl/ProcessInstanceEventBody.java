@@ -49,6 +49,9 @@ public class ProcessInstanceEventBody {
 
     private Set<MilestoneEventBody> milestones = Collections.emptySet();
 
+    // id of the process definition (including version), kept with the body as source instance is not always available
+    private String definitionId;
+
     private transient ProcessInstance<?> instance;
 
     private ProcessInstanceEventBody() {
@@ -126,6 +129,10 @@ public class ProcessInstanceEventBody {
         return instance;
     }
 
+    public String definitionId() {
+        return definitionId;
+    }
+
     public Builder update() {
         return new Builder(this);
     }
@@ -272,6 +279,7 @@ public class ProcessInstanceEventBody {
 
         public Builder instance(ProcessInstance<?> pinstance) {
             instance.instance = pinstance;
+            instance.definitionId = pinstance.process().id();
             return this;
         }
 
@@ -7,8 +7,8 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -31,18 +31,27 @@ public class InMemoryJobService implements JobsService {
     private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryJobService.class);
     private static final String TRIGGER = "timer";
 
-    protected final ScheduledThreadPoolExecutor scheduler;
+    protected final ScheduledExecutorService scheduler;
     protected final ProcessRuntime processRuntime;
     protected final UnitOfWorkManager unitOfWorkManager;
 
     protected ConcurrentHashMap<String, ScheduledFuture<?>> scheduledJobs = new ConcurrentHashMap<>();
 
+    /**
+     * Creates job service that uses scheduler shared by all job services created this way, as there is one created for
+     * every process runtime
+     */
     public InMemoryJobService(ProcessRuntime processRuntime, UnitOfWorkManager unitOfWorkManager) {
-        this(1, processRuntime, unitOfWorkManager);
+        this(SharedScheduler.INSTANCE, processRuntime, unitOfWorkManager);
     }
 
     public InMemoryJobService(int threadPoolSize, ProcessRuntime processRuntime, UnitOfWorkManager unitOfWorkManager) {
-        this.scheduler = new ScheduledThreadPoolExecutor(threadPoolSize);
+        this(new TimingWheelScheduler("automatiko-jobs-executor", threadPoolSize), processRuntime, unitOfWorkManager);
+    }
+
+    public InMemoryJobService(ScheduledExecutorService scheduler, ProcessRuntime processRuntime,
+            UnitOfWorkManager unitOfWorkManager) {
+        this.scheduler = scheduler;
         this.processRuntime = processRuntime;
         this.unitOfWorkManager = unitOfWorkManager;
     }
@@ -301,4 +310,9 @@ public class InMemoryJobService implements JobsService {
             }
         }
     }
+
+    private static class SharedScheduler {
+
+        private static final ScheduledExecutorService INSTANCE = new TimingWheelScheduler("automatiko-jobs-executor", 1);
+    }
 }
@@ -0,0 +1,458 @@
+package io.automatiko.engine.services.jobs.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler based on hashed timing wheel that is meant to hold large number of timers of which most
+ * are cancelled before they expire (e.g. boundary timers).
+ * <br/>
+ * Scheduling and cancelling a timer is O(1) - timers are added to a queue and placed into the wheel bucket by the
+ * wheel thread on the next tick, cancelled timers are removed from their bucket on the next tick as well.
+ * Timers are fired with precision of the configured tick duration and are handed off to separate executor
+ * so long running timer actions do not delay other timers.
+ * <br/>
+ * Wheel thread is only started when the first timer is scheduled so schedulers that are never used do not tick.
+ * Default executor has bounded queue, expired timers that it rejects are not dropped but fired again on the next tick.
+ */
+public class TimingWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    // limits number of timers moved into the wheel per tick so the wheel thread is not starved by scheduling bursts
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int TERMINATED = 2;
+
+    private final long tickDuration;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final ExecutorService executor;
+
+    private final Thread worker;
+
+    private final Queue<Timer<?>> scheduled = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timer<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final long startTime = System.nanoTime();
+
+    private long tick;
+
+    /**
+     * Creates scheduler with default tick (10 ms) and wheel size that executes expired timers on given number of
+     * threads
+     *
+     * @param name name used for the wheel and executor threads
+     * @param threads number of threads used to execute expired timers
+     */
+    public TimingWheelScheduler(String name, int threads) {
+        this(name, threads, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates scheduler that executes expired timers on given number of threads
+     *
+     * @param name name used for the wheel and executor threads
+     * @param threads number of threads used to execute expired timers
+     * @param tickDuration duration of the single tick of the wheel in milliseconds
+     * @param ticksPerWheel number of buckets in the wheel, rounded up to power of two
+     * @param queueSize max number of expired timers waiting for executor thread
+     */
+    public TimingWheelScheduler(String name, int threads, long tickDuration, int ticksPerWheel, int queueSize) {
+        this(name, tickDuration, TimeUnit.MILLISECONDS, ticksPerWheel, executor(name, threads, queueSize));
+    }
+
+    /**
+     * Creates scheduler with given configuration
+     *
+     * @param name name of the wheel thread
+     * @param tickDuration duration of the single tick of the wheel
+     * @param unit time unit of the tick duration
+     * @param ticksPerWheel number of buckets in the wheel, rounded up to power of two
+     * @param executor executor expired timers are handed off to, it is shut down together with the scheduler
+     */
+    public TimingWheelScheduler(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, ExecutorService executor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than 0");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("Ticks per wheel must be between 1 and 2^30");
+        }
+        this.tickDuration = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(1, size)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.executor = executor;
+        this.worker = new Thread(this::run, name + "-wheel");
+        this.worker.setDaemon(true);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(new Timer<Void>(command, null, deadline(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return schedule(new Timer<V>(callable, deadline(delay, unit), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be greater than 0");
+        }
+        return schedule(new Timer<Void>(command, null, deadline(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be greater than 0");
+        }
+        return schedule(new Timer<Void>(command, null, deadline(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (state.get() != RUNNING) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        executor.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        if (state.compareAndSet(RUNNING, SHUTDOWN)) {
+            if (started.compareAndSet(false, true)) {
+                // wheel was never started so there is nothing to stop
+                state.set(TERMINATED);
+            } else {
+                worker.interrupt();
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> notExecuted = new ArrayList<>(executor.shutdownNow());
+        for (Timer<?> timer; (timer = scheduled.poll()) != null;) {
+            notExecuted.add(timer);
+        }
+        return notExecuted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state.get() != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return state.get() == TERMINATED && executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (worker.isAlive()) {
+            worker.join(Math.max(1, unit.toMillis(timeout)));
+        }
+        return executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns number of timers that are waiting to expire including cancelled timers not yet removed from the wheel
+     *
+     * @return number of pending timers
+     */
+    public int pending() {
+        int count = scheduled.size();
+        for (Bucket bucket : wheel) {
+            count += bucket.size;
+        }
+        return count;
+    }
+
+    private <V> Timer<V> schedule(Timer<V> timer) {
+        if (state.get() != RUNNING) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        scheduled.add(timer);
+        if (!started.get() && started.compareAndSet(false, true)) {
+            worker.start();
+        }
+        return timer;
+    }
+
+    private long deadline(long delay, TimeUnit unit) {
+        return plus(now(), Math.max(0, unit.toNanos(delay)));
+    }
+
+    /*
+     * adds non negative delay to the deadline, saturating at Long.MAX_VALUE so very long delays (that toNanos already
+     * saturates) never overflow into the past
+     */
+    private static long plus(long deadline, long delay) {
+        return delay >= Long.MAX_VALUE - deadline ? Long.MAX_VALUE : deadline + delay;
+    }
+
+    private long now() {
+        return System.nanoTime() - startTime;
+    }
+
+    private void run() {
+        try {
+            while (state.get() == RUNNING) {
+                long deadline = tickDuration * (tick + 1);
+                long sleep = deadline - now();
+                if (sleep > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        if (state.get() != RUNNING) {
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                removeCancelled();
+                transferScheduled();
+                wheel[(int) (tick & mask)].expire(now());
+                tick++;
+            }
+        } catch (Throwable e) {
+            LOGGER.error("Timing wheel stopped unexpectedly", e);
+        } finally {
+            state.set(TERMINATED);
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timer<?> timer = scheduled.poll();
+            if (timer == null) {
+                break;
+            }
+            if (timer.isCancelled()) {
+                continue;
+            }
+            place(timer);
+        }
+    }
+
+    private void place(Timer<?> timer) {
+        long expirationTick = timer.deadline / tickDuration;
+        // timers that are already overdue go to the current bucket
+        long targetTick = Math.max(expirationTick, tick);
+        timer.rounds = (targetTick - tick) / wheel.length;
+        wheel[(int) (targetTick & mask)].add(timer);
+    }
+
+    private void removeCancelled() {
+        for (Timer<?> timer; (timer = cancelled.poll()) != null;) {
+            if (timer.bucket != null) {
+                timer.bucket.remove(timer);
+            }
+        }
+    }
+
+    private void fire(Timer<?> timer) {
+        try {
+            executor.execute(timer);
+        } catch (RejectedExecutionException e) {
+            if (state.get() == RUNNING) {
+                // executor is saturated, timer is placed back to the wheel and fired again on the next tick
+                LOGGER.debug("Executor rejected expired timer, it will be fired on the next tick");
+                scheduled.add(timer);
+            }
+        }
+    }
+
+    private static ExecutorService executor(String name, int threads, int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                threadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*
+     * Doubly linked list of timers that expire at the same tick (possibly in different rounds), only accessed from the
+     * wheel thread
+     */
+    private final class Bucket {
+
+        private Timer<?> head;
+        private Timer<?> tail;
+        private volatile int size;
+
+        void add(Timer<?> timer) {
+            timer.bucket = this;
+            if (head == null) {
+                head = tail = timer;
+            } else {
+                tail.next = timer;
+                timer.prev = tail;
+                tail = timer;
+            }
+            size++;
+        }
+
+        void expire(long now) {
+            Timer<?> timer = head;
+            while (timer != null) {
+                Timer<?> next = timer.next;
+                if (timer.isCancelled()) {
+                    remove(timer);
+                } else if (timer.rounds <= 0 && timer.deadline <= now) {
+                    remove(timer);
+                    fire(timer);
+                } else if (timer.rounds > 0) {
+                    timer.rounds--;
+                }
+                timer = next;
+            }
+        }
+
+        void remove(Timer<?> timer) {
+            if (timer.bucket != this) {
+                return;
+            }
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            } else {
+                tail = timer.prev;
+            }
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+            size--;
+        }
+    }
+
+    private final class Timer<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        // positive for fixed rate, negative for fixed delay and zero for one time timers
+        private final long period;
+
+        private volatile long deadline;
+
+        private long rounds;
+        private Bucket bucket;
+        private Timer<?> prev;
+        private Timer<?> next;
+
+        Timer(Runnable runnable, V result, long deadline, long period) {
+            super(runnable, result);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        Timer(Callable<V> callable, long deadline, long period) {
+            super(callable);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - now(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelledNow = super.cancel(mayInterruptIfRunning);
+            if (cancelledNow) {
+                // actual removal from the wheel is done lazily by the wheel thread
+                cancelled.add(this);
+            }
+            return cancelledNow;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (super.runAndReset() && state.get() == RUNNING) {
+                deadline = period > 0 ? plus(deadline, period) : plus(now(), -period);
+                try {
+                    schedule(this);
+                } catch (RejectedExecutionException e) {
+                    // scheduler has been shut down in the meantime
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TimingWheelScheduler [tickDuration=" + tickDuration + "ns, ticksPerWheel=" + wheel.length + ", state="
+                + state.get() + ", executor=" + executor + "]";
+    }
+}
@@ -1,32 +1,130 @@
-
 package io.automatiko.engine.services.signal;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.automatiko.engine.api.config.SignalsConfig;
 import io.automatiko.engine.api.runtime.process.ProcessInstance;
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
 import io.automatiko.engine.api.workflow.signal.SignalManager;
 import io.automatiko.engine.api.workflow.signal.SignalManagerHub;
+import io.automatiko.engine.services.uow.UnitOfWorkExecutor;
 
+/**
+ * Default signal manager hub that dispatches signals to signal managers subscribed to given type.
+ * <br/>
+ * When created with partitions signals are published asynchronously. Signals are then dispatched on partitions
+ * (single threaded executors) selected by the target of the signal - process instance id for targeted signals and
+ * signal manager for broadcast signals. That keeps the order of signals delivered to the same target while signals to
+ * different targets are delivered in parallel. Asynchronously delivered signals are not part of the unit of work of
+ * the publisher, each delivery runs in its own unit of work. Process instance events (e.g. completion of sub process)
+ * are always delivered synchronously as the waiting instance is usually part of the same unit of work.
+ */
 public class DefaultSignalManagerHub implements SignalManagerHub {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultSignalManagerHub.class);
+
+    private static final Map<Integer, ExecutorService[]> SHARED_PARTITIONS = new ConcurrentHashMap<>();
+
     private ConcurrentHashMap<String, Set<SignalManager>> signalManagers = new ConcurrentHashMap<>();
 
+    private final ExecutorService[] partitions;
+
+    private final UnitOfWorkManager unitOfWorkManager;
+
+    private final boolean ownsPartitions;
+
+    public DefaultSignalManagerHub() {
+        this(new ExecutorService[0], null, true);
+    }
+
+    /**
+     * Creates hub with given number of partitions used for asynchronous publishing, signals are delivered without
+     * unit of work
+     *
+     * @param partitions number of partitions, usually number of available processors
+     */
+    public DefaultSignalManagerHub(int partitions) {
+        this(partitions, null);
+    }
+
+    /**
+     * Creates hub with given number of partitions used for asynchronous publishing
+     *
+     * @param partitions number of partitions, usually number of available processors
+     * @param unitOfWorkManager unit of work manager used to deliver each signal in its own unit of work
+     */
+    public DefaultSignalManagerHub(int partitions, UnitOfWorkManager unitOfWorkManager) {
+        this(createPartitions(partitions), unitOfWorkManager, true);
+    }
+
+    private DefaultSignalManagerHub(ExecutorService[] partitions, UnitOfWorkManager unitOfWorkManager,
+            boolean ownsPartitions) {
+        this.partitions = partitions;
+        this.unitOfWorkManager = unitOfWorkManager;
+        this.ownsPartitions = ownsPartitions;
+    }
+
+    /**
+     * Creates hub configured by <code>quarkus.automatiko.signals.partitions</code> system property, synchronous when
+     * it is not set. Hubs created this way (one per process runtime) share the same partitions so they do not start
+     * threads of their own, shared partitions are never stopped by {@link #close()}.
+     *
+     * @param unitOfWorkManager unit of work manager used to deliver signals asynchronously
+     * @return new signal manager hub
+     */
+    public static DefaultSignalManagerHub configured(UnitOfWorkManager unitOfWorkManager) {
+        Integer partitions = Integer.getInteger(SignalsConfig.PARTITIONS_KEY);
+        if (partitions == null) {
+            return new DefaultSignalManagerHub();
+        }
+        return new DefaultSignalManagerHub(SHARED_PARTITIONS.computeIfAbsent(partitions, DefaultSignalManagerHub::createPartitions),
+                unitOfWorkManager, false);
+    }
+
+    private static ExecutorService[] createPartitions(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be greater than 0");
+        }
+        ExecutorService[] executors = new ExecutorService[partitions];
+        for (int i = 0; i < partitions; i++) {
+            String name = "automatiko-signals-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executors;
+    }
+
     @Override
     public void publish(String type, Object signalData) {
-        Set<SignalManager> list = signalManagers.getOrDefault(type, Collections.emptySet());
-        for (SignalManager sm : list) {
+        if (partitions.length > 0 && !(signalData instanceof ProcessInstance)) {
+            publishAsync(type, signalData).exceptionally(e -> {
+                LOGGER.warn("Asynchronous delivery of signal '{}' failed", type, e);
+                return null;
+            });
+            return;
+        }
+        for (SignalManager sm : signalManagers.getOrDefault(type, Collections.emptySet())) {
             sm.signalEvent(type, signalData);
         }
 
         if (signalData instanceof ProcessInstance) {
-            list = signalManagers.getOrDefault(
-                    ((ProcessInstance) signalData).getProcessId() + version((ProcessInstance) signalData),
-                    Collections.emptySet());
-
-            for (SignalManager sm : list) {
+            for (SignalManager sm : signalManagers.getOrDefault(SubscriptionKeys.of((ProcessInstance) signalData),
+                    Collections.emptySet())) {
                 sm.signalEvent(type, signalData);
             }
         }
@@ -34,9 +132,51 @@ public class DefaultSignalManagerHub implements SignalManagerHub {
 
     @Override
     public void publishTargeting(String id, String type, Object signalData) {
+        if (partitions.length > 0) {
+            publishTargetingAsync(id, type, signalData).exceptionally(e -> {
+                LOGGER.warn("Asynchronous delivery of signal '{}' to instance '{}' failed", type, id, e);
+                return null;
+            });
+            return;
+        }
+        deliverTargeting(id, type, signalData);
+    }
+
+    private void deliverTargeting(String id, String type, Object signalData) {
         signalManagers.getOrDefault(type, Collections.emptySet()).forEach(e -> e.signalEvent(id, type, signalData));
     }
 
+    /**
+     * Publishes signal asynchronously, signals delivered to the same signal manager keep the order of publishing
+     *
+     * @return future completed once all subscribed signal managers were signaled
+     */
+    public CompletableFuture<Void> publishAsync(String type, Object signalData) {
+        List<CompletableFuture<Void>> delivered = new ArrayList<>();
+        for (SignalManager sm : signalManagers.getOrDefault(type, Collections.emptySet())) {
+            delivered.add(CompletableFuture.runAsync(() -> deliver(() -> sm.signalEvent(type, signalData)), partition(sm)));
+        }
+
+        if (signalData instanceof ProcessInstance) {
+            for (SignalManager sm : signalManagers.getOrDefault(SubscriptionKeys.of((ProcessInstance) signalData),
+                    Collections.emptySet())) {
+                delivered.add(
+                        CompletableFuture.runAsync(() -> deliver(() -> sm.signalEvent(type, signalData)), partition(sm)));
+            }
+        }
+        return CompletableFuture.allOf(delivered.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Publishes signal to given process instance asynchronously, signals delivered to the same process instance keep
+     * the order of publishing
+     *
+     * @return future completed once all subscribed signal managers were signaled
+     */
+    public CompletableFuture<Void> publishTargetingAsync(String id, String type, Object signalData) {
+        return CompletableFuture.runAsync(() -> deliver(() -> deliverTargeting(id, type, signalData)), partition(id));
+    }
+
     @Override
     public void subscribe(String type, SignalManager signalManager) {
         this.signalManagers.compute(type, (k, v) -> {
@@ -52,18 +192,38 @@ public class DefaultSignalManagerHub implements SignalManagerHub {
     public void unsubscribe(String type, SignalManager signalManager) {
         this.signalManagers.computeIfPresent(type, (k, v) -> {
             v.remove(signalManager);
-            if (v.isEmpty()) {
-                signalManagers.remove(type);
-            }
-            return v;
+            return v.isEmpty() ? null : v;
+        });
+    }
+
+    /**
+     * Stops partitions used for asynchronous publishing, partitions shared by configured hubs are kept running
+     */
+    public void close() {
+        if (!ownsPartitions) {
+            return;
+        }
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+    }
+
+    protected void deliver(Runnable delivery) {
+        if (unitOfWorkManager == null) {
+            delivery.run();
+            return;
+        }
+        UnitOfWorkExecutor.executeInUnitOfWork(unitOfWorkManager, () -> {
+            delivery.run();
+            return null;
         });
     }
 
-    protected String version(ProcessInstance pi) {
-        String version = pi.getProcess().getVersion();
-        if (version != null && !version.trim().isEmpty()) {
-            return "_" + version.replaceAll("\\.", "_");
+    protected ExecutorService partition(Object key) {
+        if (partitions.length == 0) {
+            throw new IllegalStateException("Asynchronous publishing requires signal manager hub created with partitions");
         }
-        return "";
+        int hash = key.hashCode();
+        return partitions[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % partitions.length];
     }
 }
@@ -38,22 +38,21 @@ public class LightSignalManager implements SignalManager {
         listeners.computeIfPresent(type, (k, v) -> {
             v.remove(eventListener);
             if (v.isEmpty()) {
-                listeners.remove(type);
+                signalManagerHub.unsubscribe(type, this);
+                return null;
             }
             return v;
         });
-        signalManagerHub.unsubscribe(type, this);
     }
 
     public void signalEvent(String type, Object event) {
         if (!listeners.containsKey(type)) {
-            if (event instanceof ProcessInstance && listeners
-                    .containsKey(((ProcessInstance) event).getProcessId() + version((ProcessInstance) event))) {
-                listeners
-                        .getOrDefault(((ProcessInstance) event).getProcessId() + version((ProcessInstance) event),
-                                Collections.emptySet())
-                        .forEach(e -> e.signalEvent(type, event));
-                return;
+            if (event instanceof ProcessInstance) {
+                Set<EventListener> processListeners = listeners.get(SubscriptionKeys.of((ProcessInstance) event));
+                if (processListeners != null) {
+                    processListeners.forEach(e -> e.signalEvent(type, event));
+                    return;
+                }
             }
             signalManagerHub.publish(type, event);
         }
@@ -71,21 +70,13 @@ public class LightSignalManager implements SignalManager {
         }
         // handle processInstance events that are registered as child processes
         return event instanceof ProcessInstance
-                && listeners.containsKey(((ProcessInstance) event).getProcessId() + version((ProcessInstance) event));
+                && listeners.containsKey(SubscriptionKeys.of((ProcessInstance) event));
     }
 
     protected Map<String, Set<EventListener>> getListeners() {
         return listeners;
     }
 
-    protected String version(ProcessInstance pi) {
-        String version = pi.getProcess().getVersion();
-        if (version != null && !version.trim().isEmpty()) {
-            return "_" + version.replaceAll("\\.", "_");
-        }
-        return "";
-    }
-
     public void setInstanceResolver(EventListenerResolver instanceResolver) {
         this.instanceResolver = instanceResolver;
     }
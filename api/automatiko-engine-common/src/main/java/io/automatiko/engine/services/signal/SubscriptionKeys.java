@@ -0,0 +1,42 @@
+package io.automatiko.engine.services.signal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.automatiko.engine.api.runtime.process.ProcessInstance;
+
+/**
+ * Computes subscription keys of process instance events (process id with version suffix) once per process
+ * definition and version so they are not rebuilt for every published event.
+ */
+final class SubscriptionKeys {
+
+    private static final Map<String, Map<String, String>> KEYS = new ConcurrentHashMap<>();
+
+    private SubscriptionKeys() {
+    }
+
+    static String of(ProcessInstance pi) {
+        String processId = pi.getProcessId();
+        String version = pi.getProcess().getVersion();
+        if (version == null) {
+            version = "";
+        }
+        Map<String, String> versions = KEYS.get(processId);
+        if (versions == null) {
+            versions = KEYS.computeIfAbsent(processId, k -> new ConcurrentHashMap<>());
+        }
+        String key = versions.get(version);
+        if (key == null) {
+            key = versions.computeIfAbsent(version, v -> (processId + suffix(v)).intern());
+        }
+        return key;
+    }
+
+    private static String suffix(String version) {
+        if (!version.trim().isEmpty()) {
+            return "_" + version.replace('.', '_');
+        }
+        return "";
+    }
+}
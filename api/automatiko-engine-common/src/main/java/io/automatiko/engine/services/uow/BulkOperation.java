@@ -0,0 +1,190 @@
+package io.automatiko.engine.services.uow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+
+/**
+ * Progress of a bulk operation executed by {@link BulkUnitOfWorkExecutor}.
+ * <br/>
+ * Checkpoint is the cursor of the first chunk that has not yet been completed (all chunks before it are), it can be
+ * used to resume the operation after it was cancelled or the service was restarted. Checkpoint is null once all
+ * instances have been processed.
+ */
+public class BulkOperation {
+
+    /**
+     * Maximum number of failed instance ids that are kept by the operation
+     */
+    public static final int MAX_FAILED_IDS = 100;
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final String id;
+    private final String name;
+    private final Date startDate;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final List<String> failedIds = new ArrayList<>();
+    private final Map<Long, ProcessInstanceCursor> completedChunks = new HashMap<>();
+
+    private volatile State state = State.RUNNING;
+    private volatile Date endDate;
+    private volatile String errorMessage;
+
+    private long confirmedChunk;
+    private ProcessInstanceCursor checkpoint;
+
+    public BulkOperation(String name, ProcessInstanceCursor checkpoint) {
+        this.id = UUID.randomUUID().toString();
+        this.name = name;
+        this.checkpoint = checkpoint;
+        this.startDate = new Date();
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public Date startDate() {
+        return startDate;
+    }
+
+    public Date endDate() {
+        return endDate;
+    }
+
+    public String errorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Number of instances the operation was successfully applied on
+     */
+    public long succeeded() {
+        return succeeded.get();
+    }
+
+    /**
+     * Number of instances the operation failed on
+     */
+    public long failed() {
+        return failed.get();
+    }
+
+    /**
+     * Number of instances that were no longer found (e.g. changed their status) when their chunk was processed
+     */
+    public long skipped() {
+        return skipped.get();
+    }
+
+    public long processed() {
+        return succeeded.get() + failed.get() + skipped.get();
+    }
+
+    /**
+     * Returns ids of instances the operation failed on, limited to {@link #MAX_FAILED_IDS}
+     */
+    public synchronized List<String> failedIds() {
+        return Collections.unmodifiableList(new ArrayList<>(failedIds));
+    }
+
+    /**
+     * Returns cursor operation can be resumed from
+     *
+     * @return cursor of the first not completed chunk or null if all instances were processed
+     */
+    public synchronized ProcessInstanceCursor checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Requests cancellation of the operation, chunks that are already being processed are completed
+     */
+    public void cancel() {
+        if (state == State.RUNNING) {
+            state = State.CANCELLED;
+        }
+    }
+
+    public boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    void recordSucceeded() {
+        succeeded.incrementAndGet();
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    synchronized void recordFailed(String instanceId) {
+        failed.incrementAndGet();
+        if (failedIds.size() < MAX_FAILED_IDS) {
+            failedIds.add(instanceId);
+        }
+    }
+
+    /**
+     * Records completion of given chunk, checkpoint is only moved forward when all preceding chunks are completed
+     * as chunks are processed in parallel and can complete in any order
+     *
+     * @param chunk sequence number of the chunk starting with 1
+     * @param next cursor pointing after the chunk
+     */
+    synchronized void recordCompleted(long chunk, ProcessInstanceCursor next) {
+        completedChunks.put(chunk, next);
+        while (completedChunks.containsKey(confirmedChunk + 1)) {
+            confirmedChunk++;
+            checkpoint = completedChunks.remove(confirmedChunk);
+        }
+    }
+
+    void recordFinished() {
+        if (state == State.RUNNING) {
+            state = State.COMPLETED;
+        }
+        endDate = new Date();
+    }
+
+    void recordFailure(Throwable error) {
+        state = State.FAILED;
+        errorMessage = error.getMessage();
+        endDate = new Date();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkOperation [id=" + id + ", name=" + name + ", state=" + state + ", succeeded=" + succeeded
+                + ", failed=" + failed + ", skipped=" + skipped + ", checkpoint=" + checkpoint + "]";
+    }
+}
@@ -0,0 +1,227 @@
+package io.automatiko.engine.services.uow;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.automatiko.engine.api.auth.AccessDeniedException;
+import io.automatiko.engine.api.auth.IdentityProvider;
+import io.automatiko.engine.api.uow.UnitOfWork;
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
+import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+
+/**
+ * Executes an operation on large number of process instances. Ids of matching instances are streamed from the data
+ * store page by page (using cursor based pagination ordered by id, without loading the instances where data store
+ * supports it) and every page is processed as a chunk in its own
+ * unit of work by a bounded pool of workers.
+ * <br/>
+ * In case a chunk fails its unit of work is aborted and its instances are processed one by one, each in its own unit
+ * of work, so a single failing instance does not affect the rest of the chunk. Operation is expected to return false
+ * when it was applied but did not succeed (e.g. instance is still in error after retrigger), changes made to such
+ * instance are still committed.
+ * <br/>
+ * Note that data stores that do not support seeking by id fall back to offset based paging and might miss instances
+ * in case the operation changes their status, such operations should simply be executed again.
+ */
+public class BulkUnitOfWorkExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkUnitOfWorkExecutor.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private static final AtomicInteger WORKER_COUNTER = new AtomicInteger();
+
+    private enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final UnitOfWorkManager uowManager;
+    private final int chunkSize;
+    private final int concurrency;
+
+    public BulkUnitOfWorkExecutor(UnitOfWorkManager uowManager) {
+        this(uowManager, DEFAULT_CHUNK_SIZE, DEFAULT_CONCURRENCY);
+    }
+
+    public BulkUnitOfWorkExecutor(UnitOfWorkManager uowManager, int chunkSize, int concurrency) {
+        if (chunkSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("Chunk size and concurrency must be greater than zero");
+        }
+        this.uowManager = uowManager;
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Starts the operation in the background and returns immediately, returned bulk operation can be used to track
+     * progress or cancel the operation. Identity associated with calling thread is used to process all chunks.
+     *
+     * @param name descriptive name of the operation
+     * @param process process which instances should be processed
+     * @param status status of the instances to be processed
+     * @param checkpoint checkpoint to resume from, null to start from the beginning
+     * @param operation operation to be applied on every instance, returns false in case it did not succeed
+     * @return bulk operation tracking progress of the execution
+     */
+    public BulkOperation submit(String name, Process<?> process, int status, ProcessInstanceCursor checkpoint,
+            Predicate<ProcessInstance<?>> operation) {
+        BulkOperation bulk = new BulkOperation(name, checkpoint == null ? ProcessInstanceCursor.first(null, true) : checkpoint);
+        IdentityProvider identity = IdentityProvider.isSet() ? IdentityProvider.get() : null;
+
+        Thread coordinator = new Thread(() -> run(bulk, identity, process, status, operation),
+                "automatiko-bulk-" + bulk.id());
+        coordinator.setDaemon(true);
+        coordinator.start();
+
+        return bulk;
+    }
+
+    /**
+     * Executes the operation and waits for its completion, see {@link #submit(String, Process, int, ProcessInstanceCursor, Predicate)}
+     */
+    public BulkOperation execute(String name, Process<?> process, int status, ProcessInstanceCursor checkpoint,
+            Predicate<ProcessInstance<?>> operation) {
+        BulkOperation bulk = new BulkOperation(name, checkpoint == null ? ProcessInstanceCursor.first(null, true) : checkpoint);
+        IdentityProvider identity = IdentityProvider.isSet() ? IdentityProvider.get() : null;
+
+        run(bulk, identity, process, status, operation);
+
+        return bulk;
+    }
+
+    protected void run(BulkOperation bulk, IdentityProvider identity, Process<?> process, int status,
+            Predicate<ProcessInstance<?>> operation) {
+        LOGGER.debug("Starting bulk operation {} on instances of process {}", bulk.name(), process.id());
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread worker = new Thread(r, "automatiko-bulk-worker-" + WORKER_COUNTER.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        // limits number of chunks in flight so ids are not read faster than they can be processed
+        Semaphore slots = new Semaphore(concurrency);
+        try {
+            ProcessInstanceCursor cursor = bulk.checkpoint();
+            long sequence = 0;
+            while (cursor != null && !bulk.isCancelled()) {
+                ProcessInstancePage<String> page = readIds(identity, process, status, cursor);
+                long chunk = ++sequence;
+
+                if (page.items().isEmpty()) {
+                    bulk.recordCompleted(chunk, page.next());
+                } else {
+                    slots.acquire();
+                    workers.execute(() -> {
+                        try {
+                            processChunk(bulk, identity, process, status, page.items(), operation);
+                            bulk.recordCompleted(chunk, page.next());
+                        } catch (Throwable e) {
+                            LOGGER.error("Unexpected error while processing chunk of bulk operation " + bulk.name(), e);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+                cursor = page.next();
+            }
+            slots.acquire(concurrency);
+            bulk.recordFinished();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            bulk.recordFailure(e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Bulk operation " + bulk.name() + " failed", e);
+            slots.acquireUninterruptibly(concurrency);
+            bulk.recordFailure(e);
+        } finally {
+            workers.shutdown();
+        }
+        LOGGER.debug("Bulk operation {} finished {}", bulk.name(), bulk);
+    }
+
+    protected ProcessInstancePage<String> readIds(IdentityProvider identity, Process<?> process, int status,
+            ProcessInstanceCursor cursor) {
+        return UnitOfWorkExecutor.executeInUnitOfWork(uowManager, () -> {
+            IdentityProvider.set(identity);
+            return process.instances().ids(status, cursor, chunkSize);
+        });
+    }
+
+    protected void processChunk(BulkOperation bulk, IdentityProvider identity, Process<?> process, int status,
+            Iterable<String> ids, Predicate<ProcessInstance<?>> operation) {
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        UnitOfWork uow = uowManager.newUnitOfWork();
+        try {
+            uow.start();
+            IdentityProvider.set(identity);
+            for (String id : ids) {
+                outcomes.put(id, apply(process, status, id, operation));
+            }
+            uow.end();
+        } catch (Exception e) {
+            LOGGER.warn("Chunk of bulk operation {} failed with message '{}', processing its instances one by one",
+                    bulk.name(), e.getMessage());
+            uow.abort();
+
+            outcomes.clear();
+            for (String id : ids) {
+                try {
+                    outcomes.put(id, UnitOfWorkExecutor.executeInUnitOfWork(uowManager, () -> {
+                        IdentityProvider.set(identity);
+                        return apply(process, status, id, operation);
+                    }));
+                } catch (Exception ex) {
+                    LOGGER.debug("Bulk operation {} failed on instance {}", bulk.name(), id, ex);
+                    outcomes.put(id, Outcome.FAILED);
+                }
+            }
+        } finally {
+            IdentityProvider.set(null);
+        }
+
+        for (Entry<String, Outcome> outcome : outcomes.entrySet()) {
+            switch (outcome.getValue()) {
+                case SUCCEEDED:
+                    bulk.recordSucceeded();
+                    break;
+                case SKIPPED:
+                    bulk.recordSkipped();
+                    break;
+                default:
+                    bulk.recordFailed(outcome.getKey());
+                    break;
+            }
+        }
+    }
+
+    private Outcome apply(Process<?> process, int status, String id, Predicate<ProcessInstance<?>> operation) {
+        Optional<? extends ProcessInstance<?>> instance;
+        try {
+            instance = process.instances().findById(id, status, ProcessInstanceReadMode.MUTABLE_WITH_LOCK);
+        } catch (AccessDeniedException e) {
+            // ids are read without access checks so instances not accessible to the identity are skipped here
+            return Outcome.SKIPPED;
+        }
+        if (instance.isEmpty()) {
+            return Outcome.SKIPPED;
+        }
+        return operation.test(instance.get()) ? Outcome.SUCCEEDED : Outcome.FAILED;
+    }
+}
@@ -4,6 +4,8 @@ package io.automatiko.engine.services.uow;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -19,19 +21,27 @@ import io.automatiko.engine.api.event.EventManager;
 import io.automatiko.engine.api.uow.TransactionLog;
 import io.automatiko.engine.api.uow.UnitOfWork;
 import io.automatiko.engine.api.uow.WorkUnit;
+import io.automatiko.engine.api.workflow.BatchWriteException;
 import io.automatiko.engine.api.workflow.ConflictingVersionException;
 import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.MutableProcessInstances;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
 import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstanceSummary;
 import io.automatiko.engine.api.workflow.ProcessInstances;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
+import io.automatiko.engine.services.uow.ProcessInstanceWorkUnit.Operation;
 
 /**
  * Simple unit of work that collects work elements throughout the life of the
  * unit and invokes all of them at the end when end method is invoked. It does
  * not invoke the work when abort is invoked, only clears the collected items.
- *
+ * <br/>
+ * When batch writes are enabled, process instance data store operations are collapsed
+ * per instance id and flushed to each data store as single batch.
  */
 public class CollectingUnitOfWork implements UnitOfWork {
 
@@ -44,10 +54,19 @@ public class CollectingUnitOfWork implements UnitOfWork {
 
     private final EventManager eventManager;
 
+    private final boolean batchWrites;
+
     private Map<String, ProcessInstances<?>> instances = new HashMap<String, ProcessInstances<?>>();
 
+    private Set<String> created = new HashSet<>();
+
     public CollectingUnitOfWork(EventManager eventManager) {
+        this(eventManager, false);
+    }
+
+    public CollectingUnitOfWork(EventManager eventManager, boolean batchWrites) {
         this.eventManager = eventManager;
+        this.batchWrites = batchWrites;
         this.identifier = UUID.randomUUID().toString();
     }
 
@@ -67,12 +86,25 @@ public class CollectingUnitOfWork implements UnitOfWork {
     @Override
     public void end() {
         checkStarted();
-        Collection<WorkUnit<?>> units = sorted();
+        List<WorkUnit<?>> units = sorted();
 
         EventBatch batch = eventManager.newBatch();
         batch.append(units);
 
-        for (WorkUnit<?> work : units) {
+        int index = 0;
+        while (index < units.size()) {
+            WorkUnit<?> work = units.get(index);
+            if (batchWrites && isBatchable(work)) {
+                // collect all consecutive store operations of the same priority
+                List<ProcessInstanceWorkUnit<?>> storeOperations = new ArrayList<>();
+                while (index < units.size() && isBatchable(units.get(index))
+                        && units.get(index).priority().equals(work.priority())) {
+                    storeOperations.add((ProcessInstanceWorkUnit<?>) units.get(index));
+                    index++;
+                }
+                performBatch(storeOperations);
+                continue;
+            }
             LOGGER.debug("Performing work unit {}", work);
             try {
                 work.perform();
@@ -81,11 +113,19 @@ public class CollectingUnitOfWork implements UnitOfWork {
             } catch (Exception e) {
                 LOGGER.error("Error during performing work unit {} error message {}", work, e.getMessage(), e);
             }
+            index++;
         }
-        eventManager.publish(batch);
+        publish(batch);
         done();
     }
 
+    /*
+     * publishes events collected by this unit of work, invoked once all work units were performed
+     */
+    protected void publish(EventBatch batch) {
+        eventManager.publish(batch);
+    }
+
     @Override
     public void abort() {
         checkStarted();
@@ -107,6 +147,16 @@ public class CollectingUnitOfWork implements UnitOfWork {
         if (work == null) {
             throw new NullPointerException("Work must be non null");
         }
+        if (batchWrites && isBatchable(work)) {
+            ProcessInstanceWorkUnit<?> storeOperation = (ProcessInstanceWorkUnit<?>) work;
+            String id = storeOperation.data().id();
+            if (storeOperation.operation() == Operation.CREATE) {
+                created.add(id);
+            } else if (storeOperation.operation() == Operation.UPDATE && created.contains(id)) {
+                // instance that is not yet created must be created with its latest state
+                work = storeOperation.withOperation(Operation.CREATE);
+            }
+        }
         collectedWork.remove(work);
         collectedWork.add(work);
     }
@@ -115,10 +165,105 @@ public class CollectingUnitOfWork implements UnitOfWork {
     public ProcessInstances<?> managedProcessInstances(Process<?> process, ProcessInstances<?> instances) {
 
         return this.instances.computeIfAbsent(process.id(),
-                pid -> new ManagedProcessInstances((MutableProcessInstances<?>) instances));
+                pid -> new ManagedProcessInstances(pid, (MutableProcessInstances<?>) instances));
+    }
+
+    protected boolean isBatchable(WorkUnit<?> work) {
+        return work instanceof ProcessInstanceWorkUnit && ((ProcessInstanceWorkUnit<?>) work).operation() != null;
+    }
+
+    /*
+     * collapses store operations per instance id and flushes them to data store of each process as single batch
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void performBatch(List<ProcessInstanceWorkUnit<?>> storeOperations) {
+        Map<Process<?>, Map<String, ProcessInstanceWorkUnit<?>>> collapsed = new LinkedHashMap<>();
+        for (ProcessInstanceWorkUnit<?> work : storeOperations) {
+            Map<String, ProcessInstanceWorkUnit<?>> perInstance = collapsed.computeIfAbsent(work.data().process(),
+                    p -> new LinkedHashMap<>());
+
+            perInstance.merge(work.data().id(), work, (previous, current) -> {
+                // instance that is not yet created must be created with its latest state
+                if (previous.operation() == Operation.CREATE && current.operation() == Operation.UPDATE) {
+                    return current.withOperation(Operation.CREATE);
+                }
+                return current;
+            });
+        }
+
+        for (Map.Entry<Process<?>, Map<String, ProcessInstanceWorkUnit<?>>> entry : collapsed.entrySet()) {
+            MutableProcessInstances store = (MutableProcessInstances) entry.getKey().instances();
+
+            for (Operation operation : Operation.values()) {
+                Map<String, ProcessInstance<?>> batch = new LinkedHashMap<>();
+                entry.getValue().forEach((id, work) -> {
+                    if (work.operation() == operation) {
+                        batch.put(id, work.data());
+                    }
+                });
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                LOGGER.debug("Performing {} of {} instance(s) of process {} as batch", operation, batch.size(),
+                        entry.getKey().id());
+                try {
+                    switch (operation) {
+                        case CREATE:
+                            store.createAll(batch);
+                            break;
+                        case UPDATE:
+                            store.updateAll(batch);
+                            break;
+                        case REMOVE:
+                            store.removeAll(batch);
+                            break;
+                    }
+                } catch (BatchWriteException e) {
+                    // only instances the data store reports as not written are retried, others are already stored and
+                    // stores that cannot tell (e.g. failed flush of a transaction) rethrow the error as is
+                    Map<String, ProcessInstance<?>> unapplied = new LinkedHashMap<>();
+                    batch.forEach((id, instance) -> {
+                        if (e.getUnapplied().contains(id)) {
+                            unapplied.put(id, instance);
+                        }
+                    });
+                    LOGGER.warn("Error during performing {} of instances {} as batch error message {}, performing it one by one",
+                            operation, unapplied.keySet(), e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+                    performOneByOne(store, operation, unapplied);
+                }
+            }
+        }
     }
 
-    protected Collection<WorkUnit<?>> sorted() {
+    /*
+     * performs operation of instances not written by failed batch for each instance separately so single failing instance does not prevent
+     * others from being stored
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void performOneByOne(MutableProcessInstances store, Operation operation, Map<String, ProcessInstance<?>> batch) {
+        for (Map.Entry<String, ProcessInstance<?>> instance : batch.entrySet()) {
+            try {
+                switch (operation) {
+                    case CREATE:
+                        store.create(instance.getKey(), instance.getValue());
+                        break;
+                    case UPDATE:
+                        store.update(instance.getKey(), instance.getValue());
+                        break;
+                    case REMOVE:
+                        store.remove(instance.getKey(), instance.getValue());
+                        break;
+                }
+            } catch (ConflictingVersionException e) {
+                throw e;
+            } catch (Exception e) {
+                LOGGER.error("Error during performing {} of instance {} error message {}", operation, instance.getKey(),
+                        e.getMessage(), e);
+            }
+        }
+    }
+
+    protected List<WorkUnit<?>> sorted() {
         List<WorkUnit<?>> sortedCollectedWork = new ArrayList<>(collectedWork);
         sortedCollectedWork.sort((u1, u2) -> u1.priority().compareTo(u2.priority()));
 
@@ -141,16 +286,20 @@ public class CollectingUnitOfWork implements UnitOfWork {
         done = true;
         collectedWork = null;
         instances.clear();
+        created.clear();
     }
 
     @SuppressWarnings("rawtypes")
     private class ManagedProcessInstances implements MutableProcessInstances {
 
+        private String processId;
+
         private MutableProcessInstances<?> delegate;
 
         private Map<String, ProcessInstance<?>> local = new HashMap<String, ProcessInstance<?>>();
 
-        public ManagedProcessInstances(MutableProcessInstances<?> delegate) {
+        public ManagedProcessInstances(String processId, MutableProcessInstances<?> delegate) {
+            this.processId = processId;
             this.delegate = delegate;
         }
 
@@ -175,7 +324,9 @@ public class CollectingUnitOfWork implements UnitOfWork {
                 }
             }
 
+            long start = System.nanoTime();
             Optional<?> found = delegate.findById(id, status, mode);
+            read(start);
 
             if (found.isPresent()) {
                 ProcessInstance<?> pi = (ProcessInstance<?>) found.get();
@@ -203,7 +354,9 @@ public class CollectingUnitOfWork implements UnitOfWork {
         @SuppressWarnings("unchecked")
         @Override
         public void create(String id, ProcessInstance instance) {
+            long start = System.nanoTime();
             delegate.create(id, instance);
+            written(start);
 
             local.put(id, instance);
         }
@@ -211,7 +364,9 @@ public class CollectingUnitOfWork implements UnitOfWork {
         @SuppressWarnings("unchecked")
         @Override
         public void update(String id, ProcessInstance instance) {
+            long start = System.nanoTime();
             delegate.update(id, instance);
+            written(start);
 
             local.put(id, instance);
         }
@@ -219,14 +374,48 @@ public class CollectingUnitOfWork implements UnitOfWork {
         @SuppressWarnings("unchecked")
         @Override
         public void remove(String id, ProcessInstance instance) {
+            long start = System.nanoTime();
             delegate.remove(id, instance);
+            written(start);
 
             local.remove(id);
         }
 
+        @SuppressWarnings("unchecked")
+        @Override
+        public void createAll(Map instances) {
+            long start = System.nanoTime();
+            delegate.createAll(instances);
+            written(start);
+
+            local.putAll(instances);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void updateAll(Map instances) {
+            long start = System.nanoTime();
+            delegate.updateAll(instances);
+            written(start);
+
+            local.putAll(instances);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void removeAll(Map instances) {
+            long start = System.nanoTime();
+            delegate.removeAll(instances);
+            written(start);
+
+            local.keySet().removeAll(instances.keySet());
+        }
+
         @Override
         public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String... values) {
+            long start = System.nanoTime();
             Collection<?> collected = delegate.findByIdOrTag(mode, status, values);
+            read(start);
 
             if (mode.equals(ProcessInstanceReadMode.MUTABLE)) {
                 collected.forEach(pi -> addToCache(((ProcessInstance<?>) pi).id(), ((ProcessInstance<?>) pi)));
@@ -240,6 +429,18 @@ public class CollectingUnitOfWork implements UnitOfWork {
             delegate.release(id, pi);
         }
 
+        protected void read(long start) {
+            if (Profiling.enabled()) {
+                Profiling.profiler().storeRead(delegate, processId, System.nanoTime() - start);
+            }
+        }
+
+        protected void written(long start) {
+            if (Profiling.enabled()) {
+                Profiling.profiler().storeWritten(delegate, processId, System.nanoTime() - start);
+            }
+        }
+
         protected void addToCache(String id, ProcessInstance<?> pi) {
             local.put(id, pi);
 
@@ -288,6 +489,27 @@ public class CollectingUnitOfWork implements UnitOfWork {
             return delegate.values(mode, status, page, size, sortBy, sortAsc);
         }
 
+        @Override
+        public ProcessInstancePage values(ProcessInstanceReadMode mode, int status, ProcessInstanceCursor cursor, int size) {
+            return delegate.values(mode, status, cursor, size);
+        }
+
+        @Override
+        public Collection<ProcessInstanceSummary> summaries(int status, int page, int size) {
+            long start = System.nanoTime();
+            Collection<ProcessInstanceSummary> summaries = delegate.summaries(status, page, size);
+            read(start);
+            return summaries;
+        }
+
+        @Override
+        public Collection<ProcessInstanceSummary> summaries(int status, int page, int size, String sortBy, boolean sortAsc) {
+            long start = System.nanoTime();
+            Collection<ProcessInstanceSummary> summaries = delegate.summaries(status, page, size, sortBy, sortAsc);
+            read(start);
+            return summaries;
+        }
+
         @Override
         public Collection findByIdOrTag(ProcessInstanceReadMode mode, int status, String sortBy, boolean sortAsc,
                 String... values) {
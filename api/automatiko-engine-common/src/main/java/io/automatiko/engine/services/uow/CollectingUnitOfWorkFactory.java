@@ -1,4 +1,3 @@
-
 package io.automatiko.engine.services.uow;
 
 import io.automatiko.engine.api.event.EventManager;
@@ -7,9 +6,19 @@ import io.automatiko.engine.api.uow.UnitOfWorkFactory;
 
 public class CollectingUnitOfWorkFactory implements UnitOfWorkFactory {
 
+	private final boolean batchWrites;
+
+	public CollectingUnitOfWorkFactory() {
+		this(false);
+	}
+
+	public CollectingUnitOfWorkFactory(boolean batchWrites) {
+		this.batchWrites = batchWrites;
+	}
+
 	@Override
 	public UnitOfWork create(EventManager eventManager) {
-		return new CollectingUnitOfWork(eventManager);
+		return new CollectingUnitOfWork(eventManager, batchWrites);
 	}
 
 }
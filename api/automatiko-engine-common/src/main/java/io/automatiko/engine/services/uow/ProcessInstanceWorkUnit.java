@@ -8,9 +8,19 @@ import io.automatiko.engine.api.workflow.ProcessInstance;
 
 public class ProcessInstanceWorkUnit<T> implements WorkUnit<ProcessInstance<T>> {
 
+	/**
+	 * Data store operation performed by the work unit, allows unit of work to batch the operations
+	 */
+	public enum Operation {
+		CREATE,
+		UPDATE,
+		REMOVE
+	}
+
 	private ProcessInstance<T> data;
 	private Consumer<Object> action;
 	private Consumer<Object> compensation;
+	private Operation operation;
 
 	public ProcessInstanceWorkUnit(ProcessInstance<T> data, Consumer<Object> action) {
 		this.data = data;
@@ -23,6 +33,14 @@ public class ProcessInstanceWorkUnit<T> implements WorkUnit<ProcessInstance<T>>
 		this.compensation = compensation;
 	}
 
+	public ProcessInstanceWorkUnit(ProcessInstance<T> data, Operation operation, Consumer<Object> action,
+			Consumer<Object> compensation) {
+		this.data = data;
+		this.operation = operation;
+		this.action = action;
+		this.compensation = compensation;
+	}
+
 	@Override
 	public ProcessInstance<T> data() {
 		return data;
@@ -45,6 +63,19 @@ public class ProcessInstanceWorkUnit<T> implements WorkUnit<ProcessInstance<T>>
 		return 10;
 	}
 
+	/**
+	 * Returns data store operation performed by this work unit
+	 *
+	 * @return operation or null if the work unit performs custom action
+	 */
+	public Operation operation() {
+		return operation;
+	}
+
+	ProcessInstanceWorkUnit<T> withOperation(Operation operation) {
+		return new ProcessInstanceWorkUnit<>(data, operation, action, compensation);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
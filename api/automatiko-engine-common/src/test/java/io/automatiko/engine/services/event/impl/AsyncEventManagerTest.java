@@ -0,0 +1,268 @@
+package io.automatiko.engine.services.event.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.automatiko.engine.api.event.AbstractDataEvent;
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.api.event.EventBatch;
+import io.automatiko.engine.api.event.EventPublisher;
+
+public class AsyncEventManagerTest {
+
+    @TempDir
+    Path storage;
+
+    @Test
+    public void testSlowPublisherDoesNotBlockUnitOfWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingPublisher slow = new CollectingPublisher(release, 0);
+        OtherCollectingPublisher fast = new OtherCollectingPublisher();
+
+        AsyncEventManager manager = manager(100, 10, 0, 10);
+        manager.addPublisher(slow);
+        manager.addPublisher(fast);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            manager.publish(batch(3));
+        }
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+
+        // fast publisher gets all events even though the slow one is stuck
+        waitFor(() -> fast.events.size() == 15);
+        assertThat(manager.relays().get(0).pending()).isEqualTo(15);
+        assertThat(manager.relays().get(0).lag(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(0);
+
+        release.countDown();
+        waitFor(() -> manager.relays().get(0).pending() == 0);
+        manager.close(5000);
+        assertThat(slow.events).hasSize(15);
+        // events of single unit of work are never split and batches do not exceed batch size
+        assertThat(slow.batches).allMatch(size -> size % 3 == 0 && size <= 10);
+        assertThat(manager.relays().get(0).published()).isEqualTo(15);
+    }
+
+    @Test
+    public void testFailedPublishingIsRetried() throws Exception {
+        CollectingPublisher failing = new CollectingPublisher(null, 2);
+
+        AsyncEventManager manager = manager(100, 10, 3, 1);
+        manager.addPublisher(failing);
+        manager.publish(batch(2));
+        waitFor(() -> failing.events.size() == 2);
+        manager.close(5000);
+
+        EventRelay relay = manager.relays().get(0);
+        assertThat(relay.retried()).isEqualTo(2);
+        assertThat(relay.failed()).isZero();
+
+        CollectingPublisher broken = new CollectingPublisher(null, Integer.MAX_VALUE);
+        manager = manager(100, 10, 1, 1);
+        manager.addPublisher(broken);
+        manager.publish(batch(2));
+        AsyncEventManager closing = manager;
+        waitFor(() -> closing.relays().get(0).pending() == 0);
+        manager.close(5000);
+
+        assertThat(broken.events).isEmpty();
+        assertThat(manager.relays().get(0).failed()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFullOutboxPublishesDirectly() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingPublisher slow = new CollectingPublisher(release, 0);
+
+        AsyncEventManager manager = new AsyncEventManager(new FileEventOutbox(storage), new TestCodec(), 4, 10, 0, 1, 10,
+                10);
+        manager.addPublisher(slow);
+        manager.publish(batch(4));
+        waitFor(() -> slow.calls.get() == 1);
+
+        // outbox is full until the first batch is delivered so caller publishes on its own
+        manager.publish(batch(4));
+        assertThat(slow.events).hasSize(4);
+
+        release.countDown();
+        waitFor(() -> slow.events.size() == 8);
+        manager.close(5000);
+    }
+
+    @Test
+    public void testEventsArePublishedAfterRestart() throws Exception {
+        // publisher fails and relay is stopped while waiting for retry so events stay in the outbox
+        CollectingPublisher broken = new CollectingPublisher(null, Integer.MAX_VALUE);
+        AsyncEventManager manager = manager(100, 10, 5, 10000);
+        manager.addPublisher(broken);
+        manager.publish(batch(3));
+        waitFor(() -> manager.relays().get(0).retried() == 1);
+        manager.close(100);
+        assertThat(broken.events).isEmpty();
+
+        CollectingPublisher restarted = new CollectingPublisher(null, 0);
+        AsyncEventManager recovered = manager(100, 10, 0, 10);
+        recovered.addPublisher(restarted);
+
+        waitFor(() -> recovered.relays().get(0).pending() == 0);
+        recovered.close(5000);
+        assertThat(restarted.events).extracting(event -> event.getData().toString()).containsExactly("0", "1", "2");
+    }
+
+    @Test
+    public void testEventsAreEncodedWhenAppended() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingPublisher slow = new CollectingPublisher(release, 0);
+
+        AsyncEventManager manager = manager(100, 10, 0, 10);
+        manager.addPublisher(slow);
+        manager.publish(batch(1));
+        waitFor(() -> slow.calls.get() == 1);
+
+        EventBatch changing = batch(2);
+        manager.publish(changing);
+        // changes made after unit of work completed must not be visible to the publisher
+        changing.events().forEach(event -> ((StringBuilder) event.getData()).append("-changed"));
+
+        release.countDown();
+        waitFor(() -> slow.events.size() == 3);
+        manager.close(5000);
+        assertThat(slow.events).extracting(event -> event.getData().toString()).containsExactly("0", "0", "1");
+    }
+
+    @Test
+    public void testPublisherRequiringSourceInstanceIsInvokedDirectly() throws Exception {
+        SourceInstancePublisher direct = new SourceInstancePublisher();
+
+        AsyncEventManager manager = manager(100, 10, 0, 10);
+        manager.addPublisher(direct);
+        EventBatch batch = batch(2);
+        manager.publish(batch);
+
+        assertThat(manager.relays()).isEmpty();
+        // the very same (not decoded) events are given to the publisher on the calling thread
+        assertThat(direct.events).containsExactlyElementsOf(batch.events());
+        manager.close(5000);
+    }
+
+    private AsyncEventManager manager(int queueSize, int batchSize, int retries, long retryDelay) {
+        return new AsyncEventManager(new FileEventOutbox(storage), new TestCodec(), queueSize, batchSize, retries,
+                retryDelay, 1000, 10);
+    }
+
+    private EventBatch batch(int size) {
+        List<DataEvent<?>> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            events.add(new TestEvent(new StringBuilder(String.valueOf(i))));
+        }
+        EventBatch batch = mock(EventBatch.class);
+        when(batch.events()).thenReturn(events);
+        return batch;
+    }
+
+    private void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static class TestEvent extends AbstractDataEvent<StringBuilder> {
+
+        private TestEvent(StringBuilder data) {
+            super("test", "/test", data);
+        }
+    }
+
+    private static class TestCodec implements EventCodec {
+
+        @Override
+        public byte[] encode(Collection<DataEvent<?>> events) {
+            return events.stream().map(event -> event.getData().toString()).collect(Collectors.joining("\n"))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public List<DataEvent<?>> decode(byte[] data) {
+            List<DataEvent<?>> events = new ArrayList<>();
+            for (String value : new String(data, StandardCharsets.UTF_8).split("\n")) {
+                events.add(new TestEvent(new StringBuilder(value)));
+            }
+            return events;
+        }
+    }
+
+    private static class CollectingPublisher implements EventPublisher {
+
+        private final CountDownLatch release;
+        private final AtomicInteger failures;
+        protected final AtomicInteger calls = new AtomicInteger();
+
+        protected final List<DataEvent<?>> events = new CopyOnWriteArrayList<>();
+        private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+        private CollectingPublisher(CountDownLatch release, int failures) {
+            this.release = release;
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public void publish(DataEvent<?> event) {
+            publish(Collections.singletonList(event));
+        }
+
+        @Override
+        public void publish(Collection<DataEvent<?>> events) {
+            // only first delivery is held back
+            if (calls.incrementAndGet() == 1 && release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("publisher not available");
+            }
+            this.events.addAll(events);
+            this.batches.add(events.size());
+        }
+    }
+
+    // outbox of every publisher is identified by its type so other publishers need to be of different type
+    private static class OtherCollectingPublisher extends CollectingPublisher {
+
+        private OtherCollectingPublisher() {
+            super(null, 0);
+        }
+    }
+
+    private static class SourceInstancePublisher extends CollectingPublisher {
+
+        private SourceInstancePublisher() {
+            super(null, 0);
+        }
+
+        @Override
+        public boolean requiresSourceInstance() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.automatiko.engine.services.jobs.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelSchedulerTest {
+
+    private TimingWheelScheduler scheduler;
+
+    @BeforeEach
+    public void setup() {
+        // small wheel so timers with longer delays need more than one round
+        scheduler = new TimingWheelScheduler("test", 5, TimeUnit.MILLISECONDS, 8, Executors.newFixedThreadPool(2));
+    }
+
+    @AfterEach
+    public void cleanup() throws InterruptedException {
+        scheduler.shutdownNow();
+        assertThat(scheduler.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testScheduleAndFire() throws Exception {
+        long start = System.nanoTime();
+        ScheduledFuture<String> future = scheduler.schedule(() -> "done", 100, TimeUnit.MILLISECONDS);
+
+        assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(95);
+        assertThat(future.isDone()).isTrue();
+        assertThat(scheduler.pending()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCancelBeforeExpiration() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        for (int i = 0; i < 1000; i++) {
+            scheduler.schedule(fired::incrementAndGet, 200, TimeUnit.MILLISECONDS).cancel(false);
+        }
+        scheduler.schedule(latch::countDown, 250, TimeUnit.MILLISECONDS);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testVeryLongDelayNeverFires() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        ScheduledFuture<?> nanos = scheduler.schedule(fired::incrementAndGet, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        ScheduledFuture<?> days = scheduler.schedule(fired::incrementAndGet, Long.MAX_VALUE, TimeUnit.DAYS);
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired.get()).isEqualTo(0);
+        assertThat(nanos.isDone()).isFalse();
+        assertThat(days.getDelay(TimeUnit.DAYS)).isGreaterThan(365L * 100);
+
+        days.cancel(false);
+        nanos.cancel(false);
+        assertThat(days.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        CountDownLatch latch = new CountDownLatch(3);
+        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(latch::countDown, 10, 20, TimeUnit.MILLISECONDS);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(future.isDone()).isFalse();
+        future.cancel(false);
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testWheelStartedOnFirstSchedule() throws Exception {
+        TimingWheelScheduler idle = new TimingWheelScheduler("idle", 1);
+        try {
+            assertThat(wheelRunning("idle-wheel")).isFalse();
+
+            idle.schedule(() -> "done", 10, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+            assertThat(wheelRunning("idle-wheel")).isTrue();
+        } finally {
+            idle.shutdownNow();
+        }
+        assertThat(idle.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testRejectedTimersFiredOnNextTick() throws Exception {
+        // single thread with queue of one so most of expired timers are rejected by the executor at first
+        TimingWheelScheduler saturated = new TimingWheelScheduler("saturated", 1, 5, 8, 1);
+        try {
+            CountDownLatch latch = new CountDownLatch(20);
+            for (int i = 0; i < 20; i++) {
+                saturated.schedule(() -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    latch.countDown();
+                }, 10, TimeUnit.MILLISECONDS);
+            }
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            saturated.shutdownNow();
+        }
+    }
+
+    private boolean wheelRunning(String name) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().equals(name) && t.isAlive());
+    }
+}
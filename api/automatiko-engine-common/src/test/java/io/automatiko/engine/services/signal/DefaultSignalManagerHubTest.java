@@ -0,0 +1,147 @@
+package io.automatiko.engine.services.signal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.config.SignalsConfig;
+import io.automatiko.engine.api.definition.process.Process;
+import io.automatiko.engine.api.runtime.process.ProcessInstance;
+import io.automatiko.engine.api.uow.UnitOfWork;
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
+import io.automatiko.engine.api.workflow.signal.SignalManager;
+
+public class DefaultSignalManagerHubTest {
+
+    @Test
+    public void testPublishToVersionedProcessSubscription() {
+        DefaultSignalManagerHub hub = new DefaultSignalManagerHub();
+        SignalManager versioned = mock(SignalManager.class);
+        SignalManager other = mock(SignalManager.class);
+        hub.subscribe("orders_1_0", versioned);
+        hub.subscribe("orders", other);
+
+        ProcessInstance pi = processInstance("orders", "1.0");
+        hub.publish("processInstanceCompleted", pi);
+        hub.publish("processInstanceCompleted", pi);
+
+        verify(versioned, times(2)).signalEvent("processInstanceCompleted", pi);
+        verify(other, never()).signalEvent(anyString(), any());
+
+        hub.unsubscribe("orders_1_0", versioned);
+        hub.publish("processInstanceCompleted", pi);
+        verify(versioned, times(2)).signalEvent("processInstanceCompleted", pi);
+    }
+
+    @Test
+    public void testAsyncPublishKeepsOrderPerInstance() throws Exception {
+        DefaultSignalManagerHub hub = new DefaultSignalManagerHub(4);
+        List<String> first = Collections.synchronizedList(new ArrayList<>());
+        List<String> second = Collections.synchronizedList(new ArrayList<>());
+
+        SignalManager sm = mock(SignalManager.class);
+        doAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            String data = invocation.getArgument(2);
+            ("1".equals(id) ? first : second).add(data);
+            return null;
+        }).when(sm).signalEvent(anyString(), eq("update"), any());
+        hub.subscribe("update", sm);
+
+        List<CompletableFuture<Void>> published = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            published.add(hub.publishTargetingAsync("1", "update", "first-" + i));
+            published.add(hub.publishTargetingAsync("2", "update", "second-" + i));
+        }
+        CompletableFuture.allOf(published.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(first).hasSize(100);
+        assertThat(second).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(first.get(i)).isEqualTo("first-" + i);
+            assertThat(second.get(i)).isEqualTo("second-" + i);
+        }
+        hub.close();
+    }
+
+    @Test
+    public void testAsyncPublishInUnitOfWork() throws Exception {
+        UnitOfWorkManager uowManager = mock(UnitOfWorkManager.class);
+        UnitOfWork uow = mock(UnitOfWork.class);
+        when(uowManager.newUnitOfWork()).thenReturn(uow);
+        DefaultSignalManagerHub hub = new DefaultSignalManagerHub(2, uowManager);
+
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        SignalManager sm = mock(SignalManager.class);
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            delivered.countDown();
+            return null;
+        }).when(sm).signalEvent(anyString(), any());
+        hub.subscribe("update", sm);
+        hub.subscribe("orders_1_0", sm);
+
+        hub.publish("update", "data");
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(uow, timeout(5000)).end();
+        verify(uow).start();
+
+        // process instance events are delivered as part of the publisher unit of work
+        ProcessInstance pi = processInstance("orders", "1.0");
+        hub.publish("processInstanceCompleted", pi);
+        verify(sm).signalEvent("processInstanceCompleted", pi);
+        verify(uowManager, times(1)).newUnitOfWork();
+
+        assertThat(threads).hasSize(2);
+        assertThat(threads.get(0)).startsWith("automatiko-signals-");
+        assertThat(threads.get(1)).isEqualTo(Thread.currentThread().getName());
+        hub.close();
+    }
+
+    @Test
+    public void testConfiguredHubsSharePartitions() throws Exception {
+        System.setProperty(SignalsConfig.PARTITIONS_KEY, "2");
+        try {
+            DefaultSignalManagerHub first = DefaultSignalManagerHub.configured(null);
+            DefaultSignalManagerHub second = DefaultSignalManagerHub.configured(null);
+
+            assertThat(first.partition("1")).isSameAs(second.partition("1"));
+
+            // closing one of the hubs does not stop partitions of the others
+            first.close();
+            SignalManager sm = mock(SignalManager.class);
+            second.subscribe("update", sm);
+            second.publishTargetingAsync("1", "update", "data").get(5, TimeUnit.SECONDS);
+            verify(sm).signalEvent("1", "update", "data");
+        } finally {
+            System.clearProperty(SignalsConfig.PARTITIONS_KEY);
+        }
+    }
+
+    private ProcessInstance processInstance(String processId, String version) {
+        Process process = mock(Process.class);
+        when(process.getVersion()).thenReturn(version);
+        ProcessInstance pi = mock(ProcessInstance.class);
+        when(pi.getProcessId()).thenReturn(processId);
+        when(pi.getProcess()).thenReturn(process);
+        return pi;
+    }
+}
@@ -0,0 +1,186 @@
+package io.automatiko.engine.services.uow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.auth.AccessDeniedException;
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceCursor;
+import io.automatiko.engine.api.workflow.ProcessInstancePage;
+import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.automatiko.engine.api.workflow.ProcessInstances;
+
+public class BulkUnitOfWorkExecutorTest {
+
+    private UnitOfWorkManager unitOfWorkManager;
+
+    private List<String> ids;
+
+    private Process<Object> process;
+
+    private ProcessInstances<Object> instances;
+
+    private String inaccessible;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    public void setup() {
+        this.unitOfWorkManager = new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory());
+        this.ids = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            ids.add(String.format("id%03d", i));
+        }
+
+        this.instances = mock(ProcessInstances.class);
+        when(instances.ids(anyInt(), any(ProcessInstanceCursor.class), anyInt()))
+                .thenAnswer(invocation -> {
+                    ProcessInstanceCursor cursor = invocation.getArgument(1);
+                    int size = invocation.getArgument(2);
+                    List<String> page = ids.stream()
+                            .filter(id -> cursor.id() == null || id.compareTo(cursor.id()) > 0).limit(size)
+                            .collect(Collectors.toList());
+                    ProcessInstanceCursor next = page.size() < size ? null
+                            : cursor.after(null, page.get(page.size() - 1));
+                    return new ProcessInstancePage<>(page, next);
+                });
+        when(instances.findById(anyString(), anyInt(), any(ProcessInstanceReadMode.class)))
+                .thenAnswer(invocation -> {
+                    String id = invocation.getArgument(0);
+                    if (id.equals(inaccessible)) {
+                        throw new AccessDeniedException("not allowed");
+                    }
+                    return Optional.of(instance(id));
+                });
+
+        this.process = mock(Process.class);
+        when(process.id()).thenReturn("test");
+        when(process.instances()).thenReturn(instances);
+    }
+
+    @Test
+    public void testAllInstancesProcessedInChunks() {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        BulkUnitOfWorkExecutor executor = new BulkUnitOfWorkExecutor(unitOfWorkManager, 10, 3);
+        BulkOperation bulk = executor.execute("test", process, ProcessInstance.STATE_ACTIVE, null, pi -> {
+            processed.add(pi.id());
+            return true;
+        });
+
+        assertThat(bulk.state()).isEqualTo(BulkOperation.State.COMPLETED);
+        assertThat(bulk.succeeded()).isEqualTo(25);
+        assertThat(bulk.failed()).isEqualTo(0);
+        assertThat(bulk.checkpoint()).isNull();
+        assertThat(processed).containsExactlyInAnyOrderElementsOf(ids);
+        // ids are read without loading instances, each instance is loaded only once when processed
+        verify(instances, never()).values(any(ProcessInstanceReadMode.class), anyInt(), any(ProcessInstanceCursor.class),
+                anyInt());
+        verify(instances, times(25)).findById(anyString(), anyInt(), eq(ProcessInstanceReadMode.MUTABLE_WITH_LOCK));
+    }
+
+    @Test
+    public void testInaccessibleInstanceSkipped() {
+        this.inaccessible = "id005";
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        BulkUnitOfWorkExecutor executor = new BulkUnitOfWorkExecutor(unitOfWorkManager, 10, 2);
+        BulkOperation bulk = executor.execute("test", process, ProcessInstance.STATE_ACTIVE, null, pi -> processed.add(pi.id()));
+
+        assertThat(bulk.state()).isEqualTo(BulkOperation.State.COMPLETED);
+        assertThat(bulk.succeeded()).isEqualTo(24);
+        assertThat(bulk.skipped()).isEqualTo(1);
+        assertThat(bulk.failed()).isEqualTo(0);
+        assertThat(processed).hasSize(24).doesNotContain("id005");
+    }
+
+    @Test
+    public void testFailingInstanceIsolatedFromItsChunk() {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        BulkUnitOfWorkExecutor executor = new BulkUnitOfWorkExecutor(unitOfWorkManager, 10, 2);
+        BulkOperation bulk = executor.execute("test", process, ProcessInstance.STATE_ERROR, null, pi -> {
+            if (pi.id().equals("id013")) {
+                throw new IllegalStateException("failed");
+            }
+            processed.add(pi.id());
+            return !pi.id().equals("id021");
+        });
+
+        assertThat(bulk.state()).isEqualTo(BulkOperation.State.COMPLETED);
+        assertThat(bulk.succeeded()).isEqualTo(23);
+        assertThat(bulk.failed()).isEqualTo(2);
+        assertThat(bulk.failedIds()).containsExactlyInAnyOrder("id013", "id021");
+        assertThat(processed).hasSize(24).doesNotContain("id013");
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        BulkUnitOfWorkExecutor executor = new BulkUnitOfWorkExecutor(unitOfWorkManager, 10, 1);
+        BulkOperation bulk = executor.execute("test", process, ProcessInstance.STATE_ACTIVE, null, pi -> {
+            processed.add(pi.id());
+            if (pi.id().equals("id010")) {
+                throw new IllegalStateException("stopped");
+            }
+            return true;
+        });
+        assertThat(bulk.failedIds()).containsOnly("id010");
+
+        // resume from checkpoint pointing after the first chunk
+        ProcessInstanceCursor checkpoint = ProcessInstanceCursor.first(null, true).after(null, "id010");
+        processed.clear();
+        bulk = executor.execute("test", process, ProcessInstance.STATE_ACTIVE, checkpoint, pi -> processed.add(pi.id()));
+
+        assertThat(bulk.succeeded()).isEqualTo(15);
+        assertThat(processed).hasSize(15).doesNotContainAnyElementsOf(ids.subList(0, 10));
+        assertThat(bulk.checkpoint()).isNull();
+    }
+
+    @Test
+    public void testCheckpointOnlyMovesAfterPrecedingChunks() {
+        ProcessInstanceCursor first = ProcessInstanceCursor.first(null, true);
+        BulkOperation bulk = new BulkOperation("test", first);
+
+        ProcessInstanceCursor second = first.after(null, "id010");
+        ProcessInstanceCursor third = first.after(null, "id020");
+
+        bulk.recordCompleted(2, third);
+        assertThat(bulk.checkpoint()).isSameAs(first);
+
+        bulk.recordCompleted(1, second);
+        assertThat(bulk.checkpoint()).isSameAs(third);
+
+        bulk.recordCompleted(3, null);
+        assertThat(bulk.checkpoint()).isNull();
+        assertThat(bulk.failedIds()).isEqualTo(Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProcessInstance<Object> instance(String id) {
+        ProcessInstance<Object> instance = mock(ProcessInstance.class);
+        when(instance.id()).thenReturn(id);
+        return instance;
+    }
+}
@@ -3,7 +3,16 @@ package io.automatiko.engine.services.uow;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +21,11 @@ import org.junit.jupiter.api.Test;
 import io.automatiko.engine.api.uow.UnitOfWork;
 import io.automatiko.engine.api.uow.UnitOfWorkManager;
 import io.automatiko.engine.api.uow.WorkUnit;
+import io.automatiko.engine.api.workflow.BatchWriteException;
+import io.automatiko.engine.api.workflow.ConflictingVersionException;
+import io.automatiko.engine.api.workflow.MutableProcessInstances;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.ProcessInstance;
 import io.automatiko.engine.services.uow.BaseWorkUnit;
 import io.automatiko.engine.services.uow.CollectingUnitOfWork;
 import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
@@ -19,6 +33,7 @@ import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
 import io.automatiko.engine.services.uow.ManagedUnitOfWork;
 import io.automatiko.engine.services.uow.PassThroughUnitOfWork;
 import io.automatiko.engine.services.uow.ProcessInstanceWorkUnit;
+import io.automatiko.engine.services.uow.ProcessInstanceWorkUnit.Operation;
 
 public class DefaultUnitOfWorkManagerTest {
 
@@ -129,4 +144,135 @@ public class DefaultUnitOfWorkManagerTest {
 		assertThat(counter.get()).isEqualTo(1);
 		assertThat(picounter.get()).isEqualTo(0);
 	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testUnitOfWorkBatchWrites() {
+		UnitOfWorkManager batchingManager = new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory(true));
+
+		MutableProcessInstances store = mock(MutableProcessInstances.class);
+		Process process = mock(Process.class);
+		when(process.id()).thenReturn("test");
+		when(process.instances()).thenReturn(store);
+
+		ProcessInstance created = processInstance("1", process);
+		ProcessInstance updated = processInstance("2", process);
+		ProcessInstance removed = processInstance("3", process);
+
+		final AtomicInteger counter = new AtomicInteger(0);
+		UnitOfWork unit = batchingManager.newUnitOfWork();
+		unit.start();
+		unit.intercept(new ProcessInstanceWorkUnit<>(created, Operation.CREATE, (d) -> counter.incrementAndGet(), null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(updated, Operation.UPDATE, (d) -> counter.incrementAndGet(), null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(created, Operation.UPDATE, (d) -> counter.incrementAndGet(), null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(removed, Operation.REMOVE, (d) -> counter.incrementAndGet(), null));
+		unit.end();
+
+		// individual actions are replaced by batches
+		assertThat(counter.get()).isEqualTo(0);
+		verify(store, times(1)).createAll(Collections.singletonMap("1", created));
+		verify(store, times(1)).updateAll(Collections.singletonMap("2", updated));
+		verify(store, times(1)).removeAll(Collections.singletonMap("3", removed));
+		verify(store, never()).create(any(), any());
+		verify(store, never()).update(any(), any());
+		verify(store, never()).remove(any(), any());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testUnitOfWorkBatchWritesFailingInstance() {
+		UnitOfWorkManager batchingManager = new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory(true));
+
+		MutableProcessInstances store = mock(MutableProcessInstances.class);
+		Process process = mock(Process.class);
+		when(process.id()).thenReturn("test");
+		when(process.instances()).thenReturn(store);
+
+		ProcessInstance first = processInstance("1", process);
+		ProcessInstance failing = processInstance("2", process);
+		ProcessInstance last = processInstance("3", process);
+
+		doThrow(new BatchWriteException(Arrays.asList("2", "3"), new IllegalStateException("batch failed"))).when(store)
+				.createAll(any());
+		doThrow(new IllegalStateException("instance failed")).when(store).create("2", failing);
+
+		UnitOfWork unit = batchingManager.newUnitOfWork();
+		unit.start();
+		unit.intercept(new ProcessInstanceWorkUnit<>(first, Operation.CREATE, (d) -> {
+		}, null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(failing, Operation.CREATE, (d) -> {
+		}, null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(last, Operation.CREATE, (d) -> {
+		}, null));
+		unit.end();
+
+		// instances not written by failed batch are performed one by one so other instances are still stored
+		verify(store, times(1)).createAll(any());
+		verify(store, never()).create("1", first);
+		verify(store, times(1)).create("2", failing);
+		verify(store, times(1)).create("3", last);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testUnitOfWorkBatchWritesUnknownFailure() {
+		UnitOfWorkManager batchingManager = new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory(true));
+
+		MutableProcessInstances store = mock(MutableProcessInstances.class);
+		Process process = mock(Process.class);
+		when(process.id()).thenReturn("test");
+		when(process.instances()).thenReturn(store);
+
+		ProcessInstance first = processInstance("1", process);
+		ProcessInstance second = processInstance("2", process);
+
+		doThrow(new IllegalStateException("flush failed")).when(store).createAll(any());
+
+		UnitOfWork unit = batchingManager.newUnitOfWork();
+		unit.start();
+		unit.intercept(new ProcessInstanceWorkUnit<>(first, Operation.CREATE, (d) -> {
+		}, null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(second, Operation.CREATE, (d) -> {
+		}, null));
+
+		// store cannot tell what was written so nothing is retried and unit of work fails
+		assertThrows(IllegalStateException.class, () -> unit.end());
+		verify(store, never()).create(any(), any());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testUnitOfWorkBatchWritesConflictingInstance() {
+		UnitOfWorkManager batchingManager = new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory(true));
+
+		MutableProcessInstances store = mock(MutableProcessInstances.class);
+		Process process = mock(Process.class);
+		when(process.id()).thenReturn("test");
+		when(process.instances()).thenReturn(store);
+
+		ProcessInstance first = processInstance("1", process);
+		ProcessInstance conflicting = processInstance("2", process);
+
+		doThrow(new BatchWriteException(Arrays.asList("1", "2"), new IllegalStateException("batch failed"))).when(store)
+				.updateAll(any());
+		doThrow(new ConflictingVersionException("conflict")).when(store).update("2", conflicting);
+
+		UnitOfWork unit = batchingManager.newUnitOfWork();
+		unit.start();
+		unit.intercept(new ProcessInstanceWorkUnit<>(first, Operation.UPDATE, (d) -> {
+		}, null));
+		unit.intercept(new ProcessInstanceWorkUnit<>(conflicting, Operation.UPDATE, (d) -> {
+		}, null));
+
+		assertThrows(ConflictingVersionException.class, () -> unit.end());
+		verify(store, times(1)).update("1", first);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ProcessInstance processInstance(String id, Process process) {
+		ProcessInstance pi = mock(ProcessInstance.class);
+		when(pi.id()).thenReturn(id);
+		when(pi.process()).thenReturn(process);
+		return pi;
+	}
 }
@@ -29,6 +29,7 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.BooleanLiteralExpr;
 import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NormalAnnotationExpr;
@@ -38,6 +39,7 @@ import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
 
 import io.automatiko.engine.api.Functions;
 import io.automatiko.engine.api.definition.process.WorkflowProcess;
@@ -179,6 +181,9 @@ public class MessageConsumerGenerator {
             context.setApplicationProperty(INCOMING_PROP_PREFIX + sanitizedName + ".cloud-events", "false");
             context.setApplicationProperty("quarkus.automatiko.messaging.as-cloudevents",
                     isServerlessProcess() ? "true" : "false");
+            if (isBatch(connector)) {
+                context.setApplicationProperty(INCOMING_PROP_PREFIX + sanitizedName + ".batch", "true");
+            }
             context.addInstruction(
                     "Properties for Apache Kafka based message event '" + trigger.getDescription() + "'");
             context.addInstruction(
@@ -308,6 +313,9 @@ public class MessageConsumerGenerator {
         } else if (connector.equals(CAMEL_CONNECTOR)) {
             return "/class-templates/CamelMessageConsumerTemplate.java";
         } else if (connector.equals(KAFKA_CONNECTOR)) {
+            if (isBatch(connector)) {
+                return "/class-templates/KafkaBatchMessageConsumerTemplate.java";
+            }
             return "/class-templates/KafkaMessageConsumerTemplate.java";
         } else if (connector.equals(OPERATOR_CONNECTOR)) {
             return "/class-templates/OperatorMessageConsumerTemplate.java";
@@ -357,6 +365,8 @@ public class MessageConsumerGenerator {
         template.findAll(ClassOrInterfaceType.class).forEach(cls -> interpolateTypes(cls, dataClazzName));
         template.findAll(MethodDeclaration.class).stream().filter(md -> md.getNameAsString().equals("configure"))
                 .forEach(md -> md.addAnnotation("jakarta.annotation.PostConstruct"));
+        template.findAll(MethodDeclaration.class).stream().filter(md -> md.getNameAsString().equals("shutdown"))
+                .forEach(md -> md.addAnnotation("jakarta.annotation.PreDestroy"));
         template.findAll(MethodDeclaration.class).stream()
                 .filter(md -> md.getNameAsString().equals("consume") || md.getNameAsString().equals("cleanup")
                         || md.getNameAsString().equals("reconcile"))
@@ -507,6 +517,14 @@ public class MessageConsumerGenerator {
                         new StringLiteralExpr(trigger.getName())));
         template.addMember(messageNameField);
 
+        if (isBatch(connector)) {
+            FieldDeclaration parallelismField = new FieldDeclaration().setStatic(true).setFinal(true)
+                    .addVariable(new VariableDeclarator(PrimitiveType.intType(), "PARALLELISM",
+                            new IntegerLiteralExpr(String.valueOf(
+                                    context.getBuildContext().config().messaging().batchParallelism().orElse(0)))));
+            template.addMember(parallelismField);
+        }
+
         if (OPERATOR_CONNECTOR.equals(connector)) {
             // add event filter
             String eventFilterClass = (String) trigger.getContext("eventFilter");
@@ -576,6 +594,20 @@ public class MessageConsumerGenerator {
         return true;
     }
 
+    /*
+     * batch consumption is enabled for all messages via configuration or for individual message via custom attribute
+     */
+    private boolean isBatch(String connector) {
+        if (!KAFKA_CONNECTOR.equals(connector)) {
+            return false;
+        }
+        Object batch = trigger.getContext("batch");
+        if (batch != null) {
+            return Boolean.parseBoolean(batch.toString());
+        }
+        return context.getBuildContext().config().messaging().batch();
+    }
+
     private boolean isServerlessProcess() {
         return (boolean) process.getMetaData().getOrDefault("IsServerlessWorkflow", false);
     }
@@ -33,7 +33,9 @@ import io.automatiko.engine.api.uow.UnitOfWorkManager;
 import io.automatiko.engine.api.workflow.ProcessEventListenerConfig;
 import io.automatiko.engine.api.workflow.VariableInitializer;
 import io.automatiko.engine.api.workflow.WorkItemHandlerConfig;
+import io.automatiko.engine.api.workflow.signal.SignalManagerHub;
 import io.automatiko.engine.codegen.di.DependencyInjectionAnnotator;
+import io.automatiko.engine.services.signal.DefaultSignalManagerHub;
 import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
 import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
 import io.automatiko.engine.workflow.CachedProcessEventListenerConfig;
@@ -50,12 +52,14 @@ public class ProcessConfigGenerator {
     private static final String METHOD_EXTRACT_UNIT_OF_WORK_MANAGER = "extract_unitOfWorkManager";
     private static final String METHOD_EXTRACT_WORK_ITEM_HANDLER_CONFIG = "extract_workItemHandlerConfig";
     private static final String METHOD_EXTRACT_VARIABLE_INITIALIZER = "extract_variableInitializer";
+    private static final String METHOD_EXTRACT_SIGNAL_MANAGER_HUB = "extract_signalManagerHub";
     private static final String METHOD_MERGE_PROCESS_EVENT_LISTENER_CONFIG = "merge_processEventListenerConfig";
     private static final String VAR_DEFAULT_INSTANCE_FACTORY = "defaultInstanceFactory";
     private static final String VAR_DEFAULT_JOBS_SEVICE = "defaultJobsService";
     private static final String VAR_DEFAULT_PROCESS_EVENT_LISTENER_CONFIG = "defaultProcessEventListenerConfig";
     private static final String VAR_DEFAULT_UNIT_OF_WORK_MANAGER = "defaultUnitOfWorkManager";
     private static final String VAR_DEFAULT_VARIABLE_INITIALIZER = "defaultVariableInitializer";
+    private static final String VAR_DEFAULT_SIGNAL_MANAGER_HUB = "defaultSignalManagerHub";
     private static final String VAR_DEFAULT_WORK_ITEM_HANDLER_CONFIG = "defaultWorkItemHandlerConfig";
     private static final String VAR_INSTANCE_FACTORY = "instanceFactory";
     private static final String VAR_JOBS_SERVICE = "jobsService";
@@ -63,6 +67,7 @@ public class ProcessConfigGenerator {
     private static final String VAR_PROCESS_EVENT_LISTENERS = "processEventListeners";
     private static final String VAR_UNIT_OF_WORK_MANAGER = "unitOfWorkManager";
     private static final String VAR_VARIABLE_INITIALIZER = "variableInitializer";
+    private static final String VAR_SIGNAL_MANAGER_HUB = "signalManagerHub";
     private static final String VAR_WORK_ITEM_HANDLER_CONFIG = "workItemHandlerConfig";
 
     private DependencyInjectionAnnotator annotator;
@@ -77,7 +82,8 @@ public class ProcessConfigGenerator {
                     .addArgument(new MethodCallExpr(METHOD_EXTRACT_UNIT_OF_WORK_MANAGER))
                     .addArgument(new MethodCallExpr(METHOD_EXTRACT_JOBS_SERVICE))
                     .addArgument(new MethodCallExpr(METHOD_EXTRACT_VARIABLE_INITIALIZER))
-                    .addArgument(new MethodCallExpr(METHOD_EXTRACT_INSTANCE_FACTORY));
+                    .addArgument(new MethodCallExpr(METHOD_EXTRACT_INSTANCE_FACTORY))
+                    .addArgument(new MethodCallExpr(METHOD_EXTRACT_SIGNAL_MANAGER_HUB));
         } else {
             return new ObjectCreationExpr().setType(StaticProcessConfig.class.getCanonicalName())
                     .addArgument(new NameExpr(VAR_DEFAULT_WORK_ITEM_HANDLER_CONFIG))
@@ -167,6 +173,19 @@ public class ProcessConfigGenerator {
                             VAR_INSTANCE_FACTORY)));
             members.add(instanceFactoryFieldDeclaration);
 
+            FieldDeclaration defaultSignalManagerHubFieldDeclaration = new FieldDeclaration()
+                    .setModifiers(Modifier.Keyword.PRIVATE)
+                    .addVariable(new VariableDeclarator(
+                            new ClassOrInterfaceType(null, SignalManagerHub.class.getCanonicalName()),
+                            VAR_DEFAULT_SIGNAL_MANAGER_HUB, newObject(DefaultSignalManagerHub.class)));
+            members.add(defaultSignalManagerHubFieldDeclaration);
+
+            FieldDeclaration signalManagerHubFieldDeclaration = annotator
+                    .withInjection(new FieldDeclaration().addVariable(new VariableDeclarator(
+                            genericType(annotator.optionalInstanceInjectionType(), SignalManagerHub.class),
+                            VAR_SIGNAL_MANAGER_HUB)));
+            members.add(signalManagerHubFieldDeclaration);
+
             members.add(extractOptionalInjection(WorkItemHandlerConfig.class.getCanonicalName(),
                     VAR_WORK_ITEM_HANDLER_CONFIG, VAR_DEFAULT_WORK_ITEM_HANDLER_CONFIG, annotator));
             members.add(extractOptionalInjection(UnitOfWorkManager.class.getCanonicalName(), VAR_UNIT_OF_WORK_MANAGER,
@@ -177,6 +196,8 @@ public class ProcessConfigGenerator {
                     VAR_DEFAULT_VARIABLE_INITIALIZER, annotator));
             members.add(extractOptionalInjection("io.automatiko.engine.api.workflow.ProcessInstancesFactory",
                     VAR_INSTANCE_FACTORY, VAR_DEFAULT_INSTANCE_FACTORY, annotator));
+            members.add(extractOptionalInjection(SignalManagerHub.class.getCanonicalName(), VAR_SIGNAL_MANAGER_HUB,
+                    VAR_DEFAULT_SIGNAL_MANAGER_HUB, annotator));
 
             members.add(generateExtractEventListenerConfigMethod());
             members.add(generateMergeEventListenerConfigMethod());
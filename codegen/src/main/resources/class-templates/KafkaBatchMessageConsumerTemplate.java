@@ -0,0 +1,329 @@
+package com.myspace.demo;
+
+import java.util.TimeZone;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.automatiko.engine.api.Application;
+import io.automatiko.engine.api.auth.IdentityProvider;
+import io.automatiko.engine.api.auth.TrustedIdentityProvider;
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceDuplicatedException;
+import io.automatiko.engine.workflow.Sig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class $Type$MessageConsumer {
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger("MessageConsumer");
+
+    Process<$Type$> process;
+
+    Application application;
+    
+    Optional<Boolean> useCloudEvents = Optional.of(false);
+    
+    jakarta.enterprise.inject.Instance<io.automatiko.engine.api.io.InputConverter<$DataType$>> converter;
+    
+    @jakarta.inject.Inject
+    ObjectMapper json;
+
+    @jakarta.inject.Inject
+    io.automatiko.engine.service.metrics.ProcessMessagingMetrics metrics;
+    
+    ExecutorService executor;
+    
+    public void configure() {
+        int parallelism = PARALLELISM > 0 ? PARALLELISM : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "automatiko-batch-" + MESSAGE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+    
+    @io.smallrye.reactive.messaging.annotations.Blocking  
+    public CompletionStage<Void> consume(io.smallrye.reactive.messaging.kafka.KafkaRecordBatch<?, ?> batch) {
+        final String trigger = "$Trigger$";
+        // events grouped by correlation, events of the same correlation are processed in order
+        Map<String, List<$DataType$>> correlated = new LinkedHashMap<>();
+        Map<String, List<Message<?>>> correlatedRecords = new LinkedHashMap<>();
+        List<$DataType$> uncorrelated = new ArrayList<>();
+        List<Message<?>> uncorrelatedRecords = new ArrayList<>();
+        // records are acknowledged individually so failure of one group does not affect records of other groups
+        List<CompletableFuture<Void>> completed = new ArrayList<>();
+        for (io.smallrye.reactive.messaging.kafka.KafkaRecord<?, ?> record : batch.getRecords()) {
+            metrics.messageReceived(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+            $DataType$ eventData;
+            String correlation;
+            LOGGER.debug("Received message with key '{}' and payload '{}'", record.getKey(), record.getPayload());
+            boolean accepted;
+            try {
+                if (useCloudEvents.orElse(false)) {
+                    $DataEventType$ event;
+                    String contentType = header(record, "content-type");
+                    if (contentType != null && contentType.startsWith("application/cloudevents+json")) {
+                        // structured
+                        event = json.readValue(record.getPayload().toString(), $DataEventType$.class);
+                        eventData = event.getData();
+                    } else {
+                        // binary
+                        eventData = convert(record, $DataType$.class);
+                        event =  new $DataEventType$(header(record, "ce_specversion"), header(record, "ce_id"), header(record, "ce_source"), header(record, "ce_type"), header(record, "ce_subject"), header(record, "ce_time"), eventData);
+                        cloudEventsExtensions(record, event);
+                    }
+                    correlation = correlation(event, record);  
+                    accepted = acceptedEvent(event, record);
+                } else {
+                    eventData = convert(record, $DataType$.class);
+                    correlation = correlation(eventData, record); 
+                    accepted = acceptedPayload(eventData, record);
+                }
+            } catch (Exception e) {
+                completed.add(complete(Collections.singletonList(record), e));
+                continue;
+            }
+            if (!accepted) {
+                metrics.messageRejected(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+                LOGGER.debug("Message has been rejected by filter expression");
+                completed.add(record.ack().toCompletableFuture());
+                continue;
+            }
+            if (correlation != null) {
+                correlated.computeIfAbsent(correlation, c -> new ArrayList<>()).add(eventData);
+                correlatedRecords.computeIfAbsent(correlation, c -> new ArrayList<>()).add(record);
+            } else {
+                uncorrelated.add(eventData);
+                uncorrelatedRecords.add(record);
+            }
+        }
+
+        Map<String, List<String>> located;
+        try {
+            located = locate(correlated.keySet());
+        } catch (Exception e) {
+            for (List<Message<?>> records : correlatedRecords.values()) {
+                completed.add(complete(records, e));
+            }
+            correlated.clear();
+            located = Collections.emptyMap();
+        }
+        for (Map.Entry<String, List<$DataType$>> entry : correlated.entrySet()) {
+            List<Message<?>> records = correlatedRecords.get(entry.getKey());
+            List<String> instanceIds = located.getOrDefault(entry.getKey(), Collections.emptyList());
+            completed.add(CompletableFuture.runAsync(() -> consumeCorrelated(trigger, entry.getKey(), instanceIds, entry.getValue()), executor)
+                    .handle((result, error) -> complete(records, error)).thenCompose(acks -> acks));
+        }
+        for (int i = 0; i < uncorrelated.size(); i++) {
+            $DataType$ eventData = uncorrelated.get(i);
+            List<Message<?>> records = Collections.singletonList(uncorrelatedRecords.get(i));
+            completed.add(CompletableFuture.runAsync(() -> consumeCorrelated(trigger, null, Collections.emptyList(), Collections.singletonList(eventData)), executor)
+                    .handle((result, error) -> complete(records, error)).thenCompose(acks -> acks));
+        }
+        return CompletableFuture.allOf(completed.toArray(new CompletableFuture[completed.size()]));
+    }
+    
+    /*
+     * acknowledges records of single group once it was consumed, or negatively acknowledges them in case of failure
+     */
+    protected CompletableFuture<Void> complete(List<Message<?>> records, Throwable error) {
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        if (error == null) {
+            for (Message<?> record : records) {
+                acks.add(record.ack().toCompletableFuture());
+            }
+        } else {
+            Throwable cause = error instanceof java.util.concurrent.CompletionException && error.getCause() != null ? error.getCause() : error;
+            metrics.messageFailed(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+            LOGGER.error("Error when consuming messages for process {}", process.id(), cause);
+            for (Message<?> record : records) {
+                acks.add(record.nack(cause).toCompletableFuture());
+            }
+        }
+        return CompletableFuture.allOf(acks.toArray(new CompletableFuture[acks.size()]));
+    }
+    
+    /*
+     * resolves instances matching correlations of the whole batch with single query, found instances are assigned back
+     * to correlations by their id, business key or tags
+     */
+    protected Map<String, List<String>> locate(Collection<String> correlations) {
+        Map<String, List<String>> located = new LinkedHashMap<>();
+        if (correlations.isEmpty()) {
+            return located;
+        }
+        IdentityProvider.set(new TrustedIdentityProvider("System<messaging>"));
+        try {
+            Collection<? extends ProcessInstance<$Type$>> found = process.instances().findByIdOrTag(io.automatiko.engine.api.workflow.ProcessInstanceReadMode.READ_ONLY, correlations.toArray(new String[correlations.size()]));
+            for (ProcessInstance<$Type$> instance : found) {
+                String instanceId = instance.parentProcessInstanceId() == null ? instance.id() : instance.parentProcessInstanceId() + ":" + instance.id();
+                for (String correlation : correlations) {
+                    if (correlation.equals(instance.id()) || correlation.equals(instanceId) || correlation.equals(instance.businessKey()) || instance.tags().values().contains(correlation)) {
+                        located.computeIfAbsent(correlation, c -> new ArrayList<>()).add(instanceId);
+                    }
+                }
+            }
+            return located;
+        } finally {
+            IdentityProvider.set(null);
+        }
+    }
+    
+    /*
+     * consumes events of single correlation in order within one unit of work, instances matching the correlation
+     * were located for the whole batch so each of them is only loaded with lock
+     */
+    protected void consumeCorrelated(String trigger, String correlation, List<String> instanceIds, List<$DataType$> events) {
+        IdentityProvider.set(new TrustedIdentityProvider("System<messaging>"));
+        try {
+            consumeInUnitOfWork(trigger, correlation, instanceIds, events);
+        } finally {
+            IdentityProvider.set(null);
+        }
+    }
+    
+    protected void consumeInUnitOfWork(String trigger, String correlation, List<String> instanceIds, List<$DataType$> events) {
+        io.automatiko.engine.services.uow.UnitOfWorkExecutor.executeInUnitOfWork(application.unitOfWorkManager(), () -> {
+            List<ProcessInstance> possiblyFound = new ArrayList<>();
+            if (!instanceIds.isEmpty()) {
+                LOGGER.debug("Correlation ({}) is set, found matching instances {}", correlation, instanceIds);
+                for (String instanceId : instanceIds) {
+                    process.instances().findById(instanceId, io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE_WITH_LOCK).ifPresent(pi -> possiblyFound.add((ProcessInstance) pi));
+                }
+            }
+            for ($DataType$ eventData : events) {
+                possiblyFound.removeIf(pi -> pi.status() != ProcessInstance.STATE_ACTIVE);
+                if (!possiblyFound.isEmpty()) {
+                    metrics.messageConsumed(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+                    for (ProcessInstance pInstance : possiblyFound) {
+                        LOGGER.debug("Found process instance {} matching correlation {}, signaling instead of starting new instance", pInstance.id(), correlation);
+                        pInstance.send(Sig.of(canStartInstance() ? trigger : "Message-" + trigger, eventData));
+                    }
+                    continue;
+                }
+                if (canStartInstance()) {
+                    LOGGER.debug("Received message without reference id and no correlation is set/matched, staring new process instance with trigger '{}'", trigger);
+                    metrics.messageConsumed(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+                    ProcessInstance<$Type$> pi;
+                    try {
+                        pi = process.createInstance(correlation, new $Type$());
+                        pi.start(trigger, null, eventData);
+                    } catch (ProcessInstanceDuplicatedException e) {
+                        pi = process.instances().findById(correlation, io.automatiko.engine.api.workflow.ProcessInstanceReadMode.MUTABLE_WITH_LOCK).get();
+                        pi.send(Sig.of(trigger, eventData));
+                    }
+                    if (correlation != null) {
+                        // next events of the same correlation are given to the started instance
+                        possiblyFound.add(pi);
+                    }
+                } else {
+                    metrics.messageMissed(CONNECTOR, MESSAGE, ((io.automatiko.engine.workflow.AbstractProcess<?>)process).process());
+                    LOGGER.warn("Received message without reference id and no correlation is set/matched, for trigger not capable of starting new instance '{}'", trigger);
+                }
+            }
+            return null;
+        });
+    }
+	
+	protected String correlationPayload(Object eventData, Message<?> message) {
+	    
+		return null;
+	}
+	 
+	protected String correlationEvent(io.automatiko.engine.api.event.AbstractDataEvent<?> eventData, Message<?> message) {
+		
+		return null;
+	}
+	
+    protected boolean acceptedPayload(Object eventData, Message<?> message) {
+        return true;
+    }
+
+    protected boolean acceptedEvent(io.automatiko.engine.api.event.AbstractDataEvent<?> eventData, Message<?> message) {
+        return true;
+    }
+	
+	protected $DataType$ convert(Message<?> message, Class<?> clazz) throws Exception {
+	    Object payload = message.getPayload();
+	    
+	    if (converter != null && !converter.isUnsatisfied()) {
+	        payload = converter.get().convert(message);
+	    }
+	    	    
+	    if (payload instanceof String) {
+	        return ($DataType$) json.readValue(payload.toString(), $DataType$.class);
+	    }
+	    
+	    return ($DataType$) payload;
+	}
+	
+	private String correlation($DataType$ eventData, Message<?> msg) {
+	    String correlation = correlationPayload(eventData, msg);
+        if (correlation == null && ((io.smallrye.reactive.messaging.kafka.KafkaRecord<?, ?>) msg).getKey() != null) {
+            correlation = ((io.smallrye.reactive.messaging.kafka.KafkaRecord<?, ?>) msg).getKey().toString();
+        }
+        return correlation;
+	}
+	
+    private String correlation($DataEventType$ eventData, Message<?> msg) {
+        String correlation = correlationEvent(eventData, msg);
+        if (correlation == null && ((io.smallrye.reactive.messaging.kafka.KafkaRecord<?, ?>) msg).getKey() != null) {
+            correlation = ((io.smallrye.reactive.messaging.kafka.KafkaRecord<?, ?>) msg).getKey().toString();
+        }
+        return correlation;
+    }
+	
+    protected String header(Message<?> message, String name) {
+
+        io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata<?, ?> metadata = message.getMetadata(io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata.class).orElse(null);
+        if (metadata == null) {
+            return null;
+        }
+        org.apache.kafka.common.header.Headers headers = metadata.getHeaders();
+        
+        org.apache.kafka.common.header.Header header = headers.lastHeader(name);
+        
+        if (header == null) {
+            return null;
+        }
+        
+        return new String(header.value(), StandardCharsets.UTF_8);
+    }
+    
+    protected void cloudEventsExtensions(Message<?> message, $DataEventType$ event) {
+        io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata<?, ?> metadata = message.getMetadata(io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata.class).orElse(null);
+        if (metadata == null) {
+            return;
+        }
+        org.apache.kafka.common.header.Headers headers = metadata.getHeaders();
+        for (org.apache.kafka.common.header.Header header : headers.toArray()) {
+            if (header.key().startsWith("ce_"))
+                event.addExtension(header.key().replaceFirst("ce_", ""), new String(header.value(), StandardCharsets.UTF_8));
+        }
+    }
+}
\ No newline at end of file
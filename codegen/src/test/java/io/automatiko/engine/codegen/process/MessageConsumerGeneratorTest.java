@@ -0,0 +1,85 @@
+package io.automatiko.engine.codegen.process;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.config.AutomatikoBuildConfig;
+import io.automatiko.engine.api.config.MessagingBuildConfig;
+import io.automatiko.engine.codegen.GeneratorContext;
+import io.automatiko.engine.codegen.context.QuarkusApplicationBuildContext;
+import io.automatiko.engine.workflow.compiler.canonical.TriggerMetaData;
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcess;
+
+public class MessageConsumerGeneratorTest {
+
+    @Test
+    public void testKafkaBatchConsumer() {
+        GeneratorContext context = context(false);
+        String source = generate(context, "true");
+
+        assertThat(source).contains("KafkaRecordBatch").contains("consumeCorrelated").contains("PARALLELISM = 4");
+        // instances of all correlations are resolved with single query and loaded once with lock, records are
+        // acknowledged per correlation
+        assertThat(source).contains("findByIdOrTag(io.automatiko.engine.api.workflow.ProcessInstanceReadMode.READ_ONLY")
+                .doesNotContain("locateByIdOrTag").doesNotContain("batch.nack");
+        assertThat(context.getApplicationProperty("mp.messaging.incoming.orders.batch")).hasValue("true");
+    }
+
+    @Test
+    public void testKafkaBatchConsumerEnabledByConfig() {
+        GeneratorContext context = context(true);
+        assertThat(generate(context, null)).contains("KafkaRecordBatch");
+
+        context = context(true);
+        assertThat(generate(context, "false")).doesNotContain("KafkaRecordBatch");
+        assertThat(context.getApplicationProperty("mp.messaging.incoming.orders.batch")).isEmpty();
+    }
+
+    private String generate(GeneratorContext context, String batch) {
+        ExecutableProcess process = new ExecutableProcess();
+        process.setId("orders");
+        process.setPackageName("org.acme");
+
+        TriggerMetaData trigger = new TriggerMetaData("orders", "ConsumeMessage", "String", "order", "1", "orders");
+        Map<String, Object> data = new HashMap<>();
+        data.put("connector", "kafka");
+        if (batch != null) {
+            data.put("batch", batch);
+        }
+        trigger.addContext(data);
+
+        return new MessageConsumerGenerator(context, process, "org.acme.OrdersModel", "org.acme.OrdersProcess",
+                "org.acme.Application", "OrdersMessageDataEvent_1", trigger).generate();
+    }
+
+    private GeneratorContext context(boolean batch) {
+        AutomatikoBuildConfig config = new AutomatikoBuildConfig() {
+            @Override
+            public MessagingBuildConfig messaging() {
+                return new MessagingBuildConfig() {
+                    @Override
+                    public boolean batch() {
+                        return batch;
+                    }
+
+                    @Override
+                    public Optional<Integer> batchParallelism() {
+                        return Optional.of(4);
+                    }
+                };
+            }
+        };
+        GeneratorContext context = GeneratorContext.ofResourcePath(new File("src/test/resources"),
+                new File("target/classes"));
+        context.withBuildContext(new QuarkusApplicationBuildContext(config, className -> false,
+                c -> Collections.emptyList(), capability -> false));
+        return context;
+    }
+}
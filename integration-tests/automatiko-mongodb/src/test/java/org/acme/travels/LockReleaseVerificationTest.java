@@ -0,0 +1,88 @@
+package org.acme.travels;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import io.automatiko.engine.api.workflow.MutableProcessInstances;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.ProcessInstanceReadMode;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+
+@QuarkusTest
+public class LockReleaseVerificationTest {
+ // @formatter:off
+
+    @Inject
+    @Named("orders_1_0")
+    Process<?> process;
+
+    @Inject
+    MongoClient mongoClient;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testLockReleaseAfterUpdateIsNotified() {
+
+        String addPayload = "{\"approver\" : \"john\", \"order\": {\"orderNumber\": \"lock-release\", \"shipped\": false, \"total\": 0}}";
+        String id = given()
+            .contentType(ContentType.JSON)
+            .accept(ContentType.JSON)
+            .body(addPayload)
+            .when()
+                .post("/v1_0/orders")
+            .then()
+                .statusCode(200)
+                .body("id", notNullValue())
+                .extract().path("id");
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> changes = mongoClient.getDatabase("automatiko")
+                .getCollection(process.id())
+                .watch(List.of(Aggregates.match(Filters.eq("operationType", "update"))))
+                .cursor()) {
+
+            MutableProcessInstances instances = (MutableProcessInstances) process.instances();
+            ProcessInstance instance = (ProcessInstance) process.instances().findById(id, ProcessInstanceReadMode.MUTABLE_WITH_LOCK)
+                    .orElse(null);
+            assertNotNull(instance);
+            // regular path of unit of work - instance is stored while locked and released afterwards
+            instances.update(instance.id(), instance);
+            instances.release(instance.id(), instance);
+
+            boolean released = false;
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!released && System.currentTimeMillis() < deadline) {
+                ChangeStreamDocument<Document> change = changes.tryNext();
+                released = change != null && change.getUpdateDescription() != null
+                        && change.getUpdateDescription().getRemovedFields() != null
+                        && change.getUpdateDescription().getRemovedFields().contains("lockStamp");
+            }
+            assertTrue(released, "Releasing lock of updated instance must be visible to other services");
+        } finally {
+            given()
+                .accept(ContentType.JSON)
+            .when()
+                .delete("/v1_0/orders/" + id)
+            .then()
+                .statusCode(200);
+        }
+    }
+ // @formatter:on
+}
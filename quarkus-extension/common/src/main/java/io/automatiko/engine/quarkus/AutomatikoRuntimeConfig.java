@@ -12,6 +12,7 @@ import io.automatiko.engine.api.config.JobsConfig;
 import io.automatiko.engine.api.config.NotificationsConfig;
 import io.automatiko.engine.api.config.PersistenceConfig;
 import io.automatiko.engine.api.config.SecurityConfig;
+import io.automatiko.engine.api.config.SignalsConfig;
 import io.quarkus.runtime.annotations.ConfigItem;
 import io.quarkus.runtime.annotations.ConfigPhase;
 import io.quarkus.runtime.annotations.ConfigRoot;
@@ -112,6 +113,12 @@ public class AutomatikoRuntimeConfig extends AutomatikoConfig {
     @ConfigItem
     public IndexRuntimeConfig index;
 
+    /**
+     * Configures signals delivery
+     */
+    @ConfigItem
+    public SignalsRuntimeConfig signals;
+
     @Override
     public Optional<String> serviceUrl() {
         return serviceUrl;
@@ -187,4 +194,9 @@ public class AutomatikoRuntimeConfig extends AutomatikoConfig {
         return index;
     }
 
+    @Override
+    public SignalsConfig signals() {
+        return signals;
+    }
+
 }
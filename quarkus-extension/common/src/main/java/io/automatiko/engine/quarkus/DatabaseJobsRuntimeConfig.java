@@ -21,6 +21,25 @@ public class DatabaseJobsRuntimeConfig extends DatabaseJobsConfig {
     @ConfigItem
     public Optional<Integer> threads;
 
+    /**
+     * Unique identifier of the service instance (node) used to claim jobs, host name is used if not set
+     */
+    @ConfigItem
+    public Optional<String> nodeId;
+
+    /**
+     * Duration (in seconds) of the lease on claimed jobs, jobs of a node that did not renew the lease are taken over by
+     * other nodes
+     */
+    @ConfigItem
+    public Optional<Long> leaseDuration;
+
+    /**
+     * Max number of jobs claimed in single batch
+     */
+    @ConfigItem
+    public Optional<Integer> batchSize;
+
     @Override
     public Optional<Long> interval() {
         return interval;
@@ -30,4 +49,19 @@ public class DatabaseJobsRuntimeConfig extends DatabaseJobsConfig {
     public Optional<Integer> threads() {
         return threads;
     }
+
+    @Override
+    public Optional<String> nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Optional<Long> leaseDuration() {
+        return leaseDuration;
+    }
+
+    @Override
+    public Optional<Integer> batchSize() {
+        return batchSize;
+    }
 }
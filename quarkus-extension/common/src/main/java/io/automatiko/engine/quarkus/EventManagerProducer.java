@@ -0,0 +1,85 @@
+package io.automatiko.engine.quarkus;
+
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.automatiko.engine.api.config.OutboxEventsConfig;
+import io.automatiko.engine.api.event.EventManager;
+import io.automatiko.engine.quarkus.event.JacksonEventCodec;
+import io.automatiko.engine.services.event.impl.AsyncEventManager;
+import io.automatiko.engine.services.event.impl.BaseEventManager;
+import io.automatiko.engine.services.event.impl.EventOutbox;
+import io.automatiko.engine.services.event.impl.FileEventOutbox;
+
+/**
+ * Produces event manager shared by unit of work managers. When asynchronous publishing is enabled events are stored
+ * in outbox provided by the persistence addon (if any, e.g. database table) or in local log files.
+ */
+@ApplicationScoped
+public class EventManagerProducer {
+
+    @ConfigProperty(name = OutboxEventsConfig.ENABLED_KEY)
+    Optional<Boolean> enabled;
+
+    @ConfigProperty(name = OutboxEventsConfig.QUEUE_SIZE_KEY)
+    Optional<Integer> queueSize;
+
+    @ConfigProperty(name = OutboxEventsConfig.BATCH_SIZE_KEY)
+    Optional<Integer> batchSize;
+
+    @ConfigProperty(name = OutboxEventsConfig.RETRIES_KEY)
+    Optional<Integer> retries;
+
+    @ConfigProperty(name = OutboxEventsConfig.RETRY_DELAY_KEY)
+    Optional<Long> retryDelay;
+
+    @ConfigProperty(name = OutboxEventsConfig.ENQUEUE_TIMEOUT_KEY)
+    Optional<Long> enqueueTimeout;
+
+    @ConfigProperty(name = OutboxEventsConfig.POLL_INTERVAL_KEY)
+    Optional<Long> pollInterval;
+
+    @ConfigProperty(name = OutboxEventsConfig.DIRECTORY_KEY)
+    Optional<String> directory;
+
+    @Produces
+    @Singleton
+    public EventManager produce(Instance<EventOutbox> outboxes, Instance<ObjectMapper> mappers) {
+        if (!enabled.orElse(false)) {
+            return new BaseEventManager();
+        }
+        EventOutbox outbox;
+        if (outboxes.isResolvable()) {
+            outbox = outboxes.get();
+        } else {
+            outbox = new FileEventOutbox(Paths.get(directory.orElseThrow(() -> new IllegalStateException(
+                    "Location of the events outbox must be set with '" + OutboxEventsConfig.DIRECTORY_KEY
+                            + "' when asynchronous publishing is enabled"))));
+        }
+        ObjectMapper mapper = mappers.isResolvable() ? mappers.get() : new ObjectMapper().findAndRegisterModules();
+
+        return new AsyncEventManager(outbox, new JacksonEventCodec(mapper),
+                queueSize.orElse(AsyncEventManager.DEFAULT_QUEUE_SIZE),
+                batchSize.orElse(AsyncEventManager.DEFAULT_BATCH_SIZE),
+                retries.orElse(AsyncEventManager.DEFAULT_RETRIES),
+                retryDelay.orElse(AsyncEventManager.DEFAULT_RETRY_DELAY),
+                enqueueTimeout.orElse(AsyncEventManager.DEFAULT_ENQUEUE_TIMEOUT),
+                pollInterval.orElse(AsyncEventManager.DEFAULT_POLL_INTERVAL));
+    }
+
+    public void close(@Disposes EventManager eventManager) {
+        if (eventManager instanceof AsyncEventManager) {
+            ((AsyncEventManager) eventManager).close(AsyncEventManager.DEFAULT_ENQUEUE_TIMEOUT * 10);
+        }
+    }
+}
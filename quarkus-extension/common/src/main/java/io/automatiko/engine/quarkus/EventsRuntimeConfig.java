@@ -20,6 +20,12 @@ public class EventsRuntimeConfig extends EventsConfig {
     @ConfigItem
     public WebsocketEventsRuntimeConfig websocket;
 
+    /**
+     * Provides configuration of asynchronous publishing of events
+     */
+    @ConfigItem
+    public OutboxEventsRuntimeConfig outbox;
+
     @Override
     public ElasticEventsConfig elastic() {
         return elastic;
@@ -29,4 +35,9 @@ public class EventsRuntimeConfig extends EventsConfig {
     public WebsocketEventsRuntimeConfig websocket() {
         return websocket;
     }
+
+    @Override
+    public OutboxEventsRuntimeConfig outbox() {
+        return outbox;
+    }
 }
@@ -15,9 +15,20 @@ public class GoogleStorageFilesRuntimeConfig extends GoogleStorageFilesConfig {
     @ConfigItem
     public Optional<String> bucket;
 
+    /**
+     * Specifies chunk size (in bytes) to be used when uploading files
+     */
+    @ConfigItem
+    public Optional<Integer> chunkSize;
+
     @Override
     public Optional<String> bucket() {
         return bucket;
     }
 
+    @Override
+    public Optional<Integer> chunkSize() {
+        return chunkSize;
+    }
+
 }
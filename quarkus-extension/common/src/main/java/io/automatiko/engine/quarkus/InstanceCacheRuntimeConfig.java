@@ -0,0 +1,46 @@
+package io.automatiko.engine.quarkus;
+
+import java.util.Optional;
+
+import io.automatiko.engine.api.config.InstanceCacheConfig;
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+@ConfigGroup
+public class InstanceCacheRuntimeConfig extends InstanceCacheConfig {
+
+    /**
+     * Specifies maximum number of process instances kept in the cache (per process), cache is disabled by default
+     */
+    @ConfigItem
+    public Optional<Integer> size;
+
+    /**
+     * Specifies time (in milliseconds) after which cached process instance expires, by default cached instances do
+     * not expire
+     */
+    @ConfigItem
+    public Optional<Long> ttl;
+
+    /**
+     * Specifies comma separated list of process ids the cache should be used for, by default cache is used for all
+     * processes
+     */
+    @ConfigItem
+    public Optional<String> processes;
+
+    @Override
+    public Optional<Integer> size() {
+        return size;
+    }
+
+    @Override
+    public Optional<Long> ttl() {
+        return ttl;
+    }
+
+    @Override
+    public Optional<String> processes() {
+        return processes;
+    }
+}
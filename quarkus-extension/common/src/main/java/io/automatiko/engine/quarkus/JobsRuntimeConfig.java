@@ -1,5 +1,7 @@
 package io.automatiko.engine.quarkus;
 
+import java.util.Optional;
+
 import io.automatiko.engine.api.config.CassandraJobsConfig;
 import io.automatiko.engine.api.config.DatabaseJobsConfig;
 import io.automatiko.engine.api.config.DynamoDBJobsConfig;
@@ -13,6 +15,24 @@ import io.quarkus.runtime.annotations.ConfigItem;
 @ConfigGroup
 public class JobsRuntimeConfig extends JobsConfig {
 
+    /**
+     * Specifies duration (in milliseconds) of single tick of the timing wheel, that is precision of fired timers
+     */
+    @ConfigItem
+    public Optional<Long> tickDuration;
+
+    /**
+     * Specifies number of buckets of the timing wheel
+     */
+    @ConfigItem
+    public Optional<Integer> ticksPerWheel;
+
+    /**
+     * Specifies max number of expired jobs waiting for execution thread
+     */
+    @ConfigItem
+    public Optional<Integer> queueSize;
+
     /**
      * Configures jobs based on file system storage
      */
@@ -49,6 +69,21 @@ public class JobsRuntimeConfig extends JobsConfig {
     @ConfigItem
     public MongodbJobsRuntimeConfig mongodb;
 
+    @Override
+    public Optional<Long> tickDuration() {
+        return tickDuration;
+    }
+
+    @Override
+    public Optional<Integer> ticksPerWheel() {
+        return ticksPerWheel;
+    }
+
+    @Override
+    public Optional<Integer> queueSize() {
+        return queueSize;
+    }
+
     @Override
     public FileSystemJobsConfig filesystem() {
         return filesystem;
@@ -1,5 +1,7 @@
 package io.automatiko.engine.quarkus;
 
+import java.util.Optional;
+
 import io.automatiko.engine.api.config.MessagingBuildConfig;
 import io.quarkus.runtime.annotations.ConfigGroup;
 import io.quarkus.runtime.annotations.ConfigItem;
@@ -19,6 +21,18 @@ public class MessagingBuildTimeConfig extends MessagingBuildConfig {
     @ConfigItem
     public boolean asCloudeventsBinary;
 
+    /**
+     * Enables batch consumption of messages (Apache Kafka only)
+     */
+    @ConfigItem
+    public boolean batch;
+
+    /**
+     * Number of threads used to process messages of different correlations of a batch in parallel
+     */
+    @ConfigItem
+    public Optional<Integer> batchParallelism;
+
     @Override
     public boolean asCloudevents() {
         return asCloudevents;
@@ -29,4 +43,14 @@ public class MessagingBuildTimeConfig extends MessagingBuildConfig {
         return asCloudeventsBinary;
     }
 
+    @Override
+    public boolean batch() {
+        return batch;
+    }
+
+    @Override
+    public Optional<Integer> batchParallelism() {
+        return batchParallelism;
+    }
+
 }
@@ -17,4 +17,15 @@ public class MetricsBuildTimeConfig extends MetricsBuildConfig {
 	public boolean enabled() {
 		return enabled;
 	}
+
+	/**
+	 * Enables profiling of workflow execution - time spent in individual nodes, marshalling, data store and locks
+	 */
+	@ConfigItem(defaultValue = "false")
+	public boolean profiling;
+
+	@Override
+	public boolean profiling() {
+		return profiling;
+	}
 }
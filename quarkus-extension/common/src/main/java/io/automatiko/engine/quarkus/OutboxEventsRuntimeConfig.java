@@ -0,0 +1,113 @@
+package io.automatiko.engine.quarkus;
+
+import java.util.Optional;
+
+import io.automatiko.engine.api.config.OutboxEventsConfig;
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+@ConfigGroup
+public class OutboxEventsRuntimeConfig extends OutboxEventsConfig {
+
+    /**
+     * Indicates if events should be published asynchronously by background relay instead of at the end of unit of work
+     */
+    @ConfigItem
+    public Optional<Boolean> enabled;
+
+    /**
+     * Specifies maximum number of events waiting to be published (per publisher)
+     */
+    @ConfigItem
+    public Optional<Integer> queueSize;
+
+    /**
+     * Specifies maximum number of events given to publisher at once
+     */
+    @ConfigItem
+    public Optional<Integer> batchSize;
+
+    /**
+     * Specifies how many times publishing of events is retried before they are dropped
+     */
+    @ConfigItem
+    public Optional<Integer> retries;
+
+    /**
+     * Specifies delay (in milliseconds) before first retry, it is doubled for every next retry
+     */
+    @ConfigItem
+    public Optional<Long> retryDelay;
+
+    /**
+     * Specifies how long (in milliseconds) unit of work waits for space in the queue before it publishes events
+     * directly
+     */
+    @ConfigItem
+    public Optional<Long> enqueueTimeout;
+
+    /**
+     * Specifies how often (in milliseconds) outbox is checked for events appended by other nodes or left over by
+     * previous run of the service
+     */
+    @ConfigItem
+    public Optional<Long> pollInterval;
+
+    /**
+     * Specifies location of the local log of events waiting to be published, not used when outbox is kept in database
+     */
+    @ConfigItem
+    public Optional<String> directory;
+
+    /**
+     * Specifies how long (in milliseconds) entries claimed by a node stay claimed before other nodes can claim them,
+     * used only when outbox is kept in database
+     */
+    @ConfigItem
+    public Optional<Long> claimTimeout;
+
+    @Override
+    public Optional<Boolean> enabled() {
+        return enabled;
+    }
+
+    @Override
+    public Optional<Integer> queueSize() {
+        return queueSize;
+    }
+
+    @Override
+    public Optional<Integer> batchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public Optional<Integer> retries() {
+        return retries;
+    }
+
+    @Override
+    public Optional<Long> retryDelay() {
+        return retryDelay;
+    }
+
+    @Override
+    public Optional<Long> enqueueTimeout() {
+        return enqueueTimeout;
+    }
+
+    @Override
+    public Optional<Long> pollInterval() {
+        return pollInterval;
+    }
+
+    @Override
+    public Optional<String> directory() {
+        return directory;
+    }
+
+    @Override
+    public Optional<Long> claimTimeout() {
+        return claimTimeout;
+    }
+}
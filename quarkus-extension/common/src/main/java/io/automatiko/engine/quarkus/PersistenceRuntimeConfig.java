@@ -2,6 +2,7 @@ package io.automatiko.engine.quarkus;
 
 import java.util.Optional;
 
+import io.automatiko.engine.api.config.InstanceCacheConfig;
 import io.automatiko.engine.api.config.PersistenceConfig;
 import io.automatiko.engine.api.config.TransactionLogConfig;
 import io.quarkus.runtime.annotations.ConfigGroup;
@@ -22,6 +23,36 @@ public class PersistenceRuntimeConfig extends PersistenceConfig {
     @ConfigItem
     public Optional<String> encryption;
 
+    /**
+     * Determines if process instances modified within single unit of work should be stored in batches
+     */
+    @ConfigItem
+    public Optional<Boolean> batchWrites;
+
+    /**
+     * Determines how variables of process instances are marshalled - json (default) or binary
+     */
+    @ConfigItem
+    public Optional<String> marshalling;
+
+    /**
+     * Determines if updates of process instances should be stored as deltas to the last stored snapshot
+     */
+    @ConfigItem
+    public Optional<Boolean> deltaUpdates;
+
+    /**
+     * Determines number of deltas after which complete snapshot of process instance is stored again
+     */
+    @ConfigItem
+    public Optional<Integer> deltaCompaction;
+
+    /**
+     * Determines if history of completed nodes should be stored as separate segment that is only read when needed
+     */
+    @ConfigItem
+    public Optional<Boolean> completedNodesSegment;
+
     /**
      * Configures file system based persistence
      */
@@ -52,6 +83,12 @@ public class PersistenceRuntimeConfig extends PersistenceConfig {
     @ConfigItem
     public MongodbPersistenceRuntimeConfig mongodb;
 
+    /**
+     * Configures cache of process instances
+     */
+    @ConfigItem
+    public InstanceCacheRuntimeConfig cache;
+
     /**
      * Configures transaction log
      */
@@ -68,6 +105,31 @@ public class PersistenceRuntimeConfig extends PersistenceConfig {
         return encryption;
     }
 
+    @Override
+    public Optional<Boolean> batchWrites() {
+        return batchWrites;
+    }
+
+    @Override
+    public Optional<String> marshalling() {
+        return marshalling;
+    }
+
+    @Override
+    public Optional<Boolean> deltaUpdates() {
+        return deltaUpdates;
+    }
+
+    @Override
+    public Optional<Integer> deltaCompaction() {
+        return deltaCompaction;
+    }
+
+    @Override
+    public Optional<Boolean> completedNodesSegment() {
+        return completedNodesSegment;
+    }
+
     @Override
     public FileSystemPersistenceRuntimeConfig filesystem() {
 
@@ -94,6 +156,11 @@ public class PersistenceRuntimeConfig extends PersistenceConfig {
         return mongodb;
     }
 
+    @Override
+    public InstanceCacheConfig cache() {
+        return cache;
+    }
+
     @Override
     public TransactionLogConfig transactionLog() {
         return transactionLog;
@@ -15,9 +15,20 @@ public class S3FilesRuntimeConfig extends S3FilesConfig {
     @ConfigItem
     public Optional<String> bucket;
 
+    /**
+     * Specifies size (in bytes) of the parts used for multipart upload of files
+     */
+    @ConfigItem
+    public Optional<Integer> partSize;
+
     @Override
     public Optional<String> bucket() {
         return bucket;
     }
 
+    @Override
+    public Optional<Integer> partSize() {
+        return partSize;
+    }
+
 }
@@ -0,0 +1,35 @@
+package io.automatiko.engine.quarkus;
+
+import java.util.Optional;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.config.SignalsConfig;
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
+import io.automatiko.engine.api.workflow.signal.SignalManagerHub;
+import io.automatiko.engine.services.signal.DefaultSignalManagerHub;
+
+@ApplicationScoped
+public class SignalManagerHubProducer {
+
+    @Produces
+    @Singleton
+    public SignalManagerHub produce(@ConfigProperty(name = SignalsConfig.PARTITIONS_KEY) Optional<Integer> partitions,
+            UnitOfWorkManager unitOfWorkManager) {
+        if (partitions.isPresent()) {
+            return new DefaultSignalManagerHub(partitions.get(), unitOfWorkManager);
+        }
+        return new DefaultSignalManagerHub();
+    }
+
+    public void close(@Disposes SignalManagerHub signalManagerHub) {
+        if (signalManagerHub instanceof DefaultSignalManagerHub) {
+            ((DefaultSignalManagerHub) signalManagerHub).close();
+        }
+    }
+}
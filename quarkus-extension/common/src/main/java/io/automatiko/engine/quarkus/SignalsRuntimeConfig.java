@@ -0,0 +1,23 @@
+package io.automatiko.engine.quarkus;
+
+import java.util.Optional;
+
+import io.automatiko.engine.api.config.SignalsConfig;
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+@ConfigGroup
+public class SignalsRuntimeConfig extends SignalsConfig {
+
+    /**
+     * Specifies number of partitions used to deliver signals to other process instances asynchronously, when not set
+     * signals are delivered synchronously as part of the unit of work of the publisher
+     */
+    @ConfigItem
+    public Optional<Integer> partitions;
+
+    @Override
+    public Optional<Integer> partitions() {
+        return partitions;
+    }
+}
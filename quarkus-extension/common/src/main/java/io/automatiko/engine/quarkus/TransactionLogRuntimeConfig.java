@@ -21,6 +21,13 @@ public class TransactionLogRuntimeConfig extends TransactionLogConfig {
     @ConfigItem
     public Optional<String> folder;
 
+    /**
+     * Specifies type of the file system based transaction log store - <code>folder</code> (default) that stores entries
+     * in folder per transaction or <code>segment</code> that appends entries to segment files
+     */
+    @ConfigItem
+    public Optional<String> type;
+
     @Override
     public Optional<String> folder() {
         return folder;
@@ -31,4 +38,9 @@ public class TransactionLogRuntimeConfig extends TransactionLogConfig {
         return enabled;
     }
 
+    @Override
+    public Optional<String> type() {
+        return type;
+    }
+
 }
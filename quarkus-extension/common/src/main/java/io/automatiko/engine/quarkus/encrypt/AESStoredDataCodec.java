@@ -1,9 +1,13 @@
 package io.automatiko.engine.quarkus.encrypt;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.Key;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.spec.SecretKeySpec;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -17,13 +21,15 @@ import io.quarkus.arc.properties.IfBuildProperty;
 @ApplicationScoped
 public class AESStoredDataCodec implements StoredDataCodec {
 
+    private final Key aesKey;
+
     private final Cipher encodeCipher;
 
     private final Cipher decodeCipher;
 
     public AESStoredDataCodec(@ConfigProperty(name = "automatiko.encryption.aes.key") String key) {
         try {
-            Key aesKey = new SecretKeySpec(key.getBytes(), "AES");
+            aesKey = new SecretKeySpec(key.getBytes(), "AES");
 
             encodeCipher = Cipher.getInstance("AES");
             decodeCipher = Cipher.getInstance("AES");
@@ -55,4 +61,27 @@ public class AESStoredDataCodec implements StoredDataCodec {
         }
     }
 
+    @Override
+    public OutputStream encode(OutputStream target) {
+        return new CipherOutputStream(target, cipher(Cipher.ENCRYPT_MODE));
+    }
+
+    @Override
+    public InputStream decode(InputStream source) {
+        return new CipherInputStream(source, cipher(Cipher.DECRYPT_MODE));
+    }
+
+    /*
+     * streams are processed in chunks so each of them needs its own cipher
+     */
+    private Cipher cipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES");
+            cipher.init(mode, aesKey);
+            return cipher;
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to intialize cipher", e);
+        }
+    }
+
 }
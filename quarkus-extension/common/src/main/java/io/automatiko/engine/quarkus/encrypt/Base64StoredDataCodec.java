@@ -1,5 +1,7 @@
 package io.automatiko.engine.quarkus.encrypt;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Base64;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -21,4 +23,14 @@ public class Base64StoredDataCodec implements StoredDataCodec {
         return Base64.getDecoder().decode(data);
     }
 
+    @Override
+    public OutputStream encode(OutputStream target) {
+        return Base64.getEncoder().wrap(target);
+    }
+
+    @Override
+    public InputStream decode(InputStream source) {
+        return Base64.getDecoder().wrap(source);
+    }
+
 }
@@ -0,0 +1,103 @@
+package io.automatiko.engine.quarkus.event;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.automatiko.engine.api.event.AbstractDataEvent;
+import io.automatiko.engine.api.event.DataEvent;
+import io.automatiko.engine.services.event.impl.EventCodec;
+import io.automatiko.engine.services.event.impl.MilestoneEventBody;
+import io.automatiko.engine.services.event.impl.NodeInstanceEventBody;
+import io.automatiko.engine.services.event.impl.ProcessErrorEventBody;
+import io.automatiko.engine.services.event.impl.ProcessInstanceEventBody;
+import io.automatiko.engine.services.event.impl.UserTaskInstanceEventBody;
+import io.automatiko.engine.services.event.impl.VariableInstanceEventBody;
+
+/**
+ * Encodes events as JSON array of their type and content. Events and their bodies are written field by field (source
+ * instances are transient and thus left out) so they can be restored as the same type, variables are written by the
+ * given object mapper the same way publishers write them.
+ */
+public class JacksonEventCodec implements EventCodec {
+
+    private static final String TYPE = "type";
+    private static final String EVENT = "event";
+
+    private final ObjectMapper mapper;
+
+    public JacksonEventCodec(ObjectMapper mapper) {
+        this.mapper = mapper.copy();
+        this.mapper.addMixIn(AbstractDataEvent.class, FieldAccess.class);
+        this.mapper.addMixIn(ProcessInstanceEventBody.class, FieldAccess.class);
+        this.mapper.addMixIn(NodeInstanceEventBody.class, FieldAccess.class);
+        this.mapper.addMixIn(ProcessErrorEventBody.class, FieldAccess.class);
+        this.mapper.addMixIn(MilestoneEventBody.class, FieldAccess.class);
+        this.mapper.addMixIn(UserTaskInstanceEventBody.class, FieldAccess.class);
+        this.mapper.addMixIn(VariableInstanceEventBody.class, FieldAccess.class);
+    }
+
+    @Override
+    public byte[] encode(Collection<DataEvent<?>> events) {
+        ArrayNode encoded = mapper.createArrayNode();
+        for (DataEvent<?> event : events) {
+            ObjectNode item = encoded.addObject();
+            item.put(TYPE, event.getClass().getName());
+            item.set(EVENT, mapper.valueToTree(event));
+        }
+        try {
+            return mapper.writeValueAsBytes(encoded);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<DataEvent<?>> decode(byte[] data) {
+        try {
+            JsonNode encoded = mapper.readTree(data);
+            List<DataEvent<?>> events = new ArrayList<>(encoded.size());
+            for (JsonNode item : encoded) {
+                events.add(mapper.treeToValue(item.get(EVENT), type(item.get(TYPE).asText())));
+            }
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Class<? extends DataEvent<?>> type(String name) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = getClass().getClassLoader();
+        }
+        try {
+            Class<?> type = Class.forName(name, false, classLoader);
+            // only events can be restored
+            if (!DataEvent.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException("Stored type " + name + " is not an event");
+            }
+            return (Class<? extends DataEvent<?>>) type;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown type of stored event " + name, e);
+        }
+    }
+
+    @JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE,
+            isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class FieldAccess {
+
+    }
+}
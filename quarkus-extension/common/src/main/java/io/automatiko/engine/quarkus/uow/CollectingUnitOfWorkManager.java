@@ -0,0 +1,35 @@
+package io.automatiko.engine.quarkus.uow;
+
+import java.util.Optional;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.event.EventManager;
+import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
+import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
+import io.quarkus.arc.DefaultBean;
+
+@ApplicationScoped
+@DefaultBean
+public class CollectingUnitOfWorkManager extends DefaultUnitOfWorkManager {
+
+    @ConfigProperty(name = "quarkus.automatiko.persistence.batch-writes")
+    Optional<Boolean> batchWrites;
+
+    @Inject
+    EventManager events;
+
+    public CollectingUnitOfWorkManager() {
+        super(null);
+    }
+
+    @PostConstruct
+    public void setup() {
+        this.factory = new CollectingUnitOfWorkFactory(batchWrites.orElse(false));
+        this.eventManager = events;
+    }
+}
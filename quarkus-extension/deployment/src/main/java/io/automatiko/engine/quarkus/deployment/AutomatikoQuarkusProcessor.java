@@ -250,6 +250,8 @@ public class AutomatikoQuarkusProcessor {
                 .builder("io.automatiko.engine.services.event.impl.VariableInstanceEventBody").fields().methods().build());
         reflectiveClass.produce(ReflectiveClassBuildItem
                 .builder("io.automatiko.engine.services.event.impl.UserTaskInstanceEventBody").fields().methods().build());
+        reflectiveClass.produce(ReflectiveClassBuildItem
+                .builder("io.automatiko.engine.services.event.impl.MilestoneEventBody").fields().methods().build());
 
         reflectiveClass.produce(
                 ReflectiveClassBuildItem.builder("org.mvel2.optimizers.dynamic.DynamicOptimizer").fields().methods().build());
@@ -25,6 +25,11 @@ public class DevConsoleProcessor {
                 .componentLink("qwc-automatiko-service-workflows.js")
                 .title("Workflows"));
 
+        cardPageBuildItem.addPage(Page.webComponentPageBuilder()
+                .icon("font-awesome-solid:stopwatch")
+                .componentLink("qwc-automatiko-service-profile.js")
+                .title("Node profile"));
+
         return cardPageBuildItem;
     }
 
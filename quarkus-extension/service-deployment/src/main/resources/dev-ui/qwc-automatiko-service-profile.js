@@ -0,0 +1,89 @@
+import { LitElement, html, css} from 'lit';
+import { columnBodyRenderer } from '@vaadin/grid/lit.js';
+import { JsonRpc } from 'jsonrpc';
+import '@vaadin/grid';
+import '@vaadin/vertical-layout';
+
+
+export class QwcAutomatikoServiceProfile extends LitElement {
+
+    jsonRpc = new JsonRpc("AutomatikoService");
+
+    static styles = css`
+        .arctable {
+          height: 100%;
+          padding-bottom: 10px;
+        }
+        `;
+
+    static properties = {
+        _nodes: {state: true},
+    };
+
+    connectedCallback() {
+        super.connectedCallback();
+        this.jsonRpc.getProfile().then(jsonRpcResponse => {
+            this._nodes = [];
+            jsonRpcResponse.result.forEach(c => {
+                this._nodes.push(c);
+            });
+        });
+    }
+
+    render() {
+        if (this._nodes && this._nodes.length > 0) {
+
+            return html`
+                <vaadin-grid .items="${this._nodes}" class="arctable" theme="no-border">
+                    <vaadin-grid-column auto-width header="Workflow" path="processId" resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width
+                        header="Node"
+                        ${columnBodyRenderer(this._nodeRenderer, [])}
+                        resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width header="Type" path="nodeType" resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width header="Executions" path="count" resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width
+                        header="Total (ms)"
+                        ${columnBodyRenderer(node => this._timeRenderer(node.totalTime), [])}
+                        resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width
+                        header="Mean (ms)"
+                        ${columnBodyRenderer(node => this._timeRenderer(node.meanTime), [])}
+                        resizable>
+                    </vaadin-grid-column>
+
+                    <vaadin-grid-column auto-width
+                        header="Max (ms)"
+                        ${columnBodyRenderer(node => this._timeRenderer(node.maxTime), [])}
+                        resizable>
+                    </vaadin-grid-column>
+                </vaadin-grid>`;
+
+        } else {
+            return html`No node executions recorded, make sure quarkus.automatiko.metrics.enabled and quarkus.automatiko.metrics.profiling are set to true`;
+        }
+    }
+
+    _nodeRenderer(node) {
+        return html`<vaadin-vertical-layout>
+      ${node.nodeName ? node.nodeName : node.nodeId}
+      </vaadin-vertical-layout>`;
+    }
+
+    _timeRenderer(time) {
+        return html`<vaadin-vertical-layout>
+      ${time.toFixed(3)}
+      </vaadin-vertical-layout>`;
+    }
+}
+customElements.define('qwc-automatiko-service-profile', QwcAutomatikoServiceProfile);
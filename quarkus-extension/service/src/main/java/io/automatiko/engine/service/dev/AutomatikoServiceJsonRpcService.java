@@ -2,6 +2,10 @@ package io.automatiko.engine.service.dev;
 
 import java.util.Collection;
 
+import io.automatiko.engine.service.metrics.ExecutionProfilerMetrics;
+import io.automatiko.engine.service.metrics.ExecutionProfilerMetrics.NodeProfile;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.InstanceHandle;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
@@ -18,6 +22,28 @@ public class AutomatikoServiceJsonRpcService {
         return result;
     }
 
+    public JsonArray getProfile() {
+        JsonArray result = new JsonArray();
+        // profiler is only available when metrics are enabled
+        InstanceHandle<ExecutionProfilerMetrics> profiler = Arc.container().instance(ExecutionProfilerMetrics.class);
+        if (!profiler.isAvailable() || !profiler.get().isEnabled()) {
+            return result;
+        }
+        for (NodeProfile node : profiler.get().profile()) {
+            JsonObject json = new JsonObject();
+            json.put("processId", node.processId);
+            json.put("nodeId", node.nodeId);
+            json.put("nodeName", node.nodeName);
+            json.put("nodeType", node.nodeType);
+            json.put("count", node.count);
+            json.put("totalTime", node.totalTime);
+            json.put("meanTime", node.meanTime);
+            json.put("maxTime", node.maxTime);
+            result.add(json);
+        }
+        return result;
+    }
+
     private JsonObject toJson(WorkflowInfo workflow) {
         JsonObject json = new JsonObject();
         json.put("id", workflow.getId());
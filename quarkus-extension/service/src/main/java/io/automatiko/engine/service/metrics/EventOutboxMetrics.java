@@ -0,0 +1,74 @@
+package io.automatiko.engine.service.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.Application;
+import io.automatiko.engine.api.event.EventManager;
+import io.automatiko.engine.services.event.impl.AsyncEventManager;
+import io.automatiko.engine.services.event.impl.EventRelay;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.TimeGauge;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.StartupEvent;
+
+@IfBuildProperty(name = "quarkus.automatiko.metrics.enabled", stringValue = "true")
+@ApplicationScoped
+public class EventOutboxMetrics {
+
+    @ConfigProperty(name = "quarkus.application.name", defaultValue = "")
+    Optional<String> application;
+
+    @ConfigProperty(name = "quarkus.application.version", defaultValue = "")
+    Optional<String> version;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Instance<Application> applications;
+
+    public void register(@Observes StartupEvent event) {
+        if (!applications.isResolvable() || applications.get().config().process() == null) {
+            return;
+        }
+        // publishers are registered when application is set up so relays are known only after that
+        EventManager eventManager = applications.get().unitOfWorkManager().eventManager();
+        if (!(eventManager instanceof AsyncEventManager)) {
+            return;
+        }
+        for (EventRelay relay : ((AsyncEventManager) eventManager).relays()) {
+            List<Tag> tags = Arrays.asList(Tag.of("application", application.orElse("")),
+                    Tag.of("version", version.orElse("")),
+                    Tag.of("publisher", relay.publisher().getClass().getSimpleName()));
+
+            //"Displays number of events waiting to be published"
+            Gauge.builder("automatiko.events.outbox.pending", relay, EventRelay::pending)
+                    .tags(tags).register(registry);
+            //"Displays how long the oldest event waiting to be published is in the outbox"
+            TimeGauge.builder("automatiko.events.outbox.lag", relay, TimeUnit.MILLISECONDS,
+                    r -> r.lag(TimeUnit.MILLISECONDS)).tags(tags).register(registry);
+            //"Displays total count of published events"
+            FunctionCounter.builder("automatiko.events.outbox.published.count", relay, EventRelay::published)
+                    .tags(tags).register(registry);
+            //"Displays total count of events dropped after all retries failed"
+            FunctionCounter.builder("automatiko.events.outbox.failed.count", relay, EventRelay::failed)
+                    .tags(tags).register(registry);
+            //"Displays total count of retried publish attempts"
+            FunctionCounter.builder("automatiko.events.outbox.retried.count", relay, EventRelay::retried)
+                    .tags(tags).register(registry);
+        }
+    }
+}
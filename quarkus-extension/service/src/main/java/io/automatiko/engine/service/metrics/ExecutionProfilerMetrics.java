@@ -0,0 +1,291 @@
+package io.automatiko.engine.service.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.definition.process.Node;
+import io.automatiko.engine.api.definition.process.WorkflowProcess;
+import io.automatiko.engine.api.workflow.MutableProcessInstances;
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.api.workflow.profiling.ExecutionProfiler;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
+import io.automatiko.engine.workflow.AbstractProcess;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Records execution time of individual nodes, marshalling, data store access, lock waiting and prediction models as
+ * timers. All timers of nodes and processes are registered at startup so recording does not need to resolve tags.
+ */
+@IfBuildProperty(name = "quarkus.automatiko.metrics.enabled", stringValue = "true")
+@ApplicationScoped
+public class ExecutionProfilerMetrics implements ExecutionProfiler {
+
+    @ConfigProperty(name = "quarkus.application.name", defaultValue = "")
+    Optional<String> application;
+
+    @ConfigProperty(name = "quarkus.application.version", defaultValue = "")
+    Optional<String> version;
+
+    @ConfigProperty(name = "quarkus.automatiko.metrics.profiling", defaultValue = "false")
+    boolean profiling;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Instance<Process<?>> processes;
+
+    // node definitions do not override equals so they are looked up by identity
+    private final Map<Node, NodeTimer> nodes = new ConcurrentHashMap<>();
+
+    private final Map<String, ProcessTimers> timers = new ConcurrentHashMap<>();
+
+    private Timer lockWait;
+
+    // prediction models are created by the application so their timers are registered on first use
+    private final Map<String, Timer> predictions = new ConcurrentHashMap<>();
+
+    public void register(@Observes StartupEvent event) {
+        if (!profiling) {
+            return;
+        }
+        for (Process<?> process : processes) {
+            if (!(process instanceof AbstractProcess)) {
+                continue;
+            }
+            io.automatiko.engine.api.definition.process.Process definition = ((AbstractProcess<?>) process).process();
+            List<Tag> tags = Arrays.asList(Tag.of("application", application.orElse("")),
+                    Tag.of("version", version.orElse("")),
+                    Tag.of("processId", process.id()),
+                    Tag.of("processVersion", process.version() == null ? "unknown" : process.version()));
+
+            if (definition instanceof WorkflowProcess) {
+                for (Node node : ((WorkflowProcess) definition).getNodesRecursively()) {
+                    Object uniqueId = node.getMetaData().get("UniqueId");
+                    String nodeId = uniqueId == null ? String.valueOf(node.getId()) : uniqueId.toString();
+                    String nodeType = node.getClass().getSimpleName();
+                    //"Displays time spent in the node itself, without nodes triggered by it"
+                    Timer timer = Timer.builder("automatiko.process.node.execution.time")
+                            .tags(tags)
+                            .tag("nodeId", nodeId)
+                            .tag("nodeName", node.getName() == null ? nodeId : node.getName())
+                            .tag("nodeType", nodeType)
+                            .publishPercentileHistogram()
+                            .register(registry);
+                    nodes.put(node, new NodeTimer(process.id(), nodeId, node.getName(), nodeType, timer));
+                }
+            }
+            ProcessTimers processTimers = new ProcessTimers(tags);
+            //"Displays time spent marshalling process instances"
+            processTimers.marshalling = Timer.builder("automatiko.process.instance.marshalling.time")
+                    .tags(tags).publishPercentileHistogram().register(registry);
+            //"Displays time spent unmarshalling process instances"
+            processTimers.unmarshalling = Timer.builder("automatiko.process.instance.unmarshalling.time")
+                    .tags(tags).publishPercentileHistogram().register(registry);
+            // instances are marshalled with definition id that does not include version
+            timers.put(process.id(), processTimers);
+            timers.putIfAbsent(definition.getId(), processTimers);
+        }
+        //"Displays time spent waiting for process instance locks"
+        lockWait = Timer.builder("automatiko.process.locks.wait")
+                .tag("application", application.orElse(""))
+                .tag("version", version.orElse(""))
+                .publishPercentileHistogram()
+                .register(registry);
+
+        Profiling.register(this);
+    }
+
+    public void unregister(@Observes ShutdownEvent event) {
+        if (profiling) {
+            Profiling.unregister();
+        }
+    }
+
+    @Override
+    public void nodeExecuted(Node node, long nanos) {
+        NodeTimer timer = nodes.get(node);
+        if (timer != null) {
+            timer.timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void marshalled(String processId, long nanos) {
+        ProcessTimers processTimers = timers.get(processId);
+        if (processTimers != null) {
+            processTimers.marshalling.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void unmarshalled(String processId, long nanos) {
+        ProcessTimers processTimers = timers.get(processId);
+        if (processTimers != null) {
+            processTimers.unmarshalling.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void storeRead(MutableProcessInstances<?> store, String processId, long nanos) {
+        ProcessTimers processTimers = timers.get(processId);
+        if (processTimers != null) {
+            processTimers.storeRead(store).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void storeWritten(MutableProcessInstances<?> store, String processId, long nanos) {
+        ProcessTimers processTimers = timers.get(processId);
+        if (processTimers != null) {
+            processTimers.storeWrite(store).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void lockWaited(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void modelTrained(String engine, String model, long nanos) {
+        //"Displays time spent training prediction models"
+        predictionTimer("automatiko.prediction.training.time", engine, model).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void predicted(String engine, String model, long nanos) {
+        //"Displays time spent predicting outcomes with prediction models"
+        predictionTimer("automatiko.prediction.inference.time", engine, model).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer predictionTimer(String name, String engine, String model) {
+        return predictions.computeIfAbsent(name + "|" + engine + "|" + model, key -> Timer.builder(name)
+                .tag("application", application.orElse(""))
+                .tag("version", version.orElse(""))
+                .tag("engine", engine)
+                .tag("model", model == null ? "unknown" : model)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Returns execution statistics of all nodes that were executed at least once, slowest (by total time) first
+     *
+     * @return list of node statistics
+     */
+    public List<NodeProfile> profile() {
+        List<NodeProfile> profile = new ArrayList<>();
+        for (NodeTimer node : nodes.values()) {
+            if (node.timer.count() > 0) {
+                profile.add(new NodeProfile(node.processId, node.nodeId, node.nodeName, node.nodeType,
+                        node.timer.count(), node.timer.totalTime(TimeUnit.MILLISECONDS),
+                        node.timer.mean(TimeUnit.MILLISECONDS), node.timer.max(TimeUnit.MILLISECONDS)));
+            }
+        }
+        profile.sort((one, other) -> Double.compare(other.totalTime, one.totalTime));
+        return profile;
+    }
+
+    public boolean isEnabled() {
+        return profiling;
+    }
+
+    private static class NodeTimer {
+
+        private final String processId;
+        private final String nodeId;
+        private final String nodeName;
+        private final String nodeType;
+        private final Timer timer;
+
+        private NodeTimer(String processId, String nodeId, String nodeName, String nodeType, Timer timer) {
+            this.processId = processId;
+            this.nodeId = nodeId;
+            this.nodeName = nodeName;
+            this.nodeType = nodeType;
+            this.timer = timer;
+        }
+    }
+
+    private class ProcessTimers {
+
+        private final List<Tag> tags;
+
+        private Timer marshalling;
+        private Timer unmarshalling;
+
+        // data store is known only once it is accessed for the first time
+        private volatile Timer storeRead;
+        private volatile Timer storeWrite;
+
+        private ProcessTimers(List<Tag> tags) {
+            this.tags = tags;
+        }
+
+        private Timer storeRead(MutableProcessInstances<?> store) {
+            Timer timer = storeRead;
+            if (timer == null) {
+                //"Displays time spent reading process instances from data store"
+                timer = Timer.builder("automatiko.process.store.read.time")
+                        .tags(tags).tag("store", store.getClass().getSimpleName())
+                        .publishPercentileHistogram().register(registry);
+                storeRead = timer;
+            }
+            return timer;
+        }
+
+        private Timer storeWrite(MutableProcessInstances<?> store) {
+            Timer timer = storeWrite;
+            if (timer == null) {
+                //"Displays time spent writing process instances to data store"
+                timer = Timer.builder("automatiko.process.store.write.time")
+                        .tags(tags).tag("store", store.getClass().getSimpleName())
+                        .publishPercentileHistogram().register(registry);
+                storeWrite = timer;
+            }
+            return timer;
+        }
+    }
+
+    public static class NodeProfile {
+
+        public final String processId;
+        public final String nodeId;
+        public final String nodeName;
+        public final String nodeType;
+        public final long count;
+        public final double totalTime;
+        public final double meanTime;
+        public final double maxTime;
+
+        public NodeProfile(String processId, String nodeId, String nodeName, String nodeType, long count,
+                double totalTime, double meanTime, double maxTime) {
+            this.processId = processId;
+            this.nodeId = nodeId;
+            this.nodeName = nodeName;
+            this.nodeType = nodeType;
+            this.count = count;
+            this.totalTime = totalTime;
+            this.meanTime = meanTime;
+            this.maxTime = maxTime;
+        }
+    }
+}
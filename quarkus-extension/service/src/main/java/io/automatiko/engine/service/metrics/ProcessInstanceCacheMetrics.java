@@ -0,0 +1,66 @@
+package io.automatiko.engine.service.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.workflow.AbstractProcess;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.StartupEvent;
+
+@IfBuildProperty(name = "quarkus.automatiko.metrics.enabled", stringValue = "true")
+@ApplicationScoped
+public class ProcessInstanceCacheMetrics {
+
+    @ConfigProperty(name = "quarkus.application.name", defaultValue = "")
+    Optional<String> application;
+
+    @ConfigProperty(name = "quarkus.application.version", defaultValue = "")
+    Optional<String> version;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Instance<Process<?>> processes;
+
+    public void register(@Observes StartupEvent event) {
+        for (Process<?> process : processes) {
+            if (!(process instanceof AbstractProcess)) {
+                continue;
+            }
+            // cache is looked up on every read as it is configured once data store of the process is created
+            AbstractProcess<?> cached = (AbstractProcess<?>) process;
+            List<Tag> tags = Arrays.asList(Tag.of("application", application.orElse("")),
+                    Tag.of("version", version.orElse("")),
+                    Tag.of("processId", process.id()),
+                    Tag.of("processVersion", process.version() == null ? "unknown" : process.version()));
+
+            //"Displays number of process instances currently kept in the cache"
+            Gauge.builder("automatiko.process.instances.cache.size", cached, p -> p.instanceCache().size())
+                    .tags(tags).register(registry);
+            //"Displays total count of process instances taken from the cache"
+            FunctionCounter.builder("automatiko.process.instances.cache.hits", cached, p -> p.instanceCache().hits())
+                    .tags(tags).register(registry);
+            //"Displays total count of process instances not found (or not valid) in the cache"
+            FunctionCounter.builder("automatiko.process.instances.cache.misses", cached, p -> p.instanceCache().misses())
+                    .tags(tags).register(registry);
+            //"Displays total count of process instances evicted from the cache"
+            FunctionCounter
+                    .builder("automatiko.process.instances.cache.evictions", cached, p -> p.instanceCache().evictions())
+                    .tags(tags).register(registry);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.automatiko.engine.service.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.automatiko.engine.api.workflow.Process;
+import io.automatiko.engine.workflow.AbstractProcess;
+import io.automatiko.engine.workflow.lock.LockManager;
+import io.automatiko.engine.workflow.lock.StoreLockWaiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.TimeGauge;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.StartupEvent;
+
+@IfBuildProperty(name = "quarkus.automatiko.metrics.enabled", stringValue = "true")
+@ApplicationScoped
+public class ProcessLockMetrics {
+
+    @ConfigProperty(name = "quarkus.application.name", defaultValue = "")
+    Optional<String> application;
+
+    @ConfigProperty(name = "quarkus.application.version", defaultValue = "")
+    Optional<String> version;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Instance<Process<?>> processes;
+
+    public void register(@Observes StartupEvent event) {
+        for (Process<?> process : processes) {
+            if (!(process instanceof AbstractProcess)) {
+                continue;
+            }
+            LockManager locks = ((AbstractProcess<?>) process).locks();
+            List<Tag> tags = Arrays.asList(Tag.of("application", application.orElse("")),
+                    Tag.of("version", version.orElse("")),
+                    Tag.of("processId", process.id()),
+                    Tag.of("processVersion", process.version() == null ? "unknown" : process.version()));
+
+            //"Displays number of process instance locks currently held or waited for"
+            Gauge.builder("automatiko.process.locks.active", locks, LockManager::active)
+                    .tags(tags).register(registry);
+            //"Displays total count of process instance lock acquisitions"
+            FunctionCounter.builder("automatiko.process.locks.acquired.count", locks, LockManager::acquired)
+                    .tags(tags).register(registry);
+            //"Displays total count of process instance lock acquisitions that had to wait"
+            FunctionCounter.builder("automatiko.process.locks.contended.count", locks, LockManager::contended)
+                    .tags(tags).register(registry);
+            //"Displays total time spent waiting for process instance locks"
+            TimeGauge.builder("automatiko.process.locks.wait.time", locks, TimeUnit.MILLISECONDS,
+                    l -> l.waitTime(TimeUnit.MILLISECONDS)).tags(tags).register(registry);
+            //"Displays the longest time spent waiting for a process instance lock"
+            TimeGauge.builder("automatiko.process.locks.wait.max", locks, TimeUnit.MILLISECONDS,
+                    l -> l.maxWaitTime(TimeUnit.MILLISECONDS)).tags(tags).register(registry);
+            //"Displays number of threads waiting for the most contended process instance lock"
+            Gauge.builder("automatiko.process.locks.queue.max", locks,
+                    l -> l.contendedKeys(1).values().stream().findFirst().orElse(0))
+                    .tags(tags).register(registry);
+
+            StoreLockWaiter storeLocks = locks.storeLocks();
+            //"Displays number of threads waiting for process instance locks kept by data store"
+            Gauge.builder("automatiko.process.store.locks.waiting", storeLocks, StoreLockWaiter::waiting)
+                    .tags(tags).register(registry);
+            //"Displays total count of acquisitions of locks kept by data store that had to wait"
+            FunctionCounter.builder("automatiko.process.store.locks.contended.count", storeLocks,
+                    StoreLockWaiter::contended).tags(tags).register(registry);
+            //"Displays total count of waiting threads woken up by notification about released lock"
+            FunctionCounter.builder("automatiko.process.store.locks.notified.count", storeLocks,
+                    StoreLockWaiter::notified).tags(tags).register(registry);
+            //"Displays total count of locks kept by data store that were not acquired within the limit"
+            FunctionCounter.builder("automatiko.process.store.locks.timeout.count", storeLocks,
+                    StoreLockWaiter::timedOut).tags(tags).register(registry);
+            //"Displays total time spent waiting for locks kept by data store"
+            TimeGauge.builder("automatiko.process.store.locks.wait.time", storeLocks, TimeUnit.MILLISECONDS,
+                    l -> l.waitTime(TimeUnit.MILLISECONDS)).tags(tags).register(registry);
+            //"Displays the longest time spent waiting for a lock kept by data store"
+            TimeGauge.builder("automatiko.process.store.locks.wait.max", storeLocks, TimeUnit.MILLISECONDS,
+                    l -> l.maxWaitTime(TimeUnit.MILLISECONDS)).tags(tags).register(registry);
+            //"Displays number of threads queued for the most contended lock kept by data store"
+            Gauge.builder("automatiko.process.store.locks.queue.max", storeLocks,
+                    l -> l.contendedKeys(1).values().stream().findFirst().orElse(0))
+                    .tags(tags).register(registry);
+        }
+    }
+}
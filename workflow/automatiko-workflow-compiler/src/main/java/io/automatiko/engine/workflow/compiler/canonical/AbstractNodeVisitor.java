@@ -189,6 +189,8 @@ public abstract class AbstractNodeVisitor<T extends Node> extends AbstractVisito
                     String inputFilter = action.getInputFilterExpression();
                     Set<String> params = action.getParamNames();
 
+                    compileJqExpression(body, inputFilter);
+
                     List<Expression> expressions = new ArrayList<>();
 
                     expressions
@@ -214,6 +216,7 @@ public abstract class AbstractNodeVisitor<T extends Node> extends AbstractVisito
 
                     String outputFilter = action.getOutputFilterExpression();
                     String scopeFilter = action.getScopeFilter();
+                    compileJqExpression(body, outputFilter);
                     body.addStatement(
                             getFactoryMethod(variableName, METHOD_OUT_JQ_MAPPING,
                                     (outputFilter != null ? new StringLiteralExpr().setString(outputFilter)
@@ -15,6 +15,7 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NullLiteralExpr;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.utils.StringEscapeUtils;
 
 public abstract class AbstractVisitor {
@@ -45,6 +46,16 @@ public abstract class AbstractVisitor {
         return new StringLiteralExpr(value);
     }
 
+    /*
+     * registers compiled form of JQ expression if it can be compiled so it is not interpreted at runtime
+     */
+    protected void compileJqExpression(BlockStmt body, String expression) {
+        Statement registration = JqExpressionCompiler.register(expression);
+        if (registration != null) {
+            body.addStatement(registration);
+        }
+    }
+
     protected void visitMetaData(Map<String, Object> metadata, BlockStmt body, String variableName) {
         metadata.forEach((k, v) -> {
             Expression expression = null;
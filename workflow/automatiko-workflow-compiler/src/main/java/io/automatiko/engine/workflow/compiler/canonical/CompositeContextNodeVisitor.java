@@ -122,6 +122,7 @@ public class CompositeContextNodeVisitor<T extends CompositeContextNode> extends
                             .getMetaData("Action");
 
                     String inputFilter = action.getInputFilterExpression();
+                    compileJqExpression(body, inputFilter);
                     body.addStatement(
                             getFactoryMethod(contextNode, METHOD_JQ_IN_MAPPING,
                                     (inputFilter != null ? new StringLiteralExpr().setString(inputFilter)
@@ -135,6 +136,7 @@ public class CompositeContextNodeVisitor<T extends CompositeContextNode> extends
                             .getMetaData("Action");
 
                     String outputFilter = action.getOutputFilterExpression();
+                    compileJqExpression(body, outputFilter);
                     body.addStatement(
                             getFactoryMethod(contextNode, METHOD_JQ_OUT_MAPPING,
                                     (outputFilter != null ? new StringLiteralExpr().setString(outputFilter)
@@ -0,0 +1,140 @@
+package io.automatiko.engine.workflow.compiler.canonical;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.DoubleLiteralExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.NullLiteralExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.github.javaparser.ast.type.UnknownType;
+
+import io.automatiko.engine.workflow.expression.CompiledJqExpressions;
+
+/**
+ * Compiles JQ expressions that can be analysed statically into Java code that is registered in
+ * {@link CompiledJqExpressions} by generated process definition. Supported are paths (<code>.</code>,
+ * <code>.a.b</code>, <code>.a[0].b</code>) and comparisons of a path with a literal (<code>.a.b == "x"</code>,
+ * <code>.count &gt;= 10</code>), all other expressions are left to the interpreter.
+ */
+public class JqExpressionCompiler {
+
+    private static final String DATA_VAR = "jqdata";
+
+    private static final String PATH = "\\.(?:[A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*|\\[\\d+\\])*)?";
+
+    private static final Pattern PATH_PATTERN = Pattern.compile(PATH);
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("([A-Za-z_][A-Za-z0-9_]*)|\\[(\\d+)\\]");
+
+    private static final Pattern COMPARISON_PATTERN = Pattern
+            .compile("(" + PATH + ")\\s*(==|!=|<=|>=|<|>)\\s*(\"[^\"\\\\]*\"|-?\\d+(?:\\.\\d+)?|true|false|null)");
+
+    private JqExpressionCompiler() {
+
+    }
+
+    /**
+     * Compiles given expression into lambda taking JSON data and returning result of the expression
+     *
+     * @param expression JQ expression
+     * @return lambda expression or null if given expression cannot be compiled
+     */
+    public static LambdaExpr compile(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        String trimmed = expression.trim();
+        Expression body = null;
+        if (PATH_PATTERN.matcher(trimmed).matches()) {
+            body = path(trimmed);
+        } else {
+            Matcher matcher = COMPARISON_PATTERN.matcher(trimmed);
+            if (matcher.matches()) {
+                body = new MethodCallExpr(new NameExpr(CompiledJqExpressions.class.getCanonicalName()),
+                        operator(matcher.group(2)),
+                        NodeList.nodeList(path(matcher.group(1)), literal(matcher.group(3))));
+            }
+        }
+        if (body == null) {
+            return null;
+        }
+        return new LambdaExpr(new Parameter(new UnknownType(), DATA_VAR), body);
+    }
+
+    /**
+     * Creates statement that registers compiled form of given expression
+     *
+     * @param expression JQ expression
+     * @return registration statement or null if given expression cannot be compiled
+     */
+    public static Statement register(String expression) {
+        LambdaExpr compiled = compile(expression);
+        if (compiled == null) {
+            return null;
+        }
+        return new ExpressionStmt(new MethodCallExpr(new NameExpr(CompiledJqExpressions.class.getCanonicalName()),
+                "register", NodeList.nodeList(new StringLiteralExpr().setString(expression), compiled)));
+    }
+
+    private static Expression path(String path) {
+        List<Expression> arguments = new ArrayList<>();
+        arguments.add(new NameExpr(DATA_VAR));
+        Matcher matcher = SEGMENT_PATTERN.matcher(path);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                arguments.add(new StringLiteralExpr(matcher.group(1)));
+            } else {
+                arguments.add(new IntegerLiteralExpr(matcher.group(2)));
+            }
+        }
+        return new MethodCallExpr(new NameExpr(CompiledJqExpressions.class.getCanonicalName()), "path",
+                new NodeList<>(arguments));
+    }
+
+    private static String operator(String operator) {
+        switch (operator) {
+            case "==":
+                return "equal";
+            case "!=":
+                return "notEqual";
+            case "<":
+                return "lessThan";
+            case "<=":
+                return "lessOrEqual";
+            case ">":
+                return "greaterThan";
+            default:
+                return "greaterOrEqual";
+        }
+    }
+
+    private static Expression literal(String literal) {
+        if (literal.startsWith("\"")) {
+            return new StringLiteralExpr().setString(literal.substring(1, literal.length() - 1));
+        } else if (literal.equals("true") || literal.equals("false")) {
+            return new BooleanLiteralExpr(Boolean.parseBoolean(literal));
+        } else if (literal.equals("null")) {
+            return new NullLiteralExpr();
+        } else if (literal.contains(".")) {
+            return new DoubleLiteralExpr(literal);
+        }
+        try {
+            return new IntegerLiteralExpr(String.valueOf(Integer.parseInt(literal)));
+        } catch (NumberFormatException e) {
+            // out of int range, jq handles all numbers as doubles anyway
+            return new DoubleLiteralExpr(literal + "d");
+        }
+    }
+}
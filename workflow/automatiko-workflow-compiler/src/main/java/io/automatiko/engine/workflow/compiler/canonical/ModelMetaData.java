@@ -178,6 +178,8 @@ public class ModelMetaData {
             modelClass.addAnnotation(new NormalAnnotationExpr(new Name("jakarta.persistence.Entity"),
                     NodeList.nodeList(new MemberValuePair("name",
                             new StringLiteralExpr(camelToSnake(processId.toUpperCase() + version(version).toUpperCase()))))));
+            // update only changed columns so unchanged content snapshot is not rewritten on every update
+            modelClass.addAnnotation("org.hibernate.annotations.DynamicUpdate");
 
             modelClass.findAll(FieldDeclaration.class, fd -> fd.getVariable(0).getNameAsString().equals("metadata"))
                     .forEach(fd -> fd.addAnnotation("jakarta.persistence.Transient"));
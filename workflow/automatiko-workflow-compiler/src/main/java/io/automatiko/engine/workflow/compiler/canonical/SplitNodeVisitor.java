@@ -47,6 +47,7 @@ public class SplitNodeVisitor extends AbstractNodeVisitor<Split> {
 
                     String dialect = entry.getValue().getDialect();
                     if ("jq".equals(dialect)) {
+                        compileJqExpression(body, entry.getValue().getConstraint());
                         body.addStatement(getFactoryMethod(getNodeId(node), METHOD_CONSTRAINT,
                                 new LongLiteralExpr(entry.getKey().getNodeId()),
                                 new StringLiteralExpr(getOrDefault(entry.getKey().getConnectionId(), "")),
@@ -68,6 +68,7 @@ public class StartNodeVisitor extends AbstractNodeVisitor<StartNode> {
 
                     String outputFilter = action.getOutputFilterExpression();
                     String scopeFilter = action.getScopeFilter();
+                    compileJqExpression(body, outputFilter);
                     body.addStatement(
                             getFactoryMethod(getNodeId(node), METHOD_OUT_JQ_MAPPING,
                                     (outputFilter != null ? new StringLiteralExpr().setString(outputFilter)
@@ -0,0 +1,39 @@
+package io.automatiko.engine.workflow.compiler.canonical;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class JqExpressionCompilerTest {
+
+    private static final String COMPILED = "io.automatiko.engine.workflow.expression.CompiledJqExpressions";
+
+    @Test
+    public void testPathsAndComparisonsAreCompiled() {
+        assertThat(JqExpressionCompiler.compile(".")).hasToString("jqdata -> " + COMPILED + ".path(jqdata)");
+        assertThat(JqExpressionCompiler.compile(" .address.city ")).hasToString(
+                "jqdata -> " + COMPILED + ".path(jqdata, \"address\", \"city\")");
+        assertThat(JqExpressionCompiler.compile(".items[1].id")).hasToString(
+                "jqdata -> " + COMPILED + ".path(jqdata, \"items\", 1, \"id\")");
+        assertThat(JqExpressionCompiler.compile(".name == \"john\"")).hasToString(
+                "jqdata -> " + COMPILED + ".equal(" + COMPILED + ".path(jqdata, \"name\"), \"john\")");
+        assertThat(JqExpressionCompiler.compile(".age>=18.5")).hasToString(
+                "jqdata -> " + COMPILED + ".greaterOrEqual(" + COMPILED + ".path(jqdata, \"age\"), 18.5)");
+        assertThat(JqExpressionCompiler.compile(".active != false")).hasToString(
+                "jqdata -> " + COMPILED + ".notEqual(" + COMPILED + ".path(jqdata, \"active\"), false)");
+
+        assertThat(JqExpressionCompiler.register(".name").toString())
+                .isEqualTo(COMPILED + ".register(\".name\", jqdata -> " + COMPILED + ".path(jqdata, \"name\"));");
+    }
+
+    @Test
+    public void testDynamicExpressionsAreInterpreted() {
+        assertThat(JqExpressionCompiler.compile(null)).isNull();
+        assertThat(JqExpressionCompiler.compile("{ \"name\": .name }")).isNull();
+        assertThat(JqExpressionCompiler.compile(".items | length")).isNull();
+        assertThat(JqExpressionCompiler.compile("$CONST.name")).isNull();
+        assertThat(JqExpressionCompiler.compile(".name == .other")).isNull();
+        assertThat(JqExpressionCompiler.compile(".name == \"a\\\"b\"")).isNull();
+        assertThat(JqExpressionCompiler.register(".[] | .id")).isNull();
+    }
+}
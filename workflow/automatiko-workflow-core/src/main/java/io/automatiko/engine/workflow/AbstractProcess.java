@@ -44,6 +44,7 @@ import io.automatiko.engine.workflow.base.instance.LightProcessRuntimeContext;
 import io.automatiko.engine.workflow.base.instance.LightProcessRuntimeServiceProvider;
 import io.automatiko.engine.workflow.base.instance.ProcessRuntimeServiceProvider;
 import io.automatiko.engine.workflow.base.instance.impl.end.RemoveEndOfInstanceStrategy;
+import io.automatiko.engine.workflow.cache.ProcessInstanceCache;
 import io.automatiko.engine.workflow.lock.LockManager;
 import io.automatiko.engine.workflow.process.core.impl.WorkflowProcessImpl;
 import io.automatiko.engine.workflow.process.core.node.StartNode;
@@ -66,6 +67,8 @@ public abstract class AbstractProcess<T extends Model> implements Process<T> {
 
     protected LockManager locks = new LockManager();
 
+    protected ProcessInstanceCache instanceCache = ProcessInstanceCache.disabled();
+
     protected EndOfInstanceStrategy endOfInstanceStrategy = new RemoveEndOfInstanceStrategy();
 
     protected AbstractProcess() {
@@ -273,6 +276,14 @@ public abstract class AbstractProcess<T extends Model> implements Process<T> {
         return locks;
     }
 
+    public ProcessInstanceCache instanceCache() {
+        return instanceCache;
+    }
+
+    public void setInstanceCache(ProcessInstanceCache instanceCache) {
+        this.instanceCache = instanceCache;
+    }
+
     public ProcessRuntimeServiceProvider services() {
         return services;
     }
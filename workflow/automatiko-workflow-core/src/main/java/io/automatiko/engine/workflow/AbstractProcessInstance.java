@@ -1,7 +1,6 @@
 
 package io.automatiko.engine.workflow;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -13,7 +12,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -57,8 +55,10 @@ import io.automatiko.engine.services.correlation.CorrelationAwareProcessRuntime;
 import io.automatiko.engine.services.correlation.CorrelationKey;
 import io.automatiko.engine.services.correlation.StringCorrelationKey;
 import io.automatiko.engine.services.uow.ProcessInstanceWorkUnit;
+import io.automatiko.engine.services.uow.ProcessInstanceWorkUnit.Operation;
 import io.automatiko.engine.workflow.base.core.timer.DateTimeUtils;
 import io.automatiko.engine.workflow.base.instance.InternalProcessRuntime;
+import io.automatiko.engine.workflow.lock.InstanceLock;
 import io.automatiko.engine.workflow.lock.UnlockWorkUnit;
 import io.automatiko.engine.workflow.process.core.node.EventSubProcessNode;
 import io.automatiko.engine.workflow.process.core.node.SubProcessNode;
@@ -104,7 +104,7 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
 
     protected CompletionEventListener completionEventListener;
 
-    protected ReentrantLock lock;
+    protected InstanceLock lock;
 
     protected long versionTracker;
 
@@ -323,7 +323,7 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
         io.automatiko.engine.api.runtime.process.ProcessInstance processInstance = this.getProcessRuntime()
                 .startProcessInstance(this.id, trigger, data);
         syncProcessInstance((WorkflowProcessInstance) processInstance);
-        addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).create(pi.id(), pi),
+        addToUnitOfWork(Operation.CREATE, pi -> ((MutableProcessInstances<T>) process.instances()).create(pi.id(), pi),
                 pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
 
         unbind(variables, processInstance.getVariables());
@@ -345,6 +345,13 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
                 .intercept(new ProcessInstanceWorkUnit(this, action, aborAction));
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void addToUnitOfWork(Operation operation, Consumer<ProcessInstance<T>> action,
+            Consumer<ProcessInstance<T>> aborAction) {
+        ((InternalProcessRuntime) getProcessRuntime()).getUnitOfWorkManager().currentUnitOfWork()
+                .intercept(new ProcessInstanceWorkUnit(this, operation, action, aborAction));
+    }
+
     public void abort() {
         lock();
         if (!this.process.accessPolicy().canDeleteInstance(IdentityProvider.get(), this)) {
@@ -358,11 +365,11 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
         // apply end of instance strategy on completion
         process.endOfInstanceStrategy().perform(this);
         if (process.endOfInstanceStrategy().shouldInstanceBeUpdated()) {
-            addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
+            addToUnitOfWork(Operation.UPDATE, pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
                     pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
         }
         if (process.endOfInstanceStrategy().shouldInstanceBeRemoved()) {
-            addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).remove(pi.id(), pi),
+            addToUnitOfWork(Operation.REMOVE, pi -> ((MutableProcessInstances<T>) process.instances()).remove(pi.id(), pi),
                     pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
         }
         unlock(true);
@@ -545,7 +552,7 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
         ((WorkflowProcessInstanceImpl) processInstance).setMetaData("AutomatikProcessInstance", this);
         triggerNode(nodeId);
         syncProcessInstance((WorkflowProcessInstance) processInstance);
-        addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
+        addToUnitOfWork(Operation.UPDATE, pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
                 pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
         unlock(false);
         unbind(variables, processInstance.getVariables());
@@ -784,7 +791,7 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
         StringBuilder script = new StringBuilder();
         String image = process().image();
 
-        List<String> completedNodes = ((WorkflowProcessInstanceImpl) processInstance()).getCompletedNodeIds();
+        Set<String> completedNodes = ((WorkflowProcessInstanceImpl) processInstance()).getCompletedNodeHistory().distinct();
 
         Collection<NodeInstance> activeInstances = ((WorkflowProcessInstanceImpl) processInstance()).getNodeInstances(true);
         if (!activeInstances.isEmpty() || !completedNodes.isEmpty() || status == STATE_ERROR) {
@@ -958,11 +965,11 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
             // apply end of instance strategy on completion
             process.endOfInstanceStrategy().perform(this);
             if (process.endOfInstanceStrategy().shouldInstanceBeUpdated()) {
-                addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
+                addToUnitOfWork(Operation.UPDATE, pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
                         pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
             }
             if (process.endOfInstanceStrategy().shouldInstanceBeRemoved()) {
-                addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).remove(pi.id(), pi),
+                addToUnitOfWork(Operation.REMOVE, pi -> ((MutableProcessInstances<T>) process.instances()).remove(pi.id(), pi),
                         pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
             }
             unlock(true);
@@ -970,45 +977,26 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
         } else {
             syncProcessInstance((WorkflowProcessInstance) processInstance);
             unbind(this.variables, processInstance().getVariables());
-            addToUnitOfWork(pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
+            addToUnitOfWork(Operation.UPDATE, pi -> ((MutableProcessInstances<T>) process.instances()).update(pi.id(), pi),
                     pi -> ((MutableProcessInstances<T>) process.instances()).release(pi.id(), pi));
             unlock(false);
         }
 
     }
 
-    // this must be overridden at compile time
+    // generated process instances override it to access model fields directly, model accessors are used otherwise
     protected Map<String, Object> bind(T variables) {
-        HashMap<String, Object> vmap = new HashMap<>();
         if (variables == null) {
-            return vmap;
-        }
-        try {
-            for (Field f : variables.getClass().getDeclaredFields()) {
-                f.setAccessible(true);
-                Object v = f.get(variables);
-                vmap.put(f.getName(), v);
-            }
-        } catch (IllegalAccessException e) {
-            throw new Error(e);
+            return new HashMap<>();
         }
-        vmap.put("$v", variables);
-        return vmap;
+        return variables.toMap();
     }
 
     protected void unbind(T variables, Map<String, Object> vmap) {
-        if (vmap == null) {
+        if (variables == null || vmap == null) {
             return;
         }
-        try {
-            for (Field f : variables.getClass().getDeclaredFields()) {
-                f.setAccessible(true);
-                f.set(variables, vmap.get(f.getName()));
-            }
-        } catch (IllegalAccessException e) {
-            throw new Error(e);
-        }
-        vmap.put("$v", variables);
+        variables.fromMap(vmap);
     }
 
     protected void populateChildProcesses(Process<?> process, Collection<ProcessInstance<? extends Model>> collection) {
@@ -1199,7 +1187,7 @@ public abstract class AbstractProcessInstance<T extends Model> implements Proces
     }
 
     protected void configureLock(String businessKey) {
-        this.lock = businessKey == null || businessKey.isEmpty() ? new ReentrantLock() : process.locks().lock(businessKey);
+        this.lock = businessKey == null || businessKey.isEmpty() ? new InstanceLock() : process.locks().lock(businessKey);
     }
 
     protected void lock() {
@@ -28,7 +28,7 @@ public class StaticProcessConfig implements ProcessConfig {
         this.unitOfWorkManager = unitOfWorkManager;
         this.workItemHandlerConfig = workItemHandlerConfig;
         this.processEventListenerConfig = processEventListenerConfig;
-        this.signalManager = new DefaultSignalManagerHub();
+        this.signalManager = DefaultSignalManagerHub.configured(unitOfWorkManager);
         this.jobsService = jobsService;
         this.processInstancesFactory = null;
         this.variableInitializer = null;
@@ -40,7 +40,7 @@ public class StaticProcessConfig implements ProcessConfig {
         this.unitOfWorkManager = unitOfWorkManager;
         this.workItemHandlerConfig = workItemHandlerConfig;
         this.processEventListenerConfig = processEventListenerConfig;
-        this.signalManager = new DefaultSignalManagerHub();
+        this.signalManager = DefaultSignalManagerHub.configured(unitOfWorkManager);
         this.jobsService = jobsService;
         this.processInstancesFactory = processInstancesFactory;
         this.variableInitializer = null;
@@ -52,7 +52,20 @@ public class StaticProcessConfig implements ProcessConfig {
         this.unitOfWorkManager = unitOfWorkManager;
         this.workItemHandlerConfig = workItemHandlerConfig;
         this.processEventListenerConfig = processEventListenerConfig;
-        this.signalManager = new DefaultSignalManagerHub();
+        this.signalManager = DefaultSignalManagerHub.configured(unitOfWorkManager);
+        this.jobsService = jobsService;
+        this.processInstancesFactory = processInstancesFactory;
+        this.variableInitializer = variableInitializer;
+    }
+
+    public StaticProcessConfig(WorkItemHandlerConfig workItemHandlerConfig,
+            ProcessEventListenerConfig processEventListenerConfig, UnitOfWorkManager unitOfWorkManager, JobsService jobsService,
+            VariableInitializer variableInitializer, ProcessInstancesFactory processInstancesFactory,
+            SignalManagerHub signalManager) {
+        this.unitOfWorkManager = unitOfWorkManager;
+        this.workItemHandlerConfig = workItemHandlerConfig;
+        this.processEventListenerConfig = processEventListenerConfig;
+        this.signalManager = signalManager;
         this.jobsService = jobsService;
         this.processInstancesFactory = processInstancesFactory;
         this.variableInitializer = variableInitializer;
@@ -1,6 +1,7 @@
 
 package io.automatiko.engine.workflow.base.instance;
 
+import io.automatiko.engine.api.uow.UnitOfWorkManager;
 import io.automatiko.engine.services.signal.DefaultSignalManagerHub;
 import io.automatiko.engine.services.uow.CollectingUnitOfWorkFactory;
 import io.automatiko.engine.services.uow.DefaultUnitOfWorkManager;
@@ -11,8 +12,12 @@ import io.automatiko.engine.workflow.base.instance.context.variable.DefaultVaria
 public class LightProcessRuntimeServiceProvider extends AbstractProcessRuntimeServiceProvider {
 
 	public LightProcessRuntimeServiceProvider() {
+		this(new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory()));
+	}
+
+	private LightProcessRuntimeServiceProvider(UnitOfWorkManager unitOfWorkManager) {
 		super(null, new DefaultWorkItemHandlerConfig(), new DefaultProcessEventListenerConfig(),
-				new DefaultSignalManagerHub(), new DefaultUnitOfWorkManager(new CollectingUnitOfWorkFactory()),
+				DefaultSignalManagerHub.configured(unitOfWorkManager), unitOfWorkManager,
 				new DefaultVariableInitializer());
 	}
 }
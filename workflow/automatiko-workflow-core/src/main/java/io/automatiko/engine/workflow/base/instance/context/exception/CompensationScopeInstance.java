@@ -95,8 +95,8 @@ public class CompensationScopeInstance extends ExceptionScopeInstance {
                     eventNodeInstance.signalEvent("Compensation", compensationActivityRef);
                 } else if (handlerNode instanceof EventSubProcessNode) {
                     // Check that subprocess parent has completed.
-                    List<String> completedIds = processInstance.getCompletedNodeIds();
-                    if (completedIds.contains(((NodeImpl) handlerNode.getParentContainer()).getMetaData("UniqueId"))) {
+                    if (processInstance
+                            .hasCompletedNode((String) ((NodeImpl) handlerNode.getParentContainer()).getMetaData("UniqueId"))) {
                         NodeInstance subProcessNodeInstance = ((NodeInstanceContainer) nodeInstanceContainer)
                                 .getNodeInstance((Node) handlerNode.getParentContainer());
                         compensationInstances.add(subProcessNodeInstance);
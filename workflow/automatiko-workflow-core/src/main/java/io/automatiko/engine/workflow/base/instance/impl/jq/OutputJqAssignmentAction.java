@@ -17,6 +17,8 @@ import io.automatiko.engine.workflow.process.core.WorkflowProcess;
 
 public class OutputJqAssignmentAction implements AssignmentAction {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private String outputFilterExpression;
 
     public OutputJqAssignmentAction(String output) {
@@ -41,9 +43,8 @@ public class OutputJqAssignmentAction implements AssignmentAction {
         }
 
         ObjectNode workflowData = (ObjectNode) context.getProcessInstance().getVariable(JsonVariableScope.WORKFLOWDATA_KEY);
-        ObjectMapper mapper = new ObjectMapper();
         if (!workflowData.equals(sdata)) {
-            Object updated = mapper.readerForUpdating(workflowData).readValue((JsonNode) sdata);
+            Object updated = MAPPER.readerForUpdating(workflowData).readValue((JsonNode) sdata);
             context.getProcessInstance().setVariable(JsonVariableScope.WORKFLOWDATA_KEY, updated);
         }
     }
@@ -16,6 +16,8 @@ import io.automatiko.engine.workflow.process.core.WorkflowProcess;
 
 public class TaskOutputJqAssignmentAction implements AssignmentAction {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private String outputFilterExpression;
     private String scopeFilter;
     private boolean ignoreScopeFilter;
@@ -62,10 +64,9 @@ public class TaskOutputJqAssignmentAction implements AssignmentAction {
             vars.put("workflowdata", new ObjectNode(null));
             sdata = (JsonNode) evaluator.evaluate(scopeFilter + "=$v", vars);
         }
-        ObjectMapper mapper = new ObjectMapper();
 
         if (sdata != null) {
-            Object updated = mapper.readerForUpdating(context.getVariable(JsonVariableScope.WORKFLOWDATA_KEY))
+            Object updated = MAPPER.readerForUpdating(context.getVariable(JsonVariableScope.WORKFLOWDATA_KEY))
                     .readValue(sdata);
 
             context.setVariable(JsonVariableScope.WORKFLOWDATA_KEY, updated);
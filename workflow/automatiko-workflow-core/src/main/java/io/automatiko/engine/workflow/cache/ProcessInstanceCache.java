@@ -0,0 +1,201 @@
+package io.automatiko.engine.workflow.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
+import io.automatiko.engine.workflow.base.core.context.variable.Variable;
+import io.automatiko.engine.workflow.base.core.context.variable.VariableScope;
+import io.automatiko.engine.workflow.base.instance.context.variable.VariableScopeInstance;
+import io.automatiko.engine.workflow.base.instance.impl.ProcessInstanceImpl;
+
+/**
+ * Second level cache of process instances that were stored by the data store. It keeps (disconnected) workflow process
+ * instances together with the version they were stored with so they can be reused by next unit of work instead of
+ * unmarshalling them from the data store.
+ * <br/>
+ * Cached instance is always validated against version found in the data store and is handed out only once - it is
+ * removed from the cache when taken and put back only after it was successfully stored again. That makes sure that
+ * single instance is never shared between units of work and that instance modified by other node (or with failed
+ * write) is never used.
+ * <br/>
+ * Cache is bounded by size (least recently stored instances are evicted first) and optionally by time to live.
+ */
+public class ProcessInstanceCache {
+
+    private final int size;
+
+    private final long ttl;
+
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates new cache
+     *
+     * @param size maximum number of cached instances, 0 disables the cache
+     * @param ttl time (in milliseconds) after which cached instance expires, 0 means cached instances do not expire
+     */
+    public ProcessInstanceCache(int size, long ttl) {
+        this(size, ttl, System::currentTimeMillis);
+    }
+
+    protected ProcessInstanceCache(int size, long ttl, LongSupplier clock) {
+        this.size = size;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ProcessInstanceCache.this.size) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static ProcessInstanceCache disabled() {
+        return new ProcessInstanceCache(0, 0);
+    }
+
+    public boolean isEnabled() {
+        return size > 0;
+    }
+
+    /**
+     * Takes cached instance out of the cache if it was cached with given version.
+     *
+     * @param id resolved identifier of the process instance
+     * @param version version of the process instance found in the data store
+     * @return cached workflow process instance or null if there is no valid instance in the cache
+     */
+    public WorkflowProcessInstance take(String id, long version) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(id);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.version != version || expired(entry, clock.getAsLong())) {
+            misses.incrementAndGet();
+            evictions.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.instance;
+    }
+
+    /**
+     * Puts instance into the cache, must be invoked only after the instance was successfully stored and disconnected.
+     *
+     * @param id resolved identifier of the process instance
+     * @param version version of the process instance in the data store
+     * @param instance stored workflow process instance
+     */
+    public void put(String id, long version, WorkflowProcessInstance instance) {
+        if (!isEnabled() || instance == null) {
+            return;
+        }
+        removeTransientVariables(instance);
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            entries.put(id, new Entry(version, instance, now));
+            if (ttl > 0) {
+                Iterator<Entry> it = entries.values().iterator();
+                while (it.hasNext()) {
+                    if (expired(it.next(), now)) {
+                        it.remove();
+                        evictions.incrementAndGet();
+                    } else {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes instance from the cache
+     *
+     * @param id resolved identifier of the process instance
+     */
+    public void evict(String id) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.remove(id) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private boolean expired(Entry entry, long now) {
+        return ttl > 0 && now - entry.created > ttl;
+    }
+
+    /*
+     * transient variables are not stored so they must not be visible in next unit of work
+     */
+    private void removeTransientVariables(WorkflowProcessInstance instance) {
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((ProcessInstanceImpl) instance)
+                .getContextInstance(VariableScope.VARIABLE_SCOPE);
+        if (variableScopeInstance == null) {
+            return;
+        }
+        for (Variable variable : variableScopeInstance.getVariableScope().getVariables()) {
+            if (variable.hasTag(Variable.TRANSIENT_TAG)) {
+                variableScopeInstance.internalSetVariable(variable.getName(), null);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final long version;
+        private final WorkflowProcessInstance instance;
+        private final long created;
+
+        private Entry(long version, WorkflowProcessInstance instance, long created) {
+            this.version = version;
+            this.instance = instance;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.automatiko.engine.workflow.expression;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Registry of JQ expressions that were compiled into Java code at build time. Generated process definitions register
+ * compiled form of expressions that could be analysed statically (paths and comparisons of paths with literals) and
+ * <code>JqExpressionEvaluator</code> uses them instead of interpreting the expression.
+ * <br/>
+ * Compiled expression returns {@link #UNRESOLVED} whenever the data does not match what was expected at build time
+ * (e.g. field access on a number) and in such case expression is evaluated by the interpreter so results and errors are
+ * exactly the same.
+ */
+public class CompiledJqExpressions {
+
+    /**
+     * Marker returned by compiled expression when it cannot be evaluated without the interpreter
+     */
+    public static final JsonNode UNRESOLVED = new TextNode("<unresolved>");
+
+    private static final Map<String, Function<JsonNode, JsonNode>> EXPRESSIONS = new ConcurrentHashMap<>();
+
+    private CompiledJqExpressions() {
+
+    }
+
+    public static void register(String expression, Function<JsonNode, JsonNode> compiled) {
+        EXPRESSIONS.put(expression, compiled);
+    }
+
+    public static Function<JsonNode, JsonNode> get(String expression) {
+        return EXPRESSIONS.get(expression);
+    }
+
+    /**
+     * Evaluates path (<code>.a.b[0]</code>) on given data
+     *
+     * @param data data the path is evaluated on
+     * @param segments field names (strings) and array indexes (integers) of the path
+     * @return value found, null node if any segment is missing or {@link #UNRESOLVED}
+     */
+    public static JsonNode path(JsonNode data, Object... segments) {
+        if (data == null) {
+            return UNRESOLVED;
+        }
+        JsonNode current = data;
+        for (Object segment : segments) {
+            if (current.isNull()) {
+                return NullNode.getInstance();
+            }
+            if (segment instanceof String && current.isObject()) {
+                current = current.get((String) segment);
+            } else if (segment instanceof Integer && current.isArray()) {
+                current = current.get((Integer) segment);
+            } else {
+                return UNRESOLVED;
+            }
+            if (current == null) {
+                return NullNode.getInstance();
+            }
+        }
+        return current;
+    }
+
+    public static JsonNode equal(JsonNode value, Object literal) {
+        if (value == UNRESOLVED) {
+            return UNRESOLVED;
+        }
+        return BooleanNode.valueOf(isEqual(value, literal(literal)));
+    }
+
+    public static JsonNode notEqual(JsonNode value, Object literal) {
+        if (value == UNRESOLVED) {
+            return UNRESOLVED;
+        }
+        return BooleanNode.valueOf(!isEqual(value, literal(literal)));
+    }
+
+    public static JsonNode lessThan(JsonNode value, Object literal) {
+        Integer result = compare(value, literal(literal));
+        return result == null ? UNRESOLVED : BooleanNode.valueOf(result < 0);
+    }
+
+    public static JsonNode lessOrEqual(JsonNode value, Object literal) {
+        Integer result = compare(value, literal(literal));
+        return result == null ? UNRESOLVED : BooleanNode.valueOf(result <= 0);
+    }
+
+    public static JsonNode greaterThan(JsonNode value, Object literal) {
+        Integer result = compare(value, literal(literal));
+        return result == null ? UNRESOLVED : BooleanNode.valueOf(result > 0);
+    }
+
+    public static JsonNode greaterOrEqual(JsonNode value, Object literal) {
+        Integer result = compare(value, literal(literal));
+        return result == null ? UNRESOLVED : BooleanNode.valueOf(result >= 0);
+    }
+
+    private static JsonNode literal(Object literal) {
+        if (literal == null) {
+            return NullNode.getInstance();
+        } else if (literal instanceof Boolean) {
+            return BooleanNode.valueOf((Boolean) literal);
+        } else if (literal instanceof Number) {
+            return JsonNodeFactory.instance.numberNode(((Number) literal).doubleValue());
+        }
+        return TextNode.valueOf(literal.toString());
+    }
+
+    private static boolean isEqual(JsonNode value, JsonNode literal) {
+        if (value.isNumber() && literal.isNumber()) {
+            // jq compares all numbers as doubles
+            return value.asDouble() == literal.asDouble();
+        }
+        return value.equals(literal);
+    }
+
+    /*
+     * only values of the same kind are compared, ordering of different kinds is left to the interpreter
+     */
+    private static Integer compare(JsonNode value, JsonNode literal) {
+        if (value == UNRESOLVED) {
+            return null;
+        }
+        if (value.isNumber() && literal.isNumber()) {
+            return Double.compare(value.asDouble(), literal.asDouble());
+        } else if (value.isTextual() && literal.isTextual()) {
+            return value.asText().compareTo(literal.asText());
+        }
+        return null;
+    }
+}
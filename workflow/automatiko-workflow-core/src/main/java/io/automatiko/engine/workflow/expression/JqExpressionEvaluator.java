@@ -6,6 +6,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import org.mvel2.integration.VariableResolverFactory;
 
@@ -23,8 +25,16 @@ public class JqExpressionEvaluator extends AbstractContext implements Expression
 
     private static final long serialVersionUID = 2252395199600357250L;
 
+    /*
+     * expressions that bind variables or define functions modify the scope they are evaluated with so they always
+     * need a child scope
+     */
+    private static final Pattern SCOPE_MODIFIERS = Pattern.compile("\\$|\\b(def|as|reduce|foreach)\\b");
+
     private Map<String, JsonQuery> cache = new ConcurrentHashMap<String, JsonQuery>();
 
+    private Map<String, Boolean> requiresScope = new ConcurrentHashMap<String, Boolean>();
+
     private Scope rootScope;
 
     public JqExpressionEvaluator(io.automatiko.engine.api.definition.process.Process process) {
@@ -64,6 +74,13 @@ public class JqExpressionEvaluator extends AbstractContext implements Expression
     }
 
     protected Object evaluate(String expression, JsonNode data, Map<String, JsonNode> variables) {
+        Function<JsonNode, JsonNode> precompiled = CompiledJqExpressions.get(expression);
+        if (precompiled != null) {
+            JsonNode result = precompiled.apply(data);
+            if (result != CompiledJqExpressions.UNRESOLVED) {
+                return result;
+            }
+        }
         JsonQuery compiled = cache.computeIfAbsent(expression, k -> {
             try {
                 return JsonQuery.compile(expression);
@@ -72,14 +89,19 @@ public class JqExpressionEvaluator extends AbstractContext implements Expression
             }
         });
 
-        Scope childScope = Scope.newChildScope(rootScope);
-        if (variables != null) {
-            for (Entry<String, JsonNode> entry : variables.entrySet()) {
-                childScope.setValue(entry.getKey(), entry.getValue());
+        Scope scope = rootScope;
+        if ((variables != null && !variables.isEmpty())
+                || requiresScope.computeIfAbsent(expression, k -> SCOPE_MODIFIERS.matcher(k).find())) {
+            Scope childScope = Scope.newChildScope(rootScope);
+            scope = childScope;
+            if (variables != null) {
+                for (Entry<String, JsonNode> entry : variables.entrySet()) {
+                    childScope.setValue(entry.getKey(), entry.getValue());
+                }
             }
         }
         try {
-            List<JsonNode> out = compiled.apply(childScope, data);
+            List<JsonNode> out = compiled.apply(scope, data);
             if (out.isEmpty()) {
                 return null;
             }
@@ -1,5 +1,8 @@
 package io.automatiko.engine.workflow.file;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -10,9 +13,10 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.automatiko.engine.api.workflow.files.File;
+import io.automatiko.engine.api.workflow.files.StreamingFile;
 
 @JsonAutoDetect(fieldVisibility = Visibility.ANY)
-public class ByteArrayFile implements File<byte[]> {
+public class ByteArrayFile implements File<byte[]>, StreamingFile {
 
     protected final String name;
 
@@ -42,6 +46,44 @@ public class ByteArrayFile implements File<byte[]> {
         return content;
     }
 
+    /**
+     * Determines if content of the file is already available without reading it from external store
+     *
+     * @return true if content is available
+     */
+    public boolean hasContent() {
+        return content != null;
+    }
+
+    @Override
+    public boolean exists() {
+        return content != null;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        byte[] data = content();
+        if (data == null) {
+            throw new IOException("File '" + name + "' has no content");
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public InputStream openStream(long offset, long length) throws IOException {
+        byte[] data = content();
+        if (data == null) {
+            throw new IOException("File '" + name + "' has no content");
+        }
+        int start = (int) Math.min(offset, data.length);
+        return new ByteArrayInputStream(data, start, (int) Math.min(length, data.length - start));
+    }
+
+    @Override
+    public long size() {
+        return content == null ? -1 : content.length;
+    }
+
     @Override
     public Map<String, String> attributes() {
         return attributes;
@@ -0,0 +1,61 @@
+package io.automatiko.engine.workflow.lock;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reentrant lock of a process instance. Locks created by {@link LockManager} share the underlying lock with all other
+ * instances of the same business key, locks created directly are private to the instance.
+ */
+public class InstanceLock {
+
+    private final LockManager manager;
+    private final String id;
+    private final ReentrantLock local;
+
+    public InstanceLock() {
+        this.manager = null;
+        this.id = null;
+        this.local = new ReentrantLock();
+    }
+
+    InstanceLock(LockManager manager, String id) {
+        this.manager = manager;
+        this.id = id;
+        this.local = null;
+    }
+
+    public void lock() {
+        if (manager == null) {
+            local.lock();
+        } else {
+            manager.acquire(id);
+        }
+    }
+
+    public void unlock() {
+        if (manager == null) {
+            local.unlock();
+        } else {
+            manager.release(id);
+        }
+    }
+
+    public boolean isHeldByCurrentThread() {
+        ReentrantLock lock = delegate();
+        return lock != null && lock.isHeldByCurrentThread();
+    }
+
+    public int getHoldCount() {
+        ReentrantLock lock = delegate();
+        return lock == null ? 0 : lock.getHoldCount();
+    }
+
+    private ReentrantLock delegate() {
+        return manager == null ? local : manager.current(id);
+    }
+
+    @Override
+    public String toString() {
+        return "InstanceLock [" + (id == null ? "local" : id) + ", " + delegate() + "]";
+    }
+}
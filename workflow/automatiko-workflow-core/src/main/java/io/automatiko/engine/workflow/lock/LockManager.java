@@ -1,21 +1,154 @@
 package io.automatiko.engine.workflow.lock;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
+import io.automatiko.engine.api.workflow.profiling.Profiling;
+
+/**
+ * Manages locks of process instances identified by business key.
+ * <br/>
+ * Lock entries are reference counted - every acquisition (including threads waiting for the lock) holds a reference
+ * and the entry is evicted as soon as the last reference is released. Entries are maintained with atomic operations
+ * of the concurrent map so there is no global monitor that all lock acquisitions go through.
+ */
 public class LockManager {
 
-    private ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<String, ReentrantLock>();
+    private final ConcurrentHashMap<String, Entry> locks = new ConcurrentHashMap<String, Entry>();
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
 
-    public synchronized ReentrantLock lock(String id) {
+    private final StoreLockWaiter storeLocks = new StoreLockWaiter();
 
-        return locks.computeIfAbsent(id, key -> new ReentrantLock());
+    /**
+     * Returns lock for given identifier, the lock does not take any resources until it is acquired
+     *
+     * @param id identifier (business key) of the process instance
+     * @return lock for the identifier
+     */
+    public InstanceLock lock(String id) {
+        return new InstanceLock(this, id);
     }
 
+    /**
+     * Evicts lock entry of given identifier if it is not in use. Entries are evicted automatically when released
+     * so this is only needed to clean up entries that were never released.
+     */
     public void remove(String id) {
         if (id != null) {
-            locks.remove(id);
+            locks.computeIfPresent(id, (key, entry) -> entry.references == 0 ? null : entry);
+        }
+    }
+
+    /**
+     * Returns waiter for locks of process instances of the same process that are kept by data store
+     */
+    public StoreLockWaiter storeLocks() {
+        return storeLocks;
+    }
+
+    /**
+     * Returns number of lock entries currently in use (held or waited for)
+     */
+    public int active() {
+        return locks.size();
+    }
+
+    /**
+     * Returns total number of lock acquisitions
+     */
+    public long acquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * Returns number of lock acquisitions that had to wait for the lock to be released
+     */
+    public long contended() {
+        return contended.sum();
+    }
+
+    /**
+     * Returns total time spent waiting for locks
+     */
+    public long waitTime(TimeUnit unit) {
+        return unit.convert(waitTime.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time spent waiting for a single lock
+     */
+    public long maxWaitTime(TimeUnit unit) {
+        return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns identifiers of the most contended locks with number of threads waiting for them, ordered by number of
+     * waiting threads
+     *
+     * @param limit max number of identifiers to return
+     * @return map of identifiers and number of waiting threads
+     */
+    public Map<String, Integer> contendedKeys(int limit) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        locks.entrySet().stream()
+                .filter(e -> e.getValue().lock.hasQueuedThreads())
+                .map(e -> Map.entry(e.getKey(), e.getValue().lock.getQueueLength()))
+                .sorted(Map.Entry.<String, Integer> comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    ReentrantLock acquire(String id) {
+        Entry entry = locks.compute(id, (key, current) -> {
+            Entry e = current == null ? new Entry() : current;
+            e.references++;
+            return e;
+        });
+        acquired.increment();
+        if (!entry.lock.tryLock()) {
+            long start = System.nanoTime();
+            entry.lock.lock();
+            long waited = System.nanoTime() - start;
+
+            contended.increment();
+            waitTime.add(waited);
+            maxWaitTime.accumulate(waited);
+            if (Profiling.enabled()) {
+                Profiling.profiler().lockWaited(waited);
+            }
+        }
+        return entry.lock;
+    }
+
+    void release(String id) {
+        Entry entry = locks.get(id);
+        if (entry == null || !entry.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock " + id + " is not held by current thread");
         }
+        entry.lock.unlock();
+        locks.computeIfPresent(id, (key, current) -> --current.references == 0 ? null : current);
+    }
+
+    ReentrantLock current(String id) {
+        Entry entry = locks.get(id);
+        return entry == null ? null : entry.lock;
     }
 
+    private static class Entry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // guarded by the concurrent map compute operations
+        private int references;
+    }
 }
@@ -0,0 +1,211 @@
+package io.automatiko.engine.workflow.lock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import io.automatiko.engine.api.workflow.profiling.Profiling;
+
+/**
+ * Waits for process instance locks that are kept by data stores (such as lock stamps or lock files) and thus can be
+ * held by other services as well.
+ * <br/>
+ * Threads of this service that wait for the same lock are queued in order of arrival and only the first one in the
+ * queue tries to acquire the lock, others wait for their turn. The first one is woken up as soon as data store
+ * notifies about the lock being released (see {@link #released(String)}) - either by this service directly or from
+ * change notifications of the data store. In case no notification arrives the lock is checked again after given
+ * interval so expired locks or missed notifications do not block the waiting thread until the limit is reached.
+ */
+public class StoreLockWaiter {
+
+    private final ConcurrentHashMap<String, Queue> queues = new ConcurrentHashMap<>();
+
+    private final LongAdder waiting = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder notified = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Acquires lock with given attempt, waiting for the lock to be released if it is held by someone else
+     *
+     * @param id identifier of the process instance
+     * @param attempt tries to acquire the lock, returns null if the lock is held by someone else
+     * @param limit max time (in milliseconds) to wait for the lock
+     * @param interval max time (in milliseconds) between attempts when there is no notification about release
+     * @return non null result of the attempt that acquired the lock
+     * @throws IllegalStateException in case lock was not acquired within given limit
+     */
+    public <T> T await(String id, Supplier<T> attempt, long limit, long interval) {
+        // threads already waiting for the lock go first
+        if (!queues.containsKey(id)) {
+            T acquired = attempt.get();
+            if (acquired != null) {
+                return acquired;
+            }
+        }
+        Queue queue = queues.compute(id, (key, current) -> {
+            Queue q = current == null ? new Queue() : current;
+            q.references++;
+            return q;
+        });
+        contended.increment();
+        waiting.increment();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(limit);
+        boolean turn = false;
+        boolean interrupted = false;
+        try {
+            turn = queue.turn.tryAcquire(limit, TimeUnit.MILLISECONDS);
+            if (turn) {
+                queue.head = Thread.currentThread();
+            }
+            while (turn) {
+                // version is taken before the attempt so release that happens in between is not missed
+                long version = queue.version.get();
+                T acquired = attempt.get();
+                if (acquired != null) {
+                    long waited = System.nanoTime() - start;
+                    waitTime.add(waited);
+                    maxWaitTime.accumulate(waited);
+                    if (Profiling.enabled()) {
+                        Profiling.profiler().lockWaited(waited);
+                    }
+                    return acquired;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                if (queue.version.get() == version) {
+                    LockSupport.parkNanos(this, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(interval)));
+                }
+                if (queue.version.get() != version) {
+                    notified.increment();
+                }
+                // interruption is restored once done, otherwise park would not wait anymore
+                interrupted |= Thread.interrupted();
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (turn) {
+                queue.head = null;
+                queue.turn.release();
+            }
+            queues.computeIfPresent(id, (key, current) -> --current.references == 0 ? null : current);
+            waiting.decrement();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        timedOut.increment();
+        throw new IllegalStateException("Unable to aquire lock on process instance (" + id + ") within " + limit + " ms");
+    }
+
+    /**
+     * Notifies that lock of given process instance was released so the first waiting thread can acquire it
+     *
+     * @param id identifier of the process instance
+     */
+    public void released(String id) {
+        Queue queue = queues.get(id);
+        if (queue != null) {
+            queue.wakeUp();
+        }
+    }
+
+    /**
+     * Wakes up all waiting threads, used when data store cannot tell which locks were released
+     */
+    public void releasedAll() {
+        queues.values().forEach(Queue::wakeUp);
+    }
+
+    /**
+     * Returns number of threads currently waiting for locks
+     */
+    public long waiting() {
+        return waiting.sum();
+    }
+
+    /**
+     * Returns total number of lock acquisitions that had to wait for the lock to be released
+     */
+    public long contended() {
+        return contended.sum();
+    }
+
+    /**
+     * Returns number of times waiting thread was woken up by notification about released lock
+     */
+    public long notified() {
+        return notified.sum();
+    }
+
+    /**
+     * Returns number of lock acquisitions that did not succeed within the limit
+     */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Returns total time spent waiting for locks that were acquired
+     */
+    public long waitTime(TimeUnit unit) {
+        return unit.convert(waitTime.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time spent waiting for a single lock
+     */
+    public long maxWaitTime(TimeUnit unit) {
+        return unit.convert(maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns identifiers of the most contended locks with number of threads waiting for them, ordered by number of
+     * waiting threads
+     *
+     * @param limit max number of identifiers to return
+     * @return map of identifiers and number of waiting threads
+     */
+    public Map<String, Integer> contendedKeys(int limit) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        queues.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().references))
+                .sorted(Map.Entry.<String, Integer> comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    private static class Queue {
+
+        private final Semaphore turn = new Semaphore(1, true);
+
+        private final AtomicLong version = new AtomicLong();
+
+        private volatile Thread head;
+
+        // modified by the concurrent map compute operations only, read for statistics
+        private volatile int references;
+
+        private void wakeUp() {
+            version.incrementAndGet();
+            Thread thread = head;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package io.automatiko.engine.workflow.lock;
 
-import java.util.concurrent.locks.ReentrantLock;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,28 +7,28 @@ import io.automatiko.engine.api.uow.WorkUnit;
 import io.automatiko.engine.api.workflow.ProcessInstance;
 import io.automatiko.engine.workflow.AbstractProcess;
 
-public class UnlockWorkUnit implements WorkUnit<ReentrantLock> {
+public class UnlockWorkUnit implements WorkUnit<InstanceLock> {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(UnlockWorkUnit.class);
 
-    private ReentrantLock lock;
+    private InstanceLock lock;
     private ProcessInstance<?> instance;
 
     private boolean removeLock;
 
-    public UnlockWorkUnit(ProcessInstance<?> instance, ReentrantLock lock) {
+    public UnlockWorkUnit(ProcessInstance<?> instance, InstanceLock lock) {
         this.instance = instance;
         this.lock = lock;
     }
 
-    public UnlockWorkUnit(ProcessInstance<?> instance, ReentrantLock lock, boolean removeLock) {
+    public UnlockWorkUnit(ProcessInstance<?> instance, InstanceLock lock, boolean removeLock) {
         this.instance = instance;
         this.lock = lock;
         this.removeLock = removeLock;
     }
 
     @Override
-    public ReentrantLock data() {
+    public InstanceLock data() {
         return null;
     }
 
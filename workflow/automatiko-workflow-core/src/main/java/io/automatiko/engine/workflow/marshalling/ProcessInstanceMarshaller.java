@@ -29,6 +29,7 @@ import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
 import io.automatiko.engine.api.workflow.ExportedProcessInstance;
 import io.automatiko.engine.api.workflow.Process;
 import io.automatiko.engine.api.workflow.ProcessInstance;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
 import io.automatiko.engine.workflow.AbstractProcess;
 import io.automatiko.engine.workflow.AbstractProcessInstance;
 import io.automatiko.engine.workflow.StringExportedProcessInstance;
@@ -94,7 +95,8 @@ public class ProcessInstanceMarshaller {
         if (pi == null) {
             return null;
         }
-
+        boolean profiled = Profiling.enabled();
+        long start = profiled ? System.nanoTime() : 0;
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
 
             ProcessMarshallerWriteContext context = new ProcessMarshallerWriteContext(baos,
@@ -123,6 +125,10 @@ public class ProcessInstanceMarshaller {
             return baos.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Error while marshalling process instance", e);
+        } finally {
+            if (profiled) {
+                Profiling.profiler().marshalled(pi.getProcessId(), System.nanoTime() - start);
+            }
         }
     }
 
@@ -248,6 +254,8 @@ public class ProcessInstanceMarshaller {
         io.automatiko.engine.api.definition.process.Process p = ((AbstractProcess<?>) process).process();
         processes.put(process.id(), p);// this can include version number in the id
         processes.put(p.getId(), p);// this is raw process id as defined in bpmn or so
+        boolean profiled = Profiling.enabled();
+        long start = profiled ? System.nanoTime() : 0;
         try (ByteArrayInputStream bais = new ByteArrayInputStream(data)) {
             MarshallerReaderContext context = new MarshallerReaderContext(bais, null, processes, this.env);
             ObjectInputStream stream = context.stream;
@@ -263,12 +271,20 @@ public class ProcessInstanceMarshaller {
             return pi;
         } catch (Exception e) {
             throw new RuntimeException("Error while unmarshalling process instance", e);
+        } finally {
+            if (profiled) {
+                Profiling.profiler().unmarshalled(process.id(), System.nanoTime() - start);
+            }
         }
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public ProcessInstance unmarshallProcessInstance(byte[] data, Process process, long versionracker) {
-        WorkflowProcessInstance wpi = unmarshallWorkflowProcessInstance(data, process);
+        return createProcessInstance(unmarshallWorkflowProcessInstance(data, process), process, versionracker);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public ProcessInstance createProcessInstance(WorkflowProcessInstance wpi, Process process, long versionracker) {
         Model model = ((AbstractProcess) process).createModel();
 
         model.fromMap(wpi.getVariables());
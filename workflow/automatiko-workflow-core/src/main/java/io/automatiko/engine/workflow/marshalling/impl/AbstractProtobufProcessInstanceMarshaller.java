@@ -2,6 +2,7 @@
 package io.automatiko.engine.workflow.marshalling.impl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -14,7 +15,11 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.UnknownFieldSet;
 
 import io.automatiko.engine.api.definition.process.Process;
 import io.automatiko.engine.api.runtime.process.HumanTaskWorkItem;
@@ -42,6 +47,7 @@ import io.automatiko.engine.workflow.base.instance.impl.workitem.WorkItemImpl;
 import io.automatiko.engine.workflow.marshalling.impl.AutomatikoMessages.Header;
 import io.automatiko.engine.workflow.marshalling.impl.AutomatikoMessages.ProcessInstance.NodeInstanceContent;
 import io.automatiko.engine.workflow.marshalling.impl.AutomatikoMessages.ProcessInstance.NodeInstanceType;
+import io.automatiko.engine.workflow.process.instance.impl.CompletedNodeHistory;
 import io.automatiko.engine.workflow.process.instance.impl.NodeInstanceImpl;
 import io.automatiko.engine.workflow.process.instance.impl.WorkflowProcessInstanceImpl;
 import io.automatiko.engine.workflow.process.instance.node.CompositeContextNodeInstance;
@@ -66,6 +72,17 @@ import io.automatiko.engine.workflow.util.InstanceTuple;
  */
 public abstract class AbstractProtobufProcessInstanceMarshaller implements ProcessInstanceMarshaller {
 
+    /**
+     * Environment entry that enables storing completed node history as separate segment instead of completedNodeIds
+     */
+    public static final String COMPLETED_NODES_SEGMENT = "_completed_nodes_segment_";
+
+    /*
+     * field of process instance message that holds completed node history segment, it is not part of the generated
+     * messages so it is carried as unknown field and parsed as single opaque value regardless of the history length
+     */
+    private static final int COMPLETED_NODES_SEGMENT_FIELD = 35;
+
     // Output methods
     @SuppressWarnings("unchecked")
     public AutomatikoMessages.ProcessInstance writeProcessInstance(MarshallerWriteContext context,
@@ -88,7 +105,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller implements Proce
         if (workFlow.getInitiator() != null) {
             _instance.setInitiator(workFlow.getInitiator());
         }
-        _instance.addAllCompletedNodeIds(workFlow.getCompletedNodeIds());
+        writeCompletedNodes(context, workFlow, _instance);
         if (workFlow.getCorrelationKey() != null) {
             _instance.setCorrelationKey(workFlow.getCorrelationKey());
         }
@@ -809,8 +826,12 @@ public abstract class AbstractProtobufProcessInstanceMarshaller implements Proce
             processInstance.internalSetRecoveryItem(recoveryItem);
         }
 
-        for (String completedNodeId : _instance.getCompletedNodeIdsList()) {
-            processInstance.addCompletedNodeId(completedNodeId);
+        if (_instance.getUnknownFields().hasField(COMPLETED_NODES_SEGMENT_FIELD)) {
+            ByteString segment = _instance.getUnknownFields().getField(COMPLETED_NODES_SEGMENT_FIELD)
+                    .getLengthDelimitedList().get(0);
+            processInstance.internalSetCompletedNodeSegment(segment, () -> readCompletedNodes(segment));
+        } else {
+            processInstance.internalSetCompletedNodeIds(_instance.getCompletedNodeIdsList());
         }
 
         if (_instance.getChildrenCount() > 0) {
@@ -1218,4 +1239,51 @@ public abstract class AbstractProtobufProcessInstanceMarshaller implements Proce
         }
     }
 
+    protected void writeCompletedNodes(MarshallerWriteContext context, WorkflowProcessInstanceImpl workFlow,
+            AutomatikoMessages.ProcessInstance.Builder _instance) throws IOException {
+        CompletedNodeHistory history = workFlow.getCompletedNodeHistory();
+        if (!(boolean) context.env.getOrDefault(COMPLETED_NODES_SEGMENT, false)
+                || (boolean) context.env.getOrDefault("_export_", false)) {
+            // stored list is passed through as loaded so already stored history is not decoded again
+            _instance.addAllCompletedNodeIds(history.stored());
+            _instance.addAllCompletedNodeIds(history.appended());
+            return;
+        }
+        // loaded segment is written back as is, only entries completed since then are encoded and appended to it
+        ByteString segment = history.segment() instanceof ByteString ? (ByteString) history.segment()
+                : encodeCompletedNodes(history.stored());
+        segment = segment.concat(encodeCompletedNodes(history.appended()));
+        if (!segment.isEmpty()) {
+            _instance.mergeUnknownFields(UnknownFieldSet.newBuilder()
+                    .addField(COMPLETED_NODES_SEGMENT_FIELD,
+                            UnknownFieldSet.Field.newBuilder().addLengthDelimited(segment).build())
+                    .build());
+        }
+    }
+
+    protected ByteString encodeCompletedNodes(List<String> completedNodeIds) throws IOException {
+        if (completedNodeIds.isEmpty()) {
+            return ByteString.EMPTY;
+        }
+        ByteString.Output output = ByteString.newOutput();
+        CodedOutputStream stream = CodedOutputStream.newInstance(output);
+        for (String completedNodeId : completedNodeIds) {
+            stream.writeStringNoTag(completedNodeId);
+        }
+        stream.flush();
+        return output.toByteString();
+    }
+
+    protected List<String> readCompletedNodes(ByteString segment) {
+        List<String> completedNodeIds = new ArrayList<>();
+        try {
+            CodedInputStream stream = segment.newCodedInput();
+            while (!stream.isAtEnd()) {
+                completedNodeIds.add(stream.readStringRequireUtf8().intern());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return completedNodeIds;
+    }
 }
@@ -0,0 +1,253 @@
+package io.automatiko.engine.workflow.process.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.automatiko.engine.api.definition.process.Node;
+import io.automatiko.engine.workflow.base.core.event.EventFilter;
+import io.automatiko.engine.workflow.base.core.event.EventTypeFilter;
+import io.automatiko.engine.workflow.process.core.node.BoundaryEventNode;
+import io.automatiko.engine.workflow.process.core.node.CompositeNode;
+import io.automatiko.engine.workflow.process.core.node.EventNode;
+import io.automatiko.engine.workflow.process.core.node.EventNodeInterface;
+import io.automatiko.engine.workflow.process.core.node.EventSubProcessNode;
+import io.automatiko.engine.workflow.process.core.node.EventTrigger;
+import io.automatiko.engine.workflow.process.core.node.StartNode;
+import io.automatiko.engine.workflow.process.core.node.Trigger;
+import io.automatiko.engine.workflow.util.PatternConstants;
+
+/**
+ * Immutable index of top level nodes of a process by event type they can accept. It is used by process instance when
+ * signalling events so only nodes that can accept given event type are visited instead of all nodes of the process.
+ * <br/>
+ * Nodes that accept statically known event types are indexed by these types, nodes whose event types are expressions
+ * (resolved against process instance) or cannot be determined (e.g. custom event filters) are always included.
+ * Returned nodes are in the same order as they are defined in the process and they still need to be checked if they
+ * accept the event as the index only excludes nodes that can never accept it.
+ */
+public class EventRoutingTable {
+
+    private final Map<String, List<Node>> eventNodes;
+    private final List<Node> eventNodesFallback;
+
+    private final Map<String, List<Node>> dynamicNodes;
+    private final List<Node> dynamicNodesFallback;
+
+    public EventRoutingTable(Node[] nodes) {
+        Map<String, List<Integer>> eventIndex = new HashMap<>();
+        List<Integer> eventFallback = new ArrayList<>();
+        Map<String, List<Integer>> dynamicIndex = new HashMap<>();
+        List<Integer> dynamicFallback = new ArrayList<>();
+
+        for (int i = 0; i < nodes.length; i++) {
+            Node node = nodes[i];
+            if (node instanceof EventNodeInterface) {
+                index(i, resolvedEventTypes(node), eventIndex, eventFallback);
+            } else if (node instanceof StartNode && ((StartNode) node).getTriggers() != null
+                    && node.getMetaData().get("acceptStartSignal") != null) {
+                index(i, triggerEventTypes((StartNode) node), eventIndex, eventFallback);
+            }
+
+            if (node instanceof CompositeNode) {
+                dynamicFallback.add(i);
+            } else if (node.getIncomingConnections().isEmpty()) {
+                index(i, activationEventTypes(node), dynamicIndex, dynamicFallback);
+            }
+        }
+
+        this.eventNodesFallback = nodes(nodes, eventFallback);
+        this.eventNodes = routes(nodes, eventIndex, eventFallback);
+        this.dynamicNodesFallback = nodes(nodes, dynamicFallback);
+        this.dynamicNodes = routes(nodes, dynamicIndex, dynamicFallback);
+    }
+
+    /**
+     * Returns nodes that might accept given event type - event nodes, event sub processes, composite nodes with event
+     * nodes and start nodes that accept signals
+     *
+     * @param type type of the event
+     * @return nodes that might accept the event in the order they are defined in the process
+     */
+    public List<Node> eventNodes(String type) {
+        return eventNodes.getOrDefault(type, eventNodesFallback);
+    }
+
+    /**
+     * Returns nodes of dynamic process that might be activated by given event type (nodes without incoming connections
+     * that are named as the event or list it as activation event) together with all composite nodes
+     *
+     * @param type type of the event
+     * @return nodes that might be activated by the event in the order they are defined in the process
+     */
+    public List<Node> dynamicNodes(String type) {
+        return dynamicNodes.getOrDefault(type, dynamicNodesFallback);
+    }
+
+    private static void index(int position, Set<String> types, Map<String, List<Integer>> index, List<Integer> fallback) {
+        if (types == null) {
+            fallback.add(position);
+            return;
+        }
+        for (String type : types) {
+            index.computeIfAbsent(type, t -> new ArrayList<>()).add(position);
+        }
+    }
+
+    private static Map<String, List<Node>> routes(Node[] nodes, Map<String, List<Integer>> index, List<Integer> fallback) {
+        Map<String, List<Node>> routes = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : index.entrySet()) {
+            List<Integer> positions = new ArrayList<>(entry.getValue());
+            positions.addAll(fallback);
+            Collections.sort(positions);
+            routes.put(entry.getKey(), nodes(nodes, positions));
+        }
+        return routes;
+    }
+
+    private static List<Node> nodes(Node[] nodes, List<Integer> positions) {
+        List<Node> selected = new ArrayList<>(positions.size());
+        for (Integer position : positions) {
+            selected.add(nodes[position]);
+        }
+        return Collections.unmodifiableList(selected);
+    }
+
+    /*
+     * event types accepted by the node when event is signalled with resolver (by process instance), null when they
+     * cannot be determined up front
+     */
+    private static Set<String> resolvedEventTypes(Node node) {
+        Class<?> owner = declaringClass(node, String.class, Object.class, java.util.function.Function.class);
+        if (owner == EventNodeInterface.class) {
+            return eventTypes(node);
+        } else if (owner == BoundaryEventNode.class) {
+            Set<String> types = filterTypes(((EventNode) node).getEventFilters(), true);
+            Set<String> literal = eventTypes(node);
+            if (types == null || literal == null) {
+                return null;
+            }
+            types.addAll(literal);
+            return types;
+        } else if (owner == EventSubProcessNode.class) {
+            return eventSubProcessTypes((EventSubProcessNode) node, true);
+        }
+        return null;
+    }
+
+    /*
+     * event types accepted by the node when event is signalled without resolver, null when they cannot be determined
+     * up front
+     */
+    private static Set<String> eventTypes(Node node) {
+        Class<?> owner = declaringClass(node, String.class, Object.class);
+        if (owner == EventNode.class) {
+            List<EventFilter> filters = ((EventNode) node).getEventFilters();
+            Set<String> types = filterTypes(filters, false);
+            if (types == null || filters.isEmpty()) {
+                return null;
+            }
+            // all filters must accept the event
+            return types.size() == 1 ? types : new LinkedHashSet<>();
+        } else if (owner == EventSubProcessNode.class) {
+            return eventSubProcessTypes((EventSubProcessNode) node, false);
+        } else if (owner == CompositeNode.class) {
+            return compositeTypes((CompositeNode) node);
+        }
+        return null;
+    }
+
+    private static Set<String> eventSubProcessTypes(EventSubProcessNode node, boolean resolved) {
+        Set<String> types = filterTypes(node.getEventTypeFilters(), resolved);
+        Set<String> nested = compositeTypes(node);
+        if (types == null || nested == null) {
+            return null;
+        }
+        if (node.hasCondition()) {
+            types.add("variableChanged");
+        }
+        types.addAll(nested);
+        return types;
+    }
+
+    private static Set<String> compositeTypes(CompositeNode node) {
+        Set<String> types = new LinkedHashSet<>();
+        for (Node nested : node.internalGetNodes()) {
+            if (nested instanceof EventNodeInterface) {
+                Set<String> nestedTypes = eventTypes(nested);
+                if (nestedTypes == null) {
+                    return null;
+                }
+                types.addAll(nestedTypes);
+            }
+        }
+        return types;
+    }
+
+    private static Set<String> triggerEventTypes(StartNode node) {
+        Set<String> types = new LinkedHashSet<>();
+        for (Trigger trigger : node.getTriggers()) {
+            if (trigger instanceof EventTrigger) {
+                Set<String> triggerTypes = filterTypes(((EventTrigger) trigger).getEventFilters(), false);
+                if (triggerTypes == null) {
+                    return null;
+                }
+                types.addAll(triggerTypes);
+            }
+        }
+        return types;
+    }
+
+    private static Set<String> activationEventTypes(Node node) {
+        if (!(node instanceof NodeImpl) || declaringClass(node, "hasMatchingEventListner", String.class) != NodeImpl.class) {
+            return null;
+        }
+        Set<String> types = new LinkedHashSet<>();
+        if (node.getName() != null) {
+            types.add(node.getName());
+        }
+        @SuppressWarnings("unchecked")
+        List<String> activationEvents = (List<String>) node.getMetaData().get(NodeImpl.ACTIVATION_EVENTS);
+        if (activationEvents != null) {
+            types.addAll(activationEvents);
+        }
+        return types;
+    }
+
+    /*
+     * only plain event type filters are indexed, expressions can only be indexed when filter is not resolved
+     */
+    private static Set<String> filterTypes(List<? extends EventFilter> filters, boolean resolved) {
+        Set<String> types = new LinkedHashSet<>();
+        for (EventFilter filter : filters) {
+            if (filter.getClass() != EventTypeFilter.class) {
+                return null;
+            }
+            String type = ((EventTypeFilter) filter).getType();
+            if (type == null) {
+                continue;
+            }
+            if (resolved && PatternConstants.PARAMETER_MATCHER.matcher(type).find()) {
+                return null;
+            }
+            types.add(type);
+        }
+        return types;
+    }
+
+    private static Class<?> declaringClass(Node node, Class<?>... parameters) {
+        return declaringClass(node, "acceptsEvent", parameters);
+    }
+
+    private static Class<?> declaringClass(Node node, String method, Class<?>... parameters) {
+        try {
+            return node.getClass().getMethod(method, parameters).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class WorkflowProcessImpl extends ProcessImpl
     private boolean dynamic = false;
     private boolean executable = false;
     private io.automatiko.engine.workflow.process.core.NodeContainer nodeContainer;
+    private transient volatile EventRoutingTable eventRoutingTable;
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private transient BiFunction<String, ProcessInstance, String> expressionEvaluator = (expression, p) -> {
@@ -103,15 +104,32 @@ public class WorkflowProcessImpl extends ProcessImpl
     }
 
     public void removeNode(final Node node) {
+        eventRoutingTable = null;
         nodeContainer.removeNode(node);
         ((io.automatiko.engine.workflow.process.core.Node) node).setParentContainer(null);
     }
 
     public void addNode(final Node node) {
+        eventRoutingTable = null;
         nodeContainer.addNode(node);
         ((io.automatiko.engine.workflow.process.core.Node) node).setParentContainer(this);
     }
 
+    /**
+     * Returns index of the nodes by event types they accept, it is built on first use (once the process definition is
+     * complete) and rebuilt only when nodes are added or removed
+     *
+     * @return event routing table of this process
+     */
+    public EventRoutingTable getEventRoutingTable() {
+        EventRoutingTable table = eventRoutingTable;
+        if (table == null) {
+            table = new EventRoutingTable(getNodes());
+            eventRoutingTable = table;
+        }
+        return table;
+    }
+
     public boolean isAutoComplete() {
         return autoComplete;
     }
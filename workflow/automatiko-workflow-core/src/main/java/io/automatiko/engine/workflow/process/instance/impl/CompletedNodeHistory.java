@@ -0,0 +1,128 @@
+package io.automatiko.engine.workflow.process.instance.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Append only history of completed nodes of a process instance.
+ * <br/>
+ * Entries loaded from the data store are kept as a separate segment and are only read when the history is queried,
+ * entries completed since then are appended to in memory list. Stored segment can be given either as list (e.g. backed
+ * by protobuf message) or as opaque encoded segment with a reader - in that case it is not decoded at all unless
+ * queried and it is written back exactly as loaded followed by the appended entries. Checks whether given node has been
+ * completed are answered from the set of distinct completed node ids that is bounded by the number of nodes in the
+ * process definition regardless of how many times they were completed.
+ */
+public class CompletedNodeHistory {
+
+    private List<String> stored = Collections.emptyList();
+
+    private Object segment;
+
+    private Supplier<List<String>> reader;
+
+    private final List<String> appended = new ArrayList<>();
+
+    private Set<String> distinct;
+
+    /**
+     * Sets previously stored history, it is not read until it is queried
+     *
+     * @param stored completed node ids in order of completion
+     */
+    public void load(List<String> stored) {
+        this.stored = stored == null ? Collections.emptyList() : stored;
+        this.segment = null;
+        this.reader = null;
+        this.distinct = null;
+    }
+
+    /**
+     * Sets previously stored history as encoded segment, it is decoded by given reader only when it is queried
+     *
+     * @param segment encoded completed node ids as loaded from data store
+     * @param reader decodes the segment into completed node ids in order of completion
+     */
+    public void load(Object segment, Supplier<List<String>> reader) {
+        this.stored = null;
+        this.segment = segment;
+        this.reader = reader;
+        this.distinct = null;
+    }
+
+    public void add(String uniqueId) {
+        appended.add(uniqueId);
+        if (distinct != null) {
+            distinct.add(uniqueId);
+        }
+    }
+
+    public boolean contains(String uniqueId) {
+        return distinct().contains(uniqueId);
+    }
+
+    /**
+     * Returns distinct completed node ids, built on first use from both stored and appended entries
+     *
+     * @return set of completed node ids
+     */
+    public Set<String> distinct() {
+        if (distinct == null) {
+            distinct = new LinkedHashSet<>(stored());
+            distinct.addAll(appended);
+        }
+        return distinct;
+    }
+
+    /**
+     * Returns complete history in order of completion
+     *
+     * @return copy of all completed node ids
+     */
+    public List<String> all() {
+        List<String> stored = stored();
+        List<String> all = new ArrayList<>(stored.size() + appended.size());
+        all.addAll(stored);
+        all.addAll(appended);
+        return all;
+    }
+
+    /**
+     * Returns segment of the history that was loaded from the data store, decoding it if it was loaded as encoded
+     * segment
+     */
+    public List<String> stored() {
+        if (stored == null) {
+            stored = reader.get();
+        }
+        return stored;
+    }
+
+    /**
+     * Returns encoded segment as it was loaded from the data store
+     *
+     * @return encoded segment or null if history was not loaded as encoded segment
+     */
+    public Object segment() {
+        return segment;
+    }
+
+    /**
+     * Returns segment of the history that was completed since the history was loaded
+     */
+    public List<String> appended() {
+        return appended;
+    }
+
+    public int size() {
+        return stored().size() + appended.size();
+    }
+
+    public boolean isEmpty() {
+        return appended.isEmpty() && stored().isEmpty();
+    }
+}
@@ -28,6 +28,7 @@ import io.automatiko.engine.api.runtime.process.NodeInstance;
 import io.automatiko.engine.api.runtime.process.NodeInstanceContainer;
 import io.automatiko.engine.api.runtime.process.NodeInstanceState;
 import io.automatiko.engine.api.workflow.ProcessInstanceInErrorException;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
 import io.automatiko.engine.workflow.base.core.Context;
 import io.automatiko.engine.workflow.base.core.ContextContainer;
 import io.automatiko.engine.workflow.base.core.context.ProcessContext;
@@ -288,6 +289,8 @@ public abstract class NodeInstanceImpl
         if (!hidden) {
             runtime.getProcessEventSupport().fireBeforeNodeTriggered(this, runtime);
         }
+        boolean profiled = Profiling.enabled();
+        long start = profiled ? Profiling.enterNode() : 0;
         try {
             internalTrigger(from, type);
         } catch (ProcessInstanceInErrorException e) {
@@ -299,6 +302,10 @@ public abstract class NodeInstanceImpl
                     getRootException(e).getMessage(), e, runtime);
             // stop after capturing error
             return;
+        } finally {
+            if (profiled) {
+                Profiling.exitNode(getNode(), start);
+            }
         }
         if (!hidden) {
             runtime.getProcessEventSupport().fireAfterNodeTriggered(this, runtime);
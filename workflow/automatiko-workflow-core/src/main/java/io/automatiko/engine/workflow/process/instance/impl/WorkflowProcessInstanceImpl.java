@@ -32,6 +32,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -75,7 +76,9 @@ import io.automatiko.engine.workflow.base.instance.TagInstance;
 import io.automatiko.engine.workflow.base.instance.context.variable.VariableScopeInstance;
 import io.automatiko.engine.workflow.base.instance.impl.ProcessInstanceImpl;
 import io.automatiko.engine.workflow.process.core.ProcessAction;
+import io.automatiko.engine.workflow.process.core.impl.EventRoutingTable;
 import io.automatiko.engine.workflow.process.core.impl.NodeImpl;
+import io.automatiko.engine.workflow.process.core.impl.WorkflowProcessImpl;
 import io.automatiko.engine.workflow.process.core.node.ActionNode;
 import io.automatiko.engine.workflow.process.core.node.BoundaryEventNode;
 import io.automatiko.engine.workflow.process.core.node.CompositeNode;
@@ -119,7 +122,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
     private Map<String, List<EventListener>> eventListeners = new HashMap<>();
     private Map<String, List<EventListener>> externalEventListeners = new HashMap<>();
 
-    private List<String> completedNodeIds = new ArrayList<>();
+    private CompletedNodeHistory completedNodeHistory = new CompletedNodeHistory();
     private List<String> activatingNodeIds;
     private Map<String, Integer> iterationLevels = new HashMap<>();
     private int currentLevel;
@@ -343,6 +346,10 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
             if (variableScopeInstances == null) {
                 return Collections.emptyMap();
             }
+            if (variableScopeInstances.size() == 1) {
+                // single scope is returned as read only view so variables are not copied on every reconnect
+                return ((VariableScopeInstance) variableScopeInstances.get(0)).getVariables();
+            }
             Map<String, Object> result = new HashMap<>();
             for (ContextInstance contextInstance : variableScopeInstances) {
                 Map<String, Object> variables = ((VariableScopeInstance) contextInstance).getVariables();
@@ -631,7 +638,11 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
                 return;
             }
 
-            List<NodeInstance> currentView = new ArrayList<>(this.nodeInstances);
+            EventRoutingTable routingTable = eventRoutingTable();
+            List<Node> eventNodes = type.startsWith("Compensation") ? Collections.emptyList()
+                    : routingTable.eventNodes(type);
+            List<NodeInstance> currentView = eventNodes.isEmpty() ? Collections.emptyList()
+                    : new ArrayList<>(this.nodeInstances);
 
             try {
                 this.activatingNodeIds = new ArrayList<>();
@@ -649,7 +660,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
                 }
                 if (!type.startsWith("Compensation")) { // exclude compensation events to avoid duplicated calls
 
-                    for (Node node : getWorkflowProcess().getNodes()) {
+                    for (Node node : eventNodes) {
 
                         if (node instanceof EventNodeInterface
                                 && ((EventNodeInterface) node).acceptsEvent(type, event, getResolver(node, currentView))) {
@@ -683,7 +694,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
                         }
                     }
                     if (((io.automatiko.engine.workflow.process.core.WorkflowProcess) getWorkflowProcess()).isDynamic()) {
-                        for (Node node : getWorkflowProcess().getNodes()) {
+                        for (Node node : routingTable.dynamicNodes(type)) {
                             if (node.hasMatchingEventListner(type) && node.getIncomingConnections().isEmpty()) {
                                 NodeInstance nodeInstance = getNodeInstance(node);
                                 if (nodeInstance != null) {
@@ -724,6 +735,14 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 
     }
 
+    private EventRoutingTable eventRoutingTable() {
+        WorkflowProcess process = getWorkflowProcess();
+        if (process instanceof WorkflowProcessImpl) {
+            return ((WorkflowProcessImpl) process).getEventRoutingTable();
+        }
+        return new EventRoutingTable(process.getNodes());
+    }
+
     private Function<String, String> getResolver(Node node, List<NodeInstance> currentView) {
         if (node instanceof DynamicNode) {
             // special handling for dynamic node to allow to resolve variables from
@@ -993,7 +1012,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 
                 // check if there are any required nodes not yet completed
                 if (node.getMetaData().containsKey("requiredRule")
-                        && !getCompletedNodeIds().contains(node.getMetaData().get("UniqueId"))) {
+                        && !hasCompletedNode((String) node.getMetaData().get("UniqueId"))) {
                     return false;
                 }
             }
@@ -1016,11 +1035,27 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
     }
 
     public void addCompletedNodeId(String uniqueId) {
-        this.completedNodeIds.add(uniqueId.intern());
+        this.completedNodeHistory.add(uniqueId.intern());
     }
 
     public List<String> getCompletedNodeIds() {
-        return new ArrayList<>(this.completedNodeIds);
+        return this.completedNodeHistory.all();
+    }
+
+    public boolean hasCompletedNode(String uniqueId) {
+        return this.completedNodeHistory.contains(uniqueId);
+    }
+
+    public CompletedNodeHistory getCompletedNodeHistory() {
+        return this.completedNodeHistory;
+    }
+
+    public void internalSetCompletedNodeIds(List<String> completedNodeIds) {
+        this.completedNodeHistory.load(completedNodeIds);
+    }
+
+    public void internalSetCompletedNodeSegment(Object segment, Supplier<List<String>> reader) {
+        this.completedNodeHistory.load(segment, reader);
     }
 
     @Override
@@ -1265,7 +1300,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
     }
 
     private ItemDescription.Status getMilestoneStatus(String uid) {
-        if (getCompletedNodeIds().contains(uid)) {
+        if (hasCompletedNode(uid)) {
             return COMPLETED;
         }
         if (getActiveNodeIds().contains(uid)) {
@@ -1301,7 +1336,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
         boolean allowed = true;
         String uniqueNodeId = (String) node.getMetaData().get("UniqueId");
         if (node.getMetaData().getOrDefault("customAllowRepeat", "true").equals("false")
-                && (hasNodeInstanceActive(uniqueNodeId) || getCompletedNodeIds().contains(uniqueNodeId))) {
+                && (hasNodeInstanceActive(uniqueNodeId) || hasCompletedNode(uniqueNodeId))) {
             allowed = false;
         }
 
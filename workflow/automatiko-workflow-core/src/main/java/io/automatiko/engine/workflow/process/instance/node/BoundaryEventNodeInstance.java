@@ -59,7 +59,7 @@ public class BoundaryEventNodeInstance extends EventNodeInstance {
 
     private boolean isAttachedToNodeCompleted(String attachedTo) {
         WorkflowProcessInstanceImpl processInstance = (WorkflowProcessInstanceImpl) getProcessInstance();
-        return processInstance.getCompletedNodeIds().contains(attachedTo);
+        return processInstance.hasCompletedNode(attachedTo);
     }
 
     @Override
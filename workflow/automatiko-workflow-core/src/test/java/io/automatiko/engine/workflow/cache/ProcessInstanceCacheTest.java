@@ -0,0 +1,109 @@
+package io.automatiko.engine.workflow.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.runtime.process.WorkflowProcessInstance;
+import io.automatiko.engine.workflow.base.core.context.variable.Variable;
+import io.automatiko.engine.workflow.base.core.context.variable.VariableScope;
+import io.automatiko.engine.workflow.base.core.datatype.impl.type.StringDataType;
+import io.automatiko.engine.workflow.base.instance.context.variable.VariableScopeInstance;
+import io.automatiko.engine.workflow.base.instance.impl.ProcessInstanceImpl;
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcess;
+import io.automatiko.engine.workflow.process.executable.instance.ExecutableProcessInstance;
+
+public class ProcessInstanceCacheTest {
+
+    @Test
+    public void testInstanceIsTakenOnlyWithMatchingVersion() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(10, 0);
+        WorkflowProcessInstance instance = instance();
+
+        cache.put("1", 2, instance);
+        assertThat(cache.size()).isEqualTo(1);
+        // taken instance is removed so it is never shared
+        assertThat(cache.take("1", 2)).isSameAs(instance);
+        assertThat(cache.take("1", 2)).isNull();
+
+        // instance stored in other version (e.g. by other node) is not valid any more
+        cache.put("1", 2, instance);
+        assertThat(cache.take("1", 3)).isNull();
+        assertThat(cache.size()).isZero();
+
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(2);
+        assertThat(cache.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictionBySizeAndTime() {
+        AtomicLong clock = new AtomicLong();
+        ProcessInstanceCache cache = new ProcessInstanceCache(2, 100, clock::get);
+
+        cache.put("1", 1, instance());
+        cache.put("2", 1, instance());
+        cache.put("3", 1, instance());
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.take("1", 1)).isNull();
+        assertThat(cache.evictions()).isEqualTo(1);
+
+        clock.set(150);
+        cache.put("4", 1, instance());
+        // both older instances expired
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.take("4", 1)).isNotNull();
+
+        cache.put("5", 1, instance());
+        clock.set(300);
+        assertThat(cache.take("5", 1)).isNull();
+        assertThat(cache.evictions()).isEqualTo(4);
+    }
+
+    @Test
+    public void testTransientVariablesAreRemoved() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(10, 0);
+        WorkflowProcessInstance instance = instance();
+        VariableScopeInstance variables = (VariableScopeInstance) ((ProcessInstanceImpl) instance)
+                .getContextInstance(VariableScope.VARIABLE_SCOPE);
+        variables.internalSetVariable("name", "john");
+        variables.internalSetVariable("temp", "value");
+
+        cache.put("1", 1, instance);
+        WorkflowProcessInstance cached = cache.take("1", 1);
+        assertThat(cached.getVariable("name")).isEqualTo("john");
+        assertThat(cached.getVariable("temp")).isNull();
+    }
+
+    @Test
+    public void testDisabledCache() {
+        ProcessInstanceCache cache = ProcessInstanceCache.disabled();
+        cache.put("1", 1, instance());
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.take("1", 1)).isNull();
+        assertThat(cache.misses()).isZero();
+    }
+
+    private WorkflowProcessInstance instance() {
+        ExecutableProcess process = new ExecutableProcess();
+        process.setId("test");
+        VariableScope variableScope = (VariableScope) process.getDefaultContext(VariableScope.VARIABLE_SCOPE);
+        Variable name = new Variable();
+        name.setName("name");
+        name.setType(new StringDataType());
+        Variable temp = new Variable();
+        temp.setName("temp");
+        temp.setType(new StringDataType());
+        temp.setMetaData(Variable.VARIABLE_TAGS, Variable.TRANSIENT_TAG);
+        variableScope.addVariable(name);
+        variableScope.addVariable(temp);
+
+        ExecutableProcessInstance instance = new ExecutableProcessInstance();
+        instance.setProcess(process);
+        return instance;
+    }
+}
@@ -0,0 +1,76 @@
+package io.automatiko.engine.workflow.expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcess;
+import net.thisptr.jackson.jq.JsonQuery;
+import net.thisptr.jackson.jq.Scope;
+
+public class CompiledJqExpressionsTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testCompiledExpressionsMatchInterpreter() throws Exception {
+        JsonNode data = MAPPER.readTree(
+                "{\"name\":\"john\",\"age\":42,\"address\":{\"city\":\"Lodz\"},\"items\":[{\"id\":1},{\"id\":2}],\"empty\":null}");
+
+        assertSame(".", data, d -> CompiledJqExpressions.path(d));
+        assertSame(".name", data, d -> CompiledJqExpressions.path(d, "name"));
+        assertSame(".address.city", data, d -> CompiledJqExpressions.path(d, "address", "city"));
+        assertSame(".items[1].id", data, d -> CompiledJqExpressions.path(d, "items", 1, "id"));
+        assertSame(".items[5].id", data, d -> CompiledJqExpressions.path(d, "items", 5, "id"));
+        assertSame(".missing.city", data, d -> CompiledJqExpressions.path(d, "missing", "city"));
+        assertSame(".empty.city", data, d -> CompiledJqExpressions.path(d, "empty", "city"));
+        assertSame(".name == \"john\"", data, d -> CompiledJqExpressions.equal(CompiledJqExpressions.path(d, "name"), "john"));
+        assertSame(".age == 42.0", data, d -> CompiledJqExpressions.equal(CompiledJqExpressions.path(d, "age"), 42.0));
+        assertSame(".age != 42", data, d -> CompiledJqExpressions.notEqual(CompiledJqExpressions.path(d, "age"), 42));
+        assertSame(".missing == null", data, d -> CompiledJqExpressions.equal(CompiledJqExpressions.path(d, "missing"), null));
+        assertSame(".name == 1", data, d -> CompiledJqExpressions.equal(CompiledJqExpressions.path(d, "name"), 1));
+        assertSame(".age > 40", data, d -> CompiledJqExpressions.greaterThan(CompiledJqExpressions.path(d, "age"), 40));
+        assertSame(".age <= 40", data, d -> CompiledJqExpressions.lessOrEqual(CompiledJqExpressions.path(d, "age"), 40));
+        assertSame(".name < \"k\"", data, d -> CompiledJqExpressions.lessThan(CompiledJqExpressions.path(d, "name"), "k"));
+    }
+
+    @Test
+    public void testEvaluatorFallsBackToInterpreter() throws Exception {
+        JqExpressionEvaluator evaluator = new JqExpressionEvaluator(new ExecutableProcess());
+        JsonNode data = MAPPER.readTree("{\"name\":\"john\",\"age\":42}");
+
+        CompiledJqExpressions.register(".age.value", d -> CompiledJqExpressions.path(d, "age", "value"));
+        // compiled expression cannot index number so interpreter is used and reports the error
+        assertThatThrownBy(() -> evaluator.evaluate(".age.value", data, null)).isInstanceOf(RuntimeException.class);
+
+        CompiledJqExpressions.register(".age > \"a\"",
+                d -> CompiledJqExpressions.greaterThan(CompiledJqExpressions.path(d, "age"), "a"));
+        assertThat(evaluator.evaluate(".age > \"a\"", data, null)).isEqualTo(interpret(".age > \"a\"", data));
+
+        // expressions with variables are interpreted
+        assertThat(evaluator.evaluate("$CONST.name", data, Collections.singletonMap("CONST", data)))
+                .isEqualTo(data.get("name"));
+        assertThat(evaluator.evaluate("def upper: ascii_upcase; .name | upper", data, null).toString())
+                .isEqualTo("\"JOHN\"");
+        assertThat(evaluator.evaluate(".name", data, null)).isEqualTo(data.get("name"));
+    }
+
+    private void assertSame(String expression, JsonNode data, Function<JsonNode, JsonNode> compiled) throws Exception {
+        assertThat(compiled.apply(data)).as(expression).isEqualTo(interpret(expression, data));
+    }
+
+    private JsonNode interpret(String expression, JsonNode data) throws Exception {
+        Scope scope = Scope.newEmptyScope();
+        scope.loadFunctions(Scope.class.getClassLoader());
+        List<JsonNode> out = JsonQuery.compile(expression).apply(scope, data);
+        return out.isEmpty() ? null : out.get(0);
+    }
+}
@@ -0,0 +1,89 @@
+package io.automatiko.engine.workflow.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.automatiko.engine.api.workflow.files.ByteRange;
+
+public class StreamingFileTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testStreamContent() throws IOException {
+        ByteArrayFile file = new ByteArrayFile("test.txt", CONTENT);
+
+        assertThat(file.hasContent()).isTrue();
+        assertThat(file.size()).isEqualTo(10);
+
+        try (InputStream stream = file.openStream()) {
+            assertThat(stream.readAllBytes()).isEqualTo(CONTENT);
+        }
+        try (InputStream stream = file.openStream(3, 4)) {
+            assertThat(new String(stream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("3456");
+        }
+        // range beyond the content is cut to its end
+        try (InputStream stream = file.openStream(8, 100)) {
+            assertThat(new String(stream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("89");
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThat(file.transferTo(Channels.newChannel(output))).isEqualTo(10);
+        assertThat(output.toByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void testFileWithoutContent() {
+        ByteArrayFile file = new ByteArrayFile("test.txt", null);
+
+        assertThat(file.hasContent()).isFalse();
+        assertThat(file.size()).isEqualTo(-1);
+        assertThatThrownBy(() -> file.openStream()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testStreamingDoesNotChangeSerialization() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        String value = mapper.writeValueAsString(new ByteArrayFile("test.txt", CONTENT));
+
+        assertThat(mapper.readTree(value).fieldNames()).toIterable().containsExactlyInAnyOrder("name", "content",
+                "attributes");
+    }
+
+    @Test
+    public void testParseRange() {
+        assertThat(ByteRange.parse(null, 10)).isNull();
+        assertThat(ByteRange.parse("bytes=0-4", -1)).isNull();
+        assertThat(ByteRange.parse("bytes=0-1,4-5", 10)).isNull();
+        assertThat(ByteRange.parse("items=0-4", 10)).isNull();
+
+        ByteRange range = ByteRange.parse("bytes=2-5", 10);
+        assertThat(range.offset()).isEqualTo(2);
+        assertThat(range.length()).isEqualTo(4);
+        assertThat(range.contentRange(10)).isEqualTo("bytes 2-5/10");
+
+        range = ByteRange.parse("bytes=7-", 10);
+        assertThat(range.offset()).isEqualTo(7);
+        assertThat(range.length()).isEqualTo(3);
+
+        range = ByteRange.parse("bytes=-3", 10);
+        assertThat(range.offset()).isEqualTo(7);
+        assertThat(range.length()).isEqualTo(3);
+
+        range = ByteRange.parse("bytes=5-100", 10);
+        assertThat(range.contentRange(10)).isEqualTo("bytes 5-9/10");
+
+        assertThatThrownBy(() -> ByteRange.parse("bytes=10-12", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
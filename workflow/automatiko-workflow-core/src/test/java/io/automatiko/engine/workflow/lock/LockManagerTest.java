@@ -0,0 +1,69 @@
+package io.automatiko.engine.workflow.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class LockManagerTest {
+
+    @Test
+    public void testLockIsEvictedWhenReleased() {
+        LockManager manager = new LockManager();
+
+        InstanceLock lock = manager.lock("key");
+        assertThat(manager.active()).isEqualTo(0);
+
+        lock.lock();
+        lock.lock();
+        assertThat(manager.active()).isEqualTo(1);
+        assertThat(lock.isHeldByCurrentThread()).isTrue();
+        assertThat(lock.getHoldCount()).isEqualTo(2);
+
+        lock.unlock();
+        assertThat(manager.active()).isEqualTo(1);
+        lock.unlock();
+        assertThat(manager.active()).isEqualTo(0);
+        assertThat(lock.isHeldByCurrentThread()).isFalse();
+        assertThat(manager.acquired()).isEqualTo(2);
+        assertThat(manager.contended()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLocksOfSameKeyAreExclusive() throws Exception {
+        LockManager manager = new LockManager();
+
+        InstanceLock first = manager.lock("key");
+        InstanceLock second = manager.lock("key");
+        AtomicBoolean acquired = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+
+        first.lock();
+        Thread thread = new Thread(() -> {
+            started.countDown();
+            second.lock();
+            acquired.set(true);
+            second.unlock();
+        });
+        thread.start();
+        started.await();
+
+        // wait until the other thread is queued on the lock
+        while (manager.contendedKeys(10).isEmpty()) {
+            Thread.sleep(5);
+        }
+        assertThat(manager.contendedKeys(10)).containsEntry("key", 1);
+        assertThat(acquired.get()).isFalse();
+
+        first.unlock();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(acquired.get()).isTrue();
+        assertThat(manager.active()).isEqualTo(0);
+        assertThat(manager.contended()).isEqualTo(1);
+        assertThat(manager.maxWaitTime(TimeUnit.NANOSECONDS)).isGreaterThan(0);
+    }
+}
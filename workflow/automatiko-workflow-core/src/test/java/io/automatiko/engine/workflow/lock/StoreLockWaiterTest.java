@@ -0,0 +1,93 @@
+package io.automatiko.engine.workflow.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class StoreLockWaiterTest {
+
+    @Test
+    public void testWaiterIsWokenUpWhenLockReleased() throws Exception {
+        StoreLockWaiter waiter = new StoreLockWaiter();
+        AtomicBoolean locked = new AtomicBoolean(true);
+        List<Long> acquiredAfter = new CopyOnWriteArrayList<>();
+
+        long start = System.nanoTime();
+        Thread thread = new Thread(() -> {
+            // polling interval is longer than the limit so only notification can wake the waiter up in time
+            waiter.await("id", () -> locked.compareAndSet(false, true) ? Boolean.TRUE : null, 5000, 60000);
+            acquiredAfter.add(System.nanoTime() - start);
+        });
+        thread.start();
+
+        while (waiter.waiting() == 0) {
+            Thread.sleep(5);
+        }
+        assertThat(waiter.contendedKeys(10)).containsEntry("id", 1);
+
+        locked.set(false);
+        waiter.released("id");
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(acquiredAfter).hasSize(1);
+        assertThat(acquiredAfter.get(0)).isLessThan(TimeUnit.SECONDS.toNanos(5));
+        assertThat(waiter.waiting()).isEqualTo(0);
+        assertThat(waiter.contended()).isEqualTo(1);
+        assertThat(waiter.notified()).isEqualTo(1);
+        assertThat(waiter.contendedKeys(10)).isEmpty();
+    }
+
+    @Test
+    public void testWaitersAcquireLockInOrderOfArrival() throws Exception {
+        StoreLockWaiter waiter = new StoreLockWaiter();
+        AtomicBoolean locked = new AtomicBoolean(true);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; i++) {
+            String name = "waiter-" + i;
+            threads[i] = new Thread(() -> {
+                waiter.await("id", () -> locked.compareAndSet(false, true) ? Boolean.TRUE : null, 10000, 60000);
+                order.add(name);
+            });
+            threads[i].start();
+            while (waiter.waiting() < i + 1) {
+                Thread.sleep(5);
+            }
+            // give the thread time to get queued for its turn
+            Thread.sleep(50);
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            int acquired = order.size();
+            locked.set(false);
+            waiter.released("id");
+            while (order.size() == acquired) {
+                Thread.sleep(5);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(order).containsExactly("waiter-0", "waiter-1", "waiter-2");
+        assertThat(waiter.contended()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLockNotAcquiredWithinLimit() {
+        StoreLockWaiter waiter = new StoreLockWaiter();
+
+        assertThatThrownBy(() -> waiter.await("id", () -> null, 50, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("(id)");
+        assertThat(waiter.timedOut()).isEqualTo(1);
+        assertThat(waiter.waiting()).isEqualTo(0);
+    }
+}
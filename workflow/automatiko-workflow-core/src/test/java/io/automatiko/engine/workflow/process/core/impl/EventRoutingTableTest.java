@@ -0,0 +1,110 @@
+package io.automatiko.engine.workflow.process.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.definition.process.Node;
+import io.automatiko.engine.workflow.base.core.event.BroadcastEventTypeFilter;
+import io.automatiko.engine.workflow.base.core.event.EventTypeFilter;
+import io.automatiko.engine.workflow.process.core.node.ActionNode;
+import io.automatiko.engine.workflow.process.core.node.BoundaryEventNode;
+import io.automatiko.engine.workflow.process.core.node.CompositeContextNode;
+import io.automatiko.engine.workflow.process.core.node.EventNode;
+import io.automatiko.engine.workflow.process.core.node.EventSubProcessNode;
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcess;
+
+public class EventRoutingTableTest {
+
+    @Test
+    public void testEventNodesRoutedByType() {
+        for (int size : new int[] { 10, 100, 1000 }) {
+            ExecutableProcess process = process(size);
+
+            EventNode expression = eventNode(new BoundaryEventNode(), "Message-#{name}");
+            expression.setId(size + 1);
+            process.addNode(expression);
+
+            EventRoutingTable table = process.getEventRoutingTable();
+            Node signal = process.getNode(size / 2);
+            // only node accepting the type and the node with expression are visited
+            assertThat(table.eventNodes("signal-" + (size / 2))).containsExactly(signal, expression);
+            assertThat(table.eventNodes("unknown")).containsExactly(expression);
+        }
+    }
+
+    @Test
+    public void testNestedAndCustomFilters() {
+        ExecutableProcess process = process(10);
+
+        CompositeContextNode composite = new CompositeContextNode();
+        composite.setId(20);
+        composite.addNode(eventNode(new EventNode(), "nested"));
+        process.addNode(composite);
+
+        EventSubProcessNode eventSubProcess = new EventSubProcessNode();
+        eventSubProcess.setId(21);
+        EventTypeFilter filter = new EventTypeFilter();
+        filter.setType("subprocess");
+        eventSubProcess.addEvent(filter);
+        process.addNode(eventSubProcess);
+
+        EventNode broadcast = new EventNode();
+        broadcast.setId(22);
+        BroadcastEventTypeFilter broadcastFilter = new BroadcastEventTypeFilter();
+        broadcastFilter.setType("escalation");
+        broadcast.addEventFilter(broadcastFilter);
+        process.addNode(broadcast);
+
+        EventRoutingTable table = process.getEventRoutingTable();
+        assertThat(table.eventNodes("nested")).containsExactly(composite, broadcast);
+        assertThat(table.eventNodes("subprocess")).containsExactly(eventSubProcess, broadcast);
+        assertThat(table.eventNodes("escalation-1")).containsExactly(broadcast);
+        assertThat(table.eventNodes("signal-1")).containsExactly(process.getNode(1), broadcast);
+    }
+
+    @Test
+    public void testDynamicNodesRoutedByActivationEvents() {
+        ExecutableProcess process = process(10);
+        process.setDynamic(true);
+
+        ActionNode action = new ActionNode();
+        action.setId(20);
+        action.setName("task");
+        action.setMetaData(NodeImpl.ACTIVATION_EVENTS, Collections.singletonList("activate"));
+        process.addNode(action);
+
+        CompositeContextNode composite = new CompositeContextNode();
+        composite.setId(21);
+        process.addNode(composite);
+
+        EventRoutingTable table = process.getEventRoutingTable();
+        assertThat(table.dynamicNodes("task")).containsExactly(action, composite);
+        assertThat(table.dynamicNodes("activate")).containsExactly(action, composite);
+        assertThat(table.dynamicNodes("other")).containsExactly(composite);
+
+        // table is rebuilt when nodes are changed
+        process.removeNode(action);
+        assertThat(process.getEventRoutingTable().dynamicNodes("task")).containsExactly(composite);
+    }
+
+    private ExecutableProcess process(int size) {
+        ExecutableProcess process = new ExecutableProcess();
+        process.setId("test");
+        for (int i = 0; i < size; i++) {
+            EventNode node = eventNode(new EventNode(), "signal-" + i);
+            node.setId(i);
+            process.addNode(node);
+        }
+        return process;
+    }
+
+    private EventNode eventNode(EventNode node, String type) {
+        EventTypeFilter filter = new EventTypeFilter();
+        filter.setType(type);
+        node.addEventFilter(filter);
+        return node;
+    }
+}
@@ -0,0 +1,71 @@
+package io.automatiko.engine.workflow.process.instance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.api.definition.process.Node;
+import io.automatiko.engine.api.workflow.profiling.ExecutionProfiler;
+import io.automatiko.engine.api.workflow.profiling.Profiling;
+import io.automatiko.engine.workflow.base.instance.LightProcessRuntime;
+import io.automatiko.engine.workflow.base.instance.LightProcessRuntimeContext;
+import io.automatiko.engine.workflow.base.instance.LightProcessRuntimeServiceProvider;
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcess;
+import io.automatiko.engine.workflow.process.executable.core.ExecutableProcessFactory;
+
+public class ExecutionProfilingTest {
+
+    @AfterEach
+    public void cleanup() {
+        Profiling.unregister();
+    }
+
+    @Test
+    public void testNodeTimeExcludesTriggeredNodes() {
+        ExecutableProcessFactory factory = ExecutableProcessFactory.createProcess("org.jbpm.ProfiledProcess");
+        factory.name("ProfiledProcess").version("1.0").packageName("org.jbpm")
+                .startNode(1).name("Start").done()
+                .actionNode(2).name("Slow").action(ctx -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }).done()
+                .endNode(3).name("End").done()
+                .connection(1, 2).connection(2, 3);
+        ExecutableProcess process = factory.validate().getProcess();
+
+        Map<String, Long> recorded = new ConcurrentHashMap<>();
+        Profiling.register(new ExecutionProfiler() {
+
+            @Override
+            public void nodeExecuted(Node node, long nanos) {
+                recorded.merge(node.getName(), nanos, Long::sum);
+            }
+        });
+        assertThat(Profiling.enabled()).isTrue();
+
+        LightProcessRuntime runtime = new LightProcessRuntime(
+                new LightProcessRuntimeContext(Collections.singletonList(process)),
+                new LightProcessRuntimeServiceProvider());
+        runtime.startProcess(process.getId());
+
+        assertThat(recorded).containsOnlyKeys("Start", "Slow", "End");
+        // start node triggers the slow node synchronously but its time is not included
+        assertThat(recorded.get("Slow")).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(recorded.get("Start")).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+
+        Profiling.unregister();
+        recorded.clear();
+        runtime.startProcess(process.getId());
+        assertThat(Profiling.enabled()).isFalse();
+        assertThat(recorded).isEmpty();
+    }
+}
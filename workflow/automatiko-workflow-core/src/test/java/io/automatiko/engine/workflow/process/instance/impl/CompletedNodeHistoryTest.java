@@ -0,0 +1,73 @@
+package io.automatiko.engine.workflow.process.instance.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.automatiko.engine.workflow.marshalling.impl.AutomatikoMessages;
+
+public class CompletedNodeHistoryTest {
+
+    @Test
+    public void testHistoryKeepsOrderAndDistinctSummary() {
+        CompletedNodeHistory history = new CompletedNodeHistory();
+        assertThat(history.isEmpty()).isTrue();
+
+        history.load(Arrays.asList("_1", "_2", "_3", "_2", "_3"));
+        history.add("_2");
+        history.add("_4");
+
+        assertThat(history.size()).isEqualTo(7);
+        assertThat(history.all()).containsExactly("_1", "_2", "_3", "_2", "_3", "_2", "_4");
+        assertThat(history.distinct()).containsExactly("_1", "_2", "_3", "_4");
+        assertThat(history.contains("_3")).isTrue();
+        assertThat(history.contains("_5")).isFalse();
+
+        // summary is kept up to date once built
+        history.add("_5");
+        assertThat(history.contains("_5")).isTrue();
+        assertThat(history.distinct()).hasSize(5);
+    }
+
+    @Test
+    public void testStoredSegmentPassedThrough() {
+        AutomatikoMessages.ProcessInstance stored = AutomatikoMessages.ProcessInstance.newBuilder()
+                .addAllCompletedNodeIds(Arrays.asList("_1", "_2", "_1", "_2")).build();
+
+        CompletedNodeHistory history = new CompletedNodeHistory();
+        history.load(stored.getCompletedNodeIdsList());
+        history.add("_3");
+
+        AutomatikoMessages.ProcessInstance updated = AutomatikoMessages.ProcessInstance.newBuilder()
+                .addAllCompletedNodeIds(history.stored())
+                .addAllCompletedNodeIds(history.appended()).build();
+
+        assertThat(updated.getCompletedNodeIdsList()).containsExactly("_1", "_2", "_1", "_2", "_3");
+        assertThat(history.stored()).isSameAs(stored.getCompletedNodeIdsList());
+    }
+
+    @Test
+    public void testEncodedSegmentReadOnlyWhenQueried() {
+        AtomicInteger reads = new AtomicInteger();
+        Object segment = new Object();
+
+        CompletedNodeHistory history = new CompletedNodeHistory();
+        history.load(segment, () -> {
+            reads.incrementAndGet();
+            return Arrays.asList("_1", "_2", "_1");
+        });
+        history.add("_3");
+
+        // appending and writing back the segment does not need to read it
+        assertThat(history.segment()).isSameAs(segment);
+        assertThat(history.appended()).containsExactly("_3");
+        assertThat(reads).hasValue(0);
+
+        assertThat(history.contains("_2")).isTrue();
+        assertThat(history.all()).containsExactly("_1", "_2", "_1", "_3");
+        assertThat(reads).hasValue(1);
+    }
+}